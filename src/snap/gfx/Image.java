@@ -286,6 +286,23 @@ public abstract class Image implements Loadable {
      */
     protected abstract byte[] getBytesRGBAImpl();
 
+    /**
+     * Sets the image pixels from given array of ARGB ints (pixel width x pixel height, row major).
+     */
+    public void setPixelsARGB(int[] thePixels)
+    {
+        _bytesRGB = _bytesRGBA = null;
+        setPixelsARGBImpl(thePixels);
+    }
+
+    /**
+     * Sets the image pixels from given array of ARGB ints.
+     */
+    protected void setPixelsARGBImpl(int[] thePixels)
+    {
+        System.err.println("Image.setPixelsARGB: Not impl");
+    }
+
     /**
      * Returns the JPEG bytes for image.
      */
@@ -257,16 +257,10 @@ public abstract class Painter {
      */
     public void strokeString(String aStr, double aX, double aY, double charSpacing)
     {
+        // Get outline for whole string (font file can cache outline for repeated strings) and draw
         Font font = getFont();
-
-        // Iterate over chars and draw each
-        double charX = aX;
-        for (int i = 0, iMax = aStr.length(); i < iMax; i++) {
-            char c = aStr.charAt(i);
-            Shape shape = font.getOutline(String.valueOf(c), charX, aY, charSpacing);
-            draw(shape);
-            charX += font.charAdvance(c) + charSpacing;
-        }
+        Shape shape = font.getOutline(aStr, aX, aY, charSpacing);
+        draw(shape);
     }
 
     /**
@@ -10,6 +10,10 @@ import java.util.List;
 /**
  * This class is a simple implementation of a Binary Space Partitioning Tree.
  * By recursively adding nodes (shapes) this separates nodes into nodes in front and nodes not in front.
+ *
+ * A tree built with createBinarySpaceTreeWithSplits() (which splits polygons that straddle a node plane) can be
+ * built once from shapes in scene coords, kept across camera changes and traversed for any eye point to get shapes
+ * in back to front order (see loadBackToFrontList(list, eyePoint)).
  */
 public class BinarySpaceTree {
 
@@ -25,9 +29,20 @@ public class BinarySpaceTree {
     // The node not in front (not necessarily geometrically in behind shape plane)
     private BinarySpaceTree _backNode;
 
+    // The plane of shape (normal and distance from origin), cached for eye point traversal
+    private Vector3D  _planeNormal;
+    private double  _planeD;
+
     // Whether error has been hit
     private static boolean _hitError;
 
+    // The tolerance for point distance to plane to treat point as on plane
+    private static final double PLANE_TOLERANCE = .01;
+
+    // The number of candidate split shapes to evaluate (and shapes to test them against) when building split tree
+    private static final int SPLIT_CANDIDATE_COUNT = 5;
+    private static final int SPLIT_SAMPLE_COUNT = 64;
+
     // Constants for comparison/ordering of Path3Ds
     public static final int ORDER_BACK_TO_FRONT = -1;
     public static final int ORDER_FRONT_TO_BACK = 1;
@@ -173,6 +188,46 @@ public class BinarySpaceTree {
             _frontNode.loadBackToFrontList(sortedList);
     }
 
+    /**
+     * Loads a list from this node in back to front order for given eye point.
+     */
+    public void loadBackToFrontList(List<FacetShape> sortedList, Point3D eyePoint)
+    {
+        // Get whether eye is in front of shape plane
+        boolean eyeInFront = getDistanceFromPlaneToPoint(eyePoint) >= 0;
+
+        // Add nodes on far side of shape plane
+        BinarySpaceTree farNode = eyeInFront ? _backNode : _frontNode;
+        if (farNode != null)
+            farNode.loadBackToFrontList(sortedList, eyePoint);
+
+        // Add Shape and PlanarNode shapes
+        for (BinarySpaceTree planarNode = this; planarNode != null; planarNode = planarNode._planarNode)
+            sortedList.add(planarNode._shape);
+
+        // Add nodes on near side of shape plane
+        BinarySpaceTree nearNode = eyeInFront ? _frontNode : _backNode;
+        if (nearNode != null)
+            nearNode.loadBackToFrontList(sortedList, eyePoint);
+    }
+
+    /**
+     * Returns the distance from this node shape plane to given point.
+     */
+    private double getDistanceFromPlaneToPoint(Point3D aPoint)
+    {
+        // If plane not yet cached, get normal and D from Ax + By + Cz + D = 0
+        if (_planeNormal == null) {
+            Vector3D normal = _shape.getNormal();
+            Point3D planePoint = _shape.getPoint(0);
+            _planeD = -normal.x * planePoint.x - normal.y * planePoint.y - normal.z * planePoint.z;
+            _planeNormal = normal;
+        }
+
+        // Return distance
+        return _planeNormal.x * aPoint.x + _planeNormal.y * aPoint.y + _planeNormal.z * aPoint.z + _planeD;
+    }
+
     /**
      * Returns a BinarySpaceNode tree for given list of shapes.
      */
@@ -216,6 +271,165 @@ public class BinarySpaceTree {
         return rootNode;
     }
 
+    /**
+     * Returns a BinarySpaceTree for given list of shapes, splitting polygons that straddle node planes.
+     * Unlike createBinarySpaceTree(), this tree is independent of camera and can be traversed for any eye point.
+     */
+    public static BinarySpaceTree createBinarySpaceTreeWithSplits(List<FacetShape> theShapes)
+    {
+        // If empty list, just return
+        if (theShapes.size() == 0) return null;
+
+        // Get split shape and create node
+        FacetShape splitShape = getSplitShape(theShapes);
+        BinarySpaceTree node = new BinarySpaceTree(splitShape);
+        Vector3D normal = splitShape.getNormal();
+        Point3D planePoint = splitShape.getPoint(0);
+        double planeD = -normal.x * planePoint.x - normal.y * planePoint.y - normal.z * planePoint.z;
+        node._planeNormal = normal;
+        node._planeD = planeD;
+
+        // Iterate over other shapes and add to planar nodes, front shapes or back shapes (splitting if straddling)
+        List<FacetShape> frontShapes = new ArrayList<>();
+        List<FacetShape> backShapes = new ArrayList<>();
+        BinarySpaceTree planarTail = node;
+        for (FacetShape shape : theShapes) {
+
+            // Skip split shape
+            if (shape == splitShape)
+                continue;
+
+            // Get shape point distances to node plane
+            double[] pointDists = getPointDistances(shape, normal, planeD);
+            int side = getSideForPointDistances(pointDists);
+
+            // Handle coplanar: Add to PlanarNode tail
+            if (side == ORDER_SAME) {
+                planarTail._planarNode = new BinarySpaceTree(shape);
+                planarTail = planarTail._planarNode;
+            }
+
+            // Handle front or back
+            else if (side == ORDER_BACK_TO_FRONT)
+                frontShapes.add(shape);
+            else if (side == ORDER_FRONT_TO_BACK)
+                backShapes.add(shape);
+
+            // Handle straddle: Split polygons (without painter) - otherwise add to side of shape center
+            else if (shape instanceof Polygon3D && shape.getPainter() == null) {
+                SplitPolygon[] splitPolygons = SplitPolygon.createSplitPolygons((Polygon3D) shape, pointDists);
+                if (splitPolygons[0] != null)
+                    frontShapes.add(splitPolygons[0]);
+                if (splitPolygons[1] != null)
+                    backShapes.add(splitPolygons[1]);
+            }
+            else {
+                Point3D center = shape.getBoundsCenter();
+                double centerDist = normal.x * center.x + normal.y * center.y + normal.z * center.z + planeD;
+                (centerDist >= 0 ? frontShapes : backShapes).add(shape);
+            }
+        }
+
+        // Create front and back nodes
+        node._frontNode = createBinarySpaceTreeWithSplits(frontShapes);
+        node._backNode = createBinarySpaceTreeWithSplits(backShapes);
+
+        // Return
+        return node;
+    }
+
+    /**
+     * Returns the best split shape from a few candidates in given list (fewest splits and most balanced).
+     */
+    private static FacetShape getSplitShape(List<FacetShape> theShapes)
+    {
+        // If only a few shapes, just return first
+        int shapeCount = theShapes.size();
+        if (shapeCount <= 2)
+            return theShapes.get(0);
+
+        // Iterate over candidates (spread over list) to find the one with the best score
+        FacetShape splitShape = theShapes.get(0);
+        int bestScore = Integer.MAX_VALUE;
+        int candidateCount = Math.min(SPLIT_CANDIDATE_COUNT, shapeCount);
+        int sampleCount = Math.min(SPLIT_SAMPLE_COUNT, shapeCount);
+        for (int i = 0; i < candidateCount; i++) {
+
+            // Get candidate and plane
+            FacetShape candidate = theShapes.get(i * shapeCount / candidateCount);
+            Vector3D normal = candidate.getNormal();
+            Point3D planePoint = candidate.getPoint(0);
+            double planeD = -normal.x * planePoint.x - normal.y * planePoint.y - normal.z * planePoint.z;
+
+            // Count splits and front/back shapes for sample shapes
+            int splitCount = 0, frontCount = 0, backCount = 0;
+            for (int j = 0; j < sampleCount; j++) {
+                FacetShape shape = theShapes.get(j * shapeCount / sampleCount);
+                int side = getSideForPointDistances(getPointDistances(shape, normal, planeD));
+                if (side == ORDER_INDETERMINATE) splitCount++;
+                else if (side == ORDER_BACK_TO_FRONT) frontCount++;
+                else if (side == ORDER_FRONT_TO_BACK) backCount++;
+            }
+
+            // If better score, swap in
+            int score = splitCount * 8 + Math.abs(frontCount - backCount);
+            if (score < bestScore) {
+                bestScore = score;
+                splitShape = candidate;
+            }
+        }
+
+        // Return
+        return splitShape;
+    }
+
+    /**
+     * Returns the distances of given shape points to given plane (distances near zero are snapped to zero).
+     */
+    private static double[] getPointDistances(FacetShape aShape, Vector3D aNormal, double planeD)
+    {
+        // Get points array for Polygon3D (to avoid Point3D for each point)
+        int pointCount = aShape.getPointCount();
+        double[] pointDists = new double[pointCount];
+        float[] pointArray = aShape instanceof Polygon3D ? ((Polygon3D) aShape).getPointArray() : null;
+
+        // Iterate over points and get distance for each
+        for (int i = 0; i < pointCount; i++) {
+            double x, y, z;
+            if (pointArray != null) {
+                int pointArrayIndex = i * Polygon3D.POINT_COMP_COUNT;
+                x = pointArray[pointArrayIndex];
+                y = pointArray[pointArrayIndex + 1];
+                z = pointArray[pointArrayIndex + 2];
+            }
+            else {
+                Point3D point = aShape.getPoint(i);
+                x = point.x; y = point.y; z = point.z;
+            }
+            double pointDist = aNormal.x * x + aNormal.y * y + aNormal.z * z + planeD;
+            pointDists[i] = MathUtils.equalsZero(pointDist, PLANE_TOLERANCE) ? 0 : pointDist;
+        }
+
+        // Return
+        return pointDists;
+    }
+
+    /**
+     * Returns the side of plane for given point distances: BACK_TO_FRONT for front, FRONT_TO_BACK for back,
+     * SAME for coplanar and INDETERMINATE for straddle.
+     */
+    private static int getSideForPointDistances(double[] pointDists)
+    {
+        boolean hasFront = false, hasBack = false;
+        for (double pointDist : pointDists) {
+            if (pointDist > 0) hasFront = true;
+            else if (pointDist < 0) hasBack = true;
+        }
+        if (hasFront && hasBack)
+            return ORDER_INDETERMINATE;
+        return hasFront ? ORDER_BACK_TO_FRONT : hasBack ? ORDER_FRONT_TO_BACK : ORDER_SAME;
+    }
+
     /**
      * Sorts a list of shapes in paint order from back to front.
      */
@@ -293,4 +507,121 @@ public class BinarySpaceTree {
         // Distance is Ax + By + Cz + D / NormalMagnitude (magnitude of normal is 1)
         return normal.x * aPoint.x + normal.y * aPoint.y + normal.z * aPoint.z + D;
     }
+    /**
+     * A Polygon3D piece of a source polygon that was split by a BinarySpaceTree node plane.
+     * Cut edges (edges on split planes) are tracked so renderers can skip them when stroking.
+     */
+    public static class SplitPolygon extends Polygon3D {
+
+        // The source polygon
+        private Polygon3D  _source;
+
+        // Whether each edge (from point at index to next point) is a cut edge
+        private boolean[]  _cutEdges;
+
+        /**
+         * Constructor.
+         */
+        private SplitPolygon(Polygon3D aSource)
+        {
+            super();
+            _source = aSource instanceof SplitPolygon ? ((SplitPolygon) aSource)._source : aSource;
+            setColor(aSource.getColor());
+            setStroke(aSource.getStroke());
+            setStrokeColor(aSource.getStrokeColor());
+            setOpacity(aSource.getOpacity());
+            setDoubleSided(aSource.isDoubleSided());
+        }
+
+        /**
+         * Returns the source polygon.
+         */
+        public Polygon3D getSource()  { return _source; }
+
+        /**
+         * Returns whether edge from point at given index to next point is a cut edge.
+         */
+        public boolean isCutEdge(int anIndex)  { return _cutEdges[anIndex]; }
+
+        /**
+         * Override to return source normal (pieces are coplanar with source).
+         */
+        @Override
+        protected Vector3D createNormal()  { return _source.getNormal().clone(); }
+
+        /**
+         * Returns whether edge from point at given index to next point is cut for given polygon.
+         */
+        private static boolean isCutEdge(Polygon3D aPoly, int anIndex)
+        {
+            return aPoly instanceof SplitPolygon && ((SplitPolygon) aPoly)._cutEdges[anIndex];
+        }
+
+        /**
+         * Returns front and back pieces of given polygon for given point distances to split plane (either can be null).
+         */
+        private static SplitPolygon[] createSplitPolygons(Polygon3D aPoly, double[] pointDists)
+        {
+            SplitPolygon frontPoly = new SplitPolygon(aPoly);
+            SplitPolygon backPoly = new SplitPolygon(aPoly);
+            int pointCount = aPoly.getPointCount();
+            float[] pointArray = aPoly.getPointArray();
+
+            // Source edge index for edge starting at each piece point (or -1 for new cut edge along split plane)
+            int[] frontEdges = new int[pointCount * 2];
+            int[] backEdges = new int[pointCount * 2];
+            int frontCount = 0, backCount = 0;
+
+            // Iterate over points and add to front/back pieces (with intersection points for edges that cross plane)
+            for (int i = 0; i < pointCount; i++) {
+                int j = (i + 1) % pointCount;
+                double dist1 = pointDists[i];
+                double dist2 = pointDists[j];
+                int pointIndex1 = i * POINT_COMP_COUNT;
+                float x = pointArray[pointIndex1], y = pointArray[pointIndex1 + 1], z = pointArray[pointIndex1 + 2];
+
+                // Add point to front and/or back piece (edge from point on plane to other side is a cut edge)
+                if (dist1 >= 0) {
+                    frontPoly.addPoint(x, y, z);
+                    frontEdges[frontCount++] = dist1 > 0 || dist2 >= 0 ? i : -1;
+                }
+                if (dist1 <= 0) {
+                    backPoly.addPoint(x, y, z);
+                    backEdges[backCount++] = dist1 < 0 || dist2 <= 0 ? i : -1;
+                }
+
+                // If edge crosses plane, add intersection point to both pieces
+                if (dist1 > 0 && dist2 < 0 || dist1 < 0 && dist2 > 0) {
+                    int pointIndex2 = j * POINT_COMP_COUNT;
+                    double t = dist1 / (dist1 - dist2);
+                    double ix = x + (pointArray[pointIndex2] - x) * t;
+                    double iy = y + (pointArray[pointIndex2 + 1] - y) * t;
+                    double iz = z + (pointArray[pointIndex2 + 2] - z) * t;
+                    frontPoly.addPoint(ix, iy, iz);
+                    backPoly.addPoint(ix, iy, iz);
+
+                    // Intersection leaving front side starts cut edge for front piece, source edge for back piece
+                    boolean leavingFront = dist1 > 0;
+                    frontEdges[frontCount++] = leavingFront ? -1 : i;
+                    backEdges[backCount++] = leavingFront ? i : -1;
+                }
+            }
+
+            // Set cut edges and return pieces (null if degenerate)
+            SplitPolygon front = frontCount >= 3 ? frontPoly.setCutEdges(aPoly, frontEdges, frontCount) : null;
+            SplitPolygon back = backCount >= 3 ? backPoly.setCutEdges(aPoly, backEdges, backCount) : null;
+            return new SplitPolygon[] { front, back };
+        }
+
+        /**
+         * Sets cut edges from given source edge indexes (-1 for new cut edge) and returns this polygon.
+         */
+        private SplitPolygon setCutEdges(Polygon3D aPoly, int[] sourceEdges, int edgeCount)
+        {
+            _cutEdges = new boolean[edgeCount];
+            for (int i = 0; i < edgeCount; i++)
+                _cutEdges[i] = sourceEdges[i] < 0 || isCutEdge(aPoly, sourceEdges[i]);
+            return this;
+        }
+    }
 }
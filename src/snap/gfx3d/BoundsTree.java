@@ -0,0 +1,336 @@
+/*
+ * Copyright (c) 2010, ReportMill Software. All rights reserved.
+ */
+package snap.gfx3d;
+import java.util.Arrays;
+import java.util.function.DoubleSupplier;
+import java.util.function.IntPredicate;
+
+/**
+ * A bounding volume hierarchy (BVH) of axis aligned boxes for a set of items (triangles or shapes), so that items
+ * hit by a ray can be found in O(log n) instead of testing every item.
+ */
+public class BoundsTree {
+
+    // The item indexes, ordered so that each node has a contiguous range
+    private int[]  _items;
+
+    // The node bounds (minX, minY, minZ, maxX, maxY, maxZ for each node)
+    private float[]  _nodeBounds;
+
+    // The node start: For leaf, start in items array - otherwise index of first child node (second child follows)
+    private int[]  _nodeStarts;
+
+    // The node item counts (zero for branch nodes)
+    private int[]  _nodeCounts;
+
+    // The number of nodes
+    private int  _nodeCount;
+
+    // Constant for max number of items in leaf node
+    private static final int LEAF_SIZE = 4;
+
+    /**
+     * Constructor for given item bounds array (minX, minY, minZ, maxX, maxY, maxZ for each item).
+     */
+    public BoundsTree(float[] itemBounds, int itemCount)
+    {
+        // Create items array
+        _items = new int[itemCount];
+        for (int i = 0; i < itemCount; i++)
+            _items[i] = i;
+
+        // Get item centers
+        float[] itemCenters = new float[itemCount * 3];
+        for (int i = 0; i < itemCount; i++)
+            for (int axis = 0; axis < 3; axis++)
+                itemCenters[i * 3 + axis] = (itemBounds[i * 6 + axis] + itemBounds[i * 6 + axis + 3]) / 2;
+
+        // Create node arrays (tree has at most 2n/LEAF_SIZE nodes, but grow if needed) and build
+        int nodeCapacity = Math.max(itemCount * 2 / LEAF_SIZE + 1, 1);
+        _nodeBounds = new float[nodeCapacity * 6];
+        _nodeStarts = new int[nodeCapacity];
+        _nodeCounts = new int[nodeCapacity];
+        int rootNode = addNode();
+        buildNode(rootNode, 0, itemCount, itemBounds, itemCenters);
+    }
+
+    /**
+     * Returns the number of items.
+     */
+    public int getItemCount()  { return _items.length; }
+
+    /**
+     * Returns the number of nodes.
+     */
+    public int getNodeCount()  { return _nodeCount; }
+
+    /**
+     * Adds a node and returns its index.
+     */
+    private int addNode()
+    {
+        // Grow arrays if needed
+        if (_nodeCount == _nodeStarts.length) {
+            int newCapacity = _nodeCount * 2;
+            _nodeBounds = Arrays.copyOf(_nodeBounds, newCapacity * 6);
+            _nodeStarts = Arrays.copyOf(_nodeStarts, newCapacity);
+            _nodeCounts = Arrays.copyOf(_nodeCounts, newCapacity);
+        }
+
+        // Return next node
+        return _nodeCount++;
+    }
+
+    /**
+     * Builds given node for items in given range: Sets node bounds then splits at median of longest axis of centers.
+     */
+    private void buildNode(int aNode, int aStart, int anEnd, float[] itemBounds, float[] itemCenters)
+    {
+        // Get node bounds and item centers bounds
+        float[] centerBounds = new float[6];
+        Arrays.fill(centerBounds, 0, 3, Float.MAX_VALUE);
+        Arrays.fill(centerBounds, 3, 6, -Float.MAX_VALUE);
+        int boundsIndex = aNode * 6;
+        Arrays.fill(_nodeBounds, boundsIndex, boundsIndex + 3, Float.MAX_VALUE);
+        Arrays.fill(_nodeBounds, boundsIndex + 3, boundsIndex + 6, -Float.MAX_VALUE);
+        for (int i = aStart; i < anEnd; i++) {
+            int item = _items[i];
+            for (int axis = 0; axis < 3; axis++) {
+                _nodeBounds[boundsIndex + axis] = Math.min(_nodeBounds[boundsIndex + axis], itemBounds[item * 6 + axis]);
+                _nodeBounds[boundsIndex + axis + 3] = Math.max(_nodeBounds[boundsIndex + axis + 3], itemBounds[item * 6 + axis + 3]);
+                float center = itemCenters[item * 3 + axis];
+                centerBounds[axis] = Math.min(centerBounds[axis], center);
+                centerBounds[axis + 3] = Math.max(centerBounds[axis + 3], center);
+            }
+        }
+
+        // Pad node bounds by a float ulp, so rounding can't make ray miss an item that is hit
+        for (int axis = 0; axis < 3; axis++) {
+            _nodeBounds[boundsIndex + axis] = Math.nextDown(_nodeBounds[boundsIndex + axis]);
+            _nodeBounds[boundsIndex + axis + 3] = Math.nextUp(_nodeBounds[boundsIndex + axis + 3]);
+        }
+
+        // If few items, make leaf
+        int count = anEnd - aStart;
+        if (count <= LEAF_SIZE) {
+            _nodeStarts[aNode] = aStart;
+            _nodeCounts[aNode] = count;
+            return;
+        }
+
+        // Get longest axis of item centers (if all centers are the same, make leaf)
+        int axis = 0;
+        for (int i = 1; i < 3; i++)
+            if (centerBounds[i + 3] - centerBounds[i] > centerBounds[axis + 3] - centerBounds[axis])
+                axis = i;
+        if (centerBounds[axis + 3] - centerBounds[axis] <= 0) {
+            _nodeStarts[aNode] = aStart;
+            _nodeCounts[aNode] = count;
+            return;
+        }
+
+        // Partition items at median along axis
+        int mid = (aStart + anEnd) / 2;
+        selectItem(aStart, anEnd - 1, mid, axis, itemCenters);
+
+        // Add child nodes and build
+        int child1 = addNode();
+        int child2 = addNode();
+        _nodeStarts[aNode] = child1;
+        _nodeCounts[aNode] = 0;
+        buildNode(child1, aStart, mid, itemBounds, itemCenters);
+        buildNode(child2, mid, anEnd, itemBounds, itemCenters);
+    }
+
+    /**
+     * Reorders items in given range so that item at given index is the one that would be there if sorted by center
+     * along given axis, with smaller items before and larger items after (quickselect).
+     */
+    private void selectItem(int aLeft, int aRight, int anIndex, int anAxis, float[] itemCenters)
+    {
+        int left = aLeft, right = aRight;
+        while (left < right) {
+
+            // Partition around middle item center
+            float pivot = itemCenters[_items[(left + right) >>> 1] * 3 + anAxis];
+            int i = left, j = right;
+            while (i <= j) {
+                while (itemCenters[_items[i] * 3 + anAxis] < pivot) i++;
+                while (itemCenters[_items[j] * 3 + anAxis] > pivot) j--;
+                if (i <= j) {
+                    int item = _items[i]; _items[i] = _items[j]; _items[j] = item;
+                    i++; j--;
+                }
+            }
+
+            // Continue with partition that has index
+            if (anIndex <= j)
+                right = j;
+            else if (anIndex >= i)
+                left = i;
+            else return;
+        }
+    }
+
+    /**
+     * Visits items whose bounds are hit by given ray (nearest nodes first), skipping nodes that start beyond the
+     * max ray distance from given supplier. Returns whether any visited item returned true (stops if stopOnHit).
+     */
+    public boolean visitItemsHitByRay(Point3D rayOrigin, Vector3D rayDir, DoubleSupplier maxDistance,
+                                      boolean stopOnHit, IntPredicate itemVisitor)
+    {
+        // If no items, just return
+        if (_items.length == 0)
+            return false;
+
+        // Get ray origin and inverse direction
+        double originX = rayOrigin.x, originY = rayOrigin.y, originZ = rayOrigin.z;
+        double invDirX = 1 / rayDir.x, invDirY = 1 / rayDir.y, invDirZ = 1 / rayDir.z;
+
+        // Iterate over nodes with stack
+        int[] nodeStack = new int[64];
+        int stackSize = 0;
+        nodeStack[stackSize++] = 0;
+        boolean isHit = false;
+        while (stackSize > 0) {
+
+            // Pop node - if ray misses node bounds or node is beyond current max distance, skip
+            int node = nodeStack[--stackSize];
+            double nodeDist = getRayDistanceToNode(node, originX, originY, originZ, invDirX, invDirY, invDirZ);
+            if (nodeDist > maxDistance.getAsDouble())
+                continue;
+
+            // Handle leaf: Visit items
+            int count = _nodeCounts[node];
+            if (count > 0) {
+                for (int i = _nodeStarts[node], iMax = i + count; i < iMax; i++) {
+                    if (itemVisitor.test(_items[i])) {
+                        isHit = true;
+                        if (stopOnHit)
+                            return true;
+                    }
+                }
+                continue;
+            }
+
+            // Handle branch: Push children so that nearer child is visited first
+            int child1 = _nodeStarts[node];
+            int child2 = child1 + 1;
+            double dist1 = getRayDistanceToNode(child1, originX, originY, originZ, invDirX, invDirY, invDirZ);
+            double dist2 = getRayDistanceToNode(child2, originX, originY, originZ, invDirX, invDirY, invDirZ);
+            if (stackSize + 2 > nodeStack.length)
+                nodeStack = Arrays.copyOf(nodeStack, nodeStack.length * 2);
+            if (dist1 <= dist2) {
+                if (dist2 != Double.POSITIVE_INFINITY) nodeStack[stackSize++] = child2;
+                if (dist1 != Double.POSITIVE_INFINITY) nodeStack[stackSize++] = child1;
+            }
+            else {
+                if (dist1 != Double.POSITIVE_INFINITY) nodeStack[stackSize++] = child1;
+                if (dist2 != Double.POSITIVE_INFINITY) nodeStack[stackSize++] = child2;
+            }
+        }
+
+        // Return
+        return isHit;
+    }
+
+    /**
+     * Returns the distance along ray to where it enters given node bounds (zero if inside), or infinity if missed.
+     */
+    private double getRayDistanceToNode(int aNode, double originX, double originY, double originZ,
+                                        double invDirX, double invDirY, double invDirZ)
+    {
+        // Get slab distances for each axis (NaN from 0 * infinity is ignored by minNum/maxNum below)
+        int boundsIndex = aNode * 6;
+        double tx1 = (_nodeBounds[boundsIndex] - originX) * invDirX;
+        double tx2 = (_nodeBounds[boundsIndex + 3] - originX) * invDirX;
+        double ty1 = (_nodeBounds[boundsIndex + 1] - originY) * invDirY;
+        double ty2 = (_nodeBounds[boundsIndex + 4] - originY) * invDirY;
+        double tz1 = (_nodeBounds[boundsIndex + 2] - originZ) * invDirZ;
+        double tz2 = (_nodeBounds[boundsIndex + 5] - originZ) * invDirZ;
+
+        // Get entry and exit distances
+        double tMin = Math.max(Math.max(minNum(tx1, tx2), minNum(ty1, ty2)), Math.max(minNum(tz1, tz2), 0));
+        double tMax = Math.min(Math.min(maxNum(tx1, tx2), maxNum(ty1, ty2)), maxNum(tz1, tz2));
+        return tMin <= tMax ? tMin : Double.POSITIVE_INFINITY;
+    }
+
+    /** Returns min of given values, ignoring NaN (ray parallel to slab and starting on slab plane). */
+    private static double minNum(double a, double b)
+    {
+        if (Double.isNaN(a)) return Double.isNaN(b) ? Double.NEGATIVE_INFINITY : b;
+        if (Double.isNaN(b)) return a;
+        return Math.min(a, b);
+    }
+
+    /** Returns max of given values, ignoring NaN (ray parallel to slab and starting on slab plane). */
+    private static double maxNum(double a, double b)
+    {
+        if (Double.isNaN(a)) return Double.isNaN(b) ? Double.POSITIVE_INFINITY : b;
+        if (Double.isNaN(b)) return a;
+        return Math.max(a, b);
+    }
+
+    /**
+     * Returns a BoundsTree for the triangles of given VertexArray (item is triangle index).
+     */
+    public static BoundsTree getTriangleTree(VertexArray triangleArray)
+    {
+        float[] pointArray = triangleArray.getPointArray();
+        int[] indexArray = triangleArray.isIndexArraySet() ? triangleArray.getIndexArray() : null;
+        return getTriangleTree(pointArray, indexArray);
+    }
+
+    /**
+     * Returns a BoundsTree for the triangles of given point array and optional index array (item is triangle index).
+     * This only reads given arrays, so it can be called on a background thread with arrays captured from VertexArray.
+     */
+    public static BoundsTree getTriangleTree(float[] pointArray, int[] indexArray)
+    {
+        // Get triangle count
+        int pointCount = indexArray != null ? indexArray.length : pointArray.length / 3;
+        int triangleCount = pointCount / 3;
+
+        // Get triangle bounds
+        float[] triangleBounds = new float[triangleCount * 6];
+        for (int i = 0; i < triangleCount; i++) {
+            int boundsIndex = i * 6;
+            Arrays.fill(triangleBounds, boundsIndex, boundsIndex + 3, Float.MAX_VALUE);
+            Arrays.fill(triangleBounds, boundsIndex + 3, boundsIndex + 6, -Float.MAX_VALUE);
+            for (int j = 0; j < 3; j++) {
+                int pointIndex = (indexArray != null ? indexArray[i * 3 + j] : i * 3 + j) * 3;
+                for (int axis = 0; axis < 3; axis++) {
+                    float value = pointArray[pointIndex + axis];
+                    triangleBounds[boundsIndex + axis] = Math.min(triangleBounds[boundsIndex + axis], value);
+                    triangleBounds[boundsIndex + axis + 3] = Math.max(triangleBounds[boundsIndex + axis + 3], value);
+                }
+            }
+        }
+
+        // Return tree
+        return new BoundsTree(triangleBounds, triangleCount);
+    }
+
+    /**
+     * Returns a BoundsTree for the given shapes (item is shape index).
+     */
+    public static BoundsTree getShapeTree(Shape3D[] theShapes)
+    {
+        // Get shape bounds
+        float[] shapeBounds = new float[theShapes.length * 6];
+        for (int i = 0; i < theShapes.length; i++) {
+            Bounds3D bounds = theShapes[i].getBounds3D();
+            int boundsIndex = i * 6;
+            shapeBounds[boundsIndex] = (float) bounds.getMinX();
+            shapeBounds[boundsIndex + 1] = (float) bounds.getMinY();
+            shapeBounds[boundsIndex + 2] = (float) bounds.getMinZ();
+            shapeBounds[boundsIndex + 3] = (float) bounds.getMaxX();
+            shapeBounds[boundsIndex + 4] = (float) bounds.getMaxY();
+            shapeBounds[boundsIndex + 5] = (float) bounds.getMaxZ();
+        }
+
+        // Return tree
+        return new BoundsTree(shapeBounds, theShapes.length);
+    }
+}
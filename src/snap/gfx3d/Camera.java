@@ -60,6 +60,9 @@ public class Camera {
     // The Renderer
     private Renderer  _renderer;
 
+    // The scene geometry version that renderer was last notified of
+    private int  _sceneGeometryVersion = -1;
+
     // The MouseHandler
     private MouseHandler  _mouseHandler;
 
@@ -563,6 +566,7 @@ public class Camera {
             return;
 
         Renderer renderer = getRenderer();
+        updateForSceneGeometryChange();
         renderer.renderAndPaint(aPntr);
     }
 
@@ -580,6 +584,7 @@ public class Camera {
     public Rect getSceneBounds2D()
     {
         Renderer renderer = getRenderer();
+        updateForSceneGeometryChange();
         return renderer.getSceneBoundsInView();
     }
 
@@ -588,11 +593,22 @@ public class Camera {
      */
     protected void sceneDidChange()
     {
+        if (_scene != null)
+            _sceneGeometryVersion = _scene.getGeometryVersion();
         if (_renderer != null)
             _renderer.sceneDidChange();
         clearCachedValues();
     }
 
+    /**
+     * Calls sceneDidChange() if scene geometry changed since last call (shape geometry, visibility or children).
+     */
+    private void updateForSceneGeometryChange()
+    {
+        if (_scene != null && _scene.getGeometryVersion() != _sceneGeometryVersion)
+            sceneDidChange();
+    }
+
     /**
      * Clears cached values.
      */
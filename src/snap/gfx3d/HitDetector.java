@@ -3,6 +3,7 @@
  */
 package snap.gfx3d;
 import snap.geom.Point;
+import java.util.function.IntPredicate;
 
 /**
  * Hit detection between Ray and Shape/VertexArray/Triangle.
@@ -113,13 +114,15 @@ public class HitDetector {
      */
     public boolean isRayHitShape(Point3D rayOrigin, Vector3D rayDir, Shape3D aShape)
     {
-        // Handle ParentShape
+        // Handle ParentShape: Check children with bounds hit by ray (nearest first)
         if (aShape instanceof ParentShape) {
             ParentShape parentShape = (ParentShape) aShape;
             Shape3D[] children = parentShape.getChildren();
-            for (Shape3D child : children)
-                if (child.isVisible())
-                    isRayHitShape(rayOrigin, rayDir, child);
+            BoundsTree childTree = parentShape.getChildTree();
+            childTree.visitItemsHitByRay(rayOrigin, rayDir, this::getMaxHitDistance, false, childIndex -> {
+                Shape3D child = children[childIndex];
+                return child.isVisible() && isRayHitShape(rayOrigin, rayDir, child);
+            });
             return _hitShape != null;
         }
 
@@ -169,37 +172,54 @@ public class HitDetector {
     }
 
     /**
-     * Returns whether ray hits VertexArray.
+     * Returns whether ray hits VertexArray (checks only triangles with bounds hit by ray, using triangle tree).
+     * If a large triangle tree is still building in background, checks all triangles.
      */
     public boolean isRayHitTriangleArray(Point3D rayOrigin, Vector3D rayDir, VertexArray triangleArray)
     {
-        // If no index, do direct pointArray version
-        if (!triangleArray.isIndexArraySet())
-            return isRayHitTriangleArrayNoIndex(rayOrigin, rayDir, triangleArray);
-
-        // Get pointArray, indexArray and pointCount
+        // Get pointArray, indexArray and doubleSided
         float[] pointArray = triangleArray.getPointArray();
-        int[] indexArray = triangleArray.getIndexArray();
-        int pointCount = indexArray.length;
+        int[] indexArray = triangleArray.isIndexArraySet() ? triangleArray.getIndexArray() : null;
         boolean doubleSided = triangleArray.isDoubleSided();
 
-        // Iterate over indexArray points
-        boolean isHit = false;
-        for (int i = 0; i + 2 < pointCount; i += 3) {
-            int v0i = indexArray[i] * 3;
-            int v1i = indexArray[i + 1] * 3;
-            int v2i = indexArray[i + 2] * 3;
+        // Create visitor to check triangle for index
+        IntPredicate triangleVisitor = triangleIndex -> {
+
+            // Get triangle point indexes and points
+            int i = triangleIndex * 3;
+            int index0 = indexArray != null ? indexArray[i] : i;
+            int index1 = indexArray != null ? indexArray[i + 1] : i + 1;
+            int index2 = indexArray != null ? indexArray[i + 2] : i + 2;
+            int v0i = index0 * 3;
+            int v1i = index1 * 3;
+            int v2i = index2 * 3;
             _vertex0.setPoint(pointArray[v0i], pointArray[v0i + 1], pointArray[v0i + 2]);
             _vertex1.setPoint(pointArray[v1i], pointArray[v1i + 1], pointArray[v1i + 2]);
             _vertex2.setPoint(pointArray[v2i], pointArray[v2i + 1], pointArray[v2i + 2]);
+
+            // If hit, set hit triangle indexes
             boolean hit = isRayHitTriangle(rayOrigin, rayDir, doubleSided);
             if (hit) {
-                _hitTriangleIndexArray[0] = indexArray[i];
-                _hitTriangleIndexArray[1] = indexArray[i + 1];
-                _hitTriangleIndexArray[2] = indexArray[i + 2];
+                _hitTriangleIndexArray[0] = index0;
+                _hitTriangleIndexArray[1] = index1;
+                _hitTriangleIndexArray[2] = index2;
+            }
+            return hit;
+        };
+
+        // If triangle tree available, iterate over triangles with bounds hit by ray
+        BoundsTree triangleTree = triangleArray.getTriangleTreeOrBuildLater();
+        if (triangleTree != null)
+            return triangleTree.visitItemsHitByRay(rayOrigin, rayDir, this::getMaxHitDistance, isFindFirstHit(), triangleVisitor);
+
+        // Otherwise iterate over all triangles
+        int pointCount = indexArray != null ? indexArray.length : pointArray.length / 3;
+        boolean isHit = false;
+        for (int i = 0, iMax = pointCount / 3; i < iMax; i++) {
+            if (triangleVisitor.test(i)) {
+                isHit = true;
                 if (isFindFirstHit())
                     return true;
-                isHit = true;
             }
         }
 
@@ -304,6 +324,14 @@ public class HitDetector {
         return false;
     }
 
+    /**
+     * Returns the distance (along ray direction) of current hit, or infinity if no hit yet.
+     */
+    private double getMaxHitDistance()
+    {
+        return _hitT > 0 ? _hitT : Double.POSITIVE_INFINITY;
+    }
+
     /**
      * Resets the hit detect for reuse.
      */
@@ -26,20 +26,32 @@ public class Light3D {
      * Returns the render color for this light for given normal and color.
      */
     public Color getRenderColor(Vector3D normal, Color aColor)
+    {
+        // Get scale for color components from normal
+        double scale = getRenderScale(normal.x, normal.y, normal.z);
+
+        // Calculate color components based on original color and scale
+        double r = Math.min(aColor.getRed() * scale, 1);
+        double g = Math.min(aColor.getGreen() * scale, 1);
+        double b = Math.min(aColor.getBlue() * scale, 1);
+
+        // Set new color
+        return new Color(r, g, b, aColor.getAlpha());
+    }
+
+    /**
+     * Returns the scale to apply to color components for given normal (from ambient and diffuse reflection).
+     */
+    public double getRenderScale(double normalX, double normalY, double normalZ)
     {
         // Get dot product of path normal and light normal
-        double normalDotLight = normal.getDotProduct(_normal);
+        double normalDotLight = normalX * _normal.x + normalY * _normal.y + normalZ * _normal.z;
 
         // Get coefficient of ambient (KA) and diffuse (KD) reflection for shading
         double _ka = .7;
         double _kd = .6;
 
-        // Calculate color components based on original color, surface normal, reflection constants and light source
-        double r = aColor.getRed() * _ka + aColor.getRed() * _kd * normalDotLight; r = Math.min(r, 1);
-        double g = aColor.getGreen() * _ka + aColor.getGreen() * _kd * normalDotLight; g = Math.min(g, 1);
-        double b = aColor.getBlue() * _ka + aColor.getBlue() * _kd * normalDotLight; b = Math.min(b, 1);
-
-        // Set new color
-        return new Color(r, g, b, aColor.getAlpha());
+        // Return scale for color components based on surface normal, reflection constants and light source
+        return _ka + _kd * normalDotLight;
     }
 }
\ No newline at end of file
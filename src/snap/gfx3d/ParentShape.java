@@ -18,6 +18,10 @@ public class ParentShape extends Shape3D {
     // Whether parent shape needs to be repainted
     private boolean  _needsRepaint;
 
+    // The bounding volume tree of children and the child bounds it was built for
+    private BoundsTree  _childTree;
+    private Bounds3D[]  _childTreeBounds;
+
     // Constants for properties
     public static final String NeedsRepaint_Prop = "NeedsRepaint";
 
@@ -145,6 +149,36 @@ public class ParentShape extends Shape3D {
         return bounds;
     }
 
+    /**
+     * Returns the bounding volume tree of children, for fast ray hit detection (rebuilt if children or bounds change).
+     */
+    public BoundsTree getChildTree()
+    {
+        // If already set and children bounds haven't changed, just return
+        Shape3D[] children = getChildren();
+        if (_childTree != null && _childTreeBounds.length == children.length) {
+            boolean boundsChanged = false;
+            for (int i = 0; i < children.length && !boundsChanged; i++)
+                boundsChanged = children[i].getBounds3D() != _childTreeBounds[i];
+            if (!boundsChanged)
+                return _childTree;
+        }
+
+        // Create, set, return
+        _childTreeBounds = new Bounds3D[children.length];
+        for (int i = 0; i < children.length; i++)
+            _childTreeBounds[i] = children[i].getBounds3D();
+        return _childTree = BoundsTree.getShapeTree(children);
+    }
+
+    /**
+     * Called when child geometry, visibility or children change.
+     */
+    protected void childDidChange(Shape3D aChild)
+    {
+        clearCachedValues();
+    }
+
     /**
      * Calls to register for rebuild.
      */
@@ -80,6 +80,7 @@ public class Polygon3D extends FacetShape implements Cloneable {
         _pointArray[index] = (float) aX;
         _pointArray[index + 1] = (float) aY;
         _pointArray[index + 2] = (float) aZ;
+        clearCachedValues();
     }
 
     /**
@@ -95,6 +96,7 @@ public class Polygon3D extends FacetShape implements Cloneable {
         _pointArray[_pointArrayLen++] = (float) aVal1;
         _pointArray[_pointArrayLen++] = (float) aVal2;
         _pointArray[_pointArrayLen++] = (float) aVal3;
+        clearCachedValues();
     }
 
     /**
@@ -1,15 +1,18 @@
 package snap.gfx3d;
+import snap.geom.Path2D;
+import snap.geom.PathIter;
 import snap.geom.Rect;
 import snap.geom.Shape;
+import snap.geom.Transform;
 import snap.gfx.Color;
 import snap.gfx.Image;
 import snap.gfx.Paint;
 import snap.gfx.Painter;
 import snap.props.PropChange;
-import snap.util.ListUtils;
-
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * This Renderer subclass tries to render the Scene using the standard Painter (2D).
@@ -19,6 +22,33 @@ public class Renderer2D extends Renderer {
     // Whether to sort surfaces
     private boolean  _sortSurfaces = true;
 
+    // List of all Scene FacetShapes in scene coords (cached until scene changes)
+    private List<FacetShape>  _facetShapesInScene;
+
+    // BinarySpaceTree of Scene FacetShapes in scene coords (cached until scene changes)
+    private BinarySpaceTree  _binarySpaceTree;
+
+    // List of visible FacetShapes in scene coords in paint order for current camera (and their render colors)
+    private List<FacetShape>  _paintFacetShapes;
+    private List<Color>  _paintColors = new ArrayList<>();
+
+    // Scratch list for loading FacetShapes from BinarySpaceTree
+    private List<FacetShape>  _sortedFacetShapes = new ArrayList<>();
+
+    // Map of FacetShape to FacetShape.Painter paths in scene coords (for front and reversed facets)
+    private Map<FacetShape,Path3D[]>  _painterPaths = new IdentityHashMap<>();
+    private Map<FacetShape,Path3D[]>  _painterPathsReversed = new IdentityHashMap<>();
+
+    // Reusable buffer of polygon points in view coords and shape for it
+    private float[]  _viewPoints = new float[48];
+    private int  _viewPointsLength;
+    private Shape  _viewPointsShape = new Shape() {
+        public PathIter getPathIter(Transform aTransform)
+        {
+            return new Polygon3D.PointArrayPathIter2D(_viewPoints, _viewPointsLength, aTransform);
+        }
+    };
+
     // List of all Scene FacetShapes in view coords
     private List<FacetShape>  _surfacesInViewCoords;
 
@@ -50,7 +80,13 @@ public class Renderer2D extends Renderer {
     /**
      * Sets whether to sort surfaces.
      */
-    public void setSortSurfaces(boolean aValue)  { _sortSurfaces = aValue; }
+    public void setSortSurfaces(boolean aValue)
+    {
+        if (aValue == _sortSurfaces) return;
+        _sortSurfaces = aValue;
+        _binarySpaceTree = null;
+        rebuildFacetShapes();
+    }
 
     /**
      * Returns a list of all Scene FacetShapes in view coords.
@@ -70,43 +106,137 @@ public class Renderer2D extends Renderer {
      */
     protected List<FacetShape> getFacetShapesInViewCoordsImpl()
     {
-        // Get surfaces in camera coords
-        List<FacetShape> facetShapesInCameraCoords = getFacetShapesInCameraCoords();
-
-        // Sort FacetShapes
-        if (isSortSurfaces())
-            BinarySpaceTree.sortShapesBackToFront(facetShapesInCameraCoords);
-
-        // Add in FacetShape painter paths
-        addFacetShapePainterPathsInCameraCoords(facetShapesInCameraCoords);
+        // Get FacetShapes in paint order and render colors
+        List<FacetShape> paintFacetShapes = getPaintFacetShapes();
+        Matrix3D sceneToView = _camera.getSceneToView();
+        List<FacetShape> facetsInViewCoords = new ArrayList<>(paintFacetShapes.size());
 
-        // Get facet shapes in view coords
-        Camera camera = getCamera();
-        Matrix3D cameraToView = camera.getCameraToView();
-        List<FacetShape> facetsInViewCoords = ListUtils.map(facetShapesInCameraCoords, fs -> fs.copyForMatrix(cameraToView));
+        // Iterate over FacetShapes and add copy in view coords with render color
+        for (int i = 0, iMax = paintFacetShapes.size(); i < iMax; i++) {
+            FacetShape facetShapeInView = paintFacetShapes.get(i).copyForMatrix(sceneToView);
+            if (facetShapeInView == null)
+                continue;
+            facetShapeInView.setColor(_paintColors.get(i));
+            facetsInViewCoords.add(facetShapeInView);
+        }
 
         // Return FacetShapes in view coords
         return facetsInViewCoords;
     }
 
     /**
-     * Returns a list of all Scene FacetShapes in camera coords.
+     * Returns the list of visible Scene FacetShapes (in scene coords) in back to front paint order for current camera.
+     * Render colors for shapes (with scene lights) are loaded into PaintColors list.
      */
-    protected List<FacetShape> getFacetShapesInCameraCoords()
+    protected List<FacetShape> getPaintFacetShapes()
     {
+        // If already set, just return
+        if (_paintFacetShapes != null) return _paintFacetShapes;
+
+        // Get camera eye point in scene coords
+        Matrix3D sceneToCamera = _camera.getSceneToCamera();
+        Matrix3D cameraToScene = sceneToCamera.clone().invert();
+        Point3D eyePoint = cameraToScene.transformXYZ(0, 0, 0);
+
+        // Get FacetShapes in back to front order for eye point (or scene order if not sorting)
+        List<FacetShape> sortedFacetShapes = getFacetShapesInScene();
+        BinarySpaceTree binarySpaceTree = getBinarySpaceTree();
+        if (binarySpaceTree != null) {
+            sortedFacetShapes = _sortedFacetShapes;
+            sortedFacetShapes.clear();
+            binarySpaceTree.loadBackToFrontList(sortedFacetShapes, eyePoint);
+        }
+
+        // Iterate over FacetShapes and add visible ones with render color (and painter paths)
+        List<FacetShape> paintFacetShapes = new ArrayList<>(sortedFacetShapes.size());
+        _paintColors.clear();
+        for (FacetShape facetShape : sortedFacetShapes)
+            addPaintFacetShape(facetShape, eyePoint, paintFacetShapes);
+
+        // Set and return
+        return _paintFacetShapes = paintFacetShapes;
+    }
+
+    /**
+     * Adds given FacetShape to paint list (with render color) if visible from given eye point.
+     */
+    protected void addPaintFacetShape(FacetShape facetShape, Point3D eyePoint, List<FacetShape> paintFacetShapes)
+    {
+        // Get eye-to-facet vector
+        Vector3D facetNormal = facetShape.getNormal();
+        Point3D facetCenter = facetShape.getBoundsCenter();
+        double eyeToFacetX = facetCenter.x - eyePoint.x;
+        double eyeToFacetY = facetCenter.y - eyePoint.y;
+        double eyeToFacetZ = facetCenter.z - eyePoint.z;
+
+        // Backface culling : If facet pointed away from camera, skip facet
+        double eyeToFacetDotNormal = eyeToFacetX * facetNormal.x + eyeToFacetY * facetNormal.y + eyeToFacetZ * facetNormal.z;
+        boolean shapeFacingAway = eyeToFacetDotNormal > 0;
+        if (shapeFacingAway) {
+            if (!facetShape.isDoubleSided())
+                return;
+        }
+
+        // If color on shape, get render color for scene lights (with facet normal in camera coords)
+        Color color = facetShape.getColor();
+        if (color != null) {
+            Matrix3D sceneToCamera = _camera.getSceneToCamera();
+            Vector3D facetNormalInCamera = sceneToCamera.transformVector(facetNormal);
+            facetNormalInCamera.normalize();
+            if (shapeFacingAway)
+                facetNormalInCamera.negate();
+            Light3D light = _scene.getLight();
+            color = light.getRenderColor(facetNormalInCamera, color);
+        }
+
+        // Add facetShape
+        paintFacetShapes.add(facetShape);
+        _paintColors.add(color);
+
+        // If painter, add painter paths right after facet
+        if (facetShape.getPainter() != null) {
+            Path3D[] painterPaths = getFacetShapePainterPaths(facetShape, shapeFacingAway);
+            for (Path3D painterPath : painterPaths) {
+                paintFacetShapes.add(painterPath);
+                _paintColors.add(painterPath.getColor());
+            }
+        }
+    }
+
+    /**
+     * Returns a list of all Scene FacetShapes in scene coords.
+     */
+    protected List<FacetShape> getFacetShapesInScene()
+    {
+        // If already set, just return
+        if (_facetShapesInScene != null) return _facetShapesInScene;
+
         // Get scene and add surfaces deep
         Scene3D scene = getScene();
         List<FacetShape> facetShapeList = new ArrayList<>();
-        addFacetShapesInCameraCoords(scene, facetShapeList);
+        addFacetShapesInScene(scene, facetShapeList);
 
-        // Return
-        return facetShapeList;
+        // Set and return
+        return _facetShapesInScene = facetShapeList;
+    }
+
+    /**
+     * Returns the BinarySpaceTree of Scene FacetShapes in scene coords (null if not sorting surfaces).
+     */
+    protected BinarySpaceTree getBinarySpaceTree()
+    {
+        // If already set or not sorting, just return
+        if (_binarySpaceTree != null || !isSortSurfaces()) return _binarySpaceTree;
+
+        // Create, set and return
+        List<FacetShape> facetShapes = getFacetShapesInScene();
+        return _binarySpaceTree = BinarySpaceTree.createBinarySpaceTreeWithSplits(facetShapes);
     }
 
     /**
      * Adds the paths for shape.
      */
-    protected void addFacetShapesInCameraCoords(Shape3D aShape, List<FacetShape> facetShapeList)
+    protected void addFacetShapesInScene(Shape3D aShape, List<FacetShape> facetShapeList)
     {
         // If shape not visible, just return
         if (!aShape.isVisible())
@@ -117,13 +247,13 @@ public class Renderer2D extends Renderer {
             ParentShape parentShape = (ParentShape) aShape;
             Shape3D[] children = parentShape.getChildren();
             for (Shape3D child : children)
-                addFacetShapesInCameraCoords(child, facetShapeList);
+                addFacetShapesInScene(child, facetShapeList);
         }
 
         // Handle FacetShape
         else if (aShape instanceof FacetShape) {
             FacetShape facetShape = (FacetShape) aShape;
-            addFacetShapeInCameraCoords(facetShape, facetShapeList);
+            addFacetShapeInScene(facetShape, facetShapeList);
         }
 
         // Handle VertexArrayShape
@@ -241,114 +371,65 @@ public class Renderer2D extends Renderer {
                 polygon3D.setColor(new Color(red, green, blue));
                 polygon3D.setDoubleSided(true);
 
-                // Add shape in camera coords
-                addFacetShapeInCameraCoords(polygon3D, facetShapeList);
+                // Add shape
+                addFacetShapeInScene(polygon3D, facetShapeList);
             }
         }
     }
 
     /**
-     * Adds given FacetShape in camera space if visible.
+     * Adds given FacetShape in scene space if valid.
      */
-    protected void addFacetShapeInCameraCoords(FacetShape facetShape, List<FacetShape> facetShapeList)
+    protected void addFacetShapeInScene(FacetShape facetShape, List<FacetShape> facetShapeList)
     {
         // Get facet normal (if bogus, complain and return - not sure this happens anymore)
         Vector3D facetNormal = facetShape.getNormal();
         if (Double.isNaN(facetNormal.x)) {
-            System.err.println("Renderer2D.addShapeSurfacesInCameraCoords: Invalid facet normal");
+            System.err.println("Renderer2D.addFacetShapeInScene: Invalid facet normal");
             return;
         }
 
-        // Get facet normal in camera coords
-        Matrix3D sceneToCamera = _camera.getSceneToCamera();
-        Vector3D facetNormalInCamera = sceneToCamera.transformVector(facetNormal);
-        facetNormalInCamera.normalize();
-
-        // Get camera-to-facet vector in camera coords
-        Point3D facetCenter = facetShape.getBoundsCenter();
-        Point3D facetCenterInCamera = sceneToCamera.transformPoint(facetCenter.clone());
-        Vector3D cameraToFacetVector = new Vector3D(facetCenterInCamera.x, facetCenterInCamera.y, facetCenterInCamera.z);
-
-        // Backface culling : If facet pointed away from camera, skip facet
-        boolean shapeFacingAway = cameraToFacetVector.isAligned(facetNormalInCamera, false);
-        if (shapeFacingAway) {
-            if (!facetShape.isDoubleSided())
-                return;
-        }
-
-        // Get facetShape in camera space (reverse if shape was facing away but double-sided)
-        FacetShape facetShapeInCamera = facetShape.copyForMatrix(sceneToCamera);
-        if (facetShapeInCamera == null)
-            return; // AxisBoxShape
-        if (shapeFacingAway) {
-            facetShapeInCamera.reverse();
-            facetNormalInCamera.negate();
-        }
-
-        // If color on shape, set color on facet for scene lights
-        Light3D light = _scene.getLight();
-        Color color = facetShape.getColor();
-        if (color != null) {
-            Color rcol = light.getRenderColor(facetNormalInCamera, color);
-            facetShapeInCamera.setColor(rcol);
-        }
-
         // Add facetShape
-        facetShapeList.add(facetShapeInCamera);
+        facetShapeList.add(facetShape);
     }
 
     /**
-     * Iterates over FacetShape list and adds FacetShape.Painter.PainterTasks as Path3Ds in Camera coords.
+     * Returns the FacetShape.Painter.PainterPaths as Path3D in scene space (cached).
      */
-    private void addFacetShapePainterPathsInCameraCoords(List<FacetShape> facetShapeList)
+    private Path3D[] getFacetShapePainterPaths(FacetShape aFacetShape, boolean isReversed)
     {
-        // Iterate over paths
-        for (int i = facetShapeList.size() - 1; i >= 0; i--) {
-
-            // Get facetShape (just skip if no Painter)
-            FacetShape facetShape = facetShapeList.get(i);
-            if (facetShape.getPainter() == null)
-                continue;
-
-            // Get Paths for painter
-            Matrix3D sceneToCamera = _camera.getSceneToCamera();
-            Matrix3D cameraToScene = sceneToCamera.clone().invert();
-            FacetShape facetShapeInScene = facetShape.copyForMatrix(cameraToScene);
-            Path3D[] painterPathsInCamera = getFacetShapePainterPathsInCameraCoords(facetShapeInScene);
-
-            // Add paths to list right behind the original path
-            for (int j = 0; j < painterPathsInCamera.length; j++) {
-                Path3D painterPath = painterPathsInCamera[j];
-                facetShapeList.add(i + j + 1, painterPath);
-            }
+        // If already set, just return
+        Map<FacetShape,Path3D[]> painterPathsMap = isReversed ? _painterPathsReversed : _painterPaths;
+        Path3D[] painterPaths = painterPathsMap.get(aFacetShape);
+        if (painterPaths != null)
+            return painterPaths;
+
+        // Get facet shape for painter (reverse if shape is facing away but double-sided)
+        FacetShape facetShape = aFacetShape;
+        if (isReversed) {
+            facetShape = aFacetShape.clone();
+            facetShape.reverse();
         }
-    }
 
-    /**
-     * Returns the FacetShape.Painter.PainterPaths as Path3D in Camera space.
-     */
-    private Path3D[] getFacetShapePainterPathsInCameraCoords(FacetShape aFacetShape)
-    {
         // Get Painter, PainterTasks and pathPainterPaths array
-        Painter3D painter3D = aFacetShape.getPainter();
+        Painter3D painter3D = facetShape.getPainter();
         Painter3D.PaintTask[] paintTasks = painter3D.getPaintTasks();
-        Path3D[] painterPaths = new Path3D[paintTasks.length];
+        painterPaths = new Path3D[paintTasks.length];
 
-        // Get transform from painter to camera
-        Matrix3D painterToShape = aFacetShape.getPainterToLocal();
-        Matrix3D shapeToCamera = _camera.getSceneToCamera();
+        // Get transform from painter to scene
+        Matrix3D painterToShape = facetShape.getPainterToLocal();
 
-        // Get transform from painter to view
+        // Iterate over paint tasks and create path for each
         for (int i = 0; i < paintTasks.length; i++) {
             Painter3D.PaintTask paintTask = paintTasks[i];
             Path3D paintTaskPath = new Path3D(paintTask.getShape(), 0);
             paintTaskPath.transform(painterToShape);
-            paintTaskPath.transform(shapeToCamera);
             paintTaskPath.setStroke(paintTask.getColor(), paintTask.getStroke().getWidth());
             painterPaths[i] = paintTaskPath;
         }
 
-        // Return
+        // Set and return
+        painterPathsMap.put(aFacetShape, painterPaths);
         return painterPaths;
     }
 
@@ -388,14 +469,27 @@ public class Renderer2D extends Renderer {
     }
 
     /**
-     * Called to indicate that FacetShapes list needs to be rebuilt.
+     * Called to indicate that FacetShapes list needs to be rebuilt for camera change (scene geometry is unchanged).
      */
     protected void rebuildFacetShapes()
     {
+        _paintFacetShapes = null;
         _surfacesInViewCoords = null;
         _sceneBounds2D = null;
     }
 
+    /**
+     * Called to indicate that Scene FacetShapes and BinarySpaceTree need to be rebuilt for scene change.
+     */
+    protected void rebuildSceneFacetShapes()
+    {
+        _facetShapesInScene = null;
+        _binarySpaceTree = null;
+        _painterPaths.clear();
+        _painterPathsReversed.clear();
+        rebuildFacetShapes();
+    }
+
     /**
      * Override to rebuild FacetShapes for camera changes.
      */
@@ -421,7 +515,7 @@ public class Renderer2D extends Renderer {
      */
     protected void sceneDidChange()
     {
-        rebuildFacetShapes();
+        rebuildSceneFacetShapes();
     }
 
     /**
@@ -437,10 +531,78 @@ public class Renderer2D extends Renderer {
      */
     public void paintFacetShapes(Painter aPntr)
     {
+        // Get FacetShapes in paint order and transform to view
+        List<FacetShape> paintFacetShapes = getPaintFacetShapes();
+        Matrix3D sceneToView = _camera.getSceneToView();
+
         // Iterate over FacetShapes and paint
-        List<FacetShape> facetShapeList = getFacetShapesInViewCoords();
-        for (FacetShape facetShape : facetShapeList)
-            paintFacetShape(aPntr, facetShape);
+        for (int i = 0, iMax = paintFacetShapes.size(); i < iMax; i++) {
+            FacetShape facetShape = paintFacetShapes.get(i);
+            Shape shapeInView = getShapeInView(facetShape, sceneToView);
+            if (shapeInView == null)
+                continue;
+
+            // Get stroke shape (for split polygons, skip cut edges) and paint
+            Shape strokeShape = shapeInView;
+            if (facetShape instanceof BinarySpaceTree.SplitPolygon && facetShape.getStrokeColor() != null)
+                strokeShape = getSplitPolygonStrokeShapeInView((BinarySpaceTree.SplitPolygon) facetShape);
+            paintFacetShape(aPntr, facetShape, shapeInView, strokeShape, _paintColors.get(i));
+        }
+    }
+
+    /**
+     * Returns the 2D shape in view coords for given FacetShape in scene coords.
+     * Polygons are transformed into a reusable points buffer, so the returned shape is only valid until next call.
+     */
+    protected Shape getShapeInView(FacetShape aFacetShape, Matrix3D sceneToView)
+    {
+        // Handle Polygon3D: Copy points to view points buffer and transform
+        if (aFacetShape instanceof Polygon3D) {
+            Polygon3D polygon3D = (Polygon3D) aFacetShape;
+            float[] pointArray = polygon3D.getPointArray();
+            int pointCount = polygon3D.getPointCount();
+            int pointArrayLength = pointCount * Polygon3D.POINT_COMP_COUNT;
+            if (pointArrayLength > _viewPoints.length)
+                _viewPoints = new float[pointArrayLength * 2];
+            System.arraycopy(pointArray, 0, _viewPoints, 0, pointArrayLength);
+            sceneToView.transformXYZArray(_viewPoints, pointCount);
+            _viewPointsLength = pointArrayLength;
+            return _viewPointsShape;
+        }
+
+        // Handle anything else: Get copy in view coords
+        FacetShape facetShapeInView = aFacetShape.copyForMatrix(sceneToView);
+        return facetShapeInView != null ? facetShapeInView.getShape2D() : null;
+    }
+
+    /**
+     * Returns the stroke shape in view coords for given split polygon (from view points buffer), skipping cut edges.
+     */
+    private Shape getSplitPolygonStrokeShapeInView(BinarySpaceTree.SplitPolygon aPoly)
+    {
+        // Iterate over edges and add if not cut edge
+        Path2D strokePath = new Path2D();
+        int pointCount = aPoly.getPointCount();
+        boolean needsMoveTo = true;
+        for (int i = 0; i < pointCount; i++) {
+
+            // If cut edge, skip (and start new segment)
+            if (aPoly.isCutEdge(i)) {
+                needsMoveTo = true;
+                continue;
+            }
+
+            // Add edge
+            int pointIndex1 = i * Polygon3D.POINT_COMP_COUNT;
+            int pointIndex2 = (i + 1) % pointCount * Polygon3D.POINT_COMP_COUNT;
+            if (needsMoveTo)
+                strokePath.moveTo(_viewPoints[pointIndex1], _viewPoints[pointIndex1 + 1]);
+            strokePath.lineTo(_viewPoints[pointIndex2], _viewPoints[pointIndex2 + 1]);
+            needsMoveTo = false;
+        }
+
+        // Return
+        return strokePath;
     }
 
     /**
@@ -448,9 +610,16 @@ public class Renderer2D extends Renderer {
      */
     protected void paintFacetShape(Painter aPntr, FacetShape aFacetShape)
     {
-        // Get path, fill and stroke
         Shape path = aFacetShape.getShape2D();
-        Paint fill = aFacetShape.getColor();
+        paintFacetShape(aPntr, aFacetShape, path, path, aFacetShape.getColor());
+    }
+
+    /**
+     * Paints a FacetShape with given fill and stroke shapes in view coords and fill paint.
+     */
+    protected void paintFacetShape(Painter aPntr, FacetShape aFacetShape, Shape path, Shape strokePath, Paint fill)
+    {
+        // Get stroke
         Paint stroke = aFacetShape.getStrokeColor();
 
         // Get opacity and set if needed
@@ -468,7 +637,7 @@ public class Renderer2D extends Renderer {
         if (stroke != null) {
             aPntr.setPaint(stroke);
             aPntr.setStroke(aFacetShape.getStroke());
-            aPntr.draw(path);
+            aPntr.draw(strokePath);
         }
 
         // Reset opacity if needed
@@ -84,6 +84,10 @@ public abstract class RendererFactory {
         RendererFactory renderer2dFactory = new Renderer2D.Renderer2DFactory();
         factories.add(renderer2dFactory);
 
+        // Add ZBufferRenderer
+        RendererFactory zBufferRendererFactory = new ZBufferRenderer.ZBufferRendererFactory();
+        factories.add(zBufferRendererFactory);
+
         // Return
         return _factories = factories.toArray(new RendererFactory[0]);
     }
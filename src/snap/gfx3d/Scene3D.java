@@ -13,6 +13,9 @@ public class Scene3D extends ParentShape {
     
     // Light that illuminates the scene
     private Light3D  _light = new Light3D();
+
+    // The version of scene geometry (incremented when any shape geometry, visibility or children change)
+    private int  _geometryVersion;
     
     /**
      * Constructor.
@@ -33,6 +36,12 @@ public class Scene3D extends ParentShape {
      */
     public Light3D getLight()  { return _light; }
 
+    /**
+     * Returns the version of scene geometry, which is incremented when any shape geometry, visibility or children
+     * change (at any depth). Renderers compare it to know when cached scene surfaces need to be rebuilt.
+     */
+    public int getGeometryVersion()  { return _geometryVersion; }
+
     /**
      * Override to notify camera.
      */
@@ -61,4 +70,14 @@ public class Scene3D extends ParentShape {
         _camera.sceneDidChange();
         return child;
     }
+
+    /**
+     * Override to increment geometry version.
+     */
+    @Override
+    protected void clearCachedValues()
+    {
+        super.clearCachedValues();
+        _geometryVersion++;
+    }
 }
\ No newline at end of file
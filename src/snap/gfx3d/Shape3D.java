@@ -141,7 +141,12 @@ public abstract class Shape3D extends PropObject {
      */
     public void setVisible(boolean aValue)
     {
+        if (aValue == _visible) return;
         _visible = aValue;
+
+        // Notify parent
+        if (_parent != null)
+            _parent.childDidChange(this);
     }
 
     /**
@@ -238,6 +243,21 @@ public abstract class Shape3D extends PropObject {
     protected void clearCachedValues()
     {
         _bounds3D = null;
+
+        // Notify parent (parent bounds and scene geometry depend on children)
+        if (_parent != null)
+            _parent.childDidChange(this);
+    }
+
+    /**
+     * Override to clear parent (a copy isn't a child of original parent).
+     */
+    @Override
+    protected Shape3D clone() throws CloneNotSupportedException
+    {
+        Shape3D clone = (Shape3D) super.clone();
+        clone._parent = null;
+        return clone;
     }
 
     /**
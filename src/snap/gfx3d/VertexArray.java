@@ -6,6 +6,9 @@ import snap.gfx.Color;
 import snap.gfx.Image;
 
 import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * This class manages raw vertex data (points, colors, normals, texture coords).
@@ -54,6 +57,18 @@ public class VertexArray implements Cloneable {
     // The next VertexArray if this one is part of a chain
     private VertexArray  _next;
 
+    // The bounding volume tree of triangles, for fast ray hit detection
+    private BoundsTree  _triangleTree;
+
+    // The background build of triangle tree (if in progress)
+    private CompletableFuture<BoundsTree>  _triangleTreeFuture;
+
+    // The shared executor for background triangle tree builds
+    private static ExecutorService  _treeBuilder;
+
+    // Constant for max triangle count to build triangle tree on calling thread
+    private static final int TRIANGLE_TREE_SYNC_MAX = 4096;
+
     // Constant for number of components in texture coords
     private static final int TEX_COORD_COMP_COUNT = 2;
 
@@ -77,6 +92,7 @@ public class VertexArray implements Cloneable {
             _pointArray = Arrays.copyOf(_pointArray, Math.max(_pointArray.length * 2, 24));
 
         // Add values
+        clearTriangleTree();
         _pointArray[_pointArrayLen++] = (float) aVal1;
         _pointArray[_pointArrayLen++] = (float) aVal2;
         _pointArray[_pointArrayLen++] = (float) aVal3;
@@ -233,6 +249,7 @@ public class VertexArray implements Cloneable {
      */
     public void setPointArray(float[] pointArray)
     {
+        clearTriangleTree();
         _pointArray = pointArray;
         _pointArrayLen = pointArray.length;
     }
@@ -317,6 +334,7 @@ public class VertexArray implements Cloneable {
      */
     public void setIndexArray(int[] indexArray)
     {
+        clearTriangleTree();
         _indexArray = indexArray;
         _indexArrayLen = indexArray.length;
     }
@@ -347,6 +365,82 @@ public class VertexArray implements Cloneable {
         return bounds;
     }
 
+    /**
+     * Returns the bounding volume tree of triangles (cached until points or indexes are changed).
+     */
+    public BoundsTree getTriangleTree()
+    {
+        // If already set or built in background, just return
+        BoundsTree triangleTree = getTriangleTreeIfBuilt();
+        if (triangleTree != null)
+            return triangleTree;
+
+        // Create, set, return
+        triangleTree = BoundsTree.getTriangleTree(this);
+        _triangleTreeFuture = null;
+        return _triangleTree = triangleTree;
+    }
+
+    /**
+     * Returns the triangle tree if built, otherwise starts building it in background and returns null (callers can
+     * test triangles directly until it's ready). Small trees are just built on calling thread.
+     */
+    public BoundsTree getTriangleTreeOrBuildLater()
+    {
+        // If small, just build and return
+        int pointCount = isIndexArraySet() ? _indexArrayLen : getPointCount();
+        if (pointCount / 3 <= TRIANGLE_TREE_SYNC_MAX)
+            return getTriangleTree();
+
+        // Return tree if built, otherwise start background build
+        BoundsTree triangleTree = getTriangleTreeIfBuilt();
+        if (triangleTree == null)
+            buildTriangleTreeLater();
+        return triangleTree;
+    }
+
+    /**
+     * Starts building the triangle tree in background (if not already built or building). Loaders of large geometry
+     * can call this so the tree is ready by the first hit test.
+     */
+    public void buildTriangleTreeLater()
+    {
+        // If already built or building, just return
+        if (_triangleTree != null || _triangleTreeFuture != null) return;
+
+        // Capture arrays (changes to this VertexArray drop the future, so result is never used for changed geometry)
+        float[] pointArray = getPointArray();
+        int[] indexArray = isIndexArraySet() ? getIndexArray() : null;
+        _triangleTreeFuture = CompletableFuture.supplyAsync(() -> BoundsTree.getTriangleTree(pointArray, indexArray), getTreeBuilder());
+    }
+
+    /**
+     * Returns the triangle tree if already set or finished building in background.
+     */
+    private BoundsTree getTriangleTreeIfBuilt()
+    {
+        // If already set, just return
+        if (_triangleTree != null) return _triangleTree;
+
+        // If background build finished, set tree (if it failed, clear future so tree is built on calling thread)
+        CompletableFuture<BoundsTree> treeFuture = _triangleTreeFuture;
+        if (treeFuture == null || !treeFuture.isDone())
+            return null;
+        _triangleTreeFuture = null;
+        if (!treeFuture.isCompletedExceptionally())
+            _triangleTree = treeFuture.join();
+        return _triangleTree;
+    }
+
+    /**
+     * Clears the triangle tree and any background build when points or indexes change.
+     */
+    private void clearTriangleTree()
+    {
+        _triangleTree = null;
+        _triangleTreeFuture = null;
+    }
+
     /**
      * Trims arrays.
      */
@@ -374,6 +468,7 @@ public class VertexArray implements Cloneable {
      */
     public void transformPoints(Matrix3D aTrans)
     {
+        clearTriangleTree();
         Point3D point = new Point3D(0, 0, 0);
         for (int i = 0, iMax = getPointCount(); i < iMax; i++) {
             getPoint3D(point, i);
@@ -425,4 +520,17 @@ public class VertexArray implements Cloneable {
         // Return clone
         return clone;
     }
+
+    /**
+     * Returns the shared executor for background triangle tree builds.
+     */
+    private static synchronized ExecutorService getTreeBuilder()
+    {
+        if (_treeBuilder != null) return _treeBuilder;
+        return _treeBuilder = Executors.newSingleThreadExecutor(run -> {
+            Thread thread = new Thread(run, "VertexArray Tree Builder");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
 }
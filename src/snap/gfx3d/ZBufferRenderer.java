@@ -0,0 +1,624 @@
+/*
+ * Copyright (c) 2010, ReportMill Software. All rights reserved.
+ */
+package snap.gfx3d;
+import snap.gfx.Color;
+import snap.gfx.Image;
+import snap.gfx.Painter;
+import snap.props.PropChange;
+import java.util.*;
+import java.util.stream.IntStream;
+
+/**
+ * This Renderer subclass renders the Scene with a pure Java scanline rasterizer and depth buffer into an Image.
+ *
+ * Scene shapes are rendered from their triangle VertexArrays (with per-vertex color or texture interpolation and
+ * flat shading from the scene light). The view is split into horizontal tiles that are rasterized in parallel.
+ * This makes big meshes interactive without a GPU and handles intersecting geometry correctly.
+ */
+public class ZBufferRenderer extends Renderer {
+
+    // The VertexArrays of scene shapes (in scene coords)
+    private List<VertexArray>  _vertexArrays;
+
+    // The texture pixels for textures
+    private Map<Texture,int[]>  _texturePixels = new HashMap<>();
+
+    // The rendered image
+    private Image  _image;
+
+    // Whether image needs to be rendered
+    private boolean  _imageDirty = true;
+
+    // The pixel width/height of image and image pixels and depth buffer
+    private int  _pixW, _pixH;
+    private int[]  _pixels;
+    private float[]  _depths;
+
+    // The triangles to render: Mesh for each triangle, index of first triangle vertex in mesh and shade scale
+    private Mesh[]  _triMeshes = new Mesh[0];
+    private int[]  _triIndexes = new int[0];
+    private float[]  _triShades = new float[0];
+    private int  _triCount;
+
+    // The triangles for each tile
+    private int[][]  _tileTris = new int[0][];
+    private int[]  _tileTriCounts = new int[0];
+
+    // Constant for name
+    private static final String RENDERER_NAME = "Software Z-Buffer";
+
+    // Constant for tile height in pixels
+    private static final int TILE_HEIGHT = 32;
+
+    // Constant for depth offset for VertexArrays drawn on top of surfaces (strokes, painter triangles)
+    private static final float DEPTH_OFFSET = 1e-5f;
+
+    // Constant for default color
+    private static final Color DEFAULT_COLOR = Color.LIGHTGRAY;
+
+    /**
+     * Constructor.
+     */
+    public ZBufferRenderer(Camera aCamera)
+    {
+        super(aCamera);
+    }
+
+    /**
+     * Returns the name.
+     */
+    @Override
+    public String getName()  { return RENDERER_NAME; }
+
+    /**
+     * Returns the VertexArrays of scene shapes (in scene coords).
+     */
+    protected List<VertexArray> getVertexArrays()
+    {
+        // If already set, just return
+        if (_vertexArrays != null) return _vertexArrays;
+
+        // Get scene and add VertexArrays deep
+        List<VertexArray> vertexArrays = new ArrayList<>();
+        addVertexArrays(getScene(), vertexArrays);
+        return _vertexArrays = vertexArrays;
+    }
+
+    /**
+     * Adds the VertexArrays for given shape (and children) to given list.
+     */
+    private void addVertexArrays(Shape3D aShape, List<VertexArray> vertexArrays)
+    {
+        // If shape not visible, just return
+        if (!aShape.isVisible())
+            return;
+
+        // Handle ParentShape: Get children and recurse
+        if (aShape instanceof ParentShape) {
+            ParentShape parentShape = (ParentShape) aShape;
+            Shape3D[] children = parentShape.getChildren();
+            for (Shape3D child : children)
+                addVertexArrays(child, vertexArrays);
+        }
+
+        // Handle other shapes: Add triangle VertexArray
+        else {
+            VertexArray triangleArray = aShape.getTriangleArray();
+            if (triangleArray != null)
+                vertexArrays.add(triangleArray);
+        }
+    }
+
+    /**
+     * Renders scene for given painter, camera and scene.
+     */
+    public void renderAndPaint(Painter aPntr)
+    {
+        // Get view size and pixel size for painter scale (for HiDPI)
+        Camera camera = getCamera();
+        double viewW = camera.getViewWidth();
+        double viewH = camera.getViewHeight();
+        double[] pntrMatrix = aPntr.getTransform().getMatrix();
+        double dpiScale = Math.round(Math.max(Math.sqrt(pntrMatrix[0] * pntrMatrix[0] + pntrMatrix[1] * pntrMatrix[1]), 1));
+
+        // If image missing or wrong size, create new image
+        if (_image == null || _image.getWidth() != Math.round(viewW) || _image.getHeight() != Math.round(viewH) ||
+            _image.getDpiScale() != dpiScale) {
+            _image = Image.getImageForSizeAndDpiScale(viewW, viewH, true, dpiScale);
+            _imageDirty = true;
+        }
+
+        // If image needs render, render
+        if (_imageDirty) {
+            renderImage();
+            _imageDirty = false;
+        }
+
+        // Paint image
+        aPntr.drawImage(_image, 0, 0, _image.getWidth(), _image.getHeight());
+    }
+
+    /**
+     * Renders the scene to image.
+     */
+    protected void renderImage()
+    {
+        // Reset pixels and depth buffer for image size
+        _pixW = _image.getPixWidth();
+        _pixH = _image.getPixHeight();
+        int pixCount = _pixW * _pixH;
+        if (_pixels == null || _pixels.length != pixCount) {
+            _pixels = new int[pixCount];
+            _depths = new float[pixCount];
+        }
+        Arrays.fill(_pixels, 0);
+        Arrays.fill(_depths, Float.POSITIVE_INFINITY);
+
+        // Get transforms from scene to camera and camera to pixels
+        Camera camera = getCamera();
+        Matrix3D sceneToCamera = camera.getSceneToCamera();
+        double pixScale = _pixW / camera.getViewWidth();
+        Matrix3D cameraToPixels = new Matrix3D().scale(pixScale, pixScale, 1).multiply(camera.getCameraToView());
+
+        // Add triangles for VertexArrays
+        _triCount = 0;
+        List<VertexArray> vertexArrays = getVertexArrays();
+        for (VertexArray vertexArray : vertexArrays) {
+            int depthOffsetCount = 0;
+            for (VertexArray va = vertexArray; va != null; va = va.getNext(), depthOffsetCount++) {
+                Mesh mesh = new Mesh(va, sceneToCamera, cameraToPixels, depthOffsetCount * DEPTH_OFFSET);
+                addMeshTriangles(mesh);
+            }
+        }
+
+        // Add triangles to tiles and render tiles in parallel
+        int tileCount = (_pixH + TILE_HEIGHT - 1) / TILE_HEIGHT;
+        addTrianglesToTiles(tileCount);
+        IntStream.range(0, tileCount).parallel().forEach(this::renderTile);
+
+        // Set pixels in image
+        _image.setPixelsARGB(_pixels);
+    }
+
+    /**
+     * Adds the visible triangles for given mesh (culling back faces and triangles behind camera).
+     */
+    private void addMeshTriangles(Mesh aMesh)
+    {
+        // Get light and mesh info
+        Light3D light = getScene().getLight();
+        float[] cameraPoints = aMesh._cameraPoints;
+        float[] pixelPoints = aMesh._pixelPoints;
+        int[] indexes = aMesh._indexes;
+        int triangleCount = aMesh._indexCount / 3;
+
+        // Iterate over triangles
+        for (int triIndex = 0; triIndex < triangleCount; triIndex++) {
+
+            // Get vertex indexes - if any vertex is before near plane or behind camera, skip
+            int index0 = indexes[triIndex * 3], index1 = indexes[triIndex * 3 + 1], index2 = indexes[triIndex * 3 + 2];
+            if (!aMesh.isVertexVisible(index0) || !aMesh.isVertexVisible(index1) || !aMesh.isVertexVisible(index2))
+                continue;
+
+            // Get triangle normal in camera coords
+            int c0 = index0 * 3, c1 = index1 * 3, c2 = index2 * 3;
+            double ax = cameraPoints[c1] - cameraPoints[c0], ay = cameraPoints[c1 + 1] - cameraPoints[c0 + 1];
+            double az = cameraPoints[c1 + 2] - cameraPoints[c0 + 2];
+            double bx = cameraPoints[c2] - cameraPoints[c0], by = cameraPoints[c2 + 1] - cameraPoints[c0 + 1];
+            double bz = cameraPoints[c2 + 2] - cameraPoints[c0 + 2];
+            double nx = ay * bz - az * by, ny = az * bx - ax * bz, nz = ax * by - ay * bx;
+            double normalLength = Math.sqrt(nx * nx + ny * ny + nz * nz);
+            if (normalLength == 0)
+                continue;
+            nx /= normalLength; ny /= normalLength; nz /= normalLength;
+
+            // Backface culling: If triangle facing away from camera, skip unless double-sided (then flip normal)
+            double normalDotCameraToPoint = nx * cameraPoints[c0] + ny * cameraPoints[c0 + 1] + nz * cameraPoints[c0 + 2];
+            if (normalDotCameraToPoint > 0) {
+                if (!aMesh._doubleSided)
+                    continue;
+                nx = -nx; ny = -ny; nz = -nz;
+            }
+
+            // If triangle has no area in pixels, skip
+            int p0 = index0 * 4, p1 = index1 * 4, p2 = index2 * 4;
+            double area = (pixelPoints[p1] - pixelPoints[p0]) * (pixelPoints[p2 + 1] - pixelPoints[p0 + 1]) -
+                (pixelPoints[p2] - pixelPoints[p0]) * (pixelPoints[p1 + 1] - pixelPoints[p0 + 1]);
+            if (area == 0)
+                continue;
+
+            // Add triangle
+            float shade = (float) light.getRenderScale(nx, ny, nz);
+            addTriangle(aMesh, triIndex * 3, shade);
+        }
+    }
+
+    /**
+     * Adds a triangle for given mesh, first vertex index and shade.
+     */
+    private void addTriangle(Mesh aMesh, int anIndex, float aShade)
+    {
+        // Grow arrays if needed
+        if (_triCount == _triIndexes.length) {
+            int newLength = Math.max(_triCount * 2, 1024);
+            _triMeshes = Arrays.copyOf(_triMeshes, newLength);
+            _triIndexes = Arrays.copyOf(_triIndexes, newLength);
+            _triShades = Arrays.copyOf(_triShades, newLength);
+        }
+
+        // Add triangle
+        _triMeshes[_triCount] = aMesh;
+        _triIndexes[_triCount] = anIndex;
+        _triShades[_triCount] = aShade;
+        _triCount++;
+    }
+
+    /**
+     * Adds triangles to the tiles they overlap.
+     */
+    private void addTrianglesToTiles(int tileCount)
+    {
+        // Reset tile lists
+        if (_tileTris.length != tileCount) {
+            _tileTris = new int[tileCount][16];
+            _tileTriCounts = new int[tileCount];
+        }
+        Arrays.fill(_tileTriCounts, 0);
+
+        // Iterate over triangles and add to overlapping tiles
+        for (int tri = 0; tri < _triCount; tri++) {
+
+            // Get triangle pixel Y range
+            Mesh mesh = _triMeshes[tri];
+            int[] indexes = mesh._indexes;
+            float[] pixelPoints = mesh._pixelPoints;
+            int index = _triIndexes[tri];
+            float y0 = pixelPoints[indexes[index] * 4 + 1];
+            float y1 = pixelPoints[indexes[index + 1] * 4 + 1];
+            float y2 = pixelPoints[indexes[index + 2] * 4 + 1];
+            float minY = Math.min(y0, Math.min(y1, y2));
+            float maxY = Math.max(y0, Math.max(y1, y2));
+            if (maxY < 0 || minY >= _pixH)
+                continue;
+
+            // Add to tiles
+            int tile0 = Math.max((int) minY, 0) / TILE_HEIGHT;
+            int tile1 = Math.min((int) maxY, _pixH - 1) / TILE_HEIGHT;
+            for (int tile = tile0; tile <= tile1; tile++) {
+                int count = _tileTriCounts[tile];
+                if (count == _tileTris[tile].length)
+                    _tileTris[tile] = Arrays.copyOf(_tileTris[tile], count * 2);
+                _tileTris[tile][count] = tri;
+                _tileTriCounts[tile] = count + 1;
+            }
+        }
+    }
+
+    /**
+     * Renders the triangles for given tile.
+     */
+    private void renderTile(int aTile)
+    {
+        int minY = aTile * TILE_HEIGHT;
+        int maxY = Math.min(minY + TILE_HEIGHT, _pixH);
+        int[] tris = _tileTris[aTile];
+        for (int i = 0, iMax = _tileTriCounts[aTile]; i < iMax; i++) {
+            int tri = tris[i];
+            renderTriangle(_triMeshes[tri], _triIndexes[tri], _triShades[tri], minY, maxY);
+        }
+    }
+
+    /**
+     * Rasterizes given triangle into the pixel rows in given range, with depth test.
+     */
+    private void renderTriangle(Mesh aMesh, int anIndex, float aShade, int minRow, int maxRow)
+    {
+        // Get triangle vertex pixel points (x, y, depth, 1/w)
+        float[] pixelPoints = aMesh._pixelPoints;
+        int[] indexes = aMesh._indexes;
+        int index0 = indexes[anIndex], index1 = indexes[anIndex + 1], index2 = indexes[anIndex + 2];
+        int p0 = index0 * 4, p1 = index1 * 4, p2 = index2 * 4;
+        float x0 = pixelPoints[p0], y0 = pixelPoints[p0 + 1], z0 = pixelPoints[p0 + 2], q0 = pixelPoints[p0 + 3];
+        float x1 = pixelPoints[p1], y1 = pixelPoints[p1 + 1], z1 = pixelPoints[p1 + 2], q1 = pixelPoints[p1 + 3];
+        float x2 = pixelPoints[p2], y2 = pixelPoints[p2 + 1], z2 = pixelPoints[p2 + 2], q2 = pixelPoints[p2 + 3];
+
+        // Get bounds clipped to tile rows and image width
+        int minX = Math.max((int) Math.floor(Math.min(x0, Math.min(x1, x2))), 0);
+        int maxX = Math.min((int) Math.ceil(Math.max(x0, Math.max(x1, x2))), _pixW - 1);
+        int minY = Math.max((int) Math.floor(Math.min(y0, Math.min(y1, y2))), minRow);
+        int maxY = Math.min((int) Math.ceil(Math.max(y0, Math.max(y1, y2))), maxRow - 1);
+        if (minX > maxX || minY > maxY)
+            return;
+
+        // Get inverse area (edge functions are normalized so inside is positive for either winding)
+        float area = (x1 - x0) * (y2 - y0) - (x2 - x0) * (y1 - y0);
+        float invArea = 1 / area;
+
+        // Get edge function steps for x (edge function for vertex N is for opposite edge)
+        float e0dx = (y1 - y2) * invArea;
+        float e1dx = (y2 - y0) * invArea;
+        float e2dx = (y0 - y1) * invArea;
+
+        // Get per-vertex attributes (premultiplied by 1/w for perspective correct interpolation)
+        float[] colors = aMesh._colors;
+        int colorComps = aMesh._colorCompCount;
+        float r0, g0, b0, r1, g1, b1, r2, g2, b2;
+        if (colors != null) {
+            int c0 = index0 * colorComps, c1 = index1 * colorComps, c2 = index2 * colorComps;
+            r0 = colors[c0] * q0; g0 = colors[c0 + 1] * q0; b0 = colors[c0 + 2] * q0;
+            r1 = colors[c1] * q1; g1 = colors[c1 + 1] * q1; b1 = colors[c1 + 2] * q1;
+            r2 = colors[c2] * q2; g2 = colors[c2 + 1] * q2; b2 = colors[c2 + 2] * q2;
+        }
+        else r0 = g0 = b0 = r1 = g1 = b1 = r2 = g2 = b2 = 0;
+        float[] texCoords = aMesh._texCoords;
+        float u0 = 0, v0 = 0, u1 = 0, v1 = 0, u2 = 0, v2 = 0;
+        if (texCoords != null) {
+            u0 = texCoords[index0 * 2] * q0; v0 = texCoords[index0 * 2 + 1] * q0;
+            u1 = texCoords[index1 * 2] * q1; v1 = texCoords[index1 * 2 + 1] * q1;
+            u2 = texCoords[index2 * 2] * q2; v2 = texCoords[index2 * 2 + 1] * q2;
+        }
+
+        // Get flat color (if no per-vertex colors or texture)
+        int flatRGB = aMesh.getShadedRGB(aShade);
+        int[] texPixels = aMesh._texPixels;
+        int texW = aMesh._texW, texH = aMesh._texH;
+        float depthOffset = aMesh._depthOffset;
+
+        // Iterate over rows
+        for (int y = minY; y <= maxY; y++) {
+
+            // Get edge functions at first pixel center in row
+            float py = y + .5f, px = minX + .5f;
+            float w0 = ((x2 - x1) * (py - y1) - (y2 - y1) * (px - x1)) * invArea;
+            float w1 = ((x0 - x2) * (py - y2) - (y0 - y2) * (px - x2)) * invArea;
+            float w2 = ((x1 - x0) * (py - y0) - (y1 - y0) * (px - x0)) * invArea;
+            int rowIndex = y * _pixW;
+
+            // Iterate over pixels in row
+            for (int x = minX; x <= maxX; x++, w0 += e0dx, w1 += e1dx, w2 += e2dx) {
+
+                // If pixel outside triangle, skip
+                if (w0 < 0 || w1 < 0 || w2 < 0)
+                    continue;
+
+                // Get depth - if behind existing pixel (or beyond far plane), skip
+                int pixIndex = rowIndex + x;
+                float depth = w0 * z0 + w1 * z1 + w2 * z2 - depthOffset;
+                if (depth >= _depths[pixIndex] || depth > 1)
+                    continue;
+                _depths[pixIndex] = depth;
+
+                // Handle texture: Get perspective correct texture coords and sample texture
+                int rgb = flatRGB;
+                if (texPixels != null) {
+                    float w = 1 / (w0 * q0 + w1 * q1 + w2 * q2);
+                    float u = (w0 * u0 + w1 * u1 + w2 * u2) * w;
+                    float v = (w0 * v0 + w1 * v1 + w2 * v2) * w;
+                    int texX = Math.min(Math.max(Math.round(u * (texW - 1)), 0), texW - 1);
+                    int texY = Math.min(Math.max(Math.round(v * (texH - 1)), 0), texH - 1);
+                    rgb = getShadedRGB(texPixels[texY * texW + texX], aShade);
+                }
+
+                // Handle vertex colors: Get perspective correct color
+                else if (colors != null) {
+                    float w = aShade / (w0 * q0 + w1 * q1 + w2 * q2);
+                    int red = Math.min((int) ((w0 * r0 + w1 * r1 + w2 * r2) * w * 255), 255);
+                    int green = Math.min((int) ((w0 * g0 + w1 * g1 + w2 * g2) * w * 255), 255);
+                    int blue = Math.min((int) ((w0 * b0 + w1 * b1 + w2 * b2) * w * 255), 255);
+                    rgb = 0xff000000 | red << 16 | green << 8 | blue;
+                }
+
+                // Set pixel
+                _pixels[pixIndex] = rgb;
+            }
+        }
+    }
+
+    /**
+     * Returns the texture pixels for given texture.
+     */
+    private synchronized int[] getTexturePixels(Texture aTexture)
+    {
+        // If already set, just return
+        int[] texPixels = _texturePixels.get(aTexture);
+        if (texPixels != null) return texPixels;
+
+        // Get texture pixels from RGBA bytes
+        Image image = aTexture.getImage();
+        byte[] rgba = image.getBytesRGBA();
+        texPixels = new int[rgba.length / 4];
+        for (int i = 0, j = 0; i < texPixels.length; i++, j += 4)
+            texPixels[i] = 0xff000000 | (rgba[j] & 0xff) << 16 | (rgba[j + 1] & 0xff) << 8 | (rgba[j + 2] & 0xff);
+
+        // Set and return
+        _texturePixels.put(aTexture, texPixels);
+        return texPixels;
+    }
+
+    /**
+     * Returns the given RGB scaled by given shade.
+     */
+    private static int getShadedRGB(int anRGB, float aShade)
+    {
+        int red = Math.min((int) ((anRGB >> 16 & 0xff) * aShade), 255);
+        int green = Math.min((int) ((anRGB >> 8 & 0xff) * aShade), 255);
+        int blue = Math.min((int) ((anRGB & 0xff) * aShade), 255);
+        return 0xff000000 | red << 16 | green << 8 | blue;
+    }
+
+    /**
+     * Called to indicate that image needs to be rendered.
+     */
+    protected void rerender()
+    {
+        _imageDirty = true;
+    }
+
+    /**
+     * Override to rerender for camera changes.
+     */
+    @Override
+    protected void cameraDidPropChange(PropChange aPC)
+    {
+        String propName = aPC.getPropName();
+        switch (propName) {
+            case Camera.ViewWidth_Prop:
+            case Camera.ViewHeight_Prop:
+            case Camera.Yaw_Prop:
+            case Camera.Pitch_Prop:
+            case Camera.Roll_Prop:
+            case Camera.FocalLength_Prop:
+            case Camera.PrefGimbalRadius_Prop:
+                rerender();
+        }
+        super.cameraDidPropChange(aPC);
+    }
+
+    /**
+     * Called when scene changes.
+     */
+    protected void sceneDidChange()
+    {
+        _vertexArrays = null;
+        _texturePixels.clear();
+        rerender();
+    }
+
+    /**
+     * A VertexArray with points transformed to camera and pixel coords for current render.
+     */
+    private class Mesh {
+
+        // The points in camera coords (x, y, z) and pixel coords (x, y, depth, 1/w)
+        float[]  _cameraPoints, _pixelPoints;
+
+        // The triangle vertex indexes and count
+        int[]  _indexes;
+        int  _indexCount;
+
+        // The vertex colors and color component count
+        float[]  _colors;
+        int  _colorCompCount;
+
+        // The vertex texture coords and texture pixels and size
+        float[]  _texCoords;
+        int[]  _texPixels;
+        int  _texW, _texH;
+
+        // The color
+        Color  _color;
+
+        // Whether triangles are double-sided
+        boolean  _doubleSided;
+
+        // The depth offset
+        float  _depthOffset;
+
+        /**
+         * Constructor.
+         */
+        Mesh(VertexArray aVertexArray, Matrix3D sceneToCamera, Matrix3D cameraToPixels, float aDepthOffset)
+        {
+            // Get points, colors and texture
+            float[] pointArray = aVertexArray.getPointArray();
+            int pointCount = aVertexArray.getPointCount();
+            if (aVertexArray.isColorArraySet()) {
+                _colors = aVertexArray.getColorArray();
+                _colorCompCount = aVertexArray.getColorCompCount();
+            }
+            else if (aVertexArray.isTextureSetAndReady()) {
+                Texture texture = aVertexArray.getTexture();
+                _texCoords = aVertexArray.getTexCoordArray();
+                _texPixels = getTexturePixels(texture);
+                _texW = texture.getImage().getPixWidth();
+                _texH = texture.getImage().getPixHeight();
+                if (_texPixels.length < _texW * _texH) {
+                    _texCoords = null; _texPixels = null;
+                }
+            }
+            _color = aVertexArray.getColor() != null ? aVertexArray.getColor() : DEFAULT_COLOR;
+            _doubleSided = aVertexArray.isDoubleSided();
+            _depthOffset = aDepthOffset;
+
+            // Get indexes
+            if (aVertexArray.isIndexArraySet()) {
+                _indexes = aVertexArray.getIndexArray();
+                _indexCount = _indexes.length;
+            }
+            else {
+                _indexes = new int[pointCount];
+                for (int i = 0; i < pointCount; i++)
+                    _indexes[i] = i;
+                _indexCount = pointCount;
+            }
+
+            // Transform points to camera coords and pixel coords
+            _cameraPoints = new float[pointCount * 3];
+            _pixelPoints = new float[pointCount * 4];
+            double[] s2c = sceneToCamera.mtx;
+            double[] c2p = cameraToPixels.mtx;
+            for (int i = 0; i < pointCount; i++) {
+
+                // Transform point to camera coords
+                float x = pointArray[i * 3], y = pointArray[i * 3 + 1], z = pointArray[i * 3 + 2];
+                double cx = s2c[0] * x + s2c[4] * y + s2c[8] * z + s2c[12];
+                double cy = s2c[1] * x + s2c[5] * y + s2c[9] * z + s2c[13];
+                double cz = s2c[2] * x + s2c[6] * y + s2c[10] * z + s2c[14];
+                _cameraPoints[i * 3] = (float) cx;
+                _cameraPoints[i * 3 + 1] = (float) cy;
+                _cameraPoints[i * 3 + 2] = (float) cz;
+
+                // Transform camera point to pixel coords (keeping 1/w for perspective correct interpolation)
+                double px = c2p[0] * cx + c2p[4] * cy + c2p[8] * cz + c2p[12];
+                double py = c2p[1] * cx + c2p[5] * cy + c2p[9] * cz + c2p[13];
+                double pz = c2p[2] * cx + c2p[6] * cy + c2p[10] * cz + c2p[14];
+                double pw = c2p[3] * cx + c2p[7] * cy + c2p[11] * cz + c2p[15];
+                _pixelPoints[i * 4] = (float) (px / pw);
+                _pixelPoints[i * 4 + 1] = (float) (py / pw);
+                _pixelPoints[i * 4 + 2] = (float) (pz / pw);
+                _pixelPoints[i * 4 + 3] = (float) (1 / pw);
+            }
+        }
+
+        /**
+         * Returns whether vertex at given index is in front of camera near plane.
+         */
+        boolean isVertexVisible(int anIndex)
+        {
+            float invW = _pixelPoints[anIndex * 4 + 3];
+            float depth = _pixelPoints[anIndex * 4 + 2];
+            return invW > 0 && depth >= -1;
+        }
+
+        /**
+         * Returns the mesh color as RGB scaled by given shade.
+         */
+        int getShadedRGB(float aShade)
+        {
+            int red = Math.min((int) (_color.getRed() * aShade * 255), 255);
+            int green = Math.min((int) (_color.getGreen() * aShade * 255), 255);
+            int blue = Math.min((int) (_color.getBlue() * aShade * 255), 255);
+            return 0xff000000 | red << 16 | green << 8 | blue;
+        }
+    }
+
+    /**
+     * A RendererFactory implementation for ZBufferRenderer.
+     */
+    public static class ZBufferRendererFactory extends RendererFactory {
+
+        /**
+         * Returns the renderer name.
+         */
+        public String getRendererName()  { return RENDERER_NAME; }
+
+        /**
+         * Returns a new default renderer.
+         */
+        public Renderer newRenderer(Camera aCamera)
+        {
+            return new ZBufferRenderer(aCamera);
+        }
+    }
+}
@@ -2,10 +2,7 @@
  * Copyright (c) 2010, ReportMill Software. All rights reserved.
  */
 package snap.parse;
-import java.util.ArrayList;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Set;
+import java.util.*;
 
 /**
  * A class to parse a given input (string) using given rule(s).
@@ -21,6 +18,9 @@ public class Parser {
     // The tokenizer
     private Tokenizer  _tokenizer;
 
+    // Whether tokenizer uses compiled DFA to match regexes
+    private boolean  _compiledTokenizer;
+
     // The current token
     private ParseToken  _token;
 
@@ -36,6 +36,34 @@ public class Parser {
     // The shared node used to report parse success
     private ParseNode _sharedNode = new ParseNode();
 
+    // Whether to memoize rule results by token position
+    private boolean  _memoizeRules;
+
+    // The memo of rule results by token position
+    private RuleMemo  _ruleMemo;
+
+    // The number of times rules were retried at same token position (collected when memoizing)
+    private Map<ParseRule,int[]>  _ruleRetryCounts = new IdentityHashMap<>();
+
+    // The number of calls to parseFailed() (to avoid memoizing failures that called it)
+    private int  _parseFailedCount;
+
+    // Whether parser supports incremental reparse for input changes
+    private boolean  _incremental;
+
+    // The spans of rules with handlers from last parse (if incremental)
+    private List<RuleSpan>  _ruleSpans;
+
+    // The end char index of last token fetched from tokenizer
+    private int  _tokenHorizon;
+
+    // Constants for parse memo results
+    private static final int PARSE_MEMO_FAIL = -1;
+    private static final int PARSE_MEMO_ATTEMPTED = 0;
+
+    // Constant for parse memo token count (lookAhead entries use actual token count)
+    private static final int PARSE_MEMO_TOKEN_COUNT = -1;
+
     /**
      * Constructor.
      */
@@ -102,6 +130,7 @@ public class Parser {
         _input = aSequence;
         getTokenizer().setInput(_input);
         clearTokens();
+        _ruleSpans = _incremental ? new ArrayList<>() : null;
     }
 
     /**
@@ -135,12 +164,91 @@ public class Parser {
         // Set grammar regexes in tokenizer
         Grammar grammar = getGrammar();
         tokenizer.setRegexesForGrammar(grammar);
+        tokenizer.setCompiledMode(_compiledTokenizer);
+        tokenizer.setIncremental(_incremental);
 
         // Set, return
         setTokenizer(tokenizer);
         return _tokenizer;
     }
 
+    /**
+     * Returns whether tokenizer uses a compiled DFA to match grammar regexes (instead of a java.util.regex matcher
+     * for each candidate regex).
+     */
+    public boolean isCompiledTokenizer()  { return _compiledTokenizer; }
+
+    /**
+     * Sets whether tokenizer uses a compiled DFA to match grammar regexes.
+     */
+    public void setCompiledTokenizer(boolean aValue)
+    {
+        _compiledTokenizer = aValue;
+        if (_tokenizer != null)
+            _tokenizer.setCompiledMode(aValue);
+    }
+
+    /**
+     * Returns whether parser supports incremental reparse for input changes (see reparseForCharsChange()).
+     */
+    public boolean isIncremental()  { return _incremental; }
+
+    /**
+     * Sets whether parser supports incremental reparse for input changes.
+     */
+    public void setIncremental(boolean aValue)
+    {
+        _incremental = aValue;
+        if (_tokenizer != null)
+            _tokenizer.setIncremental(aValue);
+    }
+
+    /**
+     * Returns whether parser memoizes rule results by token position (packrat style), so rules that fail in Or
+     * branches or look-aheads aren't re-evaluated at same token position. Memo memory is bounded.
+     */
+    public boolean isMemoizeRules()  { return _memoizeRules; }
+
+    /**
+     * Sets whether parser memoizes rule results by token position.
+     */
+    public void setMemoizeRules(boolean aValue)
+    {
+        _memoizeRules = aValue;
+        _ruleMemo = aValue ? new RuleMemo() : null;
+    }
+
+    /**
+     * Returns the number of times each rule was retried at same token position (by parse or look-ahead), sorted from
+     * most to least retried. Only collected when memoizing rules (and approximate, since memo memory is bounded).
+     */
+    public Map<ParseRule,Integer> getRuleRetryCounts()
+    {
+        // Get entries sorted by count
+        List<Map.Entry<ParseRule,int[]>> entries = new ArrayList<>(_ruleRetryCounts.entrySet());
+        entries.sort((e1, e2) -> Integer.compare(e2.getValue()[0], e1.getValue()[0]));
+
+        // Create map and return
+        Map<ParseRule,Integer> retryCounts = new LinkedHashMap<>();
+        for (Map.Entry<ParseRule,int[]> entry : entries)
+            retryCounts.put(entry.getKey(), entry.getValue()[0]);
+        return retryCounts;
+    }
+
+    /**
+     * Clears rule retry counts.
+     */
+    public void resetRuleRetryCounts()  { _ruleRetryCounts.clear(); }
+
+    /**
+     * Adds a retry for given rule.
+     */
+    private void addRuleRetry(ParseRule aRule)
+    {
+        int[] retryCount = _ruleRetryCounts.computeIfAbsent(aRule, rule -> new int[1]);
+        retryCount[0]++;
+    }
+
     /**
      * Creates the tokenizer instance.
      */
@@ -173,8 +281,18 @@ public class Parser {
             return _lookAheadTokens.remove(0);
 
         // Get next token
+        return getNextTokenFromTokenizer();
+    }
+
+    /**
+     * Fetches and returns the next token from tokenizer.
+     */
+    private ParseToken getNextTokenFromTokenizer()
+    {
         Tokenizer tokenizer = getTokenizer();
-        return tokenizer.getNextToken();
+        ParseToken nextToken = tokenizer.getNextToken();
+        _tokenHorizon = nextToken != null ? nextToken.getEndCharIndex() : Integer.MAX_VALUE;
+        return nextToken;
     }
 
     /**
@@ -187,8 +305,7 @@ public class Parser {
 
         // While not enough lookahead tokens, get and add next token
         while (anIndex > _lookAheadTokens.size()) {
-            Tokenizer tokenizer = getTokenizer();
-            ParseToken nextToken = tokenizer.getNextToken();
+            ParseToken nextToken = getNextTokenFromTokenizer();
             _lookAheadTokens.add(nextToken);
         }
 
@@ -214,6 +331,8 @@ public class Parser {
         _lookAheadTokens.clear();
         _token = null;
         _lastValidToken = null;
+        if (_ruleMemo != null)
+            _ruleMemo.clear();
     }
 
     /**
@@ -256,6 +375,115 @@ public class Parser {
         return node;
     }
 
+    /**
+     * Updates parse for change in input chars (replacing old chars from start to old end with new chars from start to
+     * new end) and returns the node for the smallest enclosing rule that was re-parsed. Tokens are updated
+     * incrementally (see Tokenizer.updateTokenDocForCharsChange()), then the smallest rule span from last parse that
+     * encloses the changed tokens (and wasn't chosen based on look-ahead into them) is re-parsed from the token doc.
+     * If that rule doesn't end at the same place, the next enclosing rule is tried, up to a full parse of token doc.
+     * Caller can use returned node rule and start/end to replace the corresponding part of custom parse tree.
+     */
+    public ParseNode reparseForCharsChange(CharSequence theChars, int startCharIndex, int oldEndCharIndex, int newEndCharIndex)
+    {
+        // If not incremental or no previous parse, just do full parse
+        if (_ruleSpans == null || _input == null)
+            return parse(theChars);
+
+        // Update token doc for change (if tokenizer fails, just do full parse)
+        Tokenizer tokenizer = getTokenizer();
+        try {
+            tokenizer.completeTokenDoc();
+            tokenizer.updateTokenDocForCharsChange(theChars, startCharIndex, oldEndCharIndex, newEndCharIndex);
+        }
+        catch (ParseException e) { return parse(theChars); }
+        _input = theChars;
+
+        // Update rule spans for change
+        int charDelta = newEndCharIndex - oldEndCharIndex;
+        shiftRuleSpansForCharsChange(startCharIndex, oldEndCharIndex, charDelta);
+
+        // Get rule spans that enclose changed tokens (and weren't chosen by look-ahead into them), smallest first.
+        // Span must end after changed start, so token after span isn't one that was added or removed.
+        TokenDoc tokenDoc = tokenizer.getTokenDoc();
+        int changedStart = tokenDoc.getChangedStartCharIndex();
+        int changedEnd = tokenDoc.getChangedEndCharIndex();
+        List<RuleSpan> enclosingSpans = new ArrayList<>();
+        for (RuleSpan ruleSpan : _ruleSpans) {
+            if (ruleSpan._start <= changedStart && ruleSpan._horizon <= changedStart &&
+                ruleSpan._end > changedStart && ruleSpan._end >= changedEnd)
+                enclosingSpans.add(ruleSpan);
+        }
+        enclosingSpans.sort(Comparator.comparingInt(span -> span._end - span._start));
+
+        // Iterate over enclosing spans and return node for first that re-parses successfully
+        for (RuleSpan ruleSpan : enclosingSpans) {
+            ParseNode node = reparseRuleSpan(ruleSpan);
+            if (node != null)
+                return node;
+        }
+
+        // Do full parse of token doc
+        _ruleSpans = new ArrayList<>();
+        clearTokens();
+        tokenizer.setTokenDocReadCharIndex(0);
+        try { return parse(); }
+        finally { tokenizer.setTokenDocReadCharIndex(-1); }
+    }
+
+    /**
+     * Re-parses given rule span from token doc and returns node if it ends at the same place (otherwise null).
+     */
+    private ParseNode reparseRuleSpan(RuleSpan aRuleSpan)
+    {
+        // Swap in new list to collect rule spans
+        List<RuleSpan> oldRuleSpans = _ruleSpans;
+        List<RuleSpan> newRuleSpans = _ruleSpans = new ArrayList<>();
+
+        // Parse rule from token doc
+        Tokenizer tokenizer = getTokenizer();
+        clearTokens();
+        tokenizer.setTokenDocReadCharIndex(aRuleSpan._start);
+        ParseNode node = null;
+        try { node = parse(aRuleSpan._rule); }
+        catch (ParseException ignore) { }
+        finally { tokenizer.setTokenDocReadCharIndex(-1); }
+
+        // If rule didn't parse to same span, restore old rule spans and return null
+        RuleSpan newRuleSpan = !newRuleSpans.isEmpty() ? newRuleSpans.get(newRuleSpans.size() - 1) : null;
+        if (node == null || newRuleSpan == null || newRuleSpan._rule != aRuleSpan._rule ||
+            newRuleSpan._start != aRuleSpan._start || newRuleSpan._end != aRuleSpan._end) {
+            _ruleSpans = oldRuleSpans;
+            return null;
+        }
+
+        // Replace old rule spans inside span with new rule spans and return
+        newRuleSpan._horizon = aRuleSpan._horizon;
+        oldRuleSpans.removeIf(span -> span._start >= aRuleSpan._start && span._end <= aRuleSpan._end);
+        oldRuleSpans.addAll(newRuleSpans);
+        _ruleSpans = oldRuleSpans;
+        return node;
+    }
+
+    /**
+     * Updates rule spans for chars change: Removes spans that overlap change without enclosing it and shifts the rest.
+     */
+    private void shiftRuleSpansForCharsChange(int startCharIndex, int oldEndCharIndex, int charDelta)
+    {
+        // Remove spans that overlap change but don't enclose it
+        _ruleSpans.removeIf(span -> span._start < oldEndCharIndex && span._end > startCharIndex &&
+            !(span._start <= startCharIndex && span._end >= oldEndCharIndex));
+
+        // Shift spans after change
+        for (RuleSpan ruleSpan : _ruleSpans) {
+            if (ruleSpan._start >= oldEndCharIndex)
+                ruleSpan._start += charDelta;
+            if (ruleSpan._end >= oldEndCharIndex && ruleSpan._end > startCharIndex)
+                ruleSpan._end += charDelta;
+            if (ruleSpan._horizon >= oldEndCharIndex && ruleSpan._horizon > startCharIndex && ruleSpan._horizon != Integer.MAX_VALUE)
+                ruleSpan._horizon += charDelta;
+        }
+    }
+
     /**
      * Parses input and returns custom parse tree node.
      */
@@ -285,8 +513,36 @@ public class Parser {
         if (token == null)
             return null;
 
+        // If not memoizing (or pattern rule), just do normal version
+        if (_ruleMemo == null || aRule.getOp() == ParseRule.Op.Pattern)
+            return parseImpl(aRule, aHRef, token);
+
+        // If rule already attempted at token, add retry (and return if it failed)
+        int tokenStart = token.getStartCharIndex();
+        int memoResult = _ruleMemo.get(aRule, tokenStart, PARSE_MEMO_TOKEN_COUNT);
+        if (memoResult != RuleMemo.NOT_FOUND) {
+            addRuleRetry(aRule);
+            if (memoResult == PARSE_MEMO_FAIL)
+                return null;
+        }
+
+        // Do parse and add memo result (only failures are reused: they must not have consumed tokens or called
+        // parseFailed(), successes are just recorded to count retries since they can't skip handler calls)
+        int parseFailedCount = _parseFailedCount;
+        ParseNode node = parseImpl(aRule, aHRef, token);
+        boolean isReusableFail = node == null && _token == token && _parseFailedCount == parseFailedCount;
+        _ruleMemo.put(aRule, tokenStart, PARSE_MEMO_TOKEN_COUNT, isReusableFail ? PARSE_MEMO_FAIL : PARSE_MEMO_ATTEMPTED);
+        return node;
+    }
+
+    /**
+     * Returns a parse node if this rule matches string at given current token.
+     */
+    private ParseNode parseImpl(ParseRule aRule, HandlerRef aHRef, ParseToken token)
+    {
         // Get handler reference for given rule: Reuse if no Rule.Handler, otherwise create new HandlerRef for rule
         HandlerRef href = aRule.getHandler() == null ? aHRef : new HandlerRef(aRule);
+        int tokenHorizon = _tokenHorizon;
 
         // Handle ops
         switch (aRule.getOp()) {
@@ -415,8 +671,11 @@ public class Parser {
 
         // Create new node and return
         ParseNode node = createNode(aRule, token, _sharedNode.getEndToken());
-        if (href != aHRef)
+        if (href != aHRef) {
             node._customNode = href.handler().parsedAll();
+            if (_ruleSpans != null)
+                _ruleSpans.add(new RuleSpan(aRule, node.getStart(), node.getEnd(), tokenHorizon));
+        }
         return node;
     }
 
@@ -461,6 +720,30 @@ public class Parser {
      * Looks ahead given number of tokens and returns the remainder or -1 if it fails.
      */
     protected int lookAhead(ParseRule aRule, int aTokenCount, int aTokenIndex)
+    {
+        // If not memoizing (or pattern rule), just do normal version
+        if (_ruleMemo == null || aRule.getOp() == ParseRule.Op.Pattern)
+            return lookAheadImpl(aRule, aTokenCount, aTokenIndex);
+
+        // If rule already looked-ahead at token for token count, add retry and return result
+        ParseToken token = getLookAheadToken(aTokenIndex);
+        int tokenStart = token != null ? token.getStartCharIndex() : Integer.MAX_VALUE;
+        int memoResult = _ruleMemo.get(aRule, tokenStart, aTokenCount);
+        if (memoResult != RuleMemo.NOT_FOUND) {
+            addRuleRetry(aRule);
+            return memoResult;
+        }
+
+        // Do look-ahead, add memo result and return
+        int remainder = lookAheadImpl(aRule, aTokenCount, aTokenIndex);
+        _ruleMemo.put(aRule, tokenStart, aTokenCount, remainder);
+        return remainder;
+    }
+
+    /**
+     * Looks ahead given number of tokens and returns the remainder or -1 if it fails.
+     */
+    private int lookAheadImpl(ParseRule aRule, int aTokenCount, int aTokenIndex)
     {
         // Handle ops
         switch (aRule.getOp()) {
@@ -576,6 +859,7 @@ public class Parser {
      */
     protected void parseFailed(ParseRule aRule, ParseHandler<?> aHandler)
     {
+        _parseFailedCount++;
         if (aHandler != null)
             aHandler.reset();
         throw new ParseException(this, aRule);
@@ -614,6 +898,77 @@ public class Parser {
             resetHandlersForRuleDeep(childRule1, visitedRules);
     }
 
+    /**
+     * A class to hold the char span of a parsed rule (for incremental reparse).
+     */
+    private static final class RuleSpan {
+
+        // The rule, start/end char index and end char index of tokens fetched before rule was parsed
+        private final ParseRule  _rule;
+        private int  _start, _end, _horizon;
+
+        /** Constructor. */
+        RuleSpan(ParseRule aRule, int aStart, int anEnd, int aHorizon)
+        {
+            _rule = aRule;
+            _start = aStart;
+            _end = anEnd;
+            _horizon = aHorizon;
+        }
+    }
+
+    /**
+     * A bounded, direct-mapped memo table of rule results keyed by rule, token start char index and token count.
+     * Colliding entries simply replace older ones, so memory stays fixed no matter how large the input.
+     */
+    private static final class RuleMemo {
+
+        // The keys and results
+        private final ParseRule[]  _rules = new ParseRule[MEMO_SIZE];
+        private final int[]  _tokenStarts = new int[MEMO_SIZE];
+        private final int[]  _tokenCounts = new int[MEMO_SIZE];
+        private final int[]  _results = new int[MEMO_SIZE];
+
+        // Constant for number of memo entries (must be power of 2)
+        private static final int MEMO_SIZE = 1 << 12;
+
+        // Constant for result not found
+        static final int NOT_FOUND = Integer.MIN_VALUE;
+
+        /** Returns the result for given key, or NOT_FOUND. */
+        int get(ParseRule aRule, int tokenStart, int tokenCount)
+        {
+            int index = getIndex(aRule, tokenStart, tokenCount);
+            if (_rules[index] == aRule && _tokenStarts[index] == tokenStart && _tokenCounts[index] == tokenCount)
+                return _results[index];
+            return NOT_FOUND;
+        }
+
+        /** Sets the result for given key. */
+        void put(ParseRule aRule, int tokenStart, int tokenCount, int aResult)
+        {
+            int index = getIndex(aRule, tokenStart, tokenCount);
+            _rules[index] = aRule;
+            _tokenStarts[index] = tokenStart;
+            _tokenCounts[index] = tokenCount;
+            _results[index] = aResult;
+        }
+
+        /** Clears all entries. */
+        void clear()  { Arrays.fill(_rules, null); }
+
+        /** Returns the table index for given key. */
+        private static int getIndex(ParseRule aRule, int tokenStart, int tokenCount)
+        {
+            int hash = System.identityHashCode(aRule) * 31 + tokenStart;
+            hash = hash * 31 + tokenCount;
+            hash ^= hash >>> 16;
+            hash *= 0x45d9f3b;
+            hash ^= hash >>> 16;
+            return hash & (MEMO_SIZE - 1);
+        }
+    }
+
     /**
      * A class to pass Handler by reference, allowing it to be created lazily, but used higher up in stack.
      */
@@ -0,0 +1,833 @@
+/*
+ * Copyright (c) 2010, ReportMill Software. All rights reserved.
+ */
+package snap.parse;
+import java.util.*;
+
+/**
+ * This class compiles a set of Regex into a single lazily built DFA (deterministic finite automaton), so a tokenizer
+ * can find the longest match for all regexes at a char index in one pass over the chars.
+ *
+ * Supported patterns are literals, char classes (with ranges, negation and \d \w \s), '.', groups, alternation and
+ * greedy quantifiers (*, +, ?, {n,m}). Regexes with other constructs (anchors, lookaround, reluctant or possessive
+ * quantifiers, backreferences, inline flags) aren't compiled and should be matched with java.util.regex instead
+ * (see getFallbackRegexes()). Note that compiled alternations match the longest alternative (standard lexer
+ * semantics), not the first one that matches.
+ */
+public class RegexDFA {
+
+    // The regexes
+    private Regex[]  _regexes;
+
+    // Map of regex to index
+    private Map<Regex,Integer>  _regexIndexes = new IdentityHashMap<>();
+
+    // The NFA start state for each regex (null if regex can't be compiled)
+    private NState[]  _regexStarts;
+
+    // The number of NFA states
+    private int  _nfaStateCount;
+
+    // The NFA states by id (set lazily as states are visited)
+    private NState[]  _nfaStatesById;
+
+    // The char class boundaries (char class index for char is index of last boundary less than or equal to char)
+    private int[]  _charClassBounds;
+
+    // The char class index for ASCII chars
+    private int[]  _asciiCharClasses = new int[128];
+
+    // The DFA states for NFA state sets
+    private Map<StateSetKey,DState>  _dfaStates = new HashMap<>();
+
+    // The DFA start states for candidate regex arrays
+    private Map<Regex[],DState>  _startStates = new IdentityHashMap<>();
+
+    // The fallback (not compiled) regexes for candidate regex arrays
+    private Map<Regex[],Regex[]>  _fallbackRegexes = new IdentityHashMap<>();
+
+    // The dead DFA state
+    private DState  _deadState = new DState(new int[0], -1, 0);
+
+    // The end char index of last match
+    private int  _matchEnd;
+
+    // The max number of DFA states to cache before flushing
+    private static final int MAX_DFA_STATES = 10000;
+
+    // The max count for a bounded quantifier
+    private static final int MAX_REPEAT_COUNT = 64;
+
+    // The max char value
+    private static final int MAX_CHAR = Character.MAX_VALUE;
+
+    /**
+     * Constructor for given regexes.
+     */
+    public RegexDFA(Regex[] theRegexes)
+    {
+        _regexes = theRegexes;
+        _regexStarts = new NState[theRegexes.length];
+
+        // Iterate over regexes and create NFA for each that can be compiled
+        List<NState> charStates = new ArrayList<>();
+        for (int i = 0; i < theRegexes.length; i++) {
+            Regex regex = theRegexes[i];
+            _regexIndexes.put(regex, i);
+
+            // Parse pattern (just skip if not supported)
+            Node node;
+            try { node = regex.isLiteral() ? getNodeForLiteral(regex.getPattern()) : new PatternParser(regex.getPattern()).parse(); }
+            catch (UnsupportedPatternException e) { continue; }
+
+            // Create NFA for node and add accept state
+            Frag frag = createFrag(node, charStates);
+            NState acceptState = newState();
+            acceptState._acceptIndex = i;
+            frag.end.addEpsilon(acceptState);
+            _regexStarts[i] = frag.start;
+        }
+
+        // Create char classes from char state range boundaries
+        TreeSet<Integer> bounds = new TreeSet<>();
+        bounds.add(0);
+        for (NState charState : charStates) {
+            int[] ranges = charState._ranges;
+            for (int i = 0; i < ranges.length; i += 2) {
+                bounds.add(ranges[i]);
+                if (ranges[i + 1] < MAX_CHAR)
+                    bounds.add(ranges[i + 1] + 1);
+            }
+        }
+        _charClassBounds = bounds.stream().mapToInt(Integer::intValue).toArray();
+        for (int i = 0; i < 128; i++)
+            _asciiCharClasses[i] = getCharClassImpl((char) i);
+    }
+
+    /**
+     * Returns the regexes.
+     */
+    public Regex[] getRegexes()  { return _regexes; }
+
+    /**
+     * Returns whether regex at given index is compiled in DFA.
+     */
+    public boolean isCompiled(int anIndex)  { return _regexStarts[anIndex] != null; }
+
+    /**
+     * Returns the index of given regex.
+     */
+    public int getRegexIndex(Regex aRegex)
+    {
+        Integer index = _regexIndexes.get(aRegex);
+        return index != null ? index : -1;
+    }
+
+    /**
+     * Returns the regexes from given candidates that aren't compiled (and need to be matched with java.util.regex).
+     */
+    public Regex[] getFallbackRegexes(Regex[] theCandidates)
+    {
+        // If already set, just return
+        Regex[] fallbackRegexes = _fallbackRegexes.get(theCandidates);
+        if (fallbackRegexes != null)
+            return fallbackRegexes;
+
+        // Get candidates that aren't compiled, set and return
+        fallbackRegexes = Arrays.stream(theCandidates).filter(regex -> !isCompiled(getRegexIndex(regex))).toArray(Regex[]::new);
+        _fallbackRegexes.put(theCandidates, fallbackRegexes);
+        return fallbackRegexes;
+    }
+
+    /**
+     * Returns the index of the regex with longest (non-empty) match of given candidates at given char index, or -1.
+     * For matches of same length, regex with longer literal length wins, then regex with lower index.
+     */
+    public int getLongestMatch(CharSequence theChars, int startIndex, int endIndex, Regex[] theCandidates)
+    {
+        // Get start state for candidates
+        DState state = getStartState(theCandidates);
+        int matchIndex = -1;
+        _matchEnd = startIndex;
+
+        // Iterate over chars and advance state until dead state (record accept states)
+        for (int charIndex = startIndex; charIndex < endIndex; charIndex++) {
+            state = getNextState(state, theChars.charAt(charIndex));
+            if (state == _deadState)
+                break;
+            if (state._acceptIndex >= 0) {
+                matchIndex = state._acceptIndex;
+                _matchEnd = charIndex + 1;
+            }
+        }
+
+        // Return
+        return matchIndex;
+    }
+
+    /**
+     * Returns the end char index of last match.
+     */
+    public int getMatchEnd()  { return _matchEnd; }
+
+    /**
+     * Returns the DFA start state for given candidate regexes.
+     */
+    private DState getStartState(Regex[] theCandidates)
+    {
+        // If already set, just return
+        DState startState = _startStates.get(theCandidates);
+        if (startState != null)
+            return startState;
+
+        // Get NFA start states for compiled candidates
+        List<NState> nfaStates = new ArrayList<>();
+        for (Regex regex : theCandidates) {
+            int regexIndex = getRegexIndex(regex);
+            if (regexIndex >= 0 && _regexStarts[regexIndex] != null)
+                nfaStates.add(_regexStarts[regexIndex]);
+        }
+
+        // Get DFA state (ignoring accept, since empty matches aren't reported), set and return
+        startState = getDFAState(nfaStates);
+        _startStates.put(theCandidates, startState);
+        return startState;
+    }
+
+    /**
+     * Returns the next DFA state for given state and char.
+     */
+    private DState getNextState(DState aState, char aChar)
+    {
+        // Get char class and cached next state (just return if found)
+        int charClass = aChar < 128 ? _asciiCharClasses[aChar] : getCharClassImpl(aChar);
+        DState nextState = aState._nextStates[charClass];
+        if (nextState != null)
+            return nextState;
+
+        // Get NFA states reachable from state NFA states for char class
+        int classChar = _charClassBounds[charClass];
+        List<NState> nfaStates = new ArrayList<>();
+        for (int nfaStateId : aState._nfaStateIds) {
+            NState nfaState = _nfaStatesById[nfaStateId];
+            if (nfaState._ranges != null && containsChar(nfaState._ranges, classChar))
+                nfaStates.add(nfaState._out);
+        }
+
+        // Get DFA state, cache and return
+        nextState = nfaStates.isEmpty() ? _deadState : getDFAState(nfaStates);
+        aState._nextStates[charClass] = nextState;
+        return nextState;
+    }
+
+    /**
+     * Returns the DFA state for epsilon closure of given NFA states.
+     */
+    private DState getDFAState(List<NState> theNfaStates)
+    {
+        // Get epsilon closure (only char and accept states) as sorted ids
+        int[] stateIds = getClosureStateIds(theNfaStates);
+        StateSetKey key = new StateSetKey(stateIds);
+        DState dfaState = _dfaStates.get(key);
+        if (dfaState != null)
+            return dfaState;
+
+        // If too many states, flush cache (states already in use remain valid)
+        if (_dfaStates.size() >= MAX_DFA_STATES) {
+            _dfaStates.clear();
+            _startStates.clear();
+        }
+
+        // Get accept regex index: longest literal length, then lowest index
+        int acceptIndex = -1;
+        for (int stateId : stateIds) {
+            int regexIndex = _nfaStatesById[stateId]._acceptIndex;
+            if (regexIndex < 0)
+                continue;
+            if (acceptIndex < 0 || isBetterAccept(regexIndex, acceptIndex))
+                acceptIndex = regexIndex;
+        }
+
+        // Create, add and return
+        dfaState = new DState(stateIds, acceptIndex, _charClassBounds.length);
+        _dfaStates.put(key, dfaState);
+        return dfaState;
+    }
+
+    /**
+     * Returns whether regex at given index should win over other regex for match of same length.
+     */
+    private boolean isBetterAccept(int regexIndex, int otherIndex)
+    {
+        int literalLength = _regexes[regexIndex].getLiteralLength();
+        int otherLiteralLength = _regexes[otherIndex].getLiteralLength();
+        return literalLength > otherLiteralLength || literalLength == otherLiteralLength && regexIndex < otherIndex;
+    }
+
+    /**
+     * Returns the sorted ids of char and accept states in epsilon closure of given NFA states.
+     */
+    private int[] getClosureStateIds(List<NState> theNfaStates)
+    {
+        // Get NFA states by id (done lazily once all states are created)
+        if (_nfaStatesById == null)
+            _nfaStatesById = new NState[_nfaStateCount];
+
+        // Iterate over states and follow epsilons
+        BitSet visited = new BitSet(_nfaStateCount);
+        BitSet closure = new BitSet(_nfaStateCount);
+        ArrayDeque<NState> stack = new ArrayDeque<>(theNfaStates);
+        while (!stack.isEmpty()) {
+            NState nfaState = stack.pop();
+            if (visited.get(nfaState._id))
+                continue;
+            visited.set(nfaState._id);
+            _nfaStatesById[nfaState._id] = nfaState;
+            if (nfaState._ranges != null || nfaState._acceptIndex >= 0)
+                closure.set(nfaState._id);
+            if (nfaState._epsilons != null)
+                nfaState._epsilons.forEach(stack::push);
+        }
+
+        // Return ids
+        return closure.stream().toArray();
+    }
+
+    /**
+     * Returns the char class index for char.
+     */
+    private int getCharClassImpl(char aChar)
+    {
+        int index = Arrays.binarySearch(_charClassBounds, aChar);
+        return index >= 0 ? index : -index - 2;
+    }
+
+    /**
+     * Creates a new NFA state.
+     */
+    private NState newState()
+    {
+        NState nfaState = new NState();
+        nfaState._id = _nfaStateCount++;
+        return nfaState;
+    }
+
+    /**
+     * Creates an NFA fragment for given node.
+     */
+    private Frag createFrag(Node aNode, List<NState> charStates)
+    {
+        switch (aNode._type) {
+
+            // Handle chars: Create char state to end state
+            case Node.CHARS: {
+                NState start = newState();
+                NState end = newState();
+                start._ranges = aNode._ranges;
+                start._out = end;
+                charStates.add(start);
+                return new Frag(start, end);
+            }
+
+            // Handle sequence: Chain child fragments
+            case Node.SEQ: {
+                NState start = newState();
+                Frag frag = new Frag(start, start);
+                for (Node child : aNode._children) {
+                    Frag childFrag = createFrag(child, charStates);
+                    frag.end.addEpsilon(childFrag.start);
+                    frag.end = childFrag.end;
+                }
+                return frag;
+            }
+
+            // Handle alternation: Split to each child fragment and join
+            case Node.ALT: {
+                NState start = newState();
+                NState end = newState();
+                for (Node child : aNode._children) {
+                    Frag childFrag = createFrag(child, charStates);
+                    start.addEpsilon(childFrag.start);
+                    childFrag.end.addEpsilon(end);
+                }
+                return new Frag(start, end);
+            }
+
+            // Handle repeat: Chain required copies, then star or optional copies
+            case Node.REPEAT: {
+                Node child = aNode._children[0];
+                NState start = newState();
+                Frag frag = new Frag(start, start);
+                for (int i = 0; i < aNode._min; i++) {
+                    Frag childFrag = createFrag(child, charStates);
+                    frag.end.addEpsilon(childFrag.start);
+                    frag.end = childFrag.end;
+                }
+
+                // Handle unbounded: Add loop
+                if (aNode._max < 0) {
+                    NState loopEnd = newState();
+                    Frag childFrag = createFrag(child, charStates);
+                    frag.end.addEpsilon(childFrag.start);
+                    frag.end.addEpsilon(loopEnd);
+                    childFrag.end.addEpsilon(childFrag.start);
+                    childFrag.end.addEpsilon(loopEnd);
+                    frag.end = loopEnd;
+                }
+
+                // Handle bounded: Add optional copies
+                else {
+                    NState optionalEnd = newState();
+                    for (int i = aNode._min; i < aNode._max; i++) {
+                        Frag childFrag = createFrag(child, charStates);
+                        frag.end.addEpsilon(childFrag.start);
+                        frag.end.addEpsilon(optionalEnd);
+                        frag.end = childFrag.end;
+                    }
+                    frag.end.addEpsilon(optionalEnd);
+                    frag.end = optionalEnd;
+                }
+                return frag;
+            }
+
+            // Handle the impossible
+            default: throw new RuntimeException("RegexDFA.createFrag: Unknown node type " + aNode._type);
+        }
+    }
+
+    /**
+     * Returns a node for a literal pattern.
+     */
+    private static Node getNodeForLiteral(String aPattern)
+    {
+        Node[] charNodes = new Node[aPattern.length()];
+        for (int i = 0; i < charNodes.length; i++)
+            charNodes[i] = Node.newChars(new int[] { aPattern.charAt(i), aPattern.charAt(i) });
+        return Node.newParent(Node.SEQ, charNodes);
+    }
+
+    /**
+     * Returns whether given sorted ranges array contains given char.
+     */
+    private static boolean containsChar(int[] theRanges, int aChar)
+    {
+        for (int i = 0; i < theRanges.length; i += 2) {
+            if (aChar < theRanges[i])
+                return false;
+            if (aChar <= theRanges[i + 1])
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns the union of given ranges as sorted, non-overlapping ranges.
+     */
+    private static int[] getNormalizedRanges(List<int[]> theRanges)
+    {
+        // Sort ranges by start
+        List<int[]> ranges = new ArrayList<>(theRanges);
+        ranges.sort(Comparator.comparingInt(range -> range[0]));
+
+        // Iterate over ranges and merge overlapping or adjacent
+        int[] normalized = new int[ranges.size() * 2];
+        int count = 0;
+        for (int[] range : ranges) {
+            if (count > 0 && range[0] <= normalized[count - 1] + 1)
+                normalized[count - 1] = Math.max(normalized[count - 1], range[1]);
+            else {
+                normalized[count++] = range[0];
+                normalized[count++] = range[1];
+            }
+        }
+
+        // Return
+        return Arrays.copyOf(normalized, count);
+    }
+
+    /**
+     * Returns the complement of given sorted ranges.
+     */
+    private static int[] getNegatedRanges(int[] theRanges)
+    {
+        List<int[]> negated = new ArrayList<>();
+        int start = 0;
+        for (int i = 0; i < theRanges.length; i += 2) {
+            if (theRanges[i] > start)
+                negated.add(new int[] { start, theRanges[i] - 1 });
+            start = theRanges[i + 1] + 1;
+        }
+        if (start <= MAX_CHAR)
+            negated.add(new int[] { start, MAX_CHAR });
+        return getNormalizedRanges(negated);
+    }
+
+    /**
+     * A node in a parsed pattern.
+     */
+    private static class Node {
+
+        // The type
+        int  _type;
+
+        // The char ranges (for CHARS)
+        int[]  _ranges;
+
+        // The children (for SEQ, ALT and REPEAT)
+        Node[]  _children;
+
+        // The min and max count (for REPEAT, max is -1 for unbounded)
+        int  _min, _max;
+
+        // Constants for type
+        static final int CHARS = 0, SEQ = 1, ALT = 2, REPEAT = 3;
+
+        /** Creates a CHARS node. */
+        static Node newChars(int[] theRanges)
+        {
+            Node node = new Node();
+            node._type = CHARS;
+            node._ranges = theRanges;
+            return node;
+        }
+
+        /** Creates a SEQ or ALT node. */
+        static Node newParent(int aType, Node[] theChildren)
+        {
+            Node node = new Node();
+            node._type = aType;
+            node._children = theChildren;
+            return node;
+        }
+
+        /** Creates a REPEAT node. */
+        static Node newRepeat(Node aChild, int aMin, int aMax)
+        {
+            Node node = newParent(REPEAT, new Node[] { aChild });
+            node._min = aMin;
+            node._max = aMax;
+            return node;
+        }
+    }
+
+    /**
+     * A recursive descent parser for the supported subset of java.util.regex pattern syntax.
+     */
+    private static class PatternParser {
+
+        // The pattern and current char index
+        private String  _pattern;
+        private int  _index;
+
+        // Ranges for standard char classes
+        private static final int[] DIGIT_RANGES = { '0', '9' };
+        private static final int[] WORD_RANGES = { '0', '9', 'A', 'Z', '_', '_', 'a', 'z' };
+        private static final int[] SPACE_RANGES = { '\t', '\r', ' ', ' ' };
+        private static final int[] DOT_RANGES = getNegatedRanges(getNormalizedRanges(Arrays.asList(
+            new int[] { '\n', '\n' }, new int[] { '\r', '\r' }, new int[] { '\u0085', '\u0085' }, new int[] { '\u2028', '\u2029' })));
+
+        /** Constructor. */
+        PatternParser(String aPattern)  { _pattern = aPattern; }
+
+        /** Parses the pattern and returns node. */
+        Node parse()
+        {
+            Node node = parseAlternation();
+            if (_index < _pattern.length())
+                throw new UnsupportedPatternException();
+            return node;
+        }
+
+        /** Parses alternation: Sequence ('|' Sequence)* */
+        private Node parseAlternation()
+        {
+            List<Node> alternatives = new ArrayList<>();
+            alternatives.add(parseSequence());
+            while (hasChar() && nextChar() == '|') {
+                _index++;
+                alternatives.add(parseSequence());
+            }
+            return alternatives.size() == 1 ? alternatives.get(0) : Node.newParent(Node.ALT, alternatives.toArray(new Node[0]));
+        }
+
+        /** Parses sequence: (Atom Quantifier?)* */
+        private Node parseSequence()
+        {
+            List<Node> nodes = new ArrayList<>();
+            while (hasChar() && nextChar() != '|' && nextChar() != ')') {
+                Node atom = parseAtom();
+                nodes.add(parseQuantifier(atom));
+            }
+            return Node.newParent(Node.SEQ, nodes.toArray(new Node[0]));
+        }
+
+        /** Parses atom: Group, char class, '.', escape or literal char. */
+        private Node parseAtom()
+        {
+            char c = _pattern.charAt(_index++);
+            switch (c) {
+
+                // Handle group (only plain and non-capturing)
+                case '(': {
+                    if (hasChar() && nextChar() == '?') {
+                        if (!_pattern.startsWith("?:", _index))
+                            throw new UnsupportedPatternException();
+                        _index += 2;
+                    }
+                    Node node = parseAlternation();
+                    if (!hasChar() || nextChar() != ')')
+                        throw new UnsupportedPatternException();
+                    _index++;
+                    return node;
+                }
+
+                // Handle char class
+                case '[': return Node.newChars(parseCharClass());
+
+                // Handle any char
+                case '.': return Node.newChars(DOT_RANGES);
+
+                // Handle escape
+                case '\\': return Node.newChars(parseEscape(false));
+
+                // Handle anchors, dangling quantifiers and other specials: Not supported
+                case '^': case '$': case '*': case '+': case '?': case '{': case ')': case ']': case '}':
+                    throw new UnsupportedPatternException();
+
+                // Handle literal char
+                default: return Node.newChars(new int[] { c, c });
+            }
+        }
+
+        /** Parses optional quantifier for given atom. */
+        private Node parseQuantifier(Node anAtom)
+        {
+            if (!hasChar())
+                return anAtom;
+
+            // Get min/max for quantifier
+            int min, max;
+            char c = nextChar();
+            if (c == '*') { min = 0; max = -1; _index++; }
+            else if (c == '+') { min = 1; max = -1; _index++; }
+            else if (c == '?') { min = 0; max = 1; _index++; }
+            else if (c == '{') {
+                int closeIndex = _pattern.indexOf('}', _index);
+                if (closeIndex < 0)
+                    throw new UnsupportedPatternException();
+                String[] counts = _pattern.substring(_index + 1, closeIndex).split(",", -1);
+                try {
+                    min = Integer.parseInt(counts[0].trim());
+                    max = counts.length == 1 ? min : counts[1].trim().isEmpty() ? -1 : Integer.parseInt(counts[1].trim());
+                }
+                catch (NumberFormatException e) { throw new UnsupportedPatternException(); }
+                if (counts.length > 2 || min > MAX_REPEAT_COUNT || max > MAX_REPEAT_COUNT || max >= 0 && max < min)
+                    throw new UnsupportedPatternException();
+                _index = closeIndex + 1;
+            }
+            else return anAtom;
+
+            // Reluctant and possessive quantifiers aren't supported
+            if (hasChar() && (nextChar() == '?' || nextChar() == '+'))
+                throw new UnsupportedPatternException();
+
+            // Return repeat node
+            return Node.newRepeat(anAtom, min, max);
+        }
+
+        /** Parses char class (after '['): Returns ranges. */
+        private int[] parseCharClass()
+        {
+            // Handle negation
+            boolean negate = hasChar() && nextChar() == '^';
+            if (negate)
+                _index++;
+
+            // Leading ']' is ambiguous - not supported
+            if (hasChar() && nextChar() == ']')
+                throw new UnsupportedPatternException();
+
+            // Iterate over class items till close
+            List<int[]> ranges = new ArrayList<>();
+            while (true) {
+                if (!hasChar())
+                    throw new UnsupportedPatternException();
+                char c = _pattern.charAt(_index++);
+                if (c == ']')
+                    break;
+
+                // Nested classes and intersections not supported
+                if (c == '[' || c == '&' && hasChar() && nextChar() == '&')
+                    throw new UnsupportedPatternException();
+
+                // Get item ranges (escape or single char)
+                int[] itemRanges = c == '\\' ? parseEscape(true) : new int[] { c, c };
+
+                // If single char followed by '-' and not end, handle range
+                if (itemRanges.length == 2 && itemRanges[0] == itemRanges[1] && _index + 1 < _pattern.length() &&
+                        nextChar() == '-' && _pattern.charAt(_index + 1) != ']') {
+                    _index++;
+                    char endChar = _pattern.charAt(_index++);
+                    int[] endRanges = endChar == '\\' ? parseEscape(true) : new int[] { endChar, endChar };
+                    if (endRanges.length != 2 || endRanges[0] != endRanges[1] || endRanges[0] < itemRanges[0])
+                        throw new UnsupportedPatternException();
+                    itemRanges = new int[] { itemRanges[0], endRanges[0] };
+                }
+
+                // Add item ranges
+                for (int i = 0; i < itemRanges.length; i += 2)
+                    ranges.add(new int[] { itemRanges[i], itemRanges[i + 1] });
+            }
+
+            // Return normalized (and negated) ranges
+            int[] classRanges = getNormalizedRanges(ranges);
+            return negate ? getNegatedRanges(classRanges) : classRanges;
+        }
+
+        /** Parses escape (after '\'): Returns ranges. */
+        private int[] parseEscape(boolean inClass)
+        {
+            if (!hasChar())
+                throw new UnsupportedPatternException();
+            char c = _pattern.charAt(_index++);
+            switch (c) {
+
+                // Handle standard classes
+                case 'd': return DIGIT_RANGES;
+                case 'D': return getNegatedRanges(DIGIT_RANGES);
+                case 'w': return WORD_RANGES;
+                case 'W': return getNegatedRanges(WORD_RANGES);
+                case 's': return SPACE_RANGES;
+                case 'S': return getNegatedRanges(SPACE_RANGES);
+
+                // Handle control chars
+                case 't': return new int[] { '\t', '\t' };
+                case 'n': return new int[] { '\n', '\n' };
+                case 'r': return new int[] { '\r', '\r' };
+                case 'f': return new int[] { '\f', '\f' };
+                case 'a': return new int[] { '\u0007', '\u0007' };
+                case 'e': return new int[] { '\u001B', '\u001B' };
+
+                // Handle hex and unicode
+                case 'x': return parseHexChar(2);
+                case 'u': return parseHexChar(4);
+
+                // Handle anything else: Letters and digits are special (not supported), others are literal
+                default:
+                    if (Character.isLetterOrDigit(c))
+                        throw new UnsupportedPatternException();
+                    return new int[] { c, c };
+            }
+        }
+
+        /** Parses hex char for given digit count. */
+        private int[] parseHexChar(int digitCount)
+        {
+            if (_index + digitCount > _pattern.length())
+                throw new UnsupportedPatternException();
+            int c;
+            try { c = Integer.parseInt(_pattern.substring(_index, _index + digitCount), 16); }
+            catch (NumberFormatException e) { throw new UnsupportedPatternException(); }
+            _index += digitCount;
+            return new int[] { c, c };
+        }
+
+        /** Returns whether there are more chars. */
+        private boolean hasChar()  { return _index < _pattern.length(); }
+
+        /** Returns the next char. */
+        private char nextChar()  { return _pattern.charAt(_index); }
+    }
+
+    /**
+     * Exception thrown when pattern uses syntax not supported by DFA.
+     */
+    private static class UnsupportedPatternException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+        UnsupportedPatternException()  { super(null, null, false, false); }
+    }
+
+    /**
+     * An NFA fragment with start and end state.
+     */
+    private static class Frag {
+        NState  start, end;
+        Frag(NState aStart, NState anEnd)  { start = aStart; end = anEnd; }
+    }
+
+    /**
+     * An NFA state: Either a char state (ranges and out state), epsilon state or accept state.
+     */
+    private static class NState {
+
+        // The state id
+        int  _id;
+
+        // The char ranges and out state (for char state)
+        int[]  _ranges;
+        NState  _out;
+
+        // The epsilon states
+        List<NState>  _epsilons;
+
+        // The accepted regex index (for accept state)
+        int  _acceptIndex = -1;
+
+        /** Adds an epsilon state. */
+        void addEpsilon(NState aState)
+        {
+            if (_epsilons == null)
+                _epsilons = new ArrayList<>(2);
+            _epsilons.add(aState);
+        }
+    }
+
+    /**
+     * A DFA state.
+     */
+    private static class DState {
+
+        // The NFA state ids
+        final int[]  _nfaStateIds;
+
+        // The accepted regex index (or -1)
+        final int  _acceptIndex;
+
+        // The next states for char classes
+        final DState[]  _nextStates;
+
+        /** Constructor. */
+        DState(int[] theIds, int anAcceptIndex, int aCharClassCount)
+        {
+            _nfaStateIds = theIds;
+            _acceptIndex = anAcceptIndex;
+            _nextStates = new DState[aCharClassCount];
+        }
+    }
+
+    /**
+     * A hash key for a set of NFA state ids.
+     */
+    private static class StateSetKey {
+
+        // The ids and hash code
+        private final int[]  _ids;
+        private final int  _hashCode;
+
+        /** Constructor. */
+        StateSetKey(int[] theIds)
+        {
+            _ids = theIds;
+            _hashCode = Arrays.hashCode(theIds);
+        }
+
+        /** Standard equals implementation. */
+        public boolean equals(Object anObj)
+        {
+            return anObj instanceof StateSetKey && Arrays.equals(_ids, ((StateSetKey) anObj)._ids);
+        }
+
+        /** Standard hashCode implementation. */
+        public int hashCode()  { return _hashCode; }
+    }
+}
@@ -16,6 +16,10 @@ public class TokenDoc {
     // The start line index (if doing parse of partial doc)
     protected int _startLineIndex;
 
+    // The char range and line range of tokens changed by last incremental update
+    protected int  _changedStartCharIndex, _changedEndCharIndex;
+    protected int  _changedStartLineIndex, _changedEndLineIndex;
+
     /**
      * Constructor.
      */
@@ -39,6 +43,46 @@ public class TokenDoc {
         return _lines.get(lineIndex);
     }
 
+    /**
+     * Returns the line for given char index (or last line if char index is at or beyond end of last line).
+     */
+    public TokenLine getLineForCharIndex(int charIndex)
+    {
+        // Do binary search for line with start at or before char index
+        int low = 0;
+        int high = _lines.size() - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (_lines.get(mid).getStartCharIndex() <= charIndex)
+                low = mid;
+            else high = mid - 1;
+        }
+
+        // Return line
+        return high >= 0 ? _lines.get(low) : null;
+    }
+
+    /**
+     * Returns the start char index of tokens changed by last incremental update (end of last unchanged token before).
+     */
+    public int getChangedStartCharIndex()  { return _changedStartCharIndex; }
+
+    /**
+     * Returns the end char index of tokens changed by last incremental update (end of last changed old or new token).
+     */
+    public int getChangedEndCharIndex()  { return _changedEndCharIndex; }
+
+    /**
+     * Returns the start line index of lines that got new tokens in last incremental update.
+     */
+    public int getChangedStartLineIndex()  { return _changedStartLineIndex; }
+
+    /**
+     * Returns the end line index (exclusive) of lines that got new tokens in last incremental update.
+     * Lines after this are reused, with char indexes shifted by change length.
+     */
+    public int getChangedEndLineIndex()  { return _changedEndLineIndex; }
+
     /**
      * Adds a line for char range.
      */
@@ -49,6 +93,49 @@ public class TokenDoc {
         return tokenLine;
     }
 
+    /**
+     * Adds an existing line (from incremental update), shifting its char indexes by given delta.
+     */
+    protected void addLineWithCharDelta(TokenLine aLine, int charDelta)
+    {
+        aLine.shiftCharIndexes(charDelta, getLineCount());
+        _lines.add(aLine);
+    }
+
+    /**
+     * Removes and returns the lines from given index to end.
+     */
+    protected List<TokenLine> removeLinesFromIndex(int anIndex)
+    {
+        List<TokenLine> linesFromIndex = _lines.subList(anIndex, _lines.size());
+        List<TokenLine> removedLines = new ArrayList<>(linesFromIndex);
+        linesFromIndex.clear();
+        return removedLines;
+    }
+
+    /**
+     * Sets the chars (for incremental update), updating lines.
+     */
+    protected void setChars(CharSequence theChars)
+    {
+        _chars = theChars;
+        for (TokenLine line : _lines)
+            line._chars = theChars;
+    }
+
+    /**
+     * Returns the last token that starts in a line before given line index.
+     */
+    protected ParseToken getLastTokenBeforeLineIndex(int lineIndex)
+    {
+        for (int i = lineIndex - 1; i >= 0; i--) {
+            ParseToken lastToken = _lines.get(i).getLastToken();
+            if (lastToken != null)
+                return lastToken;
+        }
+        return null;
+    }
+
     /**
      * Returns the last line.
      */
@@ -1,5 +1,7 @@
 package snap.parse;
 import snap.util.CharSequenceX;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * This class represents a line
@@ -21,6 +23,9 @@ public class TokenLine implements CharSequenceX {
     // The line index
     protected int _lineIndex;
 
+    // The tokens that start in this line (if tokenizer is incremental)
+    private List<ParseTokenImpl>  _tokens = new ArrayList<>(0);
+
     /**
      * Constructor.
      */
@@ -48,6 +53,68 @@ public class TokenLine implements CharSequenceX {
      */
     public int getLineIndex()  { return _lineIndex + _tokenDoc._startLineIndex; }
 
+    /**
+     * Returns the number of tokens that start in this line (only set if tokenizer is incremental).
+     */
+    public int getTokenCount()  { return _tokens.size(); }
+
+    /**
+     * Returns the individual token at given index.
+     */
+    public ParseToken getToken(int anIndex)  { return _tokens.get(anIndex); }
+
+    /**
+     * Returns the last token.
+     */
+    public ParseToken getLastToken()
+    {
+        int tokenCount = _tokens.size();
+        return tokenCount > 0 ? _tokens.get(tokenCount - 1) : null;
+    }
+
+    /**
+     * Adds a token.
+     */
+    protected void addToken(ParseTokenImpl aToken)
+    {
+        _tokens.add(aToken);
+    }
+
+    /**
+     * Moves tokens from given index to given line, shifting their char indexes by given delta.
+     */
+    protected void moveTokensToLine(int startIndex, TokenLine aLine, int charDelta)
+    {
+        for (int i = startIndex, iMax = _tokens.size(); i < iMax; i++) {
+            ParseTokenImpl token = _tokens.get(i);
+            token._startCharIndex += charDelta;
+            token._endCharIndex += charDelta;
+            token._tokenLine = aLine;
+            aLine._tokens.add(token);
+        }
+        _tokens.subList(startIndex, _tokens.size()).clear();
+    }
+
+    /**
+     * Shifts this line and its tokens by given char delta and resets line index and chars from token doc.
+     */
+    protected void shiftCharIndexes(int charDelta, int lineIndex)
+    {
+        // Update chars, indexes
+        _chars = _tokenDoc._chars;
+        _startCharIndex += charDelta;
+        _endCharIndex += charDelta;
+        _lineIndex = lineIndex;
+
+        // Update tokens
+        if (charDelta != 0) {
+            for (ParseTokenImpl token : _tokens) {
+                token._startCharIndex += charDelta;
+                token._endCharIndex += charDelta;
+            }
+        }
+    }
+
     /**
      * Returns the next line.
      */
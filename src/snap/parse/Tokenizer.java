@@ -4,6 +4,7 @@
 package snap.parse;
 import snap.util.ArrayUtils;
 import snap.util.CharSequenceUtils;
+import java.util.List;
 import java.util.regex.Matcher;
 import java.util.stream.Stream;
 
@@ -48,6 +49,20 @@ public class Tokenizer {
     // TextBlock regexes
     private Regex[] _textBlockRegexes;
 
+    // Whether to match regexes with compiled DFA
+    private boolean _compiledMode;
+
+    // The compiled DFA for regexes
+    private RegexDFA _regexDFA;
+
+    // Whether to keep tokens in token lines so token doc can be updated incrementally
+    private boolean _incremental;
+
+    // Whether tokens are read from token doc (instead of lexing input) and the line and token index to read next
+    private boolean _readingTokenDoc;
+    private TokenLine _readLine;
+    private int _readTokenIndex;
+
     // Constants for common special token names
     public static final String SKIP = "Skip";
     public static final String SINGLE_LINE_COMMENT = "SingleLineComment";
@@ -75,6 +90,38 @@ public class Tokenizer {
     public void setRegexes(Regex[] theRegexes)
     {
         _regexes = theRegexes;
+        _regexDFA = null;
+    }
+
+    /**
+     * Returns whether tokenizer matches regexes with a compiled DFA (falling back to java.util.regex for
+     * patterns the DFA can't express).
+     */
+    public boolean isCompiledMode()  { return _compiledMode; }
+
+    /**
+     * Sets whether tokenizer matches regexes with a compiled DFA.
+     */
+    public void setCompiledMode(boolean aValue)  { _compiledMode = aValue; }
+
+    /**
+     * Returns whether tokenizer keeps tokens in token lines, so token doc can be updated incrementally for input
+     * changes (see updateTokenDocForCharsChange()).
+     */
+    public boolean isIncremental()  { return _incremental; }
+
+    /**
+     * Sets whether tokenizer keeps tokens in token lines.
+     */
+    public void setIncremental(boolean aValue)  { _incremental = aValue; }
+
+    /**
+     * Returns the compiled DFA for regexes.
+     */
+    public RegexDFA getRegexDFA()
+    {
+        if (_regexDFA != null) return _regexDFA;
+        return _regexDFA = new RegexDFA(_regexes);
     }
 
     /**
@@ -130,6 +177,7 @@ public class Tokenizer {
 
         // Reset char index
         setCharIndex(0);
+        _readingTokenDoc = false;
 
         // Reset token doc, line
         _tokenDoc = null;
@@ -137,6 +185,14 @@ public class Tokenizer {
         getTokenLine();
 
         // Reset matchers
+        resetMatchers();
+    }
+
+    /**
+     * Resets regex matchers for current input.
+     */
+    protected void resetMatchers()
+    {
         for (Regex regex : _regexes)
             regex.getMatcher().reset(_input);
         if (_multilineRegexes != null)
@@ -286,15 +342,218 @@ public class Tokenizer {
      */
     public ParseToken getNextToken()
     {
-        ParseToken nextToken = _lastToken = getNextTokenImpl();
+        ParseToken nextToken = _lastToken = getNextTokenOrTokenDocToken();
 
         // If next token is special token and those are ignored, get next token
         while (nextToken != null && nextToken.isSpecial() && !_specialTokens)
-            nextToken = _lastToken = getNextTokenImpl();
+            nextToken = _lastToken = getNextTokenOrTokenDocToken();
 
         return nextToken;
     }
 
+    /**
+     * Returns the next token from token doc if reading token doc, otherwise lexes next token.
+     */
+    private ParseToken getNextTokenOrTokenDocToken()
+    {
+        // If not reading token doc, just return next token
+        if (!_readingTokenDoc)
+            return getNextTokenImpl();
+
+        // Get next line with available token
+        while (_readLine != null && _readTokenIndex >= _readLine.getTokenCount()) {
+            _readLine = _readLine.getNext();
+            _readTokenIndex = 0;
+        }
+
+        // Return next token
+        return _readLine != null ? _readLine.getToken(_readTokenIndex++) : null;
+    }
+
+    /**
+     * Sets tokenizer to return tokens from current token doc, starting at first token at or after given char index,
+     * instead of lexing input. This allows a re-parse of an incremental token doc. Char index -1 resumes lexing.
+     */
+    public void setTokenDocReadCharIndex(int aCharIndex)
+    {
+        // If negative index, just stop reading token doc
+        _readingTokenDoc = aCharIndex >= 0;
+        if (!_readingTokenDoc)
+            return;
+
+        // Get line and index of first token at or after char index
+        _readLine = getTokenDoc().getLineForCharIndex(aCharIndex);
+        _readTokenIndex = 0;
+        while (_readLine != null) {
+            if (_readTokenIndex >= _readLine.getTokenCount()) {
+                _readLine = _readLine.getNext();
+                _readTokenIndex = 0;
+            }
+            else if (_readLine.getToken(_readTokenIndex).getStartCharIndex() < aCharIndex)
+                _readTokenIndex++;
+            else break;
+        }
+    }
+
+    /**
+     * Lexes remaining input so token doc has all tokens (for incremental update).
+     */
+    public void completeTokenDoc()
+    {
+        _readingTokenDoc = false;
+        while (getNextToken() != null);
+    }
+
+    /**
+     * Updates token doc for change in input chars (replacing old chars from start to old end with new chars from start
+     * to new end). Token lines before change are reused, then input is re-lexed from the line before the change
+     * until a token after the change matches an old token (same shifted position, name and pattern), which means the
+     * lexer state has converged with the old token stream, and the remaining old lines are reused with char indexes
+     * shifted. The changed ranges are available from token doc. Tokenizer must be incremental and token doc complete.
+     */
+    public void updateTokenDocForCharsChange(CharSequence theChars, int startCharIndex, int oldEndCharIndex, int newEndCharIndex)
+    {
+        // If no lines, just reset input and lex everything
+        TokenDoc tokenDoc = getTokenDoc();
+        if (tokenDoc.getLineCount() == 0) {
+            setInput(theChars);
+            completeTokenDoc();
+            tokenDoc = getTokenDoc();
+            tokenDoc._changedEndCharIndex = _length;
+            tokenDoc._changedEndLineIndex = tokenDoc.getLineCount();
+            return;
+        }
+
+        // Get index of line to re-lex from: line before changed line (in case line end chars changed)
+        TokenLine changedLine = tokenDoc.getLineForCharIndex(startCharIndex);
+        int startLineIndex = Math.max(changedLine._lineIndex - 1, 0);
+
+        // Get last token before start line to restore lexer state - if it extends into start line, back up to its line
+        ParseToken lastToken = tokenDoc.getLastTokenBeforeLineIndex(startLineIndex);
+        while (lastToken != null && lastToken.getEndCharIndex() >= tokenDoc.getLine(startLineIndex).getStartCharIndex()) {
+            startLineIndex = ((ParseTokenImpl) lastToken)._tokenLine._lineIndex;
+            lastToken = tokenDoc.getLastTokenBeforeLineIndex(startLineIndex);
+        }
+
+        // Remove old lines from start line and set new input
+        int startLineCharIndex = tokenDoc.getLine(startLineIndex).getStartCharIndex();
+        List<TokenLine> oldLines = tokenDoc.removeLinesFromIndex(startLineIndex);
+        tokenDoc.setChars(theChars);
+        _input = theChars;
+        _length = theChars.length();
+        resetMatchers();
+
+        // Reset lexer state to start line
+        _readingTokenDoc = false;
+        _charIndex = startLineCharIndex;
+        _lastToken = lastToken;
+        _tokenLine = null;
+        getTokenLine();
+
+        // Set changed range to all re-lexed chars
+        tokenDoc._changedStartCharIndex = startLineCharIndex;
+        tokenDoc._changedStartLineIndex = startLineIndex;
+        tokenDoc._changedEndCharIndex = _length;
+        int charDelta = newEndCharIndex - oldEndCharIndex;
+        int oldLineIndex = 0;
+        int oldTokenIndex = 0;
+        boolean matchingOldTokens = true;
+        int changedEndCharIndex = -1;
+
+        // Re-lex tokens until token after change matches old token
+        for (ParseToken token = getNextTokenImpl(); token != null; token = getNextTokenImpl()) {
+
+            // Update last token
+            _lastToken = token;
+
+            // While tokens before change match old tokens, move changed start to end of token
+            if (matchingOldTokens) {
+                ParseToken oldToken = null;
+                while (oldLineIndex < oldLines.size() && oldToken == null) {
+                    TokenLine oldLine = oldLines.get(oldLineIndex);
+                    if (oldTokenIndex < oldLine.getTokenCount())
+                        oldToken = oldLine.getToken(oldTokenIndex);
+                    else { oldLineIndex++; oldTokenIndex = 0; }
+                }
+                matchingOldTokens = token.getEndCharIndex() <= startCharIndex && isEqualTokens(token, oldToken, 0);
+                if (matchingOldTokens) {
+                    tokenDoc._changedStartCharIndex = token.getEndCharIndex();
+                    tokenDoc._changedStartLineIndex = getTokenLine()._lineIndex;
+                    oldTokenIndex++;
+                    continue;
+                }
+            }
+
+            // If token not after change, just update changed end and continue
+            if (token.getStartCharIndex() < newEndCharIndex) {
+                changedEndCharIndex = token.getEndCharIndex();
+                continue;
+            }
+
+            // Advance old token cursor to first old token at or after token start
+            int oldTokenStart = token.getStartCharIndex() - charDelta;
+            ParseToken oldToken = null;
+            while (oldLineIndex < oldLines.size()) {
+                TokenLine oldLine = oldLines.get(oldLineIndex);
+                if (oldTokenIndex >= oldLine.getTokenCount()) {
+                    oldLineIndex++;
+                    oldTokenIndex = 0;
+                    continue;
+                }
+                oldToken = oldLine.getToken(oldTokenIndex);
+                if (oldToken.getStartCharIndex() >= oldTokenStart)
+                    break;
+
+                // Skip changed old token (update changed end with old token end in new chars - or just past new chars
+                // if old token ended in replaced chars, so changed end is always after anything that ended before it)
+                int oldTokenEnd = oldToken.getEndCharIndex();
+                int oldTokenEndInNewChars = oldTokenEnd <= startCharIndex ? oldTokenEnd :
+                    oldTokenEnd > oldEndCharIndex ? oldTokenEnd + charDelta : newEndCharIndex + 1;
+                changedEndCharIndex = Math.max(changedEndCharIndex, oldTokenEndInNewChars);
+                oldTokenIndex++;
+                oldToken = null;
+            }
+
+            // If old token doesn't match, update changed end and keep lexing
+            if (!isEqualTokens(token, oldToken, charDelta)) {
+                changedEndCharIndex = token.getEndCharIndex();
+                continue;
+            }
+
+            // If lines don't match, keep lexing
+            TokenLine newLine = getTokenLine();
+            TokenLine oldLine = oldLines.get(oldLineIndex);
+            if (newLine.getEndCharIndex() != oldLine.getEndCharIndex() + charDelta)
+                continue;
+
+            // Converged: Move remaining tokens in old line to new line and add remaining old lines
+            oldLine.moveTokensToLine(oldTokenIndex + 1, newLine, charDelta);
+            for (int i = oldLineIndex + 1; i < oldLines.size(); i++)
+                tokenDoc.addLineWithCharDelta(oldLines.get(i), charDelta);
+            tokenDoc._changedEndCharIndex = Math.max(changedEndCharIndex, tokenDoc._changedStartCharIndex);
+            tokenDoc._changedEndLineIndex = newLine._lineIndex + 1;
+
+            // Reset lexer state to end of last line
+            _tokenLine = tokenDoc.getLastLine();
+            _lastToken = tokenDoc.getLastTokenBeforeLineIndex(tokenDoc.getLineCount());
+            _charIndex = _lastToken.getEndCharIndex();
+            return;
+        }
+
+        // Set changed end line
+        tokenDoc._changedEndLineIndex = tokenDoc.getLineCount();
+    }
+
+    /**
+     * Returns whether given new token is equal to given old token shifted by given char delta.
+     */
+    private static boolean isEqualTokens(ParseToken newToken, ParseToken oldToken, int charDelta)
+    {
+        return oldToken != null && oldToken.getStartCharIndex() + charDelta == newToken.getStartCharIndex() &&
+            oldToken.getEndCharIndex() + charDelta == newToken.getEndCharIndex() &&
+            oldToken.getName() == newToken.getName() && oldToken.getPattern().equals(newToken.getPattern());
+    }
+
     /**
      * Returns the next token.
      */
@@ -310,8 +569,20 @@ public class Tokenizer {
         Regex match = null;
         int matchEnd = _charIndex;
 
+        // If compiled mode and regexes are standard regexes for char, get DFA match and regexes it can't express
+        RegexDFA regexDFA = _compiledMode && isStandardRegexesForChar(regexes, nextChar) ? getRegexDFA() : null;
+        Regex[] matchRegexes = regexes;
+        if (regexDFA != null) {
+            int matchIndex = regexDFA.getLongestMatch(_input, _charIndex, _length, regexes);
+            if (matchIndex >= 0) {
+                match = _regexes[matchIndex];
+                matchEnd = regexDFA.getMatchEnd();
+            }
+            matchRegexes = regexDFA.getFallbackRegexes(regexes);
+        }
+
         // Iterate over regular expressions to find best match
-        for (Regex regex : regexes) {
+        for (Regex regex : matchRegexes) {
 
             // Get matcher
             Matcher matcher = regex.getMatcher();
@@ -320,13 +591,22 @@ public class Tokenizer {
             // Find pattern
             if (matcher.lookingAt()) {
                 if (match == null || matcher.end() > matchEnd ||
-                        (matcher.end() == matchEnd && regex.getLiteralLength() > match.getLiteralLength())) {
+                        (matcher.end() == matchEnd && regex.getLiteralLength() > match.getLiteralLength()) ||
+                        (matcher.end() == matchEnd && regex.getLiteralLength() == match.getLiteralLength() &&
+                            regexDFA != null && regexDFA.getRegexIndex(regex) < regexDFA.getRegexIndex(match))) {
                     match = regex;
                     matchEnd = matcher.end();
                 }
             }
         }
 
+        // If DFA found no match, try regular matchers (to get same results for empty matches)
+        if (match == null && regexDFA != null) {
+            _compiledMode = false;
+            try { return getNextTokenImpl(); }
+            finally { _compiledMode = true; }
+        }
+
         // If no match, return bogus token
         if (match == null) {
 
@@ -352,6 +632,15 @@ public class Tokenizer {
         return token;
     }
 
+    /**
+     * Returns whether given regexes are the standard regexes for given start char (and not special regexes for
+     * multiline comments, text blocks, etc.).
+     */
+    private boolean isStandardRegexesForChar(Regex[] theRegexes, char aChar)
+    {
+        return theRegexes == (aChar < 128 ? _charMatchers[aChar] : _regexes);
+    }
+
     /**
      * Returns list of Regex for a starting char.
      */
@@ -413,12 +702,29 @@ public class Tokenizer {
      */
     public ParseToken createTokenForProps(String aName, String aPattern, int aStart, int anEnd)
     {
+        // Get token line - advance to line containing start if needed (regex matches don't eat chars)
+        TokenLine tokenLine = getTokenLine();
+        while (aStart >= tokenLine.getEndCharIndex() && tokenLine.getEndCharIndex() < _length) {
+            _tokenLine = null;
+            tokenLine = getTokenLine();
+        }
+
+        // Create token
         ParseTokenImpl token = new ParseTokenImpl();
-        token._tokenLine = getTokenLine();
+        token._tokenLine = tokenLine;
         token._name = aName;
         token._pattern = aPattern;
         token._startCharIndex = aStart;
         token._endCharIndex = anEnd;
+
+        // If incremental, add to line
+        if (_incremental) {
+            ParseToken lastToken = tokenLine.getLastToken();
+            if (lastToken == null || lastToken.getEndCharIndex() <= aStart)
+                tokenLine.addToken(token);
+        }
+
+        // Return
         return token;
     }
 
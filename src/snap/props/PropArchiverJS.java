@@ -62,22 +62,32 @@ public class PropArchiverJS extends PropArchiver {
      */
     public Object readPropObjectFromJSONString(String jsonString)
     {
-        try {
-            JSParser parser = new JSParser();
-            JSObject json = (JSObject) parser.readString(jsonString);
-            return readPropObjectFromJSON(json);
-        }
-
-        catch (Exception e) { throw new RuntimeException(e); }
+        JSReader reader = new JSReader(jsonString);
+        return readPropObjectFromJSONReader(reader);
     }
 
     /**
-     * Reads a PropObject from JSON.
+     * Reads a PropObject from JSON (UTF-8) bytes.
      */
     public Object readPropObjectFromJSONBytes(byte[] theBytes)
     {
-        String string = new String(theBytes);
-        return readPropObjectFromJSONString(string);
+        JSReader reader = new JSReader(theBytes);
+        return readPropObjectFromJSONReader(reader);
+    }
+
+    /**
+     * Reads a PropObject from JSReader, converting reader events straight to PropNodes (without JSObject tree).
+     */
+    public PropObject readPropObjectFromJSONReader(JSReader aReader)
+    {
+        // Read PropNode from root object
+        if (aReader.next() != JSReader.START_OBJECT)
+            throw new RuntimeException("PropArchiverJS.readPropObjectFromJSONReader: Root JSON value is not object");
+        PropNode propNode = PropNodeJSON.readPropNode(aReader);
+
+        // Convert PropNode (graph) to PropObject
+        PropObject rootObject = getRootObject();
+        return convertNodeToNative(propNode, null, rootObject);
     }
 
     /**
@@ -1,5 +1,7 @@
 package snap.props;
 import snap.util.*;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
 
 /**
@@ -137,4 +139,58 @@ public class PropNodeJSON {
         // Return
         return propNode;
     }
+
+    /**
+     * Reads a PropNode from given JSReader for current START_OBJECT event, without building JSObject tree.
+     * Values are set the same way as convertJSONToPropNode().
+     */
+    public static PropNode readPropNode(JSReader aReader)
+    {
+        // Create PropNode for object
+        PropNode propNode = new PropNode();
+
+        // Iterate over object properties and add to PropNode
+        for (int event = aReader.next(); event != JSReader.END_OBJECT; event = aReader.next()) {
+
+            // Get property name
+            String propName = aReader.getKey();
+
+            // Handle array
+            if (event == JSReader.START_ARRAY) {
+
+                // Handle array of objects: Read objects to PropNode array and set
+                event = aReader.next();
+                if (event == JSReader.START_OBJECT) {
+                    List<PropNode> nodes = new ArrayList<>();
+                    for (; event != JSReader.END_ARRAY; event = aReader.next()) {
+                        if (event != JSReader.START_OBJECT)
+                            throw new RuntimeException("PropNodeJSON.readPropNode: Array mixes objects and values: " + propName);
+                        nodes.add(readPropNode(aReader));
+                    }
+                    propNode.setPropValue(propName, nodes.toArray(new PropNode[0]));
+                }
+
+                // Handle simple array: Read values to JSArray and set string
+                else {
+                    JSArray jsonArray = new JSArray();
+                    for (; event != JSReader.END_ARRAY; event = aReader.next())
+                        jsonArray.addValue(aReader.readValueForEvent());
+                    String arrayStr = jsonArray.getValueAsString();
+                    propNode.setPropValue(propName, arrayStr);
+                }
+            }
+
+            // Handle Object
+            else if (event == JSReader.START_OBJECT) {
+                PropNode childNode = readPropNode(aReader);
+                propNode.setPropValue(propName, childNode);
+            }
+
+            // Handle value
+            else propNode.setPropValue(propName, aReader.getValue());
+        }
+
+        // Return
+        return propNode;
+    }
 }
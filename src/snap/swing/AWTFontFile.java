@@ -10,6 +10,7 @@ import snap.geom.Path2D;
 import snap.geom.Rect;
 import snap.gfx.FontFile;
 import snap.geom.Shape;
+import snap.geom.Transform;
 import snap.util.*;
 
 /**
@@ -129,18 +130,30 @@ public class AWTFontFile extends FontFile {
      */
     public Shape getOutline(CharSequence aStr, double aSize, double aX, double aY, double aCharSpacing)
     {
-        // Get graphics, font render context and glyph vector
+        // Get cached outline at origin for string
         String str = StringUtils.trimEnd(aStr);
+        Shape outline = AWTGlyphCache.getOutline(this, aSize, str, aCharSpacing, () -> getOutlineImpl(str, aSize, aCharSpacing));
+
+        // Return outline moved to given point
+        return outline.copyFor(new Transform(aX, aY));
+    }
+
+    /**
+     * Returns the path for given string in given point size with character spacing at origin (doesn't cache).
+     */
+    private Shape getOutlineImpl(String aStr, double aSize, double aCharSpacing)
+    {
+        // Get graphics, font render context and glyph vector
         Graphics2D gfx = getGraphics2D();
         FontRenderContext fontRenderContext = gfx.getFontRenderContext();
         Font awtFont = _awt.deriveFont((float) aSize);
-        GlyphVector glyphVector = awtFont.createGlyphVector(fontRenderContext, str);
+        GlyphVector glyphVector = awtFont.createGlyphVector(fontRenderContext, aStr);
 
         // Adjust glyph positions
-        Point2D.Double point = new Point2D.Double(aX, aY);
-        for (int i = 0, iMax = str.length(); i < iMax; i++) {
+        Point2D.Double point = new Point2D.Double(0, 0);
+        for (int i = 0, iMax = aStr.length(); i < iMax; i++) {
             glyphVector.setGlyphPosition(i, point);
-            point.x += charAdvance(str.charAt(i)) * aSize + aCharSpacing;
+            point.x += charAdvance(aStr.charAt(i)) * aSize + aCharSpacing;
         }
 
         // Return glyph vector
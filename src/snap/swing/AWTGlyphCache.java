@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2010, ReportMill Software. All rights reserved.
+ */
+package snap.swing;
+import java.awt.font.FontRenderContext;
+import java.awt.font.GlyphVector;
+import java.awt.geom.Point2D;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Supplier;
+import snap.geom.Shape;
+
+/**
+ * A bounded LRU cache of shaped glyph runs (GlyphVectors) and string outlines, so painting the same strings every
+ * frame (labels, table cells, text lines) doesn't re-shape them.
+ */
+public class AWTGlyphCache {
+
+    // The max number of cached glyph vectors and outlines
+    private static final int MAX_GLYPH_VECTORS = 2000;
+    private static final int MAX_OUTLINES = 500;
+
+    // The cached glyph vectors
+    private static Map<Key,GlyphVector>  _glyphVectors = createCache(MAX_GLYPH_VECTORS);
+
+    // The cached outlines
+    private static Map<Key,Shape>  _outlines = createCache(MAX_OUTLINES);
+
+    // The number of cache hits and misses
+    private static long  _hitCount, _missCount;
+
+    /**
+     * Returns the glyph vector for given AWT font, render context, string and char spacing.
+     */
+    public static GlyphVector getGlyphVector(java.awt.Font aFont, FontRenderContext aFRC, String aStr, double charSpacing)
+    {
+        Key key = new Key(aFont, aFRC, aStr, 0, charSpacing);
+        return getCachedValue(_glyphVectors, key, () -> createGlyphVector(aFont, aFRC, aStr, charSpacing));
+    }
+
+    /**
+     * Returns the outline for given font file, size, string and char spacing at origin.
+     */
+    public static Shape getOutline(AWTFontFile aFontFile, double aSize, String aStr, double charSpacing, Supplier<Shape> aSupplier)
+    {
+        Key key = new Key(aFontFile, null, aStr, aSize, charSpacing);
+        return getCachedValue(_outlines, key, aSupplier);
+    }
+
+    /**
+     * Returns the number of cache hits.
+     */
+    public static synchronized long getHitCount()  { return _hitCount; }
+
+    /**
+     * Returns the number of cache misses.
+     */
+    public static synchronized long getMissCount()  { return _missCount; }
+
+    /**
+     * Clears the caches and hit/miss counts.
+     */
+    public static synchronized void clear()
+    {
+        _glyphVectors.clear();
+        _outlines.clear();
+        _hitCount = _missCount = 0;
+    }
+
+    /**
+     * Returns the cached value for given key from given cache, creating with given supplier if missing.
+     */
+    private static <T> T getCachedValue(Map<Key,T> aCache, Key aKey, Supplier<T> aSupplier)
+    {
+        // Get cached value (just return if found)
+        synchronized (AWTGlyphCache.class) {
+            T value = aCache.get(aKey);
+            if (value != null) {
+                _hitCount++;
+                return value;
+            }
+            _missCount++;
+        }
+
+        // Create value outside lock and add to cache
+        T value = aSupplier.get();
+        synchronized (AWTGlyphCache.class) {
+            aCache.put(aKey, value);
+        }
+
+        // Return
+        return value;
+    }
+
+    /**
+     * Creates a glyph vector for given font, render context, string and char spacing.
+     */
+    private static GlyphVector createGlyphVector(java.awt.Font aFont, FontRenderContext aFRC, String aStr, double charSpacing)
+    {
+        // Create glyph vector
+        GlyphVector glyphVector = aFont.createGlyphVector(aFRC, aStr);
+        if (charSpacing == 0)
+            return glyphVector;
+
+        // Adjust glyph positions for char spacing
+        Point2D.Double point = new Point2D.Double(0, 0);
+        for (int i = 1, iMax = glyphVector.getNumGlyphs(); i < iMax; i++) {
+            point.x = glyphVector.getGlyphPosition(i).getX() + charSpacing * i;
+            glyphVector.setGlyphPosition(i, point);
+        }
+
+        // Return
+        return glyphVector;
+    }
+
+    /**
+     * Creates an LRU map for given max size.
+     */
+    private static <T> Map<Key,T> createCache(int maxSize)
+    {
+        return new LinkedHashMap<Key,T>(16, .75f, true) {
+            protected boolean removeEldestEntry(Map.Entry<Key,T> anEntry)  { return size() > maxSize; }
+        };
+    }
+
+    /**
+     * A key for a cached glyph vector or outline.
+     */
+    private static class Key {
+
+        // The font (AWT font or font file), render context, string, size and char spacing
+        private Object  _font, _context;
+        private String  _str;
+        private double  _size, _charSpacing;
+        private int  _hashCode;
+
+        /**
+         * Constructor.
+         */
+        Key(Object aFont, Object aContext, String aStr, double aSize, double charSpacing)
+        {
+            _font = aFont;
+            _context = aContext;
+            _str = aStr;
+            _size = aSize;
+            _charSpacing = charSpacing;
+            _hashCode = Objects.hash(aFont, aContext, aStr, aSize, charSpacing);
+        }
+
+        /**
+         * Standard equals implementation.
+         */
+        public boolean equals(Object anObj)
+        {
+            if (anObj == this) return true;
+            if (!(anObj instanceof Key)) return false;
+            Key other = (Key) anObj;
+            return _hashCode == other._hashCode && _size == other._size && _charSpacing == other._charSpacing &&
+                _str.equals(other._str) && _font.equals(other._font) && Objects.equals(_context, other._context);
+        }
+
+        /**
+         * Standard hashCode implementation.
+         */
+        public int hashCode()  { return _hashCode; }
+    }
+}
@@ -145,6 +145,24 @@ public class J2DImage extends Image {
         return rgba;
     }
 
+    /**
+     * Sets the image pixels from given array of ARGB ints.
+     */
+    protected void setPixelsARGBImpl(int[] thePixels)
+    {
+        // If native is simple int RGB/ARGB, just copy to image data
+        int pixW = getPixWidth();
+        int pixH = getPixHeight();
+        int imageType = _native.getType();
+        if (imageType == BufferedImage.TYPE_INT_ARGB || imageType == BufferedImage.TYPE_INT_RGB) {
+            int[] pixels = getArrayARGB();
+            System.arraycopy(thePixels, 0, pixels, 0, pixW * pixH);
+        }
+
+        // Otherwise set with color conversion
+        else _native.setRGB(0, 0, pixW, pixH, thePixels, 0, pixW);
+    }
+
     /**
      * Returns the JPEG bytes for image.
      */
@@ -5,7 +5,6 @@ import java.awt.Graphics2D;
 import java.awt.RenderingHints;
 import java.awt.font.FontRenderContext;
 import java.awt.font.GlyphVector;
-import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
 import java.util.Arrays;
 
@@ -198,30 +197,16 @@ public class J2DPainter extends Painter {
      */
     public void drawString(String aStr, double aX, double aY, double cs)
     {
-        // Handle no char spacing
-        if (cs == 0)
+        // Handle no char spacing (Graphics2D already caches glyphs for plain strings)
+        if (cs == 0) {
             _gfx.drawString(aStr, (float) aX, (float) aY);
-
-        // Handle char spacing
-        else {
-
-            // Get font render context
-            Graphics2D g2d = _gfx; //str = str.trim();
-            FontRenderContext c = g2d.getFontRenderContext();
-            Font font = getFont();
-            GlyphVector gv = g2d.getFont().createGlyphVector(c, aStr);
-
-            // Adjust glyph positions for char spacing
-            Point2D.Double p = new Point2D.Double(0, 0);
-            for (int i=0, iMax=aStr.length()-1; i<iMax; i++) {
-                double adv = font.charAdvance(aStr.charAt(i)); //if (!getUseFractionalMetrics()) adv = Math.ceil(adv);
-                p.x += adv + cs;
-                gv.setGlyphPosition(i+1, p);
-            }
-
-            // Return glyph vector
-            g2d.drawGlyphVector(gv, (float)aX, (float)aY);
+            return;
         }
+
+        // Handle char spacing: Get cached glyph vector for font, render context, string and char spacing and draw
+        Graphics2D g2d = _gfx;
+        GlyphVector glyphVector = AWTGlyphCache.getGlyphVector(g2d.getFont(), g2d.getFontRenderContext(), aStr, cs);
+        g2d.drawGlyphVector(glyphVector, (float) aX, (float) aY);
     }
 
     /**
@@ -70,6 +70,22 @@ public class TextAdapter extends PropObject {
     // The PropChangeListener to catch SourceText PropChanges.
     private PropChangeListener _sourceTextPropLsnr = this::handleSourceTextPropChange;
 
+    // The PropChangeListener to catch TextBox PropChanges (for incremental line wrapping)
+    private PropChangeListener _textBoxPropLsnr = this::handleTextBoxPropChange;
+
+    // The runnable to wrap TextBox lines waiting to be wrapped in time-sliced chunks (and whether it is scheduled)
+    private Runnable _wrapPendingLinesRun = this::wrapPendingLines;
+    private boolean _wrapPendingLinesScheduled;
+
+    // The runnable to wrap visible TextBox lines waiting to be wrapped before next view update
+    private Runnable _wrapVisibleLinesRun = this::wrapVisibleLines;
+
+    // The max time (in milliseconds) to spend wrapping pending TextBox lines in each chunk
+    private static final int WRAP_PENDING_LINES_TIME = 10;
+
+    // The min text length for TextBox to wrap lines incrementally
+    private static final int WRAP_INCREMENTAL_MIN_LENGTH = 20000;
+
     // A PropChangeListener to enable/disable caret when window loses focus
     private PropChangeListener  _windowFocusedChangedLsnr;
 
@@ -102,6 +118,10 @@ public class TextAdapter extends PropObject {
         // Set default TextBlock
         _textBlock = sourceText;
         _textBlock.getSourceText().addPropChangeListener(_sourceTextPropLsnr);
+
+        // If TextBox, listen for lines waiting to be wrapped and wrap incrementally if large
+        if (_textBlock instanceof TextBox)
+            setTextBoxWrapIncremental((TextBox) _textBlock);
     }
 
     /**
@@ -132,15 +152,21 @@ public class TextAdapter extends PropObject {
         // If already set, just return
         if (aTextBlock == _textBlock) return;
 
-        // Remove PropChangeListener
-        if (_textBlock != null)
+        // Remove PropChangeListeners
+        if (_textBlock != null) {
             _textBlock.getSourceText().removePropChangeListener(_sourceTextPropLsnr);
+            _textBlock.removePropChangeListener(_textBoxPropLsnr);
+        }
 
         // Set new text block
         _textBlock = aTextBlock;
 
         // Add PropChangeListener
         _textBlock.getSourceText().addPropChangeListener(_sourceTextPropLsnr);
+
+        // If TextBox, listen for lines waiting to be wrapped and wrap incrementally if large
+        if (_textBlock instanceof TextBox)
+            setTextBoxWrapIncremental((TextBox) _textBlock);
         if (isUndoActivated())
             _textBlock.getSourceText().setUndoActivated(true);
 
@@ -372,6 +398,7 @@ public class TextAdapter extends PropObject {
     public TextSel getSel()
     {
         if (_sel != null) return _sel;
+        wrapPendingLinesForCharIndex(Math.max(_selAnchor, _selIndex));
         TextSel sel = new TextSel(_textBlock, _selAnchor, _selIndex);
         return _sel = sel;
     }
@@ -943,7 +970,11 @@ public class TextAdapter extends PropObject {
     /**
      * Returns the line for the given character index.
      */
-    public TextLine getLineForCharIndex(int anIndex)  { return _textBlock.getLineForCharIndex(anIndex); }
+    public TextLine getLineForCharIndex(int anIndex)
+    {
+        wrapPendingLinesForCharIndex(anIndex);
+        return _textBlock.getLineForCharIndex(anIndex);
+    }
 
     /**
      * Returns the token for given character index.
@@ -953,7 +984,11 @@ public class TextAdapter extends PropObject {
     /**
      * Returns the char index for given point in text coordinate space.
      */
-    public int getCharIndexForXY(double anX, double aY)  { return _textBlock.getCharIndexForXY(anX, aY); }
+    public int getCharIndexForXY(double anX, double aY)
+    {
+        wrapPendingLinesForY(aY);
+        return _textBlock.getCharIndexForXY(anX, aY);
+    }
 
     /**
      * Returns the link at given XY.
@@ -1057,6 +1092,7 @@ public class TextAdapter extends PropObject {
             _pgraphSel = true;
 
         // Get selected range for down point and drag point
+        wrapPendingLinesForY(_downY);
         TextSel sel = new TextSel(_textBlock, _downX, _downY, _downX, _downY, _wordSel, _pgraphSel);
         int anchor = sel.getAnchor();
         int index = sel.getIndex();
@@ -1078,6 +1114,7 @@ public class TextAdapter extends PropObject {
     public void mouseDragged(ViewEvent anEvent)
     {
         // Get selected range for down point and drag point
+        wrapPendingLinesForY(Math.max(_downY, anEvent.getY()));
         TextSel sel = new TextSel(_textBlock, _downX, _downY, anEvent.getX(), anEvent.getY(), _wordSel, _pgraphSel);
         int anchor = sel.getAnchor();
         int index = sel.getIndex();
@@ -1548,6 +1585,10 @@ public class TextAdapter extends PropObject {
         for (PropChangeListener propChangeLsnr : _sourceTextPropChangeLsnrs)
             propChangeLsnr.propertyChange(aPC);
 
+        // If TextBox, update whether it wraps lines incrementally for new length
+        if (_textBlock instanceof TextBox)
+            updateTextBoxWrapIncremental((TextBox) _textBlock);
+
         // Relayout and repaint
         if (_view != null) {
             _view.relayoutParent();
@@ -1555,6 +1596,120 @@ public class TextAdapter extends PropObject {
         }
     }
 
+    /**
+     * Starts listening to given TextBox for pending wrap changes and sets whether it wraps lines incrementally.
+     */
+    private void setTextBoxWrapIncremental(TextBox textBox)
+    {
+        textBox.addPropChangeListener(_textBoxPropLsnr);
+        updateTextBoxWrapIncremental(textBox);
+        if (textBox.isWrapPending())
+            scheduleWrapPendingLines();
+    }
+
+    /**
+     * Sets given TextBox to wrap lines incrementally only if text is large (small text is cheap to wrap synchronously).
+     */
+    private void updateTextBoxWrapIncremental(TextBox textBox)
+    {
+        boolean wrapIncremental = textBox.getSourceText().length() >= WRAP_INCREMENTAL_MIN_LENGTH;
+        textBox.setWrapIncremental(wrapIncremental);
+    }
+
+    /**
+     * Wraps TextBox lines waiting to be wrapped through the line for given char index (and the line after it).
+     */
+    private void wrapPendingLinesForCharIndex(int charIndex)
+    {
+        if (_textBlock instanceof TextBox)
+            ((TextBox) _textBlock).wrapPendingLinesForCharIndex(charIndex);
+    }
+
+    /**
+     * Wraps TextBox lines waiting to be wrapped through the line at given Y (in text coordinates).
+     */
+    private void wrapPendingLinesForY(double aY)
+    {
+        if (_textBlock instanceof TextBox)
+            ((TextBox) _textBlock).wrapPendingLinesForY(aY - _textBlock.getAlignedY());
+    }
+
+    /**
+     * Called when TextBox has prop change.
+     */
+    protected void handleTextBoxPropChange(PropChange aPC)
+    {
+        // Handle WrapPending: If lines now waiting to be wrapped, schedule wrapping (visible lines before next update)
+        if (aPC.getPropName() == TextBox.WrapPending_Prop) {
+            boolean isWrapPending = (Boolean) aPC.getNewValue();
+            if (isWrapPending) {
+                scheduleWrapPendingLines();
+                ViewUpdater updater = _view != null ? _view.getUpdater() : null;
+                if (updater != null)
+                    updater.runBeforeUpdate(_wrapVisibleLinesRun);
+            }
+
+            // Otherwise relayout/repaint later (wrapping can finish while painting, like for selection)
+            else if (_view != null) {
+                View view = _view;
+                ViewUtils.runLater(() -> { view.relayoutParent(); view.repaint(); });
+            }
+        }
+    }
+
+    /**
+     * Wraps visible TextBox lines waiting to be wrapped (and repaints if any were wrapped).
+     */
+    private void wrapVisibleLines()
+    {
+        // If no TextBox lines waiting to be wrapped or view not showing, just return
+        if (!(_textBlock instanceof TextBox) || _view == null || !_view.isShowing()) return;
+        TextBox textBox = (TextBox) _textBlock;
+        if (!textBox.isWrapPending()) return;
+
+        // Get visible bounds - if empty, just return
+        Rect visibleBounds = _view.getVisibleBounds();
+        if (visibleBounds.isEmpty()) return;
+
+        // Wrap lines in visible bounds and repaint if any were wrapped
+        double alignedY = _textBlock.getAlignedY();
+        if (textBox.wrapPendingLinesForYRange(visibleBounds.y - alignedY, visibleBounds.getMaxY() - alignedY))
+            _view.repaint();
+    }
+
+    /**
+     * Schedules wrapping of TextBox lines waiting to be wrapped (if not already scheduled).
+     */
+    private void scheduleWrapPendingLines()
+    {
+        if (_wrapPendingLinesScheduled) return;
+        _wrapPendingLinesScheduled = true;
+        ViewUtils.runLater(_wrapPendingLinesRun);
+    }
+
+    /**
+     * Wraps a time-sliced chunk of TextBox lines waiting to be wrapped and reschedules if more remain.
+     */
+    private void wrapPendingLines()
+    {
+        _wrapPendingLinesScheduled = false;
+        if (!(_textBlock instanceof TextBox))
+            return;
+
+        // Wrap visible lines first
+        wrapVisibleLines();
+
+        // Wrap chunk - if more remain, reschedule and relayout/repaint (so height estimate improves as lines wrap)
+        TextBox textBox = (TextBox) _textBlock;
+        if (textBox.isWrapPending() && textBox.wrapPendingLinesForTime(WRAP_PENDING_LINES_TIME)) {
+            scheduleWrapPendingLines();
+            if (_view != null) {
+                _view.relayoutParent();
+                _view.repaint();
+            }
+        }
+    }
+
     /**
      * Called when view has prop change.
      */
@@ -1562,6 +1717,7 @@ public class TextAdapter extends PropObject {
     {
         switch (aPC.getPropName()) {
             case View.Width_Prop: case View.Height_Prop: handleViewSizeChanged(); break;
+            case View.Y_Prop: wrapVisibleLines(); break;
             case View.Showing_Prop: handleViewShowingChanged(); break;
             case View.Focused_Prop: handleViewFocusedChanged(); break;
             case View.Align_Prop: handleViewAlignChanged(); break;
@@ -1575,6 +1731,7 @@ public class TextAdapter extends PropObject {
     {
         Rect textBounds = ViewUtils.getAreaBounds(_view);
         setTextBounds(textBounds);
+        wrapVisibleLines();
     }
 
     /**
@@ -15,6 +15,7 @@ import snap.props.PropObject;
 import snap.props.Undoer;
 import snap.util.*;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
 import java.util.Objects;
 
@@ -32,6 +33,21 @@ public class TextBlock extends PropObject implements CharSequenceX, Cloneable, X
     // The length of this text
     protected int  _length;
 
+    // The index of line lengths, to find line start char index and line for char index in O(log n)
+    private PrefixSumTree  _lineLengths;
+
+    // The index of line advances, to find line Y and line for Y in O(log n)
+    private PrefixSumTree  _lineAdvances;
+
+    // The indexes of lines whose advance needs to be updated in line advances index
+    private BitSet  _lineAdvancesDirty = new BitSet();
+
+    // The lowest index that may be set in line advances dirty flags (so update doesn't scan from start of big text)
+    private int  _lineAdvancesDirtyStart = Integer.MAX_VALUE;
+
+    // Versions that change when line start char indexes or line Y values change (so lines can cache them)
+    protected int  _lineStartsVersion, _lineYsVersion;
+
     // The default text style for this text
     protected TextStyle _defaultTextStyle = TextStyle.DEFAULT;
 
@@ -743,9 +759,28 @@ public class TextBlock extends PropObject implements CharSequenceX, Cloneable, X
      */
     protected void addLine(TextLine aLine, int anIndex)
     {
+        // If adding before end, update changed line advances first (changed line flags can't shift with lines)
+        if (_lineAdvances != null && anIndex < _lines.size())
+            getLineAdvances();
+
+        // Add line
         _lines.add(anIndex, aLine);
         aLine._textBlock = this;
-        updateLines(anIndex - 1);
+        aLine.clearCachedStartAndY();
+        _length += aLine.length();
+
+        // Add to line indexes (if created)
+        if (_lineLengths != null)
+            _lineLengths.add(anIndex, aLine.length());
+        if (_lineAdvances != null) {
+            TextMetrics textMetrics = aLine.getMetricsIfSet();
+            _lineAdvances.add(anIndex, textMetrics != null ? textMetrics.getLineAdvance() : 0);
+            if (textMetrics == null)
+                setLineAdvanceDirty(anIndex);
+        }
+
+        // Update line indexes for following lines
+        updateLineIndexes(anIndex);
     }
 
     /**
@@ -753,9 +788,25 @@ public class TextBlock extends PropObject implements CharSequenceX, Cloneable, X
      */
     protected void removeLine(int anIndex)
     {
+        // If removing before end, update changed line advances first (changed line flags can't shift with lines)
+        if (_lineAdvances != null && anIndex < _lines.size() - 1)
+            getLineAdvances();
+
+        // Remove line
         TextLine line = _lines.remove(anIndex);
         line._textBlock = null;
-        updateLines(anIndex - 1);
+        _length -= line.length();
+
+        // Remove from line indexes (if created)
+        if (_lineLengths != null)
+            _lineLengths.remove(anIndex);
+        if (_lineAdvances != null) {
+            _lineAdvances.remove(anIndex);
+            _lineAdvancesDirty.clear(anIndex);
+        }
+
+        // Update line indexes for following lines
+        updateLineIndexes(anIndex);
     }
 
     /**
@@ -807,23 +858,9 @@ public class TextBlock extends PropObject implements CharSequenceX, Cloneable, X
             throw new IndexOutOfBoundsException("Index " + charIndex + " outside bounds " + length);
         }
 
-        // Get Low/high indexes
-        int lowIndex = 0;
-        int highIndex = getLineCount() - 1;
-
-        // Iterate over lines until found
-        while (lowIndex <= highIndex) {
-            int midIndex = (lowIndex + highIndex) / 2;
-            TextLine textLine = getLine(midIndex);
-            if (charIndex < textLine.getStartCharIndex())
-                highIndex = midIndex - 1;
-            else if (charIndex >= textLine.getEndCharIndex())
-                lowIndex = midIndex + 1;
-            else return textLine;
-        }
-
-        // Should be impossible - lines would have to be misconfigured
-        throw new IndexOutOfBoundsException("Index not found " + charIndex + " beyond " + length());
+        // Get line index from line lengths index and return line
+        int lineIndex = getLineLengths().getIndexForSum(charIndex);
+        return getLine(lineIndex);
     }
 
     /**
@@ -930,15 +967,9 @@ public class TextBlock extends PropObject implements CharSequenceX, Cloneable, X
         // Get Y in text
         double textY = aY - getAlignedY();
 
-        // Iterate over lines and return one that spans given y
-        for (int i = 0, iMax = getLineCount(); i < iMax; i++) {
-            TextLine line = getLine(i);
-            if (textY < line.getMaxY())
-                return line;
-        }
-
-        // If no line for given y, return last line
-        return getLastLine();
+        // Get index of line that spans given y (or last line) and return line
+        int lineIndex = getLineIndexForLineY(textY);
+        return lineIndex >= 0 ? getLine(lineIndex) : null;
     }
 
     /**
@@ -1220,8 +1251,11 @@ public class TextBlock extends PropObject implements CharSequenceX, Cloneable, X
         clipBounds = clipBounds != null ? clipBounds.getIntersectRect(textBounds) : textBounds;
         aPntr.clip(clipBounds);
 
-        // Iterate over lines
-        for (int i = 0; i < lineCount; i++) {
+        // Get first visible line index (skips lines above clip without iterating)
+        int startLineIndex = getLineIndexForLineY(clipBounds.y - getAlignedY());
+
+        // Iterate over visible lines
+        for (int i = startLineIndex; i < lineCount; i++) {
 
             // If line not yet visible, skip
             TextLine textLine = getLine(i);
@@ -1360,47 +1394,141 @@ public class TextBlock extends PropObject implements CharSequenceX, Cloneable, X
     }
 
     /**
-     * Resets Line Y positions for lines after given line index.
+     * Resets Line Y positions for lines after given line index (because line at index changed height).
      */
     protected void resetLineYForLinesAfterIndex(int lineIndex)
     {
-        // Iterate over lines beyond given lineIndex and reset Y (stop if line is already reset)
-        for (int i = lineIndex + 1, iMax = _lines.size(); i < iMax; i++) {
-            TextLine line = getLine(i);
-            if (line._y == -1)
-                return;
-            line._y = -1;
-        }
+        setLineAdvanceDirty(lineIndex);
+        _lineYsVersion++;
     }
 
     /**
-     * Updates Lines (Index, Start) from index line to text end.
+     * Updates Lines (Start, Y) for change in length or content of line at given index.
      */
     protected void updateLines(int anIndex)
     {
-        // Get BaseLine and length at end of BaseLine
-        TextLine baseLine = anIndex >= 0 ? getLine(anIndex) : null;
-        _length = baseLine != null ? baseLine.getEndCharIndex() : 0;
+        // Update length for line in line lengths index and update text length
+        TextLine textLine = getLine(anIndex);
+        PrefixSumTree lineLengths = getLineLengths();
+        lineLengths.set(anIndex, textLine.length());
+        _length = (int) lineLengths.getTotal();
+        _lineStartsVersion++;
 
-        // Iterate over lines beyond BaseLine and update Index, Start, Length and Y
-        for (int i = anIndex + 1, iMax = _lines.size(); i < iMax; i++) {
-            TextLine line = getLine(i);
-            updateLine(line, i, _length);
-            _length += line.length();
-        }
+        // Mark line advance as needing update and reset AlignY offset
+        resetLineYForLinesAfterIndex(anIndex);
+        _alignedY = -1;
+    }
 
-        // Reset AlignY offset
+    /**
+     * Updates line index for lines from given index to text end (after lines added or removed).
+     */
+    private void updateLineIndexes(int anIndex)
+    {
+        // Iterate over lines from index and update index
+        for (int i = anIndex, iMax = _lines.size(); i < iMax; i++)
+            getLine(i)._lineIndex = i;
+
+        // Update versions and reset AlignY offset
+        _lineStartsVersion++;
+        _lineYsVersion++;
         _alignedY = -1;
     }
 
     /**
-     * Updates an individual line for new index and start char index.
+     * Returns the line lengths index.
      */
-    protected void updateLine(TextLine textLine, int newIndex, int newStartCharIndex)
+    private PrefixSumTree getLineLengths()
     {
-        textLine._lineIndex = newIndex;
-        textLine._startCharIndex = newStartCharIndex;
-        textLine._y = -1;
+        // If already set, just return
+        if (_lineLengths != null) return _lineLengths;
+
+        // Create from line lengths
+        int lineCount = getLineCount();
+        double[] lineLengths = new double[lineCount];
+        for (int i = 0; i < lineCount; i++)
+            lineLengths[i] = getLine(i).length();
+        return _lineLengths = new PrefixSumTree(lineLengths);
+    }
+
+    /**
+     * Returns the line advances index (updating any lines that have changed).
+     */
+    private PrefixSumTree getLineAdvances()
+    {
+        // If not set, create from line advances
+        if (_lineAdvances == null) {
+            int lineCount = getLineCount();
+            double[] lineAdvances = new double[lineCount];
+            for (int i = 0; i < lineCount; i++)
+                lineAdvances[i] = getLine(i).getMetrics().getLineAdvance();
+            _lineAdvancesDirty.clear();
+            _lineAdvancesDirtyStart = Integer.MAX_VALUE;
+            return _lineAdvances = new PrefixSumTree(lineAdvances);
+        }
+
+        // Update advances for changed lines
+        if (_lineAdvancesDirtyStart == Integer.MAX_VALUE)
+            return _lineAdvances;
+        for (int i = _lineAdvancesDirty.nextSetBit(_lineAdvancesDirtyStart); i >= 0; i = _lineAdvancesDirty.nextSetBit(i + 1)) {
+            if (i < _lineAdvances.getCount())
+                _lineAdvances.set(i, getLine(i).getMetrics().getLineAdvance());
+            _lineAdvancesDirty.clear(i);
+        }
+        _lineAdvancesDirtyStart = Integer.MAX_VALUE;
+
+        // Return
+        return _lineAdvances;
+    }
+
+    /**
+     * Marks the line advance at given index as needing update in line advances index.
+     */
+    private void setLineAdvanceDirty(int lineIndex)
+    {
+        _lineAdvancesDirty.set(lineIndex);
+        _lineAdvancesDirtyStart = Math.min(_lineAdvancesDirtyStart, lineIndex);
+    }
+
+    /**
+     * Returns the start char index for line at given index.
+     */
+    protected int getStartCharIndexForLineIndex(int lineIndex)
+    {
+        PrefixSumTree lineLengths = getLineLengths();
+        return (int) lineLengths.getSum(lineIndex);
+    }
+
+    /**
+     * Returns the Y for line at given index (relative to first line).
+     */
+    protected double getYForLineIndex(int lineIndex)
+    {
+        PrefixSumTree lineAdvances = getLineAdvances();
+        return lineAdvances.getSum(lineIndex);
+    }
+
+    /**
+     * Returns the index of the first line whose max Y is below given Y (relative to first line), or last line if none.
+     * Uses line advances index for O(log n) lookup. Returns -1 if no lines.
+     */
+    protected int getLineIndexForLineY(double lineY)
+    {
+        // If no lines, just return
+        int lineCount = getLineCount();
+        if (lineCount == 0)
+            return -1;
+
+        // Get index of line whose advance range contains given Y
+        int lineIndex = getLineAdvances().getIndexForSum(lineY);
+
+        // Line max Y can differ from advance (leading/line spacing), so adjust to first line with max Y below given Y
+        while (lineIndex > 0 && lineY < getLine(lineIndex - 1).getMaxY())
+            lineIndex--;
+        if (lineIndex + 1 < lineCount && lineY >= getLine(lineIndex).getMaxY())
+            lineIndex++;
+
+        // Return
+        return lineIndex;
     }
 
     /**
@@ -1520,9 +1648,12 @@ public class TextBlock extends PropObject implements CharSequenceX, Cloneable, X
         try { clone = (TextBlock) super.clone(); }
         catch (CloneNotSupportedException e) { throw new RuntimeException(e); }
 
-        // Reset lines array and length
+        // Reset lines array, length and line indexes
         clone._lines = new ArrayList<>(getLineCount());
         clone._length = 0;
+        clone._lineLengths = clone._lineAdvances = null;
+        clone._lineAdvancesDirty = new BitSet();
+        clone._lineAdvancesDirtyStart = Integer.MAX_VALUE;
 
         // Copy lines deep
         for (int i = 0, iMax = getLineCount(); i < iMax; i++) {
@@ -87,12 +87,14 @@ public class TextBlockUtils {
      */
     public static TextRun[] getUnderlineRuns(TextBlock textBlock, Rect aRect)
     {
-        // Get lines
+        // Get lines and start line index (first line in rect, if rect provided)
         List<TextLine> textLines = textBlock.getLines();
         List<TextRun> underlineRuns = new ArrayList<>();
+        int startLineIndex = aRect != null ? Math.max(textBlock.getLineIndexForLineY(aRect.y), 0) : 0;
 
         // Iterate over lines to add underline runs to list
-        for (TextLine line : textLines) {
+        for (int i = startLineIndex, iMax = textLines.size(); i < iMax; i++) {
+            TextLine line = textLines.get(i);
 
             // If line above rect, continue, if below, break
             if (aRect != null) {
@@ -6,6 +6,7 @@ import snap.geom.Rect;
 import snap.geom.Shape;
 import snap.props.PropChange;
 import snap.props.PropChangeListener;
+import snap.util.MathUtils;
 import snap.util.XMLArchiver;
 import snap.util.XMLElement;
 
@@ -41,6 +42,21 @@ public class TextBox extends TextBlock {
     // A temp var to hold TextLineStyle when updating runs from source text
     private TextLineStyle _updateTextLineStyle;
 
+    // Whether to wrap lines incrementally (visible lines via wrapPendingLinesForYRange() and the rest in chunks via wrapPendingLinesForTime())
+    private boolean _wrapIncremental;
+
+    // The char index of first line waiting to be wrapped when wrapping incrementally (Integer.MAX_VALUE if none)
+    private int _wrapPendingCharIndex = Integer.MAX_VALUE;
+
+    // The char range of paragraphs after first line waiting to be wrapped that were last wrapped in place
+    private int _wrapInPlaceStart, _wrapInPlaceEnd;
+
+    // The minimum fraction of pending lines to wrap in each time-sliced batch (keeps total cost of batches linear)
+    private static final double WRAP_BATCH_MIN_FRACTION = 1d / 32;
+
+    // Constants for properties
+    public static final String WrapPending_Prop = "WrapPending";
+
     /**
      * Constructor.
      */
@@ -243,21 +259,38 @@ public class TextBox extends TextBlock {
     @Override
     protected void addCharsToLineFinished(TextLine textLine)
     {
-        // Wrap line
-        if (isWrapLines())
+        // Wrap line (unless line is waiting to be wrapped incrementally)
+        if (isWrapLines() && textLine.getStartCharIndex() < _wrapPendingCharIndex)
             wrapLineIfNeeded(textLine);
 
         // Do normal version
         super.addCharsToLineFinished(textLine);
     }
 
+    /**
+     * Override to wrap joined line only after join is complete (wrapping could otherwise move chars to next line
+     * before it is removed).
+     */
+    @Override
+    protected void joinLineWithNextLine(TextLine textLine)
+    {
+        // Defer wrapping for line while joining
+        int wrapPendingCharIndex = _wrapPendingCharIndex;
+        _wrapPendingCharIndex = Math.min(wrapPendingCharIndex, textLine.getStartCharIndex());
+        super.joinLineWithNextLine(textLine);
+        _wrapPendingCharIndex = wrapPendingCharIndex;
+
+        // Wrap joined line
+        addCharsToLineFinished(textLine);
+    }
+
     /**
      * Wraps given line if needed by moving chars from last token(s) to next line.
      */
     protected void wrapLineIfNeeded(TextLine textLine)
     {
-        // If no chars or line is beyond bounds, just return
-        if (textLine.getTokenCount() <= 0 || textLine.getMaxY() >= getHeight())
+        // If no chars or line is beyond bounds (and bounds matter), just return
+        if (textLine.getTokenCount() <= 0 || !isWrapDeferred() && textLine.getMaxY() >= getHeight())
             return;
 
         // Get last token
@@ -323,6 +356,227 @@ public class TextBox extends TextBlock {
      */
     public void setWrapLines(boolean aValue)  { _wrapLines = aValue; }
 
+    /**
+     * Returns whether to wrap lines incrementally. When set, changes to width or whole text just mark lines as waiting
+     * to be wrapped: visible lines are then wrapped via wrapPendingLinesForYRange() and the rest in time-sliced chunks
+     * via wrapPendingLinesForTime().
+     */
+    public boolean isWrapIncremental()  { return _wrapIncremental; }
+
+    /**
+     * Sets whether to wrap lines incrementally.
+     */
+    public void setWrapIncremental(boolean aValue)
+    {
+        if (aValue == _wrapIncremental) return;
+        if (!aValue)
+            wrapPendingLines();
+        _wrapIncremental = aValue;
+    }
+
+    /**
+     * Returns whether wrapping can be deferred (BoundsPath and linked text need line bounds to be wrapped in order).
+     */
+    private boolean isWrapDeferred()
+    {
+        return _wrapIncremental && isWrapLines() && _boundsPath == null && !_linked;
+    }
+
+    /**
+     * Returns whether there are lines waiting to be wrapped.
+     */
+    public boolean isWrapPending()  { return _wrapPendingCharIndex < Integer.MAX_VALUE; }
+
+    /**
+     * Sets the char index of first line waiting to be wrapped (Integer.MAX_VALUE if none).
+     */
+    private void setWrapPendingCharIndex(int charIndex)
+    {
+        boolean oldPending = isWrapPending();
+        _wrapPendingCharIndex = charIndex;
+        boolean newPending = isWrapPending();
+        if (newPending != oldPending)
+            firePropChange(WrapPending_Prop, oldPending, newPending);
+    }
+
+    /**
+     * Wraps all lines waiting to be wrapped.
+     */
+    public void wrapPendingLines()
+    {
+        wrapPendingLines(Double.MAX_VALUE, Integer.MAX_VALUE, Long.MAX_VALUE, 0);
+    }
+
+    /**
+     * Wraps lines waiting to be wrapped until done or given time (in milliseconds) has elapsed.
+     * Returns whether there are still lines waiting to be wrapped.
+     */
+    public boolean wrapPendingLinesForTime(long maxTime)
+    {
+        long endTime = System.currentTimeMillis() + maxTime;
+        wrapPendingLines(Double.MAX_VALUE, Integer.MAX_VALUE, endTime, WRAP_BATCH_MIN_FRACTION);
+        return isWrapPending();
+    }
+
+    /**
+     * Wraps lines waiting to be wrapped until line below given Y (relative to first line) has been wrapped.
+     */
+    public void wrapPendingLinesForY(double aY)
+    {
+        if (isWrapPending())
+            wrapPendingLines(aY, Integer.MAX_VALUE, Long.MAX_VALUE, 0);
+    }
+
+    /**
+     * Wraps lines waiting to be wrapped in given Y range (relative to first line). Returns whether any were wrapped.
+     * If range is below first line waiting to be wrapped, just the paragraphs in range are wrapped in place (so
+     * showing lines deep in text doesn't wrap all lines above them). These are wrapped again when reached in order.
+     */
+    public boolean wrapPendingLinesForYRange(double minY, double maxY)
+    {
+        // If no lines waiting to be wrapped or first is below range, just return
+        if (!isWrapPending() || _wrapPendingCharIndex >= length() || !isWrapLines())
+            return false;
+        TextLine pendingLine = getLineForCharIndex(_wrapPendingCharIndex);
+        if (pendingLine.getY() >= maxY)
+            return false;
+
+        // If first line waiting to be wrapped is in range, just wrap in order through range
+        if (pendingLine.getY() >= minY) {
+            wrapPendingLines(maxY, Integer.MAX_VALUE, Long.MAX_VALUE, 0);
+            return true;
+        }
+
+        // Get first paragraph line in range - if range was already wrapped in place, just return
+        TextLine textLine = getParagraphStartLine(getLine(getLineIndexForLineY(minY)));
+        int startCharIndex = textLine.getStartCharIndex();
+        int endCharIndex = getLine(getLineIndexForLineY(maxY)).getEndCharIndex();
+        if (startCharIndex >= _wrapInPlaceStart && endCharIndex <= _wrapInPlaceEnd)
+            return false;
+
+        // Wrap paragraphs in range and set range of paragraphs wrapped in place
+        int nextCharIndex = wrapParagraphsFromLine(textLine, maxY, Integer.MAX_VALUE, Long.MAX_VALUE, 0);
+        _wrapInPlaceStart = startCharIndex;
+        _wrapInPlaceEnd = Math.min(nextCharIndex, length());
+        return true;
+    }
+
+    /**
+     * Wraps lines waiting to be wrapped through the paragraph after the one containing given char index
+     * (so line geometry for char index and for the line below it is final).
+     */
+    public void wrapPendingLinesForCharIndex(int charIndex)
+    {
+        // If no lines waiting to be wrapped, just return
+        if (!isWrapPending()) return;
+
+        // Get start of paragraph after char index - if already wrapped, just return
+        TextLine textLine = getLineForCharIndex(Math.max(Math.min(charIndex, length()), 0));
+        while (!textLine.isLastCharNewline() && textLine.getNext() != null)
+            textLine = textLine.getNext();
+        int nextParagraphStart = textLine.getEndCharIndex();
+        if (_wrapPendingCharIndex > nextParagraphStart)
+            return;
+
+        // Wrap
+        wrapPendingLines(Double.MAX_VALUE, nextParagraphStart, Long.MAX_VALUE, 0);
+    }
+
+    /**
+     * Wraps lines waiting to be wrapped until a line below given Y (relative to first line) is wrapped, a paragraph
+     * containing given max char index is wrapped or given end time has passed (after wrapping at least given fraction
+     * of pending lines).
+     */
+    private void wrapPendingLines(double maxY, int maxCharIndex, long endTime, double minFraction)
+    {
+        // If no lines waiting to be wrapped (or no longer wrapping), clear pending and return
+        if (_wrapPendingCharIndex >= length() || !isWrapLines()) {
+            setWrapPendingCharIndex(Integer.MAX_VALUE);
+            return;
+        }
+
+        // Get first line waiting to be wrapped (from paragraph start) - just return if below given Y
+        TextLine textLine = getParagraphStartLine(getLineForCharIndex(_wrapPendingCharIndex));
+        if (textLine.getY() >= maxY)
+            return;
+
+        // Wrap paragraphs from line and reset pending char index to next paragraph (or clear if none)
+        int wrapPendingCharIndex = wrapParagraphsFromLine(textLine, maxY, maxCharIndex, endTime, minFraction);
+        setWrapPendingCharIndex(wrapPendingCharIndex);
+    }
+
+    /**
+     * Wraps paragraphs from given paragraph start line until a line below given Y is wrapped, a paragraph containing
+     * given max char index is wrapped or given end time has passed (after wrapping at least given fraction of lines
+     * after line). Returns the start char index of next paragraph (or Integer.MAX_VALUE if none).
+     */
+    private int wrapParagraphsFromLine(TextLine textLine, double maxY, int maxCharIndex, long endTime, double minFraction)
+    {
+        // Remove lines from given line to end, so wrapping only adds lines at end (instead of shifting lines)
+        int lineIndex = textLine.getLineIndex();
+        TextLine[] pendingLines = new TextLine[getLineCount() - lineIndex];
+        for (int i = getLineCount() - 1; i >= lineIndex; i--) {
+            pendingLines[i - lineIndex] = getLine(i);
+            removeLine(i);
+        }
+
+        // Defer normal wrapping of added lines (they are wrapped explicitly below)
+        int wrapPendingCharIndex = _wrapPendingCharIndex;
+        _wrapPendingCharIndex = 0;
+        int minLineCount = (int) (pendingLines.length * minFraction);
+
+        // Add back first line
+        TextLine paragraphLine = pendingLines[0];
+        addLine(paragraphLine, getLineCount());
+        int pendingIndex = 1;
+
+        // Add back lines one paragraph at a time and wrap, until done, below given Y or out of time
+        while (paragraphLine != null) {
+
+            // Add back rest of paragraph and join with first line (lines may be wrapped for old width)
+            while (!paragraphLine.isLastCharNewline() && pendingIndex < pendingLines.length) {
+                addLine(pendingLines[pendingIndex++], getLineCount());
+                joinLineWithNextLine(paragraphLine);
+            }
+
+            // Add back first line of next paragraph (so wrap moves chars to new lines before it, as in normal wrap)
+            TextLine nextParagraphLine = pendingIndex < pendingLines.length ? pendingLines[pendingIndex++] : null;
+            if (nextParagraphLine != null)
+                addLine(nextParagraphLine, getLineCount());
+
+            // Wrap paragraph line and each line created for chars that didn't fit
+            TextLine lastLine = paragraphLine;
+            for (TextLine line = paragraphLine; line != nextParagraphLine; line = line.getNext()) {
+                wrapLineIfNeeded(line);
+                line.updateAlignmentAndJustify();
+                lastLine = line;
+            }
+
+            // If below given Y or out of time (and min line count wrapped), stop
+            paragraphLine = nextParagraphLine;
+            if (lastLine.getMaxY() >= maxY || lastLine.getEndCharIndex() > maxCharIndex)
+                break;
+            if (pendingIndex >= minLineCount && System.currentTimeMillis() >= endTime)
+                break;
+        }
+
+        // Add back remaining lines, restore pending char index and return start char index of next paragraph
+        for (int i = pendingIndex; i < pendingLines.length; i++)
+            addLine(pendingLines[i], getLineCount());
+        _wrapPendingCharIndex = wrapPendingCharIndex;
+        return paragraphLine != null ? paragraphLine.getStartCharIndex() : Integer.MAX_VALUE;
+    }
+
+    /**
+     * Returns the first line of the paragraph containing given line.
+     */
+    private static TextLine getParagraphStartLine(TextLine textLine)
+    {
+        for (TextLine prevLine = textLine.getPrevious(); prevLine != null && !prevLine.isLastCharNewline(); prevLine = prevLine.getPrevious())
+            textLine = prevLine;
+        return textLine;
+    }
+
     /**
      * Returns whether layout tries to hyphenate wrapped words.
      */
@@ -488,6 +742,11 @@ public class TextBox extends TextBlock {
      */
     protected void updateTextAll()
     {
+        // If wrapping incrementally, add lines unwrapped and mark them as waiting to be wrapped
+        if (isWrapDeferred())
+            setWrapPendingCharIndex(0);
+        _wrapInPlaceStart = _wrapInPlaceEnd = 0;
+
         int endCharIndexBox = length();
         int endCharIndexBlock = _sourceText.length();
         updateTextForCharRange(0, endCharIndexBox, endCharIndexBlock);
@@ -501,8 +760,17 @@ public class TextBox extends TextBlock {
         // Skip if no text
         if (length() == 0 && _sourceText.length() == 0) return;
 
+        // Clear paragraphs wrapped in place (char indexes may change)
+        _wrapInPlaceStart = _wrapInPlaceEnd = 0;
+
+        // If range is in lines waiting to be wrapped, leave it to be wrapped later - otherwise wrap all lines in range
+        int wrapPendingCharIndex = _wrapPendingCharIndex;
+        boolean rangeIsWrapPending = startCharIndex >= wrapPendingCharIndex;
+        if (!rangeIsWrapPending)
+            _wrapPendingCharIndex = Integer.MAX_VALUE;
+
         // If WrapLines, mark location of first line's first token - if it shrinks, might need to re-wrap previous line
-        boolean wrapLines = isWrapLines();
+        boolean wrapLines = isWrapLines() && !rangeIsWrapPending;
         TextLine firstLine = wrapLines ? getLineForCharIndex(startCharIndex) : null;
         double firstLineTokenMaxX = wrapLines ? getFirstTokenMaxXForLineIfPreviousLineCares(firstLine) : 0;
 
@@ -531,7 +799,14 @@ public class TextBox extends TextBlock {
         // If first token shrank, re-wrap previous line
         if (firstLineTokenMaxX > 0 && firstLineTokenMaxX > getFirstTokenMaxXForLineIfPreviousLineCares(firstLine)) {
             TextLine previousLine = firstLine.getPrevious();
-            joinLineWithNextLine(previousLine);
+            if (previousLine != null)
+                joinLineWithNextLine(previousLine);
+        }
+
+        // If lines were waiting to be wrapped after range, shift pending char index for changed chars
+        if (!rangeIsWrapPending && wrapPendingCharIndex < Integer.MAX_VALUE) {
+            int changeLength = endCharIndexBlock - endCharIndexBox;
+            _wrapPendingCharIndex = wrapPendingCharIndex >= endCharIndexBox ? wrapPendingCharIndex + changeLength : endCharIndexBlock;
         }
     }
 
@@ -589,7 +864,11 @@ public class TextBox extends TextBlock {
     {
         if (aValue == getWidth()) return;
         super.setWidth(aValue);
-        if (isWrapLines())
+
+        // If wrapping incrementally, mark all lines as waiting to be rewrapped, otherwise rewrap all now
+        if (isWrapDeferred())
+            setWrapPendingCharIndex(0);
+        else if (isWrapLines())
             updateTextAll();
     }
 
@@ -601,10 +880,60 @@ public class TextBox extends TextBlock {
     {
         if (aValue == getHeight()) return;
         super.setHeight(aValue);
-        if (isWrapLines())
+
+        // Rewrap all (unless wrapping incrementally, which wraps lines regardless of height)
+        if (isWrapLines() && !isWrapDeferred())
             updateTextAll();
     }
 
+    /**
+     * Override to return estimate if lines are waiting to be wrapped.
+     */
+    @Override
+    public double getPrefHeight()
+    {
+        // If no lines waiting to be wrapped, do normal version
+        if (!isWrapPending())
+            return super.getPrefHeight();
+
+        // Get height of wrapped lines and current height of lines waiting to be wrapped
+        TextLine firstLine = getLine(0);
+        TextLine pendingLine = getLineForCharIndex(Math.min(_wrapPendingCharIndex, length()));
+        double wrappedH = pendingLine.getY() - firstLine.getY();
+        double pendingH = getLastLine().getMaxY() - pendingLine.getY();
+
+        // If some lines wrapped, estimate pending lines height from wrapped lines height per char
+        int wrappedCharCount = pendingLine.getStartCharIndex();
+        if (wrappedCharCount > 0)
+            pendingH = (length() - wrappedCharCount) * wrappedH / wrappedCharCount;
+
+        // Return
+        return Math.ceil(wrappedH + pendingH);
+    }
+
+    /**
+     * Override to return estimate if wrapping incrementally (instead of rewrapping all at given width and back).
+     * Estimate is height for current width scaled by width ratio (wrapped text height is roughly inversely proportional
+     * to width) and is refined when view is laid out at given width and lines finish wrapping.
+     */
+    @Override
+    public double getPrefHeight(double aW)
+    {
+        // If not wrapping incrementally, do normal version
+        if (!isWrapDeferred())
+            return super.getPrefHeight(aW);
+
+        // Get height for current width - if given width is current width (or unset), just return
+        double prefH = getPrefHeight();
+        double width = getWidth();
+        if (aW <= 0 || width <= 0 || MathUtils.equals(aW, width))
+            return prefH;
+
+        // Return height scaled by width ratio (but not less than first line height)
+        double minH = getLineCount() > 0 ? getLine(0).getHeight() : 0;
+        return Math.ceil(Math.max(prefH * width / aW, minH));
+    }
+
     /**
      * Returns the preferred width.
      */
@@ -678,6 +1007,9 @@ public class TextBox extends TextBlock {
      */
     public boolean isTextOutOfBounds()
     {
+        // Make sure all lines are wrapped
+        wrapPendingLines();
+
         // Check Y no matter what
         int lineCount = getLineCount();
         double lineMaxY = lineCount > 0 ? getLine(lineCount - 1).getMaxY() : 0;
@@ -36,8 +36,11 @@ public class TextLine implements CharSequenceX, Cloneable {
     // The X location of line in block
     protected double _x;
 
-    // The Y location of line in block
-    protected double _y = -1;
+    // The Y location of line in block (cached)
+    private double _y;
+
+    // The TextBlock versions when StartCharIndex and Y were cached
+    private int _startCharIndexVersion = -1, _yVersion = -1;
 
     // The width of this line
     protected double  _width = -1;
@@ -99,12 +102,22 @@ public class TextLine implements CharSequenceX, Cloneable {
     /**
      * Returns the start char index of this line in text.
      */
-    public int getStartCharIndex()  { return _startCharIndex; }
+    public int getStartCharIndex()
+    {
+        // If text block start char indexes have changed, get start char index from text block
+        if (_textBlock != null && _startCharIndexVersion != _textBlock._lineStartsVersion) {
+            _startCharIndex = _textBlock.getStartCharIndexForLineIndex(_lineIndex);
+            _startCharIndexVersion = _textBlock._lineStartsVersion;
+        }
+
+        // Return
+        return _startCharIndex;
+    }
 
     /**
      * Returns the end char index of this line in text.
      */
-    public int getEndCharIndex()  { return _startCharIndex + length(); }
+    public int getEndCharIndex()  { return getStartCharIndex() + length(); }
 
     /**
      * Returns the index of this line in text.
@@ -353,20 +366,22 @@ public class TextLine implements CharSequenceX, Cloneable {
      */
     public double getY()
     {
-        // If already set, just return
-        if (_y >= 0) return _y;
-
-        // Get Y from previous line. Need to fix this to not stack overflow for large text showing tail first.
-        double y = 0;
-        TextLine previousLine = getPrevious();
-        if (previousLine != null) {
-            double prevY = previousLine.getY();
-            double prevH = previousLine.getMetrics().getLineAdvance();
-            y = prevY + prevH;
+        // If text block line Y values have changed, get Y from text block
+        if (_textBlock != null && _yVersion != _textBlock._lineYsVersion) {
+            _y = _textBlock.getYForLineIndex(_lineIndex);
+            _yVersion = _textBlock._lineYsVersion;
         }
 
-        // Set and return
-        return _y = y;
+        // Return
+        return _y;
+    }
+
+    /**
+     * Clears cached start char index and Y (when line is added to text block).
+     */
+    protected void clearCachedStartAndY()
+    {
+        _startCharIndexVersion = _yVersion = -1;
     }
 
     /**
@@ -562,6 +577,11 @@ public class TextLine implements CharSequenceX, Cloneable {
         return _textMetrics = new TextMetrics(this);
     }
 
+    /**
+     * Returns the text metrics for line text, if already calculated (and line hasn't changed since).
+     */
+    protected TextMetrics getMetricsIfSet()  { return _textMetrics; }
+
     /**
      * Returns the token at given char index.
      */
@@ -0,0 +1,26 @@
+/*
+ * Copyright (c) 2010, ReportMill Software. All rights reserved.
+ */
+package snap.util;
+import java.util.List;
+
+/**
+ * An interface for a source of items that are fetched on demand in pages (for large data sets).
+ */
+public interface ItemProvider<E> {
+
+    /**
+     * Returns the total number of items.
+     */
+    int getItemCount();
+
+    /**
+     * Returns the items in given range (start inclusive, end exclusive). This may be called from a background thread.
+     */
+    List<E> getItems(int aStart, int anEnd);
+
+    /**
+     * Returns the number of items to fetch in each page.
+     */
+    default int getPageSize()  { return 100; }
+}
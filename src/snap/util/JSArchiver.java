@@ -64,7 +64,7 @@ public class JSArchiver {
     public Object readSource(Object aSource)
     {
         JSValue node = aSource instanceof JSValue ? (JSValue)aSource :
-            new JSParser().readSource(aSource);
+            JSValue.readSource(aSource);
         return readNode(node);
     }
 
@@ -73,7 +73,7 @@ public class JSArchiver {
      */
     public Object readString(String aString)
     {
-        JSValue node = new JSParser().readString(aString);
+        JSValue node = JSValue.readString(aString);
         return readNode(node);
     }
 
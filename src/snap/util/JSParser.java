@@ -17,6 +17,7 @@ public class JSParser extends Parser {
     public JSParser()
     {
         super();
+        setCompiledTokenizer(true);
     }
 
     /**
@@ -227,13 +228,13 @@ public class JSParser extends Parser {
         }
 
         /**
-         * Sets the current tokenizer input.
+         * Resets regex matchers for current input.
          */
         @Override
-        public void setInput(CharSequence anInput)
+        protected void resetMatchers()
         {
-            super.setInput(anInput);
-            Stream.of(_stringRegexes).forEach(regex -> regex.getMatcher().reset(anInput));
+            super.resetMatchers();
+            Stream.of(_stringRegexes).forEach(regex -> regex.getMatcher().reset(getInput()));
         }
 
         /**
@@ -0,0 +1,502 @@
+/*
+ * Copyright (c) 2010, ReportMill Software. All rights reserved.
+ */
+package snap.util;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * A fast streaming pull reader for JSON. It reads directly from chars or UTF-8 bytes with a hand written
+ * recursive descent (no Grammar, ParseNodes or source String), and returns object, array and value events:
+ *
+ *     for (int event = jsReader.next(); event != JSReader.END_DOCUMENT; event = jsReader.next()) ...
+ *
+ * Use readValue() to build a JSValue tree. Values are String, Double, Boolean or null, as with JSParser.
+ */
+public class JSReader {
+
+    // The source chars (if reading chars)
+    private char[]  _chars;
+
+    // The source bytes (if reading UTF-8 bytes)
+    private byte[]  _bytes;
+
+    // The current read index and the end index
+    private int  _index;
+    private int  _end;
+
+    // The current event
+    private int  _event;
+
+    // The key for current event (if event is in object)
+    private String  _key;
+
+    // The value for current VALUE event
+    private Object  _value;
+
+    // Whether each open container is an object (otherwise array)
+    private boolean[]  _inObject = new boolean[32];
+
+    // Whether root and each open container have read a value
+    private boolean[]  _hasValue = new boolean[33];
+
+    // The number of open containers
+    private int  _depth;
+
+    // A buffer to decode strings with escapes or non-ASCII chars
+    private char[]  _stringBuffer = new char[256];
+
+    // A cache of keys, so that repeated keys share one String
+    private String[]  _keys = new String[256];
+
+    // Constants for events
+    public static final int START_OBJECT = 1;
+    public static final int END_OBJECT = 2;
+    public static final int START_ARRAY = 3;
+    public static final int END_ARRAY = 4;
+    public static final int VALUE = 5;
+    public static final int END_DOCUMENT = 6;
+
+    /**
+     * Constructor for given string.
+     */
+    public JSReader(String aString)
+    {
+        this(aString.toCharArray());
+    }
+
+    /**
+     * Constructor for given chars.
+     */
+    public JSReader(char[] theChars)
+    {
+        this(theChars, 0, theChars.length);
+    }
+
+    /**
+     * Constructor for given chars range.
+     */
+    public JSReader(char[] theChars, int aStart, int anEnd)
+    {
+        _chars = theChars;
+        _index = aStart;
+        _end = anEnd;
+
+        // Skip byte order mark
+        if (_index < _end && _chars[_index] == '\uFEFF')
+            _index++;
+    }
+
+    /**
+     * Constructor for given UTF-8 bytes (the JSON standard encoding). Bytes are decoded only inside strings,
+     * and ASCII strings with no escapes are created straight from bytes.
+     */
+    public JSReader(byte[] theBytes)
+    {
+        this(theBytes, 0, theBytes.length);
+    }
+
+    /**
+     * Constructor for given UTF-8 bytes range.
+     */
+    public JSReader(byte[] theBytes, int aStart, int anEnd)
+    {
+        _bytes = theBytes;
+        _index = aStart;
+        _end = anEnd;
+
+        // Skip byte order mark
+        if (_index + 2 < _end && _bytes[_index] == (byte) 0xEF && _bytes[_index + 1] == (byte) 0xBB && _bytes[_index + 2] == (byte) 0xBF)
+            _index += 3;
+    }
+
+    /**
+     * Returns the current event.
+     */
+    public int getEvent()  { return _event; }
+
+    /**
+     * Returns the key for current event, if event is object member (otherwise null).
+     */
+    public String getKey()  { return _key; }
+
+    /**
+     * Returns the value for current VALUE event (String, Double, Boolean or null).
+     */
+    public Object getValue()  { return _value; }
+
+    /**
+     * Returns the number of open objects and arrays.
+     */
+    public int getDepth()  { return _depth; }
+
+    /**
+     * Reads and returns the next event.
+     */
+    public int next()
+    {
+        // Reset key and value
+        _key = null;
+        _value = null;
+        skipWhiteSpace();
+
+        // If root value was read, check for trailing content and return end
+        if (_depth == 0 && (_hasValue[0] || _index >= _end)) {
+            if (_index < _end)
+                throw readFailed("Unexpected content after JSON value");
+            return _event = END_DOCUMENT;
+        }
+
+        // If in object or array, handle close, separator and key
+        int c = peekChar();
+        if (_depth > 0) {
+
+            // Handle close
+            boolean inObject = _inObject[_depth - 1];
+            char closeChar = inObject ? '}' : ']';
+            if (c == closeChar) {
+                _index++;
+                _depth--;
+                return _event = inObject ? END_OBJECT : END_ARRAY;
+            }
+
+            // If container has value, eat separator
+            if (_hasValue[_depth]) {
+                if (c != ',')
+                    throw readFailed(c < 0 ? "Unexpected end of JSON" : "Expected ',' or '" + closeChar + "'");
+                _index++;
+                skipWhiteSpace();
+                c = peekChar();
+            }
+
+            // If in object, read key and colon
+            if (inObject) {
+                if (c != '"')
+                    throw readFailed(c < 0 ? "Unexpected end of JSON" : "Expected key string");
+                _index++;
+                _key = readString(true);
+                skipWhiteSpace();
+                if (peekChar() != ':')
+                    throw readFailed("Expected ':' after key " + _key);
+                _index++;
+                skipWhiteSpace();
+                c = peekChar();
+            }
+        }
+
+        // Mark container (or root) as having value
+        _hasValue[_depth] = true;
+
+        // Handle value start
+        switch (c) {
+            case '{': return startContainer(true);
+            case '[': return startContainer(false);
+            case '"': _index++; _value = readString(false); break;
+            case 't': readLiteral("true"); _value = Boolean.TRUE; break;
+            case 'f': readLiteral("false"); _value = Boolean.FALSE; break;
+            case 'n': readLiteral("null"); break;
+            default:
+                if (c >= '0' && c <= '9' || c == '-' || c == '+' || c == '.')
+                    _value = readNumber();
+                else throw readFailed(c < 0 ? "Unexpected end of JSON" : "Unexpected char '" + (char) c + "'");
+        }
+
+        // Return value event
+        return _event = VALUE;
+    }
+
+    /**
+     * Reads the next value into a JSValue tree and returns it (or null if at end of object, array or document).
+     */
+    public JSValue readValue()
+    {
+        int event = next();
+        if (event == END_OBJECT || event == END_ARRAY || event == END_DOCUMENT)
+            return null;
+        return readValueForEvent();
+    }
+
+    /**
+     * Reads the value for current START_OBJECT, START_ARRAY or VALUE event into a JSValue tree and returns it.
+     */
+    public JSValue readValueForEvent()
+    {
+        switch (_event) {
+
+            // Handle object: Read key values until end object
+            case START_OBJECT:
+                JSObject objectJS = new JSObject();
+                for (int event = next(); event != END_OBJECT; event = next()) {
+                    String key = _key;
+                    JSValue valueJS = readValueForEvent();
+                    objectJS.setValue(key, valueJS);
+                }
+                return objectJS;
+
+            // Handle array: Read values until end array
+            case START_ARRAY:
+                JSArray arrayJS = new JSArray();
+                for (int event = next(); event != END_ARRAY; event = next())
+                    arrayJS.addValue(readValueForEvent());
+                return arrayJS;
+
+            // Handle value
+            case VALUE: return new JSValue(_value);
+
+            // Handle anything else: Complain
+            default: throw readFailed("No value for current event");
+        }
+    }
+
+    /**
+     * Starts an object or array.
+     */
+    private int startContainer(boolean isObject)
+    {
+        // If stack is full, grow it
+        if (_depth == _inObject.length) {
+            _inObject = Arrays.copyOf(_inObject, _depth * 2);
+            _hasValue = Arrays.copyOf(_hasValue, _depth * 2 + 1);
+        }
+
+        // Push container and return event
+        _index++;
+        _inObject[_depth++] = isObject;
+        _hasValue[_depth] = false;
+        return _event = isObject ? START_OBJECT : START_ARRAY;
+    }
+
+    /**
+     * Reads a string (after open quote). Strings with no escapes (and only ASCII, for bytes) are created from source.
+     */
+    private String readString(boolean isKey)
+    {
+        // Handle chars: Scan for close quote and if found before escape, return string
+        int start = _index;
+        if (_chars != null) {
+            for (int i = start; i < _end; i++) {
+                char c = _chars[i];
+                if (c == '"') {
+                    _index = i + 1;
+                    return isKey ? getCachedKey(_chars, start, i - start) : new String(_chars, start, i - start);
+                }
+                if (c == '\\')
+                    break;
+            }
+        }
+
+        // Handle bytes: Scan for close quote and if found before escape or non-ASCII byte, return string
+        else if (!isKey) {
+            for (int i = start; i < _end; i++) {
+                byte b = _bytes[i];
+                if (b == '"') {
+                    _index = i + 1;
+                    return new String(_bytes, start, i - start, StandardCharsets.ISO_8859_1);
+                }
+                if (b == '\\' || b < 0)
+                    break;
+            }
+        }
+
+        // Otherwise decode into buffer
+        return readStringDecoded(isKey);
+    }
+
+    /**
+     * Reads a string (after open quote), decoding escapes and UTF-8 into string buffer.
+     */
+    private String readStringDecoded(boolean isKey)
+    {
+        int length = 0;
+        while (true) {
+
+            // Get next char (complain if missing)
+            if (_index >= _end)
+                throw readFailed("Unterminated string");
+            int c = _chars != null ? _chars[_index++] : _bytes[_index++] & 0xff;
+
+            // Handle close quote, escape and UTF-8 multibyte sequence
+            if (c == '"')
+                break;
+            if (c == '\\')
+                c = readEscapeChar();
+            else if (c >= 0x80 && _bytes != null)
+                c = readUTF8Char(c);
+
+            // Add char (or surrogate pair) to buffer
+            if (length + 2 > _stringBuffer.length)
+                _stringBuffer = Arrays.copyOf(_stringBuffer, _stringBuffer.length * 2);
+            if (c > 0xFFFF) {
+                _stringBuffer[length++] = Character.highSurrogate(c);
+                _stringBuffer[length++] = Character.lowSurrogate(c);
+            }
+            else _stringBuffer[length++] = (char) c;
+        }
+
+        // Return string
+        return isKey ? getCachedKey(_stringBuffer, 0, length) : new String(_stringBuffer, 0, length);
+    }
+
+    /**
+     * Reads an escaped char (after backslash).
+     */
+    private int readEscapeChar()
+    {
+        int c = peekChar();
+        _index++;
+        switch (c) {
+            case '"': case '\\': case '/': return c;
+            case 'b': return '\b';
+            case 'f': return '\f';
+            case 'n': return '\n';
+            case 'r': return '\r';
+            case 't': return '\t';
+
+            // Handle unicode escape: Read 4 hex digits
+            case 'u':
+                int value = 0;
+                for (int i = 0; i < 4; i++) {
+                    int digit = Character.digit(peekChar(), 16);
+                    if (digit < 0)
+                        throw readFailed("Invalid unicode escape");
+                    value = value * 16 + digit;
+                    _index++;
+                }
+                return value;
+
+            // Handle anything else: Complain
+            default: throw readFailed(c < 0 ? "Unterminated string" : "Invalid escape '\\" + (char) c + "'");
+        }
+    }
+
+    /**
+     * Reads the rest of a UTF-8 multibyte sequence for given lead byte and returns code point.
+     * Malformed sequences return the replacement char, as with String decoding.
+     */
+    private int readUTF8Char(int aLeadByte)
+    {
+        // Get number of continuation bytes and lead bits
+        int count, codePoint;
+        if ((aLeadByte & 0xE0) == 0xC0) { count = 1; codePoint = aLeadByte & 0x1F; }
+        else if ((aLeadByte & 0xF0) == 0xE0) { count = 2; codePoint = aLeadByte & 0x0F; }
+        else if ((aLeadByte & 0xF8) == 0xF0) { count = 3; codePoint = aLeadByte & 0x07; }
+        else return '\uFFFD';
+
+        // Add continuation bytes
+        for (int i = 0; i < count; i++) {
+            if (_index >= _end || (_bytes[_index] & 0xC0) != 0x80)
+                return '\uFFFD';
+            codePoint = codePoint << 6 | _bytes[_index++] & 0x3F;
+        }
+
+        // Return code point
+        return codePoint;
+    }
+
+    /**
+     * Reads a number. Integers of up to 18 digits are accumulated directly, others are parsed as Double.
+     */
+    private Double readNumber()
+    {
+        // Read sign
+        int start = _index;
+        int c = peekChar();
+        boolean negative = c == '-';
+        if (negative || c == '+')
+            _index++;
+
+        // Read number chars, accumulating integer value while only digits
+        long value = 0;
+        int digitCount = 0;
+        boolean isInteger = true;
+        for (c = peekChar(); c >= 0; c = peekChar()) {
+            if (c >= '0' && c <= '9') {
+                value = value * 10 + (c - '0');
+                digitCount++;
+            }
+            else if (c == '.' || c == 'e' || c == 'E' || c == '-' || c == '+')
+                isInteger = false;
+            else break;
+            _index++;
+        }
+
+        // If simple integer, return value
+        if (isInteger && digitCount > 0 && digitCount <= 18)
+            return negative ? -(double) value : (double) value;
+
+        // Otherwise parse number string
+        String numberStr = _chars != null ? new String(_chars, start, _index - start) :
+            new String(_bytes, start, _index - start, StandardCharsets.ISO_8859_1);
+        try { return Double.valueOf(numberStr); }
+        catch (NumberFormatException e) { throw readFailed("Invalid number " + numberStr); }
+    }
+
+    /**
+     * Reads given literal (true, false, null).
+     */
+    private void readLiteral(String aLiteral)
+    {
+        for (int i = 0, iMax = aLiteral.length(); i < iMax; i++, _index++)
+            if (peekChar() != aLiteral.charAt(i))
+                throw readFailed("Expected " + aLiteral);
+    }
+
+    /**
+     * Returns a cached key for given chars.
+     */
+    private String getCachedKey(char[] theChars, int aStart, int aLength)
+    {
+        // Get hash index
+        int hash = 0;
+        for (int i = aStart, iMax = aStart + aLength; i < iMax; i++)
+            hash = hash * 31 + theChars[i];
+        int index = (hash ^ (hash >>> 16)) & (_keys.length - 1);
+
+        // If cached key matches, return it
+        String key = _keys[index];
+        if (key != null && key.length() == aLength) {
+            int i = 0;
+            while (i < aLength && key.charAt(i) == theChars[aStart + i])
+                i++;
+            if (i == aLength)
+                return key;
+        }
+
+        // Otherwise, create and cache key
+        return _keys[index] = new String(theChars, aStart, aLength);
+    }
+
+    /**
+     * Skips whitespace.
+     */
+    private void skipWhiteSpace()
+    {
+        for (int c = peekChar(); c == ' ' || c == '\n' || c == '\r' || c == '\t'; c = peekChar())
+            _index++;
+    }
+
+    /**
+     * Returns the char at current index (or -1 if at end).
+     */
+    private int peekChar()
+    {
+        if (_index >= _end)
+            return -1;
+        return _chars != null ? _chars[_index] : _bytes[_index] & 0xff;
+    }
+
+    /**
+     * Returns an exception for read failure with given message.
+     */
+    private RuntimeException readFailed(String aMessage)
+    {
+        // Get line number
+        int lineIndex = 0;
+        for (int i = 0, iMax = Math.min(_index, _end); i < iMax; i++)
+            if ((_chars != null ? _chars[i] : _bytes[i]) == '\n')
+                lineIndex++;
+
+        // Return exception
+        return new RuntimeException("JSReader: " + aMessage + " (line " + (lineIndex + 1) + ")");
+    }
+}
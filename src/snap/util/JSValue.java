@@ -106,8 +106,19 @@ public class JSValue {
     public static JSValue readSource(Object aSource)
     {
         WebURL url = WebURL.getURL(aSource);
-        JSParser parser = new JSParser();
-        String text = url.getText();
-        return parser.readString(text);
+        byte[] bytes = url != null ? url.getBytes() : null;
+        if (bytes == null)
+            return null;
+        JSReader reader = new JSReader(bytes);
+        return reader.readValue();
+    }
+
+    /**
+     * Reads JSON from a string.
+     */
+    public static JSValue readString(String aString)
+    {
+        JSReader reader = new JSReader(aString);
+        return reader.readValue();
     }
 }
\ No newline at end of file
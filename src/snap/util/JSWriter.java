@@ -2,7 +2,9 @@
  * Copyright (c) 2010, ReportMill Software. All rights reserved.
  */
 package snap.util;
-import java.util.Arrays;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.Collection;
 import java.util.Map;
 
@@ -23,8 +25,11 @@ public class JSWriter {
     // Whether writer compacts JSON (no indent or newline)
     private boolean  _compacted = false;
 
-    // Constant for escape chars
-    private static final char[] ESCAPE_CHARS = { '"', '\\', '\b', '\f', '\n', '\r', '\t' };
+    // The OutputStream to flush to, if writing to stream
+    private OutputStream  _out;
+
+    // The buffer length at which buffer is flushed to stream
+    private static final int FLUSH_LENGTH = 8192;
 
     /**
      * Constructor.
@@ -143,6 +148,7 @@ public class JSWriter {
             String key = keys[i];
             JSValue child = keyValues.get(key);
             append(aSB, key, child);
+            flushIfNeeded(aSB);
 
             // If has next, append separator and whitespace
             if (i + 1 < iMax) {
@@ -180,6 +186,7 @@ public class JSWriter {
             // Append item
             JSValue item = arrayJS.getValue(i);
             append(aSB, null, item);
+            flushIfNeeded(aSB);
 
             // If has next, append separator
             boolean hasNext = i+1 < count;
@@ -204,24 +211,31 @@ public class JSWriter {
     {
         Object value = valueJS.getValue();
 
-        // Handle String
+        // Handle String: Append chars up to each escape char at once
         if (value instanceof String) {
             String string = (String) value;
             aSB.append('"');
+            int start = 0;
             for (int i = 0, iMax = string.length(); i < iMax; i++) {
                 char c = string.charAt(i);
-                if (isEscapeChar(c))
-                    aSB.append(getEscapeCharString(c));
-                else aSB.append(c);
+                if (isEscapeChar(c)) {
+                    aSB.append(string, start, i).append(getEscapeCharString(c));
+                    start = i + 1;
+                }
             }
-            aSB.append('"');
+            aSB.append(string, start, string.length()).append('"');
         }
 
-        // Handle Number
+        // Handle Number: If whole (and not huge), just append long, otherwise format
         else if (value instanceof Number) {
             Number num = (Number) value;
-            String str = FormatUtils.formatNum("#.##", num);
-            aSB.append(str);
+            double numDouble = num.doubleValue();
+            if (numDouble == (long) numDouble && numDouble != 0 && Math.abs(numDouble) < 1e15)
+                aSB.append((long) numDouble);
+            else {
+                String str = FormatUtils.formatNum("#.##", num);
+                aSB.append(str);
+            }
         }
 
         // Handle Boolean
@@ -268,6 +282,42 @@ public class JSWriter {
         SnapUtils.writeBytes(StringUtils.getBytes(json), aPath);
     }
 
+    /**
+     * Writes the given JSON object to given OutputStream as UTF-8, incrementally (in chunks, as values are written).
+     */
+    public void writeJSON(JSValue aNode, OutputStream anOut) throws IOException
+    {
+        // Append node, flushing full buffers to stream
+        StringBuffer sb = new StringBuffer(FLUSH_LENGTH + 1024);
+        _out = anOut;
+        try { append(sb, null, aNode); }
+        catch (RuntimeException e) {
+            if (e.getCause() instanceof IOException)
+                throw (IOException) e.getCause();
+            throw e;
+        }
+        finally { _out = null; }
+
+        // Write remainder
+        anOut.write(sb.toString().getBytes(StandardCharsets.UTF_8));
+        anOut.flush();
+    }
+
+    /**
+     * Writes buffer to OutputStream and clears it, if writing to stream and buffer is full.
+     */
+    protected void flushIfNeeded(StringBuffer aSB)
+    {
+        // If not writing to stream or buffer not full, just return
+        if (_out == null || aSB.length() < FLUSH_LENGTH)
+            return;
+
+        // Write buffer and clear
+        try { _out.write(aSB.toString().getBytes(StandardCharsets.UTF_8)); }
+        catch (IOException e) { throw new RuntimeException(e); }
+        aSB.setLength(0);
+    }
+
     /**
      * Returns whether given node has child Map or List of Map/List.
      */
@@ -299,7 +349,7 @@ public class JSWriter {
      */
     private static boolean isEscapeChar(char aChar)
     {
-        if (Arrays.binarySearch(ESCAPE_CHARS, aChar) >= 0)
+        if (aChar == '"' || aChar == '\\')
             return true;
         return Character.isISOControl(aChar);
     }
@@ -3,6 +3,7 @@
  */
 package snap.util;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * This class provides an optimized convenience for getting named values from arbitrary objects.
@@ -10,7 +11,7 @@ import java.util.*;
 public class Key {
 
     // A map of getter class maps for encountered classes (each map has an entry with getter for encountered keys)
-    private static Map<Class<?>,Map<String,KeyAccessor>>  _getterClasses = new HashMap<>();
+    private static Map<Class<?>,Map<String,KeyAccessor>>  _getterClasses = new ConcurrentHashMap<>();
 
     /**
      * This is interface is implemented by objects that can get key values themselves.
@@ -175,18 +176,22 @@ public class Key {
     /**
      * Returns the accessor object for a given object (class) and key.
      */
-    public synchronized static KeyAccessor getAccessor(Object anObj, String aKey)
+    public static KeyAccessor getAccessor(Object anObj, String aKey)
     {
         // Get accessor class map for object class (if null, create and add)
         Class<?> objClass = anObj.getClass();
         Map<String,KeyAccessor> classMap = _getterClasses.get(objClass);
         if (classMap == null)
-            _getterClasses.put(objClass, classMap = new HashMap<>());
+            classMap = _getterClasses.computeIfAbsent(objClass, c -> new ConcurrentHashMap<>());
 
         // Get accessor (if null, create and add)
         KeyAccessor accessor = classMap.get(aKey);
-        if (accessor == null)
-            classMap.put(aKey, accessor = new KeyAccessor(anObj, aKey));
+        if (accessor == null) {
+            accessor = new KeyAccessor(anObj, aKey);
+            KeyAccessor existing = classMap.putIfAbsent(aKey, accessor);
+            if (existing != null)
+                accessor = existing;
+        }
 
         // Return accessor
         return accessor;
@@ -4,6 +4,9 @@
 package snap.util;
 import snap.props.PropObject;
 import java.io.File;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
@@ -34,6 +37,9 @@ class KeyAccessor {
     // Args for ValueForKey or Method
     private Object[]  _getMethodArgs;
 
+    // The get method as MethodHandle with type (Object)Object and any args bound (null if not available)
+    private MethodHandle  _getHandle;
+
     // The method, if type is Method
     private Method  _setMethod;
 
@@ -82,6 +88,7 @@ class KeyAccessor {
         // Try to find get method
         if (getGetMethod() != null) {
             _type = Type.Method;
+            _getHandle = getGetHandle();
             return;
         }
 
@@ -99,6 +106,11 @@ class KeyAccessor {
         _type = Type.Unknown;
     }
 
+    /**
+     * Returns the object class this accessor works with.
+     */
+    public Class<?> getAccessorClass()  { return _class; }
+
     /**
      * This method actually retrieves a value for an object and a key.
      */
@@ -121,6 +133,12 @@ class KeyAccessor {
             // Handle TYPE_METHOD
             case Method:
 
+                // If MethodHandle available, invoke it (if it fails, fall back to Method.invoke, so failure is handled the same)
+                if (_getHandle != null) {
+                    try { return _getHandle.invokeExact(anObj); }
+                    catch (Throwable ignore) { }
+                }
+
                 // Invoke method
                 try {
                     return _getMethod.invoke(anObj, _getMethodArgs);
@@ -219,6 +237,27 @@ class KeyAccessor {
         return _getMethod;
     }
 
+    /**
+     * Returns a MethodHandle for get method with type (Object)Object, so it can be invoked without reflection
+     * (or null if get method isn't accessible to lookup or on TeaVM).
+     */
+    private MethodHandle getGetHandle()
+    {
+        // TeaVM doesn't support MethodHandles
+        if (SnapEnv.isTeaVM) return null;
+
+        // Get handle, bind any args and adapt to generic type
+        try {
+            MethodHandle handle = MethodHandles.publicLookup().unreflect(_getMethod);
+            if (_getMethodArgs.length > 0)
+                handle = MethodHandles.insertArguments(handle, 1, _getMethodArgs);
+            return handle.asType(MethodType.methodType(Object.class, Object.class));
+        }
+
+        // Return null if method not accessible (falls back to Method.invoke)
+        catch (IllegalAccessException e) { return null; }
+    }
+
     /**
      * This method actually retrieves a value for an object and a key.
      */
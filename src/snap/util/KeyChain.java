@@ -4,6 +4,7 @@
 package snap.util;
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * This class evaluates a string expression on a given object: KeyChain.getValue(object, expression).
@@ -16,20 +17,23 @@ public class KeyChain {
     // Possible children of key chain
     private Object  _children;
 
+    // The compiled evaluation node for this key chain (volatile, since key chains are shared across threads)
+    private volatile KeyChainCompiler.Node  _compiled;
+
     // The KeyChain parser
     private static KeyChainParser  _parser = new KeyChainParser();
 
     // A shared map of previously encountered key chains
-    private static Map<Object, KeyChain>  _keyChains = new Hashtable();
+    private static Map<Object, KeyChain>  _keyChains = new ConcurrentHashMap<>();
 
     // The function handler
     private static FunctionHandler  _functionHandler;
 
     // A thread local to vend per assignment maps
-    private static ThreadLocal<Map>  _assTL = new ThreadLocal() {
-        public Object initialValue()
+    private static ThreadLocal<Map<String,Object>>  _assTL = new ThreadLocal<Map<String,Object>>() {
+        public Map<String,Object> initialValue()
         {
-            return new HashMap();
+            return new HashMap<>();
         }
     };
 
@@ -88,8 +92,12 @@ public class KeyChain {
 
         // Get KeyChain (create and cache if needed) and return
         KeyChain kchain = _keyChains.get(aSource);
-        if (kchain == null)
-            _keyChains.put(aSource, kchain = createKeyChain((String) aSource));
+        if (kchain == null) {
+            kchain = createKeyChain((String) aSource);
+            KeyChain existing = _keyChains.putIfAbsent(aSource, kchain);
+            if (existing != null)
+                kchain = existing;
+        }
         return kchain;
     }
 
@@ -104,7 +112,7 @@ public class KeyChain {
     /**
      * Returns a thread-local assignments map.
      */
-    public static Map getAssignments()
+    public static Map<String,Object> getAssignments()
     {
         return _assTL.get();
     }
@@ -191,6 +199,9 @@ public class KeyChain {
      */
     public void addChild(Object child)
     {
+        // Clear compiled node
+        _compiled = null;
+
         // If first child, just set Children to point to it
         if (_children == null)
             _children = child;
@@ -264,17 +275,22 @@ public class KeyChain {
         // If object is null, just return null
         if (anObj == null) return null;
 
-        // If list, use aggregator
-        if (anObj instanceof List) {
-            List list = (List) anObj;
-            Object val = getValueImpl(aRoot, anObj, aKeyChain);
-            if (val == null && list.size() > 0)
-                val = getValueImpl(aRoot, list.get(0), aKeyChain);
-            return val;
-        }
+        // Evaluate compiled node (handles List with aggregator)
+        KeyChainCompiler.Node compiled = aKeyChain.getCompiled();
+        return compiled.getValue(aRoot, anObj);
+    }
+
+    /**
+     * Returns the compiled evaluation node for this key chain (compiled on first use).
+     */
+    private KeyChainCompiler.Node getCompiled()
+    {
+        // If already set, just return
+        if (_compiled != null) return _compiled;
 
-        // Invoke the general implementation
-        return getValueImpl(aRoot, anObj, aKeyChain);
+        // Compile, set and return
+        KeyChainCompiler.Node compiled = KeyChainCompiler.compile(this);
+        return _compiled = compiled;
     }
 
     /**
@@ -400,7 +416,7 @@ public class KeyChain {
     /**
      * Returns the sum of the two given objects (assumed to be strings or numbers).
      */
-    private static Object add(Object obj1, Object obj2)
+    static Object add(Object obj1, Object obj2)
     {
         // If strings, do string concat (accounting for nulls)
         if (obj1 instanceof String || obj2 instanceof String)
@@ -0,0 +1,415 @@
+/*
+ * Copyright (c) 2010, ReportMill Software. All rights reserved.
+ */
+package snap.util;
+import snap.util.KeyChain.Op;
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * KeyChainCompiler - package class to compile a KeyChain expression tree into a tree of evaluation nodes once,
+ * so evaluation doesn't re-dispatch on the op or look up key accessors for every object. Results are the same as
+ * KeyChain.getValueImpl().
+ */
+class KeyChainCompiler {
+
+    // Integral operands up to this magnitude are exact as doubles, so primitive math gives the same BigDecimal
+    private static final long MAX_EXACT_LONG = 1L << 53;
+
+    /**
+     * Returns a compiled node for given KeyChain.
+     */
+    public static Node compile(KeyChain aKeyChain)
+    {
+        switch (aKeyChain.getOp()) {
+
+            // Handle Literals: String, Number, Null
+            case Literal: return new LiteralNode(aKeyChain.getValue());
+
+            // Handle binary math ops: Add, Subtract, Multiply, Divide, Mod
+            case Add: case Subtract: case Multiply: case Divide: case Mod:
+                return new MathNode(aKeyChain.getOp(), compileChild(aKeyChain, 0), compileChild(aKeyChain, 1));
+
+            // Handle Negate
+            case Negate: return new NegateNode(compileChild(aKeyChain, 0));
+
+            // Handle binary compare ops: GreaterThan, LessThan, Equal, NotEqual, GreaterThanOrEqual, LessThanOrEqual
+            case GreaterThan: case LessThan: case Equal: case NotEqual: case GreaterThanOrEqual: case LessThanOrEqual:
+                return new CompareNode(aKeyChain.getOp(), compileChild(aKeyChain, 0), compileChild(aKeyChain, 1));
+
+            // Handle logical ops: Not, And, Or
+            case Not: return new NotNode(compileChild(aKeyChain, 0));
+            case And: case Or:
+                return new AndOrNode(aKeyChain.getOp() == Op.And, compileChild(aKeyChain, 0), compileChild(aKeyChain, 1));
+
+            // Handle basic Key
+            case Key: return new KeyNode(aKeyChain.getValueString());
+
+            // Handle ArrayIndex
+            case ArrayIndex: return new ArrayIndexNode(compileChild(aKeyChain, 0), compileChild(aKeyChain, 1));
+
+            // Handle Chain
+            case Chain: {
+                Node[] nodes = new Node[aKeyChain.getChildCount()];
+                for (int i = 0; i < nodes.length; i++)
+                    nodes[i] = compileChild(aKeyChain, i);
+                return new ChainNode(nodes);
+            }
+
+            // Handle Conditional
+            case Conditional: {
+                Node falseNode = aKeyChain.getChildCount() == 3 ? compileChild(aKeyChain, 2) : null;
+                return new ConditionalNode(compileChild(aKeyChain, 0), compileChild(aKeyChain, 1), falseNode);
+            }
+
+            // Handle Assignment
+            case Assignment: return new AssignmentNode(aKeyChain.getChildString(0), compileChild(aKeyChain, 1));
+
+            // Handle FunctionCall and anything else: Use interpreter
+            default: return new InterpretNode(aKeyChain);
+        }
+    }
+
+    /**
+     * Returns a compiled node for given KeyChain child.
+     */
+    private static Node compileChild(KeyChain aKeyChain, int anIndex)
+    {
+        return compile(aKeyChain.getChildKeyChain(anIndex));
+    }
+
+    /**
+     * Returns whether given object is an integral number that is exact as double.
+     */
+    private static boolean isExactLong(Object anObj)
+    {
+        if (anObj instanceof Integer || anObj instanceof Short || anObj instanceof Byte)
+            return true;
+        if (anObj instanceof Long) {
+            long value = (Long) anObj;
+            return value <= MAX_EXACT_LONG && value >= -MAX_EXACT_LONG;
+        }
+        return false;
+    }
+
+    /**
+     * A compiled KeyChain node.
+     */
+    public static abstract class Node {
+
+        /**
+         * Returns the value for given root and object, handling null and List the way KeyChain.getValue() does.
+         */
+        public final Object getValue(Object aRoot, Object anObj)
+        {
+            // If object is null, just return null
+            if (anObj == null) return null;
+
+            // If list, use aggregator
+            if (anObj instanceof List) {
+                List<?> list = (List<?>) anObj;
+                Object val = getValueImpl(aRoot, anObj);
+                if (val == null && list.size() > 0)
+                    val = getValueImpl(aRoot, list.get(0));
+                return val;
+            }
+
+            // Return value
+            return getValueImpl(aRoot, anObj);
+        }
+
+        /**
+         * Returns the boolean value for given root and object.
+         */
+        public final boolean getBoolValue(Object aRoot, Object anObj)
+        {
+            return Convert.boolValue(getValue(aRoot, anObj));
+        }
+
+        /**
+         * Returns the value for given root and (non-null) object.
+         */
+        protected abstract Object getValueImpl(Object aRoot, Object anObj);
+    }
+
+    /**
+     * A node for Literal.
+     */
+    private static class LiteralNode extends Node {
+
+        // The literal value
+        private final Object  _value;
+
+        LiteralNode(Object aValue)  { _value = aValue; }
+
+        protected Object getValueImpl(Object aRoot, Object anObj)  { return _value; }
+    }
+
+    /**
+     * A node for binary math ops, with primitive fast path for integral Add, Subtract and Multiply.
+     */
+    private static class MathNode extends Node {
+
+        // The op and operands
+        private final Op  _op;
+        private final Node  _left, _right;
+
+        MathNode(Op anOp, Node aLeft, Node aRight)  { _op = anOp; _left = aLeft; _right = aRight; }
+
+        protected Object getValueImpl(Object aRoot, Object anObj)
+        {
+            // Get value of operands
+            Object o1 = _left.getValue(aRoot, anObj);
+            Object o2 = _right.getValue(aRoot, anObj);
+
+            // Handle integral operands: Do math with longs (BigDecimal is same as exact BigDecimal math of doubles)
+            if (_op != Op.Divide && _op != Op.Mod && isExactLong(o1) && isExactLong(o2)) {
+                long l1 = ((Number) o1).longValue();
+                long l2 = ((Number) o2).longValue();
+                if (_op == Op.Add)
+                    return BigDecimal.valueOf(l1 + l2);
+                if (_op == Op.Subtract)
+                    return BigDecimal.valueOf(l1 - l2);
+                if (Math.abs(l1) <= Integer.MAX_VALUE && Math.abs(l2) <= Integer.MAX_VALUE)
+                    return BigDecimal.valueOf(l1 * l2);
+            }
+
+            // If non-numeric operand values (except add), just return
+            if (!(o1 instanceof Number && o2 instanceof Number) && _op != Op.Add) return null;
+
+            // Handle Math ops: Add, Subtract, Multiply, Divide, Mod
+            switch (_op) {
+                case Add: return KeyChain.add(o1, o2);
+                case Subtract: return MathUtils.subtract((Number) o1, (Number) o2);
+                case Multiply: return MathUtils.multiply((Number) o1, (Number) o2);
+                case Divide: return MathUtils.divide((Number) o1, (Number) o2);
+                default: return MathUtils.mod(Convert.doubleValue(o1), Convert.doubleValue(o2));
+            }
+        }
+    }
+
+    /**
+     * A node for Negate.
+     */
+    private static class NegateNode extends Node {
+
+        // The operand
+        private final Node  _child;
+
+        NegateNode(Node aChild)  { _child = aChild; }
+
+        protected Object getValueImpl(Object aRoot, Object anObj)
+        {
+            Object o1 = _child.getValue(aRoot, anObj);
+            return o1 instanceof Number ? MathUtils.negate((Number) o1) : null;
+        }
+    }
+
+    /**
+     * A node for binary compare ops, with primitive fast path for numbers.
+     */
+    private static class CompareNode extends Node {
+
+        // The op and operands
+        private final Op  _op;
+        private final Node  _left, _right;
+
+        CompareNode(Op anOp, Node aLeft, Node aRight)  { _op = anOp; _left = aLeft; _right = aRight; }
+
+        protected Object getValueImpl(Object aRoot, Object anObj)
+        {
+            // Get value of operands
+            Object o1 = _left.getValue(aRoot, anObj);
+            Object o2 = _right.getValue(aRoot, anObj);
+
+            // Get order (if numbers, compare doubles directly, as Sort.Compare does)
+            int order;
+            if (o1 instanceof Number && o2 instanceof Number) {
+                double d1 = ((Number) o1).doubleValue();
+                double d2 = ((Number) o2).doubleValue();
+                order = d1 < d2 ? Sort.ORDER_ASCEND : d1 > d2 ? Sort.ORDER_DESCEND : Sort.ORDER_SAME;
+            }
+            else order = Sort.Compare(o1, o2);
+
+            // Handle binary compare ops: GreaterThan, LessThan, Equal, NotEqual, GreaterThanOrEqual, LessThanOrEqual
+            switch (_op) {
+                case GreaterThan: return order == Sort.ORDER_DESCEND;
+                case LessThan: return order == Sort.ORDER_ASCEND;
+                case Equal: return order == Sort.ORDER_SAME;
+                case NotEqual: return order != Sort.ORDER_SAME;
+                case GreaterThanOrEqual: return order != Sort.ORDER_ASCEND;
+                default: return order != Sort.ORDER_DESCEND;
+            }
+        }
+    }
+
+    /**
+     * A node for Not.
+     */
+    private static class NotNode extends Node {
+
+        // The operand
+        private final Node  _child;
+
+        NotNode(Node aChild)  { _child = aChild; }
+
+        protected Object getValueImpl(Object aRoot, Object anObj)  { return !_child.getBoolValue(aRoot, anObj); }
+    }
+
+    /**
+     * A node for And, Or (both operands are always evaluated, as with KeyChain.getValueImpl).
+     */
+    private static class AndOrNode extends Node {
+
+        // Whether op is And and the operands
+        private final boolean  _and;
+        private final Node  _left, _right;
+
+        AndOrNode(boolean isAnd, Node aLeft, Node aRight)  { _and = isAnd; _left = aLeft; _right = aRight; }
+
+        protected Object getValueImpl(Object aRoot, Object anObj)
+        {
+            boolean b1 = _left.getBoolValue(aRoot, anObj);
+            boolean b2 = _right.getBoolValue(aRoot, anObj);
+            return _and ? (b1 && b2) : (b1 || b2);
+        }
+    }
+
+    /**
+     * A node for Key. Caches accessor for last object class, so repeated evaluation on same class skips lookup.
+     */
+    private static class KeyNode extends Node {
+
+        // The key
+        private final String  _key;
+
+        // Whether key is "this" or "idHashCode"
+        private final boolean  _isThis, _isIdHashCode;
+
+        // The accessor for last evaluated object class (volatile, since nodes are shared across threads)
+        private volatile KeyAccessor  _accessor;
+
+        KeyNode(String aKey)
+        {
+            _key = aKey;
+            _isThis = "this".equals(aKey);
+            _isIdHashCode = "idHashCode".equals(aKey);
+        }
+
+        protected Object getValueImpl(Object aRoot, Object anObj)
+        {
+            // Get value for key (same as Key.getValue)
+            Object value;
+            if (anObj instanceof Key.Get)
+                value = ((Key.Get) anObj).getKeyValue(_key);
+            else if (_isThis)
+                value = anObj;
+            else if (_isIdHashCode)
+                value = System.identityHashCode(anObj);
+
+            // Otherwise get value from accessor (if cached accessor isn't for object class, get and cache it)
+            else {
+                KeyAccessor accessor = _accessor;
+                if (accessor == null || accessor.getAccessorClass() != anObj.getClass())
+                    _accessor = accessor = Key.getAccessor(anObj, _key);
+                value = accessor.get(anObj);
+            }
+
+            // If null, check assignments
+            if (value == null)
+                value = KeyChain.getAssignments().get(_key);
+            return value;
+        }
+    }
+
+    /**
+     * A node for ArrayIndex.
+     */
+    private static class ArrayIndexNode extends Node {
+
+        // The array and index nodes
+        private final Node  _array, _index;
+
+        ArrayIndexNode(Node anArray, Node anIndex)  { _array = anArray; _index = anIndex; }
+
+        protected Object getValueImpl(Object aRoot, Object anObj)
+        {
+            Object o1 = _array.getValue(anObj, anObj);
+            if (!(o1 instanceof List)) return null;
+            int index = Convert.intValue(_index.getValue(aRoot, aRoot));
+            return ListUtils.get((List<?>) o1, index);
+        }
+    }
+
+    /**
+     * A node for Chain.
+     */
+    private static class ChainNode extends Node {
+
+        // The chain nodes
+        private final Node[]  _nodes;
+
+        ChainNode(Node[] theNodes)  { _nodes = theNodes; }
+
+        protected Object getValueImpl(Object aRoot, Object anObj)
+        {
+            Object value = anObj;
+            for (Node node : _nodes)
+                value = node.getValue(aRoot, value);
+            return value;
+        }
+    }
+
+    /**
+     * A node for Conditional.
+     */
+    private static class ConditionalNode extends Node {
+
+        // The condition, true and false (optional) nodes
+        private final Node  _cond, _true, _false;
+
+        ConditionalNode(Node aCond, Node aTrue, Node aFalse)  { _cond = aCond; _true = aTrue; _false = aFalse; }
+
+        protected Object getValueImpl(Object aRoot, Object anObj)
+        {
+            if (_cond.getBoolValue(aRoot, anObj))
+                return _true.getValue(aRoot, anObj);
+            return _false != null ? _false.getValue(aRoot, anObj) : null;
+        }
+    }
+
+    /**
+     * A node for Assignment.
+     */
+    private static class AssignmentNode extends Node {
+
+        // The assigned name and value node
+        private final String  _name;
+        private final Node  _value;
+
+        AssignmentNode(String aName, Node aValue)  { _name = aName; _value = aValue; }
+
+        protected Object getValueImpl(Object aRoot, Object anObj)
+        {
+            Object value = _value.getValue(aRoot, anObj);
+            KeyChain.getAssignments().put(_name, value);
+            return "";
+        }
+    }
+
+    /**
+     * A node that evaluates KeyChain with interpreter (for FunctionCall, which goes to current FunctionHandler).
+     */
+    private static class InterpretNode extends Node {
+
+        // The KeyChain
+        private final KeyChain  _keyChain;
+
+        InterpretNode(KeyChain aKeyChain)  { _keyChain = aKeyChain; }
+
+        protected Object getValueImpl(Object aRoot, Object anObj)
+        {
+            return KeyChain.getValueImpl(aRoot, anObj, _keyChain);
+        }
+    }
+}
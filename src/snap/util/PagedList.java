@@ -0,0 +1,315 @@
+/*
+ * Copyright (c) 2010, ReportMill Software. All rights reserved.
+ */
+package snap.util;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * A read-only list that fetches items from an ItemProvider in pages on demand, loading pages in the background
+ * and keeping the most recently used pages in a bounded cache. Items not yet loaded are returned as null.
+ *
+ * Pending page loads are served most recent first and are dropped when they fall outside the visible range (or
+ * when too many are pending), so fast scrolling doesn't build a backlog. Item lookup (indexOf/contains) only
+ * searches loaded pages, so it never forces the whole list to load.
+ */
+public class PagedList<E> extends AbstractList<E> {
+
+    // The item provider
+    private ItemProvider<E>  _provider;
+
+    // The number of items
+    private int  _size;
+
+    // The number of items per page
+    private int  _pageSize;
+
+    // The max number of pages to keep cached
+    private int  _maxPages;
+
+    // The loaded pages, in least recently used order
+    private Map<Integer,List<E>>  _pages;
+
+    // The indexes of pages that are pending or loading
+    private Set<Integer>  _loadingPages = new HashSet<>();
+
+    // The indexes of pages waiting to load, in request order (most recent last)
+    private Deque<Integer>  _pendingPages = new ArrayDeque<>();
+
+    // The number of loader tasks running or queued for this list
+    private int  _loaderTaskCount;
+
+    // The visible item range (end exclusive), or -1 if not set
+    private int  _visibleStart = -1, _visibleEnd = -1;
+
+    // A runnable to be called (from loader thread) when a page finishes loading
+    private Runnable  _pageLoadHandler;
+
+    // The shared executor to load pages
+    private static ExecutorService  _loader;
+
+    // Constant for default maximum number of pages to keep cached
+    public static final int MAX_PAGES_DEFAULT = 50;
+
+    // Constant for number of loader threads
+    private static final int LOADER_THREAD_COUNT = 2;
+
+    /**
+     * Constructor.
+     */
+    public PagedList(ItemProvider<E> aProvider)
+    {
+        this(aProvider, MAX_PAGES_DEFAULT);
+    }
+
+    /**
+     * Constructor for given provider and max number of cached pages.
+     */
+    public PagedList(ItemProvider<E> aProvider, int maxPages)
+    {
+        _provider = aProvider;
+        _size = aProvider.getItemCount();
+        _pageSize = Math.max(aProvider.getPageSize(), 1);
+        _maxPages = maxPages;
+        _pages = new LinkedHashMap<Integer,List<E>>(16, .75f, true) {
+            protected boolean removeEldestEntry(Map.Entry<Integer,List<E>> anEntry)  { return size() > maxPages; }
+        };
+    }
+
+    /**
+     * Returns the item provider.
+     */
+    public ItemProvider<E> getProvider()  { return _provider; }
+
+    /**
+     * Returns the list size.
+     */
+    public int size()  { return _size; }
+
+    /**
+     * Returns the item at given index, or null if item page not yet loaded (and requests load).
+     */
+    public E get(int anIndex)
+    {
+        // Check bounds
+        if (anIndex < 0 || anIndex >= _size)
+            throw new IndexOutOfBoundsException("PagedList.get: Index " + anIndex + " out of bounds: " + _size);
+
+        // Get page for index - if found, return item
+        int pageIndex = anIndex / _pageSize;
+        List<E> page;
+        synchronized (this) {
+            page = _pages.get(pageIndex);
+        }
+        if (page != null) {
+            int itemIndex = anIndex % _pageSize;
+            return itemIndex < page.size() ? page.get(itemIndex) : null;
+        }
+
+        // Request page load and return null placeholder
+        loadPage(pageIndex);
+        return null;
+    }
+
+    /**
+     * Override to search only loaded pages (returns -1 if item is not in a loaded page).
+     */
+    public synchronized int indexOf(Object anItem)
+    {
+        // Iterate over loaded pages in page order and return first index of item
+        Integer[] pageIndexes = _pages.keySet().toArray(new Integer[0]);
+        Arrays.sort(pageIndexes);
+        for (Integer pageIndex : pageIndexes) {
+            List<E> page = _pages.get(pageIndex);
+            int itemIndex = page.indexOf(anItem);
+            if (itemIndex >= 0)
+                return pageIndex * _pageSize + itemIndex;
+        }
+
+        // Return not found
+        return -1;
+    }
+
+    /**
+     * Override to search only loaded pages (returns -1 if item is not in a loaded page).
+     */
+    public synchronized int lastIndexOf(Object anItem)
+    {
+        // Iterate over loaded pages in reverse page order and return last index of item
+        Integer[] pageIndexes = _pages.keySet().toArray(new Integer[0]);
+        Arrays.sort(pageIndexes, Collections.reverseOrder());
+        for (Integer pageIndex : pageIndexes) {
+            List<E> page = _pages.get(pageIndex);
+            int itemIndex = page.lastIndexOf(anItem);
+            if (itemIndex >= 0)
+                return pageIndex * _pageSize + itemIndex;
+        }
+
+        // Return not found
+        return -1;
+    }
+
+    /**
+     * Override to search only loaded pages.
+     */
+    public boolean contains(Object anItem)  { return indexOf(anItem) >= 0; }
+
+    /**
+     * Returns whether item at given index is loaded.
+     */
+    public synchronized boolean isLoaded(int anIndex)
+    {
+        return _pages.containsKey(anIndex / _pageSize);
+    }
+
+    /**
+     * Returns the runnable to be called (from loader thread) when a page finishes loading.
+     */
+    public Runnable getPageLoadHandler()  { return _pageLoadHandler; }
+
+    /**
+     * Sets the runnable to be called (from loader thread) when a page finishes loading.
+     */
+    public void setPageLoadHandler(Runnable aRun)  { _pageLoadHandler = aRun; }
+
+    /**
+     * Sets the visible item range (end exclusive). Pending page loads outside this range (plus a page margin)
+     * are dropped.
+     */
+    public synchronized void setVisibleRange(int aStart, int anEnd)
+    {
+        // If already set, just return
+        if (aStart == _visibleStart && anEnd == _visibleEnd) return;
+        _visibleStart = aStart;
+        _visibleEnd = anEnd;
+
+        // Drop pending pages no longer wanted
+        for (Iterator<Integer> pageIter = _pendingPages.iterator(); pageIter.hasNext(); ) {
+            Integer pageIndex = pageIter.next();
+            if (!isPageWanted(pageIndex)) {
+                pageIter.remove();
+                _loadingPages.remove(pageIndex);
+            }
+        }
+    }
+
+    /**
+     * Clears loaded pages and pending loads and resets size from provider.
+     */
+    public synchronized void reset()
+    {
+        _pages.clear();
+        _loadingPages.removeAll(_pendingPages);
+        _pendingPages.clear();
+        _size = _provider.getItemCount();
+    }
+
+    /**
+     * Registers page at given index to load in background.
+     */
+    protected void loadPage(int aPageIndex)
+    {
+        synchronized (this) {
+
+            // If page already pending or loading, just return
+            if (!_loadingPages.add(aPageIndex))
+                return;
+
+            // Add to pending pages (if too many pending, drop oldest request)
+            _pendingPages.addLast(aPageIndex);
+            if (_pendingPages.size() > _maxPages)
+                _loadingPages.remove(_pendingPages.removeFirst());
+
+            // If all loader tasks busy, just return (a running task will get page)
+            if (_loaderTaskCount >= LOADER_THREAD_COUNT)
+                return;
+            _loaderTaskCount++;
+        }
+
+        // Start loader task
+        getLoader().execute(this::loadPendingPages);
+    }
+
+    /**
+     * Loads pending pages, most recently requested first, until none are left.
+     */
+    private void loadPendingPages()
+    {
+        while (true) {
+
+            // Get most recently requested page (if none, end task)
+            int pageIndex;
+            synchronized (this) {
+                Integer nextPageIndex = _pendingPages.pollLast();
+                if (nextPageIndex == null) {
+                    _loaderTaskCount--;
+                    return;
+                }
+                pageIndex = nextPageIndex;
+            }
+
+            // Load page
+            loadPageImpl(pageIndex);
+        }
+    }
+
+    /**
+     * Returns whether page at given index is wanted (within visible range plus a page, or no visible range set).
+     */
+    private boolean isPageWanted(int aPageIndex)
+    {
+        if (_visibleStart < 0)
+            return true;
+        int pageStart = aPageIndex * _pageSize;
+        int pageEnd = pageStart + _pageSize;
+        return pageEnd + _pageSize > _visibleStart && pageStart - _pageSize < _visibleEnd;
+    }
+
+    /**
+     * Loads page at given index.
+     */
+    protected void loadPageImpl(int aPageIndex)
+    {
+        // Get items for page
+        int start = aPageIndex * _pageSize;
+        int end = Math.min(start + _pageSize, _size);
+        List<E> page;
+        try {
+            List<E> items = _provider.getItems(start, end);
+            page = new ArrayList<>(items.subList(0, Math.min(items.size(), _pageSize)));
+        }
+
+        // If failed, complain and leave page unloaded
+        catch (Exception e) {
+            System.err.println("PagedList.loadPage: Failed to load page " + aPageIndex + ": " + e);
+            synchronized (this) {
+                _loadingPages.remove(aPageIndex);
+            }
+            return;
+        }
+
+        // Add page
+        synchronized (this) {
+            _pages.put(aPageIndex, page);
+            _loadingPages.remove(aPageIndex);
+        }
+
+        // Notify handler
+        if (_pageLoadHandler != null)
+            _pageLoadHandler.run();
+    }
+
+    /**
+     * Returns the shared page loader.
+     */
+    private static synchronized ExecutorService getLoader()
+    {
+        if (_loader != null) return _loader;
+        return _loader = Executors.newFixedThreadPool(LOADER_THREAD_COUNT, run -> {
+            Thread thread = new Thread(run, "PagedList Loader");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
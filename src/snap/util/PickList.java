@@ -48,6 +48,16 @@ public class PickList<E> extends AbstractList<E> implements Cloneable {
      */
     public E get(int anIndex)  { return _list.get(anIndex); }
 
+    /**
+     * Return index of given item (delegates to source list, which may have faster lookup).
+     */
+    public int indexOf(Object anItem)  { return _list.indexOf(anItem); }
+
+    /**
+     * Return whether list contains given item.
+     */
+    public boolean contains(Object anItem)  { return _list.contains(anItem); }
+
     /**
      * Add list item.
      */
@@ -80,12 +90,35 @@ public class PickList<E> extends AbstractList<E> implements Cloneable {
     }
 
     /**
-     * Clears the list.
+     * Clears the list (removing each item from source list, or replacing source list if it is a PagedList).
      */
     public void clear()
     {
-        while (_list.size() > 0)
-            remove(0);
+        // If source list is read-only PagedList, replace with empty list
+        if (_list instanceof PagedList) {
+            setSourceList(new ArrayList<>());
+            return;
+        }
+
+        // Remove items from source list (from end, so each remove is fast)
+        for (int i = _list.size() - 1; i >= 0; i--)
+            remove(i);
+    }
+
+    /**
+     * Returns the underlying list.
+     */
+    public List<E> getSourceList()  { return _list; }
+
+    /**
+     * Sets the underlying list directly (such as a PagedList) and fires a single item change.
+     * Selection is kept by index.
+     */
+    public void setSourceList(List<E> aList)
+    {
+        _list = aList;
+        firePropChange(Item_Prop, null, null, -1);
+        setSel(getSel());
     }
 
     /**
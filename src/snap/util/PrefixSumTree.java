@@ -0,0 +1,199 @@
+/*
+ * Copyright (c) 2010, ReportMill Software. All rights reserved.
+ */
+package snap.util;
+import java.util.Arrays;
+
+/**
+ * A Fenwick (binary indexed) tree of double values that provides O(log n) value updates, prefix sums and
+ * lookup of index for a given sum (e.g. row heights for row Y and row index for Y).
+ */
+public class PrefixSumTree {
+
+    // The values
+    private double[]  _values;
+
+    // The Fenwick tree (1 based, tree[i] holds sum of values in range (i - lowbit(i), i])
+    private double[]  _tree;
+
+    // The number of values
+    private int  _count;
+
+    /**
+     * Constructor.
+     */
+    public PrefixSumTree()
+    {
+        this(0, 0);
+    }
+
+    /**
+     * Constructor for given count and default value.
+     */
+    public PrefixSumTree(int aCount, double aValue)
+    {
+        reset(aCount, aValue);
+    }
+
+    /**
+     * Constructor for given values.
+     */
+    public PrefixSumTree(double[] theValues)
+    {
+        reset(theValues.length, 0);
+        System.arraycopy(theValues, 0, _values, 0, _count);
+        buildTree();
+    }
+
+    /**
+     * Returns the number of values.
+     */
+    public int getCount()  { return _count; }
+
+    /**
+     * Resets tree to given count with all values set to given value.
+     */
+    public void reset(int aCount, double aValue)
+    {
+        _count = aCount;
+        _values = new double[aCount];
+        Arrays.fill(_values, aValue);
+        _tree = new double[aCount + 1];
+        if (aValue != 0)
+            buildTree();
+    }
+
+    /**
+     * Builds tree from values in O(n).
+     */
+    private void buildTree()
+    {
+        Arrays.fill(_tree, 0, _count + 1, 0);
+        for (int i = 1; i <= _count; i++) {
+            _tree[i] += _values[i - 1];
+            int parent = i + (i & -i);
+            if (parent <= _count)
+                _tree[parent] += _tree[i];
+        }
+    }
+
+    /**
+     * Rebuilds tree nodes for values at or after given index in O(count - index + log n).
+     */
+    private void buildTree(int anIndex)
+    {
+        // Reset nodes after index to their values
+        for (int i = anIndex + 1; i <= _count; i++)
+            _tree[i] = _values[i - 1];
+
+        // Add unchanged nodes at or before index whose parent is after index (the prefix sum path of index)
+        for (int i = anIndex; i > 0; i -= i & -i) {
+            int parent = i + (i & -i);
+            if (parent <= _count)
+                _tree[parent] += _tree[i];
+        }
+
+        // Add rebuilt nodes to parents, in order (so each node is complete before it is added)
+        for (int i = anIndex + 1; i <= _count; i++) {
+            int parent = i + (i & -i);
+            if (parent <= _count)
+                _tree[parent] += _tree[i];
+        }
+    }
+
+    /**
+     * Adds a value to end.
+     */
+    public void add(double aValue)  { add(_count, aValue); }
+
+    /**
+     * Adds a value at given index (cost is proportional to number of values after index).
+     */
+    public void add(int anIndex, double aValue)
+    {
+        // Grow arrays if needed
+        if (_count == _values.length) {
+            int newCap = Math.max(_count * 2, 16);
+            _values = Arrays.copyOf(_values, newCap);
+            _tree = Arrays.copyOf(_tree, newCap + 1);
+        }
+
+        // Shift following values, set value and rebuild tree from index
+        System.arraycopy(_values, anIndex, _values, anIndex + 1, _count - anIndex);
+        _values[anIndex] = aValue;
+        _count++;
+        buildTree(anIndex);
+    }
+
+    /**
+     * Removes the last value.
+     */
+    public void removeLast()  { remove(_count - 1); }
+
+    /**
+     * Removes the value at given index (cost is proportional to number of values after index).
+     */
+    public void remove(int anIndex)
+    {
+        // Shift following values, clear last and rebuild tree from index
+        System.arraycopy(_values, anIndex + 1, _values, anIndex, _count - anIndex - 1);
+        _count--;
+        _values[_count] = 0;
+        _tree[_count + 1] = 0;
+        buildTree(anIndex);
+    }
+
+    /**
+     * Returns the value at given index.
+     */
+    public double get(int anIndex)  { return _values[anIndex]; }
+
+    /**
+     * Sets the value at given index.
+     */
+    public void set(int anIndex, double aValue)
+    {
+        double delta = aValue - _values[anIndex];
+        if (delta == 0) return;
+        _values[anIndex] = aValue;
+        for (int i = anIndex + 1; i <= _count; i += i & -i)
+            _tree[i] += delta;
+    }
+
+    /**
+     * Returns the sum of values before given index (sum of values in range [0, anIndex)).
+     */
+    public double getSum(int anIndex)
+    {
+        double sum = 0;
+        for (int i = Math.min(anIndex, _count); i > 0; i -= i & -i)
+            sum += _tree[i];
+        return sum;
+    }
+
+    /**
+     * Returns the sum of all values.
+     */
+    public double getTotal()  { return getSum(_count); }
+
+    /**
+     * Returns the index of value that contains given sum (index for which getSum(index) <= sum < getSum(index+1)).
+     * Returns 0 for negative sum and count-1 for sum beyond total.
+     */
+    public int getIndexForSum(double aSum)
+    {
+        // Find the largest prefix length whose sum is <= given sum
+        int pos = 0;
+        double remaining = aSum;
+        for (int step = Integer.highestOneBit(Math.max(_count, 1)); step > 0; step >>= 1) {
+            int next = pos + step;
+            if (next <= _count && _tree[next] <= remaining) {
+                pos = next;
+                remaining -= _tree[next];
+            }
+        }
+
+        // Return clamped index
+        return Math.max(Math.min(pos, _count - 1), 0);
+    }
+}
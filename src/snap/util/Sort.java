@@ -35,6 +35,9 @@ public class Sort implements Comparator, Cloneable, JSArchiver.GetKeys {
     public static final byte ORDER_ASCEND = -1;
     public static final byte ORDER_DESCEND = 1;
 
+    // The list size at which key sorts use parallel sort
+    private static final int PARALLEL_SORT_SIZE = 8192;
+
     // A default Comparator
     public static Comparator COMPARATOR = new Comparator() {
         public int compare(Object obj1, Object obj2)
@@ -181,7 +184,7 @@ public class Sort implements Comparator, Cloneable, JSArchiver.GetKeys {
      */
     public static void sort(List aList, String aKey)
     {
-        Collections.sort(aList, new Sort(aKey));
+        sort(aList, new Sort(aKey));
     }
 
     /**
@@ -189,7 +192,7 @@ public class Sort implements Comparator, Cloneable, JSArchiver.GetKeys {
      */
     public static void sort(List aList, Sort aSort)
     {
-        Collections.sort(aList, aSort);
+        sort(aList, Collections.singletonList(aSort));
     }
 
     /**
@@ -215,9 +218,87 @@ public class Sort implements Comparator, Cloneable, JSArchiver.GetKeys {
      */
     public static void sort(List aList, List aSortList)
     {
+        // If all sorts are plain key sorts, sort with keys extracted once per item
+        List<Sort> sorts = new ArrayList<>(aSortList.size());
+        for (Object sort : aSortList)
+            if (sort != null && sort.getClass() == Sort.class)
+                sorts.add((Sort) sort);
+        if (sorts.size() == aSortList.size()) {
+            List<?> list = aList;
+            sortByKeys(list, sorts);
+            return;
+        }
+
+        // Otherwise sort with comparator
         Collections.sort(aList, new SortsComparator(aSortList));
     }
 
+    /**
+     * Sorts given list by given sorts, evaluating each sort key once per item (instead of twice per comparison).
+     * Sort is stable, like Collections.sort().
+     */
+    public static <T> void sortByKeys(List<T> aList, List<Sort> theSorts)
+    {
+        // If less than two items, just return
+        if (aList.size() < 2) return;
+
+        // Get sorted item indexes
+        int[] sortedIndexes = getSortedIndexesByKeys(aList, theSorts);
+
+        // Reset list items in sorted order
+        List<T> itemsList = new ArrayList<>(aList);
+        ListIterator<T> listIter = aList.listIterator();
+        for (int index : sortedIndexes) {
+            listIter.next();
+            listIter.set(itemsList.get(index));
+        }
+    }
+
+    /**
+     * Returns the indexes of given list items in order sorted by given sorts (the sort permutation), evaluating each
+     * sort key once per item. Key values are extracted to number or string arrays when possible, then item indexes
+     * are sorted against them (with parallel sort for large lists). Sort is stable, like Collections.sort().
+     */
+    public static int[] getSortedIndexesByKeys(List<?> aList, List<Sort> theSorts)
+    {
+        // Create item indexes
+        int count = aList.size();
+        Integer[] indexes = new Integer[count];
+        for (int i = 0; i < count; i++)
+            indexes[i] = i;
+
+        // If at least two items, extract key values for each sort and sort indexes
+        if (count >= 2) {
+
+            // Get items and extract key values for each sort
+            Object[] items = aList.toArray();
+            SortKeys[] sortKeys = new SortKeys[theSorts.size()];
+            for (int i = 0; i < sortKeys.length; i++)
+                sortKeys[i] = new SortKeys(theSorts.get(i), items);
+
+            // Create comparator
+            Comparator<Integer> comparator = (index1, index2) -> {
+                for (SortKeys keys : sortKeys) {
+                    int compare = keys.compare(index1, index2);
+                    if (compare != 0)
+                        return compare;
+                }
+                return 0;
+            };
+
+            // Sort indexes (parallel if large)
+            if (count >= PARALLEL_SORT_SIZE)
+                Arrays.parallelSort(indexes, comparator);
+            else Arrays.sort(indexes, comparator);
+        }
+
+        // Return as int array
+        int[] sortedIndexes = new int[count];
+        for (int i = 0; i < count; i++)
+            sortedIndexes[i] = indexes[i];
+        return sortedIndexes;
+    }
+
     /**
      * Returns a new sorted list from given collection.
      */
@@ -275,6 +356,61 @@ public class Sort implements Comparator, Cloneable, JSArchiver.GetKeys {
         }
     }
 
+    /**
+     * The key values of given items for a sort, as numbers or strings when all values are of that type.
+     */
+    private static class SortKeys {
+
+        // The key values as numbers (if all numbers), strings (if all strings) or objects
+        private double[]  _numbers;
+        private String[]  _strings;
+        private Object[]  _values;
+
+        // Whether sort is descending
+        private boolean  _descend;
+
+        // Creates SortKeys for given sort and items
+        public SortKeys(Sort aSort, Object[] theItems)
+        {
+            // Get key values
+            KeyChain keyChain = KeyChain.getKeyChain(aSort.getKey());
+            Object[] values = new Object[theItems.length];
+            boolean allNumbers = true, allStrings = true;
+            for (int i = 0; i < theItems.length; i++) {
+                Object value = values[i] = KeyChain.getValue(theItems[i], keyChain);
+                allNumbers &= value instanceof Number;
+                allStrings &= value instanceof String;
+            }
+
+            // If all numbers, convert to doubles
+            if (allNumbers) {
+                _numbers = new double[values.length];
+                for (int i = 0; i < values.length; i++)
+                    _numbers[i] = ((Number) values[i]).doubleValue();
+            }
+
+            // If all strings, use as strings, otherwise use values
+            else if (allStrings)
+                _strings = Arrays.copyOf(values, values.length, String[].class);
+            else _values = values;
+            _descend = aSort.getOrder() == ORDER_DESCEND;
+        }
+
+        // Compares key values at given indexes (same as Sort.Compare() on values)
+        public int compare(int index1, int index2)
+        {
+            int compare;
+            if (_numbers != null) {
+                double value1 = _numbers[index1], value2 = _numbers[index2];
+                compare = value1 < value2 ? ORDER_ASCEND : value1 > value2 ? ORDER_DESCEND : ORDER_SAME;
+            }
+            else if (_strings != null)
+                compare = _strings[index1].compareToIgnoreCase(_strings[index2]);
+            else compare = Compare(_values[index1], _values[index2]);
+            return _descend ? -compare : compare;
+        }
+    }
+
     /**
      * Standard clone implementation.
      */
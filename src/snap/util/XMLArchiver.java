@@ -3,6 +3,7 @@
  */
 package snap.util;
 
+import java.io.StringReader;
 import java.util.*;
 
 import snap.web.WebURL;
@@ -168,8 +169,8 @@ public class XMLArchiver {
      */
     public Object readFromXMLString(String xmlString)
     {
-        XMLElement xml = XMLElement.readFromXMLString(xmlString);
-        return readFromXML(xml);
+        XMLReader xmlReader = new XMLReader(new StringReader(xmlString));
+        return readFromXMLReader(xmlReader);
     }
 
     /**
@@ -177,7 +178,19 @@ public class XMLArchiver {
      */
     public Object readFromXMLBytes(byte[] theBytes)
     {
-        XMLElement xml = XMLElement.readFromXMLBytes(theBytes);
+        XMLReader xmlReader = new XMLReader(theBytes);
+        return readFromXMLReader(xmlReader);
+    }
+
+    /**
+     * Returns a root object unarchived from given streaming XML reader. The XML is read straight from reader events,
+     * without loading source into a String or going through XMLParser grammar.
+     */
+    public Object readFromXMLReader(XMLReader anXMLReader)
+    {
+        XMLElement xml = anXMLReader.readElement();
+        if (xml == null)
+            throw new RuntimeException("XMLArchiver.readFromXMLReader: No root element found");
         return readFromXML(xml);
     }
 
@@ -15,6 +15,7 @@ public class XMLParser extends Parser {
     public XMLParser()
     {
         super();
+        setCompiledTokenizer(true);
     }
 
     /**
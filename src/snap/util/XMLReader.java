@@ -0,0 +1,728 @@
+/*
+ * Copyright (c) 2010, ReportMill Software. All rights reserved.
+ */
+package snap.util;
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * A streaming pull reader for XML. It reads start element, end element and text events from a Reader (or bytes)
+ * through a small char buffer, without loading the whole source into a String or building a tree:
+ *
+ *     for (int event = xmlReader.next(); event != XMLReader.END_DOCUMENT; event = xmlReader.next()) ...
+ *
+ * Prolog, processing instructions, comments and DOCTYPE are skipped. Use readElement() to build an XMLElement.
+ */
+public class XMLReader {
+
+    // The reader
+    private Reader  _reader;
+
+    // The char buffer, the number of chars in it and the index of next char
+    private char[]  _buffer = new char[8192];
+    private int  _bufferLength;
+    private int  _bufferIndex;
+
+    // The current line index (for errors)
+    private int  _lineIndex;
+
+    // The current event
+    private int  _event;
+
+    // The current element name (for START_ELEMENT and END_ELEMENT)
+    private String  _name;
+
+    // The current attribute names and values (for START_ELEMENT)
+    private String[]  _attrNames = new String[8];
+    private String[]  _attrValues = new String[8];
+    private int  _attrCount;
+
+    // The current text (for TEXT) and whether it is from CDATA section
+    private String  _text;
+    private boolean  _cdata;
+
+    // Whether current start element is an empty element tag ("<name/>"), so next event is its end element
+    private boolean  _emptyElement;
+
+    // The stack of names for open elements
+    private String[]  _openNames = new String[16];
+    private int  _depth;
+
+    // A reusable StringBuilder for scanned names, values and text
+    private StringBuilder  _sb = new StringBuilder();
+
+    // A cache of names, so repeated names share strings
+    private String[]  _names = new String[256];
+
+    // Constants for events
+    public static final int START_ELEMENT = 1;
+    public static final int END_ELEMENT = 2;
+    public static final int TEXT = 3;
+    public static final int END_DOCUMENT = 4;
+
+    /**
+     * Constructor for given reader.
+     */
+    public XMLReader(Reader aReader)
+    {
+        super();
+        _reader = aReader;
+    }
+
+    /**
+     * Constructor for given bytes (decoded with default charset, like new String(bytes)).
+     */
+    public XMLReader(byte[] theBytes)
+    {
+        this(ByteBuffer.wrap(theBytes));
+    }
+
+    /**
+     * Constructor for given byte buffer (decoded with default charset, like new String(bytes)).
+     */
+    public XMLReader(ByteBuffer aByteBuffer)
+    {
+        this(new ByteBufferReader(aByteBuffer, Charset.defaultCharset()));
+    }
+
+    /**
+     * Returns the current event.
+     */
+    public int getEvent()  { return _event; }
+
+    /**
+     * Returns the current element name (for START_ELEMENT and END_ELEMENT).
+     */
+    public String getName()  { return _name; }
+
+    /**
+     * Returns the number of attributes for current element (for START_ELEMENT).
+     */
+    public int getAttributeCount()  { return _attrCount; }
+
+    /**
+     * Returns the attribute name at given index.
+     */
+    public String getAttributeName(int anIndex)  { return _attrNames[anIndex]; }
+
+    /**
+     * Returns the attribute value at given index.
+     */
+    public String getAttributeValue(int anIndex)  { return _attrValues[anIndex]; }
+
+    /**
+     * Returns the attribute value for given name (or null if not found).
+     */
+    public String getAttributeValue(String aName)
+    {
+        for (int i = 0; i < _attrCount; i++)
+            if (_attrNames[i].equals(aName))
+                return _attrValues[i];
+        return null;
+    }
+
+    /**
+     * Returns the current text (for TEXT): Decoded char data or raw CDATA section.
+     */
+    public String getText()  { return _text; }
+
+    /**
+     * Returns whether current text is from CDATA section.
+     */
+    public boolean isCDATA()  { return _cdata; }
+
+    /**
+     * Returns whether current element is empty element tag ("<name/>").
+     */
+    public boolean isEmptyElement()  { return _emptyElement; }
+
+    /**
+     * Returns the depth of open elements.
+     */
+    public int getDepth()  { return _depth; }
+
+    /**
+     * Reads and returns the next event.
+     */
+    public int next()
+    {
+        // If last event was empty element start, return end
+        if (_emptyElement && _event == START_ELEMENT) {
+            _depth--;
+            return _event = END_ELEMENT;
+        }
+
+        // Read events until event found
+        while (true) {
+
+            // If no more chars, check for unclosed element and return end
+            if (!hasChar()) {
+                if (_depth > 0)
+                    throw readFailed("Unexpected end of XML, expected closing tag " + _openNames[_depth - 1]);
+                return _event = END_DOCUMENT;
+            }
+
+            // Handle text: Return text if inside element (text outside root element is ignored)
+            if (nextChar() != '<') {
+                readText();
+                if (_depth > 0)
+                    return _event = TEXT;
+                continue;
+            }
+
+            // Handle prolog or processing instruction: Skip
+            eatChar();
+            char c = nextChar();
+            if (c == '?')
+                skipPast("?>");
+
+            // Handle comment, CDATA or DOCTYPE
+            else if (c == '!') {
+                if (nextCharsStartWith("!--"))
+                    skipPast("-->");
+                else if (nextCharsStartWith("![CDATA[")) {
+                    readCDATA();
+                    if (_depth > 0)
+                        return _event = TEXT;
+                }
+                else skipDocType();
+            }
+
+            // Handle end element
+            else if (c == '/') {
+                readEndElement();
+                return _event = END_ELEMENT;
+            }
+
+            // Handle start element
+            else {
+                readStartElement();
+                return _event = START_ELEMENT;
+            }
+        }
+    }
+
+    /**
+     * Reads the root element and all its children into XMLElement tree and returns it (or null if no element).
+     * Element value is set the way XMLParser sets it: CDATA or text if it is the first content, before any child.
+     */
+    public XMLElement readElement()
+    {
+        // Read to first element
+        int event = next();
+        while (event != START_ELEMENT && event != END_DOCUMENT)
+            event = next();
+        if (event == END_DOCUMENT)
+            return null;
+
+        // Read element
+        return readElementForStartElement();
+    }
+
+    /**
+     * Reads element for current start element event (with children) and returns it.
+     */
+    private XMLElement readElementForStartElement()
+    {
+        // Create element and add attributes
+        XMLElement xml = new XMLElement(_name);
+        for (int i = 0; i < _attrCount; i++)
+            xml.addAttribute(new XMLAttribute(_attrNames[i], _attrValues[i]));
+        if (_emptyElement) {
+            next();
+            return xml;
+        }
+
+        // Read child elements and value until end element
+        StringBuilder textSB = null;
+        boolean isValueSet = false;
+        for (int event = next(); event != END_ELEMENT; event = next()) {
+
+            // Handle child element
+            if (event == START_ELEMENT) {
+                xml.addElement(readElementForStartElement());
+                isValueSet = true;
+            }
+
+            // Handle CDATA: If first content, set value (skip first whitespace char, which is added by XMLElement)
+            else if (_cdata) {
+                if (!isValueSet) {
+                    String text = _text.length() > 0 && Character.isWhitespace(_text.charAt(0)) ? _text.substring(1) : _text;
+                    xml.setValue(text);
+                    isValueSet = true;
+                }
+            }
+
+            // Handle text: Add to value text
+            else if (!isValueSet) {
+                if (textSB == null)
+                    textSB = new StringBuilder();
+                textSB.append(_text);
+            }
+        }
+
+        // If value not set by CDATA or child elements, set text (or empty string)
+        if (!isValueSet)
+            xml.setValue(textSB != null ? textSB.toString() : "");
+
+        // Return
+        return xml;
+    }
+
+    /**
+     * Reads a start element: Name, attributes and close.
+     */
+    private void readStartElement()
+    {
+        // Read name
+        _name = readName();
+        _attrCount = 0;
+        _emptyElement = false;
+
+        // Read attributes until close
+        while (true) {
+
+            // Skip white space and check for close
+            skipWhiteSpace();
+            char c = nextChar();
+            if (c == '>') {
+                eatChar();
+                break;
+            }
+            if (c == '/') {
+                eatChar();
+                eatCharExpected('>');
+                _emptyElement = true;
+                break;
+            }
+
+            // Read attribute name, '=' and value
+            String attrName = readName();
+            skipWhiteSpace();
+            eatCharExpected('=');
+            skipWhiteSpace();
+            String attrValue = readQuotedValue();
+
+            // Add attribute
+            if (_attrCount == _attrNames.length) {
+                _attrNames = ArrayUtils.add(_attrNames, null);
+                _attrValues = ArrayUtils.add(_attrValues, null);
+            }
+            _attrNames[_attrCount] = attrName;
+            _attrValues[_attrCount++] = attrValue;
+        }
+
+        // Push open name
+        if (_depth == _openNames.length)
+            _openNames = ArrayUtils.add(_openNames, null);
+        _openNames[_depth++] = _name;
+    }
+
+    /**
+     * Reads an end element: Name and close, and checks name against open element.
+     */
+    private void readEndElement()
+    {
+        // Read name and close
+        eatChar();
+        _name = readName();
+        skipWhiteSpace();
+        eatCharExpected('>');
+        _emptyElement = false;
+
+        // Check against open element
+        if (_depth == 0 || !_openNames[_depth - 1].equals(_name))
+            throw readFailed("Expected closing tag " + (_depth > 0 ? _openNames[_depth - 1] : "(none)") + " but found " + _name);
+        _depth--;
+    }
+
+    /**
+     * Reads a text run to next '<' and decodes it.
+     */
+    private void readText()
+    {
+        // Read chars to next '<'
+        _sb.setLength(0);
+        readCharsUntil('<');
+
+        // Set text
+        _text = decodeXMLString(_sb);
+        _cdata = false;
+    }
+
+    /**
+     * Reads a CDATA section (after '<').
+     */
+    private void readCDATA()
+    {
+        // Skip "![CDATA[" and read chars till "]]>"
+        eatChars("![CDATA[".length());
+        _sb.setLength(0);
+        while (!nextCharsStartWith("]]>")) {
+            if (!hasChar())
+                throw readFailed("Unexpected end of XML in CDATA");
+            _sb.append(eatChar());
+        }
+        eatChars("]]>".length());
+
+        // Set text
+        _text = _sb.toString();
+        _cdata = true;
+    }
+
+    /**
+     * Reads a name (element or attribute).
+     */
+    private String readName()
+    {
+        // Read name chars
+        _sb.setLength(0);
+        while (hasChar()) {
+            int start = _bufferIndex;
+            int end = start;
+            while (end < _bufferLength && isNameChar(_buffer[end]))
+                end++;
+            _sb.append(_buffer, start, end - start);
+            _bufferIndex = end;
+            if (end < _bufferLength)
+                break;
+        }
+
+        // Check empty
+        if (_sb.length() == 0)
+            throw readFailed("Expected name but found " + (hasChar() ? "'" + nextChar() + "'" : "end"));
+
+        // Return cached name
+        return getCachedName(_sb);
+    }
+
+    /**
+     * Reads a quoted attribute value and decodes it.
+     */
+    private String readQuotedValue()
+    {
+        // Get quote char
+        char quote = nextChar();
+        if (quote != '"' && quote != '\'')
+            throw readFailed("Expected quoted attribute value but found '" + quote + "'");
+        eatChar();
+
+        // Read chars until quote
+        _sb.setLength(0);
+        readCharsUntil(quote);
+        eatCharExpected(quote);
+
+        // Return decoded value
+        return decodeXMLString(_sb);
+    }
+
+    /**
+     * Reads chars into StringBuilder until given char (or end).
+     */
+    private void readCharsUntil(char aChar)
+    {
+        while (hasChar()) {
+
+            // Find char in buffer (counting newlines)
+            int start = _bufferIndex;
+            int end = start;
+            while (end < _bufferLength && _buffer[end] != aChar) {
+                if (_buffer[end] == '\n')
+                    _lineIndex++;
+                end++;
+            }
+
+            // Add chars and return if char found
+            _sb.append(_buffer, start, end - start);
+            _bufferIndex = end;
+            if (end < _bufferLength)
+                return;
+        }
+    }
+
+    /**
+     * Returns a cached string for name in given chars.
+     */
+    private String getCachedName(CharSequence theChars)
+    {
+        // Get hash index
+        int hash = 0;
+        for (int i = 0, iMax = theChars.length(); i < iMax; i++)
+            hash = hash * 31 + theChars.charAt(i);
+        int index = (hash ^ (hash >>> 16)) & (_names.length - 1);
+
+        // If cached name matches, return it
+        String name = _names[index];
+        if (name != null && name.contentEquals(theChars))
+            return name;
+
+        // Otherwise, create and cache name
+        return _names[index] = theChars.toString();
+    }
+
+    /**
+     * Skips a DOCTYPE (after '<'), including internal subset in brackets.
+     */
+    private void skipDocType()
+    {
+        int bracketDepth = 0;
+        while (hasChar()) {
+            char c = eatChar();
+            if (c == '[') bracketDepth++;
+            else if (c == ']') bracketDepth--;
+            else if (c == '>' && bracketDepth <= 0)
+                return;
+        }
+    }
+
+    /**
+     * Skips chars past given string.
+     */
+    private void skipPast(String aString)
+    {
+        while (!nextCharsStartWith(aString)) {
+            if (!hasChar())
+                throw readFailed("Unexpected end of XML, expected " + aString);
+            eatChar();
+        }
+        eatChars(aString.length());
+    }
+
+    /**
+     * Skips white space chars.
+     */
+    private void skipWhiteSpace()
+    {
+        while (hasChar() && Character.isWhitespace(nextChar()))
+            eatChar();
+    }
+
+    /**
+     * Returns whether there is another char (filling buffer if needed).
+     */
+    private boolean hasChar()
+    {
+        return _bufferIndex < _bufferLength || fillBuffer(1);
+    }
+
+    /**
+     * Returns the next char (without advancing).
+     */
+    private char nextChar()
+    {
+        if (!hasChar())
+            throw readFailed("Unexpected end of XML");
+        return _buffer[_bufferIndex];
+    }
+
+    /**
+     * Returns the next char and advances.
+     */
+    private char eatChar()
+    {
+        char c = nextChar();
+        _bufferIndex++;
+        if (c == '\n')
+            _lineIndex++;
+        return c;
+    }
+
+    /**
+     * Advances given number of chars.
+     */
+    private void eatChars(int aCount)
+    {
+        for (int i = 0; i < aCount; i++)
+            eatChar();
+    }
+
+    /**
+     * Eats next char and complains if it isn't given char.
+     */
+    private void eatCharExpected(char aChar)
+    {
+        char c = nextChar();
+        if (c != aChar)
+            throw readFailed("Expected '" + aChar + "' but found '" + c + "'");
+        eatChar();
+    }
+
+    /**
+     * Returns whether next chars start with given string (filling buffer if needed).
+     */
+    private boolean nextCharsStartWith(String aString)
+    {
+        // Make sure buffer has enough chars
+        int length = aString.length();
+        if (_bufferIndex + length > _bufferLength && !fillBuffer(length))
+            return false;
+
+        // Check chars
+        for (int i = 0; i < length; i++)
+            if (_buffer[_bufferIndex + i] != aString.charAt(i))
+                return false;
+        return true;
+    }
+
+    /**
+     * Fills buffer so it has at least given number of available chars and returns whether successful.
+     */
+    private boolean fillBuffer(int aCount)
+    {
+        // Shift remaining chars to buffer start
+        int remaining = _bufferLength - _bufferIndex;
+        if (_bufferIndex > 0) {
+            System.arraycopy(_buffer, _bufferIndex, _buffer, 0, remaining);
+            _bufferIndex = 0;
+            _bufferLength = remaining;
+        }
+
+        // Read chars until count available or end of input
+        try {
+            while (_bufferLength < aCount) {
+                int readCount = _reader.read(_buffer, _bufferLength, _buffer.length - _bufferLength);
+                if (readCount < 0)
+                    return false;
+                _bufferLength += readCount;
+            }
+        }
+        catch (IOException e) { throw new RuntimeException(e); }
+
+        // Return true
+        return true;
+    }
+
+    /**
+     * Returns an exception for read failure with given message.
+     */
+    private RuntimeException readFailed(String aMessage)
+    {
+        return new RuntimeException("XMLReader: " + aMessage + " (line " + (_lineIndex + 1) + ")");
+    }
+
+    /**
+     * Returns whether given char is a valid name char.
+     */
+    private static boolean isNameChar(char aChar)
+    {
+        return Character.isLetterOrDigit(aChar) || aChar == '_' || aChar == '-' || aChar == ':' || aChar == '.';
+    }
+
+    /**
+     * Returns a string for given XML chars with entity references decoded.
+     */
+    private static String decodeXMLString(StringBuilder theChars)
+    {
+        // If no entity refs, just return string
+        int ampIndex = theChars.indexOf("&");
+        if (ampIndex < 0)
+            return theChars.toString();
+
+        // Iterate over chars and replace entity references
+        StringBuilder sb = new StringBuilder(theChars.length());
+        sb.append(theChars, 0, ampIndex);
+        for (int i = ampIndex, iMax = theChars.length(); i < iMax; i++) {
+
+            // If not entity ref, just add char
+            char c = theChars.charAt(i);
+            int end = c == '&' ? theChars.indexOf(";", i) : -1;
+            if (end < 0) {
+                sb.append(c);
+                continue;
+            }
+
+            // Get entity ref char
+            String ref = theChars.subSequence(i + 1, end).toString();
+            int refChar = getEntityRefChar(ref);
+            if (refChar < 0) {
+                sb.append(c);
+                continue;
+            }
+
+            // Add char and skip ref
+            sb.append((char) refChar);
+            i = end;
+        }
+
+        // Return string
+        return sb.toString();
+    }
+
+    /**
+     * Returns the char for given entity reference name (without '&' and ';') or -1 if not known.
+     */
+    private static int getEntityRefChar(String aRef)
+    {
+        switch (aRef) {
+            case "amp": return '&';
+            case "lt": return '<';
+            case "gt": return '>';
+            case "quot": return '"';
+            case "apos": return '\'';
+        }
+
+        // Handle numeric reference
+        if (aRef.length() > 1 && aRef.charAt(0) == '#') {
+            try {
+                boolean isHex = aRef.charAt(1) == 'x' || aRef.charAt(1) == 'X';
+                return isHex ? Integer.parseInt(aRef.substring(2), 16) : Integer.parseInt(aRef.substring(1));
+            }
+            catch (NumberFormatException e) { return -1; }
+        }
+
+        // Return not found
+        return -1;
+    }
+
+    /**
+     * A Reader to decode a ByteBuffer incrementally.
+     */
+    private static class ByteBufferReader extends Reader {
+
+        // The byte buffer and decoder
+        private ByteBuffer  _byteBuffer;
+        private CharsetDecoder  _decoder;
+
+        // Whether decoder has been flushed
+        private boolean  _flushed;
+
+        /** Constructor. */
+        ByteBufferReader(ByteBuffer aByteBuffer, Charset aCharset)
+        {
+            _byteBuffer = aByteBuffer;
+            _decoder = aCharset.newDecoder().onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        }
+
+        /** Reader method. */
+        @Override
+        public int read(char[] theChars, int anOffset, int aLength)
+        {
+            // If already flushed, return end
+            if (_flushed)
+                return -1;
+
+            // Decode bytes - if any chars, return count
+            CharBuffer charBuffer = CharBuffer.wrap(theChars, anOffset, aLength);
+            _decoder.decode(_byteBuffer, charBuffer, false);
+            int readCount = charBuffer.position() - anOffset;
+            if (readCount > 0)
+                return readCount;
+
+            // Otherwise, decode remaining bytes as end of input, flush and return count (or -1)
+            _decoder.decode(_byteBuffer, charBuffer, true);
+            _decoder.flush(charBuffer);
+            _flushed = true;
+            readCount = charBuffer.position() - anOffset;
+            return readCount > 0 ? readCount : -1;
+        }
+
+        /** Reader method. */
+        @Override
+        public void close()  { }
+    }
+}
@@ -4,6 +4,9 @@
 package snap.view;
 import snap.geom.Rect;
 import snap.gfx.Color;
+import snap.text.TextStyle;
+import snap.util.ArrayUtils;
+import java.util.Objects;
 
 /**
  * A label subclass used to render items in Lists, Tables, Trees, Browsers.
@@ -28,6 +31,20 @@ public class ListCell <T> extends Label {
     // A textfield for editing
     private TextField  _editor;
 
+    // The values of reset props when cell was created (restored when cell is recycled)
+    private Object[]  _initPropValues;
+
+    // The event filters and handlers when cell was created (others are removed when cell is recycled)
+    private EventListener[]  _initFilters, _initHandlers;
+
+    // The props that cell configure can change, restored to initial values when cell is recycled
+    private static final String[] RESET_PROP_NAMES = {
+        Align_Prop, Margin_Prop, Spacing_Prop, Fill_Prop, Border_Prop, BorderRadius_Prop,
+        LeanX_Prop, LeanY_Prop, GrowWidth_Prop, GrowHeight_Prop,
+        Rotate_Prop, ScaleX_Prop, ScaleY_Prop, TransX_Prop, TransY_Prop, Effect_Prop, Opacity_Prop,
+        ToolTip_Prop, Cursor_Prop, Disabled_Prop, Visible_Prop, Pickable_Prop, Paintable_Prop
+    };
+
     /**
      * Creates a new ListCell.
      */
@@ -37,6 +54,62 @@ public class ListCell <T> extends Label {
         _item = anItem;
         _row = aRow; _col = aCol;
         _sel = isSel;
+
+        // Save initial values of reset props and event listeners
+        _initPropValues = new Object[RESET_PROP_NAMES.length];
+        for (int i = 0; i < RESET_PROP_NAMES.length; i++)
+            _initPropValues[i] = getPropValue(RESET_PROP_NAMES[i]);
+        EventAdapter eventAdapter = getEventAdapter();
+        _initFilters = eventAdapter._filters;
+        _initHandlers = eventAdapter._handlers;
+    }
+
+    /**
+     * Resets cell for reuse with given item, row, column and selection (called when cell is recycled by ListView).
+     */
+    protected void resetCell(T anItem, int aRow, int aCol, boolean isSel)
+    {
+        // Reset graphics, text, font and text style
+        setGraphic(null);
+        setGraphicAfter(null);
+        setText(null);
+        setFont(null);
+        if (isStringViewSet())
+            setTextStyle(TextStyle.DEFAULT);
+
+        // Restore reset props to initial values
+        for (int i = 0; i < RESET_PROP_NAMES.length; i++) {
+            String propName = RESET_PROP_NAMES[i];
+            Object initValue = _initPropValues[i];
+            if (!Objects.equals(getPropValue(propName), initValue))
+                setPropValue(propName, initValue);
+        }
+
+        // Reset explicit sizes (Padding and PrefHeight are set by ListView.createCell)
+        setMinWidth(-1); setMinHeight(-1);
+        setMaxWidth(-1); setMaxHeight(-1);
+        setPrefWidth(-1);
+
+        // Remove event filters and handlers added by previous configure
+        EventAdapter eventAdapter = getEventAdapter();
+        for (EventListener filter : eventAdapter._filters)
+            if (!ArrayUtils.containsId(_initFilters, filter))
+                eventAdapter.removeFilter(filter);
+        for (EventListener handler : eventAdapter._handlers)
+            if (!ArrayUtils.containsId(_initHandlers, handler))
+                eventAdapter.removeHandler(handler);
+
+        // Remove any other children added by previous configure
+        for (int i = getChildCount() - 1; i >= 0; i--) {
+            View child = getChild(i);
+            if (child != _stringView)
+                removeChild(i);
+        }
+
+        // Set new item, row/col and selection
+        _item = anItem;
+        _row = aRow; _col = aCol;
+        _sel = isSel;
     }
 
     /**
@@ -24,6 +24,12 @@ public class ListView <T> extends ParentView implements Selectable<T> {
     // The row height
     private double  _rowHeight;
 
+    // Whether rows have variable heights (measured from configured cells)
+    private boolean  _variableRowHeight;
+
+    // The row heights index (for variable row heights)
+    private PrefixSumTree  _rowHeights;
+
     // The cell padding
     private Insets  _cellPad = getCellPaddingDefault();
 
@@ -60,6 +66,9 @@ public class ListView <T> extends ParentView implements Selectable<T> {
     // Set of items that need to be updated
     private final Set <T>  _updateItems = new HashSet<>();
 
+    // Cells that have scrolled out of visible range, available for reuse by createCell()
+    private List<ListCell<T>>  _cellPool = new ArrayList<>();
+
     // Value of cell width/height
     private double  _sampleWidth = -1, _sampleHeight = -1;
 
@@ -75,6 +84,9 @@ public class ListView <T> extends ParentView implements Selectable<T> {
     // Shared CellPadding default
     public static final Insets  CELL_PAD_DEFAULT = new Insets(2);
 
+    // Constant for maximum number of cells held for reuse
+    private static final int MAX_CELL_POOL_SIZE = 100;
+
     // Constants for properties
     public static final String RowHeight_Prop = "RowHeight";
     public static final String CellPadding_Prop = "CellPadding";
@@ -128,6 +140,17 @@ public class ListView <T> extends ParentView implements Selectable<T> {
         _items.setAll(theItems);
     }
 
+    /**
+     * Sets an item provider to fetch items in pages on demand (for large data sets). Items are loaded in the
+     * background and shown as placeholders until loaded.
+     */
+    public void setItemProvider(ItemProvider<T> aProvider)
+    {
+        PagedList<T> pagedList = new PagedList<>(aProvider);
+        pagedList.setPageLoadHandler(() -> ViewUtils.runLater(this::relayout));
+        _items.setSourceList(pagedList);
+    }
+
     /**
      * Sets the underlying picklist.
      */
@@ -273,9 +296,31 @@ public class ListView <T> extends ParentView implements Selectable<T> {
             relayoutParent();
             repaint();
             _sampleWidth = _sampleHeight = -1;
+            updateRowHeightsForItemChange(aPC.getIndex());
         }
     }
 
+    /**
+     * Updates row heights index for item change at given index: Inserts or removes just that row for single item
+     * add/remove (keeping other measured heights), otherwise clears index.
+     */
+    private void updateRowHeightsForItemChange(int anIndex)
+    {
+        // If no row heights index, just return
+        if (_rowHeights == null) return;
+
+        // Handle single item added or removed
+        int rowCount = _rowHeights.getCount();
+        int itemCount = getItemCount();
+        if (anIndex >= 0 && itemCount == rowCount + 1 && anIndex <= rowCount)
+            _rowHeights.add(anIndex, getRowHeight());
+        else if (anIndex >= 0 && itemCount == rowCount - 1 && anIndex < rowCount)
+            _rowHeights.remove(anIndex);
+
+        // Otherwise clear index (items replaced)
+        else _rowHeights = null;
+    }
+
     /**
      * Returns whether row height has been explicitly set.
      */
@@ -298,6 +343,63 @@ public class ListView <T> extends ParentView implements Selectable<T> {
     public void setRowHeight(double aValue)
     {
         _rowHeight = aValue;
+        _rowHeights = null;
+    }
+
+    /**
+     * Returns whether rows have variable heights, measured from configured cells as they are shown.
+     */
+    public boolean isVariableRowHeight()  { return _variableRowHeight; }
+
+    /**
+     * Sets whether rows have variable heights, measured from configured cells as they are shown.
+     * Rows not yet shown are estimated with RowHeight.
+     */
+    public void setVariableRowHeight(boolean aValue)
+    {
+        if (aValue == _variableRowHeight) return;
+        _variableRowHeight = aValue;
+        _rowHeights = null;
+        relayout();
+        relayoutParent();
+    }
+
+    /**
+     * Returns the row heights index for variable row heights (rows not yet measured are estimated with RowHeight).
+     */
+    protected PrefixSumTree getRowHeights()
+    {
+        int itemCount = getItemCount();
+        if (_rowHeights != null && _rowHeights.getCount() == itemCount) return _rowHeights;
+        return _rowHeights = new PrefixSumTree(itemCount, getRowHeight());
+    }
+
+    /**
+     * Returns the row height for given row index.
+     */
+    public double getRowHeight(int anIndex)
+    {
+        if (_variableRowHeight && anIndex >= 0 && anIndex < getItemCount())
+            return getRowHeights().get(anIndex);
+        return getRowHeight();
+    }
+
+    /**
+     * Returns the row Y for given row index.
+     */
+    public double getRowY(int anIndex)
+    {
+        // If fixed row height, just return simple product
+        double rowH = getRowHeight();
+        if (!_variableRowHeight)
+            return anIndex * rowH;
+
+        // Return sum of row heights before index (rows after items use RowHeight)
+        PrefixSumTree rowHeights = getRowHeights();
+        int itemCount = rowHeights.getCount();
+        if (anIndex <= itemCount)
+            return rowHeights.getSum(anIndex);
+        return rowHeights.getTotal() + (anIndex - itemCount) * rowH;
     }
 
     /**
@@ -328,12 +430,31 @@ public class ListView <T> extends ParentView implements Selectable<T> {
      */
     public int getRowIndexForY(double aY)
     {
-        double rowHeight = getRowHeight();
-        int index = (int) (aY / rowHeight);
+        int index = getCellIndexForY(aY);
         int lastIndex = getItemCount() - 1;
         return Math.min(index, lastIndex);
     }
 
+    /**
+     * Returns the cell row index at given Y location (rows after items use RowHeight to fill visible area).
+     */
+    private int getCellIndexForY(double aY)
+    {
+        // If fixed row height, just return simple quotient
+        double rowH = getRowHeight();
+        if (!_variableRowHeight)
+            return (int) (aY / rowH);
+
+        // If Y beyond items, return index of fill row after items
+        PrefixSumTree rowHeights = getRowHeights();
+        double totalH = rowHeights.getTotal();
+        if (aY >= totalH)
+            return rowHeights.getCount() + (int) ((aY - totalH) / rowH);
+
+        // Return index of row containing Y
+        return rowHeights.getIndexForSum(aY);
+    }
+
     /**
      * Returns function for determining text for an item.
      */
@@ -352,7 +473,11 @@ public class ListView <T> extends ParentView implements Selectable<T> {
     /**
      * Sets method to configure list cells.
      */
-    public void setCellConfigure(Consumer<ListCell<T>> aCC)  { _cellConf = aCC; }
+    public void setCellConfigure(Consumer<ListCell<T>> aCC)
+    {
+        _cellConf = aCC;
+        clearCellPool();
+    }
 
     /**
      * Returns the ItemKey (a simple alternate way to set item text using KeyChain).
@@ -466,9 +591,11 @@ public class ListView <T> extends ParentView implements Selectable<T> {
     protected void updateCellAt(int anIndex)
     {
         int cellIndex = anIndex - _cellStart;
+        ListCell<T> oldCell = getCell(cellIndex);
+        removeChild(cellIndex);
+        recycleCell(oldCell);
         ListCell<T> cell = createCell(anIndex);
         configureCell(cell);
-        removeChild(cellIndex);
         addChild(cell, cellIndex);
     }
 
@@ -522,10 +649,11 @@ public class ListView <T> extends ParentView implements Selectable<T> {
      */
     public Rect getItemBounds(int anIndex)
     {
-        double rowH = getRowHeight();
+        int index = Math.max(anIndex, 0);
+        double rowY = getRowY(index);
+        double rowH = getRowHeight(index);
         double areaW = getWidth();
-        double index = Math.max(anIndex, 0);
-        return new Rect(0, index * rowH, areaW, rowH);
+        return new Rect(0, rowY, areaW, rowH);
     }
 
     /**
@@ -577,6 +705,8 @@ public class ListView <T> extends ParentView implements Selectable<T> {
     @Override
     protected double getPrefHeightImpl(double aW)
     {
+        if (_variableRowHeight)
+            return getRowHeights().getTotal();
         double rowH = getRowHeight();
         int itemCount = getItemCount();
         return rowH * itemCount;
@@ -589,20 +719,31 @@ public class ListView <T> extends ParentView implements Selectable<T> {
     {
         // Get size info
         double areaW = getWidth();
-        double rowH = getRowHeight();
 
         // Update CellStart/CellEnd for visible bounds
         Rect visibleBounds = getVisibleBounds();
-        _cellStart = (int) Math.max(visibleBounds.y / rowH, 0);
-        _cellEnd = (int) (visibleBounds.getMaxY() / rowH);
-
-        // Remove cells before new visible range
-        while (getChildCount() > 0 && getCell(0).getRow() < _cellStart)
+        _cellStart = Math.max(getCellIndexForY(visibleBounds.y), 0);
+        _cellEnd = getCellIndexForY(visibleBounds.getMaxY());
+        boolean rowHeightsChanged = false;
+
+        // If items are paged, set visible range so obsolete page loads are dropped
+        List<T> sourceList = _items.getSourceList();
+        if (sourceList instanceof PagedList)
+            ((PagedList<?>) sourceList).setVisibleRange(_cellStart, _cellEnd + 1);
+
+        // Remove cells before new visible range (recycle for reuse)
+        while (getChildCount() > 0 && getCell(0).getRow() < _cellStart) {
+            ListCell<T> cell = getCell(0);
             removeChild(0);
+            recycleCell(cell);
+        }
 
-        // Remove cells after new visible range
-        for (int i = getChildCount()-1; i >= 0 && getCell(i).getRow() > _cellEnd; i--)
+        // Remove cells after new visible range (recycle for reuse)
+        for (int i = getChildCount()-1; i >= 0 && getCell(i).getRow() > _cellEnd; i--) {
+            ListCell<T> cell = getCell(i);
             removeChild(i);
+            recycleCell(cell);
+        }
 
         // Update cells in visible range
         for (int i = _cellStart; i <= _cellEnd; i++) {
@@ -622,13 +763,16 @@ public class ListView <T> extends ParentView implements Selectable<T> {
                     ListCell<T> cell2 = createCell(i);
                     addChild(cell2, cellIndex);
                     configureCell(cell2);
-                    cell.setBounds(0,i * rowH, areaW, rowH);
+                    rowHeightsChanged |= measureCell(cell2, areaW);
+                    cell.setBounds(0, getRowY(i), areaW, getRowHeight(i));
                     cell.layout();
                 }
 
                 // Otherwise, if cell isn't point to item or registered for update, update cell
-                else if (item != cell.getItem() || _updateItems.contains(item))
+                else if (item != cell.getItem() || _updateItems.contains(item)) {
                     updateCellAt(i);
+                    rowHeightsChanged |= measureCell(getCell(cellIndex), areaW);
+                }
             }
 
             // Otherwise create, configure and add
@@ -636,11 +780,16 @@ public class ListView <T> extends ParentView implements Selectable<T> {
                 ListCell<T> cell = createCell(i);
                 addChild(cell);
                 configureCell(cell);
-                cell.setBounds(0,i * rowH, areaW, rowH);
+                rowHeightsChanged |= measureCell(cell, areaW);
+                cell.setBounds(0, getRowY(i), areaW, getRowHeight(i));
                 cell.layout();
             }
         }
 
+        // If measured row heights changed, notify parent (PrefHeight changed)
+        if (rowHeightsChanged)
+            relayoutParent();
+
         // Clear UpdateItems
         synchronized (_updateItems) {
             _updateItems.clear();
@@ -669,7 +818,7 @@ public class ListView <T> extends ParentView implements Selectable<T> {
         viewProxy.setFillWidth(true);
 
         // Set padding.top to include space for hidden rows at top
-        double insTop = _cellStart * getRowHeight();
+        double insTop = getRowY(_cellStart);
         viewProxy.setPadding(Insets.add(viewProxy.getPadding(), insTop, 0, 0, 0));
         return viewProxy;
     }
@@ -679,13 +828,65 @@ public class ListView <T> extends ParentView implements Selectable<T> {
      */
     protected ListCell<T> createCell(int anIndex)
     {
+        // Get item
         T item = anIndex >= 0 && anIndex < getItemCount() ? getItem(anIndex) : null;
-        ListCell<T> cell = new ListCell<>(this, item, anIndex, getColIndex(), isSelIndex(anIndex));
+
+        // If recycled cell available, reset it for item - otherwise create new cell
+        ListCell<T> cell;
+        if (!_cellPool.isEmpty()) {
+            cell = _cellPool.remove(_cellPool.size() - 1);
+            cell.resetCell(item, anIndex, getColIndex(), isSelIndex(anIndex));
+        }
+        else cell = new ListCell<>(this, item, anIndex, getColIndex(), isSelIndex(anIndex));
+
+        // Configure padding/height and return
         cell.setPadding(getCellPadding());
-        cell.setPrefHeight(getRowHeight());
+        cell.setPrefHeight(_variableRowHeight ? -1 : getRowHeight());
         return cell;
     }
 
+    /**
+     * Measures given configured cell and updates row heights index, if VariableRowHeight (returns whether changed).
+     */
+    protected boolean measureCell(ListCell<T> aCell, double aW)
+    {
+        // If fixed row height or cell not for item, just return
+        int row = aCell.getRow();
+        if (!_variableRowHeight || row < 0 || row >= getItemCount())
+            return false;
+
+        // Get cell height for width and fix as cell PrefHeight
+        aCell.setPrefHeight(-1);
+        double cellH = Math.ceil(aCell.getPrefHeight(aW));
+        aCell.setPrefHeight(cellH);
+
+        // Update row heights index
+        PrefixSumTree rowHeights = getRowHeights();
+        if (cellH == rowHeights.get(row))
+            return false;
+        rowHeights.set(row, cellH);
+        return true;
+    }
+
+    /**
+     * Called when a cell is removed from list to make it available for reuse by createCell().
+     */
+    protected void recycleCell(ListCell<T> aCell)
+    {
+        // If cell is editing or wasn't created by this list, just return
+        if (aCell.isEditing() || aCell.getListView() != this)
+            return;
+
+        // Add to pool, if pool not full
+        if (_cellPool.size() < MAX_CELL_POOL_SIZE)
+            _cellPool.add(aCell);
+    }
+
+    /**
+     * Clears the cells available for reuse (when cell configuration changes).
+     */
+    protected void clearCellPool()  { _cellPool.clear(); }
+
     /**
      * Called to configure a cell.
      */
@@ -717,9 +918,11 @@ public class ListView <T> extends ParentView implements Selectable<T> {
         // Get cell item
         T item = aCell.getItem();
 
-        // Get String for cell item
+        // Get String for cell item (or placeholder if item still loading)
         String text = null;
-        if (_itemTextFunc != null)
+        if (item == null && isItemLoading(aCell.getRow()))
+            text = "Loading...";
+        else if (_itemTextFunc != null)
             text = item != null ? _itemTextFunc.apply(item) : null;
         else if (item instanceof String)
             text = (String) item;
@@ -764,6 +967,16 @@ public class ListView <T> extends ParentView implements Selectable<T> {
         }
     }
 
+    /**
+     * Returns whether item at given index is waiting to be loaded from ItemProvider.
+     */
+    protected boolean isItemLoading(int anIndex)
+    {
+        if (anIndex < 0 || anIndex >= getItemCount()) return false;
+        List<T> sourceList = getItems() instanceof PickList ? ((PickList<T>) getItems()).getSourceList() : null;
+        return sourceList instanceof PagedList && !((PagedList<T>) sourceList).isLoaded(anIndex);
+    }
+
     /**
      * Returns text for item.
      */
@@ -826,9 +1039,8 @@ public class ListView <T> extends ParentView implements Selectable<T> {
 
         // If paint bounds larger visible cell bounds, register for layout (delayed)
         Rect clipBounds = aPntr.getClipBounds();
-        double rowH = getRowHeight();
-        int cellStart = (int) Math.max(clipBounds.y / rowH, 0);
-        int cellEnd = (int) (clipBounds.getMaxY() / rowH);
+        int cellStart = Math.max(getCellIndexForY(clipBounds.y), 0);
+        int cellEnd = getCellIndexForY(clipBounds.getMaxY());
         if (cellStart < _cellStart || cellEnd > _cellEnd)
             getEnv().runLater(() -> relayout());
     }
@@ -1020,6 +1232,7 @@ public class ListView <T> extends ParentView implements Selectable<T> {
         if (Objects.equals(_altRowColor, oldTheme.getContentAltColor()))
             _altRowColor = newTheme.getContentAltColor();
         removeChildren();
+        clearCellPool();
     }
 
     /**
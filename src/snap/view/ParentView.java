@@ -450,6 +450,7 @@ public class ParentView extends View {
     {
         if (_needsLayout || _inLayout) return;
         firePropChange(NeedsLayout_Prop, _needsLayout, _needsLayout = true);
+        invalidateLayerCaches();
         ParentView par = getParent();
         if (par != null)
             par.setNeedsLayoutDeep(true);
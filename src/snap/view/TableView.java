@@ -41,6 +41,12 @@ public class TableView <T> extends ParentView implements Selectable<T> {
     // The list cell that is currently being edited
     private ListCell<T>  _editingCell;
 
+    // Whether clicking column header sorts items by column ItemKey
+    private boolean  _sortable;
+
+    // The current sort (from column header click)
+    private Sort  _sort;
+
     // The SplitView to hold columns
     private SplitView  _splitView;
     
@@ -132,6 +138,32 @@ public class TableView <T> extends ParentView implements Selectable<T> {
         repaint();
     }
 
+    /**
+     * Sets an item provider to fetch items in pages on demand (for large data sets). Items are loaded in the
+     * background and shown as placeholders until loaded.
+     */
+    public void setItemProvider(ItemProvider<T> aProvider)
+    {
+        // Create PagedList for provider and set in PickList
+        PagedList<T> pagedList = new PagedList<>(aProvider);
+        pagedList.setPageLoadHandler(() -> ViewUtils.runLater(this::updateColsForPageLoad));
+        _items.setSourceList(pagedList);
+
+        // Register for relayout/repaint
+        relayout();
+        relayoutParent();
+        repaint();
+    }
+
+    /**
+     * Called when ItemProvider page loads to have columns replace placeholder cells.
+     */
+    private void updateColsForPageLoad()
+    {
+        for (TableCol<T> tableCol : getCols())
+            tableCol.relayout();
+    }
+
     /**
      * Returns whether list allows multiple selections.
      */
@@ -390,8 +422,9 @@ public class TableView <T> extends ParentView implements Selectable<T> {
         _splitView.addItem(aCol);
         aCol._table = this;
 
-        // Create Header Box for Column Header label
+        // Create Header Box for Column Header label (with handler to sort on click)
         View hdr = aCol.getHeader();
+        hdr.addEventHandler(e -> handleHeaderMouseRelease(aCol), MouseRelease);
         BoxView hdrBox = new BoxView(hdr) {
             protected double getPrefWidthImpl(double aH)  { return aCol.getPrefWidth(); }
             public boolean isGrowWidth()  { return aCol.isGrowWidth(); }
@@ -610,7 +643,14 @@ public class TableView <T> extends ParentView implements Selectable<T> {
     /**
      * Called to set method to configure cell for rendering.
      */
-    public void setCellConfigure(Consumer<ListCell<T>> aCC)  { _cellConf = aCC; }
+    public void setCellConfigure(Consumer<ListCell<T>> aCC)
+    {
+        _cellConf = aCC;
+
+        // Clear recycled column cells, since they were configured with old method
+        for (TableCol<T> tableCol : getCols())
+            tableCol.clearCellPool();
+    }
 
     /**
      * Returns the cell at given row and col.
@@ -833,6 +873,69 @@ public class TableView <T> extends ParentView implements Selectable<T> {
         firePropChange(Editable_Prop, !_editable, _editable);
     }
 
+    /**
+     * Returns whether clicking column header sorts items by column ItemKey.
+     */
+    public boolean isSortable()  { return _sortable; }
+
+    /**
+     * Sets whether clicking column header sorts items by column ItemKey.
+     */
+    public void setSortable(boolean aValue)  { _sortable = aValue; }
+
+    /**
+     * Returns the current sort (from column header click).
+     */
+    public Sort getSort()  { return _sort; }
+
+    /**
+     * Sorts items by given column ItemKey (toggles order if already sorted by column).
+     */
+    public void sortItemsForCol(TableCol<T> aCol)
+    {
+        // Get sort key for column (just return if not set or items are paged)
+        String sortKey = aCol.getItemKey();
+        if (sortKey == null || _items.getSourceList() instanceof PagedList) return;
+
+        // If already sorted by column, toggle order, otherwise create new sort
+        if (_sort != null && sortKey.equals(_sort.getKey()))
+            _sort.toggleOrder();
+        else _sort = new Sort(sortKey);
+
+        // Get sort permutation of items by extracted keys and set sorted copy as source list
+        List<T> sourceList = _items.getSourceList();
+        int[] sortedIndexes = Sort.getSortedIndexesByKeys(sourceList, Collections.singletonList(_sort));
+        List<T> sortedItems = new ArrayList<>(sortedIndexes.length);
+        int[] newIndexes = new int[sortedIndexes.length];
+        for (int i = 0; i < sortedIndexes.length; i++) {
+            sortedItems.add(sourceList.get(sortedIndexes[i]));
+            newIndexes[sortedIndexes[i]] = i;
+        }
+
+        // Get selected indexes mapped to sorted indexes
+        int[] selIndexes = _items.getSelIndexes();
+        int[] sortedSelIndexes = new int[selIndexes.length];
+        for (int i = 0; i < selIndexes.length; i++)
+            sortedSelIndexes[i] = newIndexes[selIndexes[i]];
+
+        // Set sorted items and selection
+        _items.setSourceList(sortedItems);
+        _items.setSelIndexes(sortedSelIndexes);
+
+        // Register for relayout/repaint
+        relayout();
+        repaint();
+    }
+
+    /**
+     * Called when column header gets MouseRelease.
+     */
+    private void handleHeaderMouseRelease(TableCol<T> aCol)
+    {
+        if (isSortable())
+            sortItemsForCol(aCol);
+    }
+
     /**
      * Returns the cell currently editing.
      */
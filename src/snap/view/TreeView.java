@@ -16,6 +16,9 @@ public class TreeView <T> extends ParentView implements Selectable<T> {
     
     // The items
     private PickList <T> _items = new PickList<>();
+
+    // The visible rows (items of expanded nodes, flattened) used as items source list
+    private TreeViewRows <T> _rows = new TreeViewRows<>();
     
     // The selected column
     private int _selCol;
@@ -74,7 +77,8 @@ public class TreeView <T> extends ParentView implements Selectable<T> {
         divider.setFill(DIVIDER_FILL);
         divider.setBorder(null);
 
-        // Register PickList to notify when selection changes
+        // Set rows as PickList source and register PickList to notify when selection changes
+        _items.setSourceList(_rows);
         _items.addPropChangeListener(this::handlePickListSelChange);
 
         // Create/add first column
@@ -131,7 +135,14 @@ public class TreeView <T> extends ParentView implements Selectable<T> {
     /**
      * Called to set method for rendering.
      */
-    public void setCellConfigure(Consumer<ListCell<T>> aCC)  { _cellConf = aCC; }
+    public void setCellConfigure(Consumer<ListCell<T>> aCC)
+    {
+        _cellConf = aCC;
+
+        // Clear recycled column cells, since they were configured with old method
+        for (TreeCol<T> treeCol : getCols())
+            treeCol.clearCellPool();
+    }
 
     /**
      * Returns the number of columns.
@@ -187,33 +198,50 @@ public class TreeView <T> extends ParentView implements Selectable<T> {
     @Override
     public void setItems(List <T> theItems)
     {
-        List <T> items = getExpandedItems(theItems);
-        setItemsImpl(items);
+        TreeViewRows.Builder<T> rows = getExpandedRows(theItems);
+        setRows(rows);
     }
 
     /**
-     * Sets the items.
+     * Sets the items (already expanded).
      */
     protected void setItemsImpl(List <T> theItems)
+    {
+        TreeViewRows.Builder<T> rows = new TreeViewRows.Builder<>();
+        for (T item : theItems)
+            rows.add(item, getItemParentCount(item));
+        setRows(rows);
+    }
+
+    /**
+     * Sets the visible rows.
+     */
+    private void setRows(TreeViewRows.Builder<T> theRows)
     {
         // If already set, just return
-        if (equalsItems(theItems)) return;
+        List<T> items = theRows.getItems();
+        if (equalsItems(items)) return;
 
-        // Clear items
+        // Reset rows
         T selItem = getSelItem();
-        _items.clear();
-        _items.addAll(theItems);
+        _rows.setRows(theRows);
 
         // Iterate over columns and setItems
         for (TreeCol<T> treeCol : getCols())
-            treeCol.setItems(theItems);
-        setSelItem(selItem);
+            treeCol.setItems(items);
+        handleRowsChange(selItem);
 
         // Prune removed items from expanded set
-        T[] expanded = (T[]) _expanded.toArray();
-        for (T item : expanded)
-            if (!_items.contains(item))
-                _expanded.remove(item);
+        _expanded.removeIf(item -> !_rows.contains(item));
+    }
+
+    /**
+     * Called when rows change to notify PickList (with single item change) and restore selected item.
+     */
+    private void handleRowsChange(T selItem)
+    {
+        _items.setSourceList(_rows);
+        setSelItem(selItem);
     }
 
     /**
@@ -262,25 +290,29 @@ public class TreeView <T> extends ParentView implements Selectable<T> {
      */
     public List <T> getExpandedItems(List <T> theItems)
     {
-        List <T> items = theItems;
-        for (int i = 0; i < items.size(); i++) {
+        TreeViewRows.Builder<T> rows = getExpandedRows(theItems);
+        return rows.getItems();
+    }
+
+    /**
+     * Returns the rows for given items and the descendants of expanded items.
+     */
+    private TreeViewRows.Builder<T> getExpandedRows(List <T> theItems)
+    {
+        TreeViewRows.Builder<T> rows = new TreeViewRows.Builder<>();
+        for (int i = 0, iMax = theItems.size(); i < iMax; i++) {
+
+            // Add item row
+            T item = theItems.get(i);
+            rows.add(item, 0);
 
             // If item not expanded just continue
-            T item = items.get(i);
             if (!isItemExpanded(item))
                 continue;
 
-            // If we haven't yet created new list, do it now
-            if (items == theItems)
-                items = new ArrayList<>(items);
-
-            // Remove successive items decended from current item
-            for (int j = i + 1, jMax = items.size(); j < jMax; j++) {
-                T next = items.get(i + 1);
-                if (isItemAncestor(next,item))
-                    items.remove(i + 1);
-                else break;
-            }
+            // Skip successive items decended from current item
+            while (i + 1 < iMax && isItemAncestor(theItems.get(i + 1), item))
+                i++;
 
             // If item no long parent (could have changed), clear state and continue
             if (!isItemParent(item)) {
@@ -288,14 +320,32 @@ public class TreeView <T> extends ParentView implements Selectable<T> {
                 continue;
             }
 
-            // Get item children and add after item
-            List<T> childItems = getItemChildren(item);
-            for (int j = 0; j < childItems.size(); j++)
-                items.add(i + j + 1, childItems.get(j));
+            // Add child rows
+            addChildRows(item, 1, rows);
         }
 
-        // Return items
-        return items;
+        // Return rows
+        return rows;
+    }
+
+    /**
+     * Adds the rows for children of given item (and descendants of expanded children).
+     */
+    private void addChildRows(T anItem, int aDepth, TreeViewRows.Builder<T> theRows)
+    {
+        List<T> childItems = getItemChildren(anItem);
+        for (T childItem : childItems) {
+
+            // Add child row
+            theRows.add(childItem, aDepth);
+
+            // If child expanded, add its child rows (or clear state if no longer parent)
+            if (isItemExpanded(childItem)) {
+                if (isItemParent(childItem))
+                    addChildRows(childItem, aDepth + 1, theRows);
+                else setItemExpanded(childItem, false);
+            }
+        }
     }
 
     /**
@@ -368,9 +418,20 @@ public class TreeView <T> extends ParentView implements Selectable<T> {
         if (parent != null && !isItemExpanded(parent))
             expandItem(parent);
 
-        // Set item expanded state, reset items and update given item
+        // Set item expanded state
         setItemExpanded(anItem, true);
-        setItems(getItems());
+
+        // If item is visible, add rows for children after it
+        int index = _rows.indexOf(anItem);
+        if (index >= 0) {
+            TreeViewRows.Builder<T> childRows = new TreeViewRows.Builder<>();
+            addChildRows(anItem, _rows.getDepth(index) + 1, childRows);
+            T selItem = getSelItem();
+            _rows.addRows(index + 1, childRows);
+            handleRowsChange(selItem);
+        }
+
+        // Update given item
         updateItem(anItem);
     }
 
@@ -380,21 +441,23 @@ public class TreeView <T> extends ParentView implements Selectable<T> {
     public void collapseItem(T anItem)
     {
         // If not collapsable, just return
-        if (!isItemParent(anItem) || !isItemExpanded(anItem) || !getItems().contains(anItem)) return;
-
-        // Get items copy and remove successive items decended from given item
-        List <T> items = new ArrayList<>(getItems());
-        int index = items.indexOf(anItem);
-        for (int i = index + 1, iMax = items.size(); i < iMax;i++) {
-            T next = items.get(index + 1);
-            if (isItemAncestor(next,anItem))
-                items.remove(index + 1);
-            else break;
-        }
+        if (!isItemParent(anItem) || !isItemExpanded(anItem)) return;
+        int index = _rows.indexOf(anItem);
+        if (index < 0) return;
+
+        // Remove successive rows decended from given item
+        T selItem = getSelItem();
+        int descendantCount = _rows.getDescendantCount(index);
+        List<T> removedItems = _rows.removeRows(index + 1, descendantCount);
 
-        // Set item expanded state, reset items and update given item
+        // Prune removed items from expanded set
+        for (T item : removedItems)
+            if (!_rows.contains(item))
+                _expanded.remove(item);
+
+        // Set item expanded state, notify and update given item
         setItemExpanded(anItem, false);
-        setItemsImpl(items);
+        handleRowsChange(selItem);
         updateItem(anItem);
     }
 
@@ -489,19 +552,14 @@ public class TreeView <T> extends ParentView implements Selectable<T> {
      */
     public T findItemParent(T anItem)
     {
-        List <T> items = getItems();
-        int index = items.indexOf(anItem);
+        // Get row index for item
+        int index = _rows.indexOf(anItem);
         if (index < 0)
             return null;
 
-        for (int i = index - 1; i >= 0; i--) {
-            T item = items.get(i);
-            if (isItemParent(item) && isItemExpanded(item) && ListUtils.contains(getItemChildren(item), anItem))
-                return item;
-        }
-
-        // Return not found
-        return null;
+        // Return item of nearest previous row with lesser depth
+        int parentIndex = _rows.getParentIndex(index);
+        return parentIndex >= 0 ? _rows.get(parentIndex) : null;
     }
 
     /**
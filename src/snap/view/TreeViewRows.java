@@ -0,0 +1,515 @@
+/*
+ * Copyright (c) 2010, ReportMill Software. All rights reserved.
+ */
+package snap.view;
+import java.util.*;
+
+/**
+ * TreeViewRows - package class to hold the visible rows of a TreeView (items of expanded nodes, flattened in order).
+ *
+ * Rows are kept in an implicit balanced tree (treap) where each node holds the row count of its subtree, so row to
+ * item lookup and item to row lookup are O(log n), and splicing in or out the k rows of an expanded/collapsed node is
+ * O(k + log n). Each row also records its depth, so the descendants of a row are the successive rows with greater depth.
+ * Items can repeat: The item map holds the first mapped row for an item and rows with equal items are chained from it.
+ */
+class TreeViewRows<T> extends AbstractList<T> {
+
+    // The root node
+    private Row<T>  _root;
+
+    // A map of item to row node (rows with equal items are chained from it)
+    private Map<T,Row<T>>  _rowsForItems = new HashMap<>();
+
+    // The random used for node priorities
+    private Random  _random = new Random();
+
+    // The results of last split
+    private Row<T>  _splitLeft, _splitRight;
+
+    /**
+     * Constructor.
+     */
+    public TreeViewRows()
+    {
+        super();
+    }
+
+    /**
+     * Returns the number of rows.
+     */
+    public int size()  { return getCount(_root); }
+
+    /**
+     * Returns the item at given row index.
+     */
+    public T get(int anIndex)  { return getRow(anIndex)._item; }
+
+    /**
+     * Sets the item at given row index (keeping depth).
+     */
+    public T set(int anIndex, T anItem)
+    {
+        Row<T> row = getRow(anIndex);
+        T oldItem = row._item;
+        removeItemRow(row);
+        row._item = anItem;
+        addItemRow(row);
+        return oldItem;
+    }
+
+    /**
+     * Adds an item at given row index (with depth of row currently at index).
+     */
+    public void add(int anIndex, T anItem)
+    {
+        int depth = anIndex < size() ? getDepth(anIndex) : 0;
+        Builder<T> builder = new Builder<>();
+        builder.add(anItem, depth);
+        addRows(anIndex, builder);
+        modCount++;
+    }
+
+    /**
+     * Removes the item at given row index.
+     */
+    public T remove(int anIndex)
+    {
+        T item = get(anIndex);
+        removeRows(anIndex, 1);
+        modCount++;
+        return item;
+    }
+
+    /**
+     * Clears all rows.
+     */
+    public void clear()
+    {
+        _root = null;
+        _rowsForItems.clear();
+        modCount++;
+    }
+
+    /**
+     * Returns the row index of given item.
+     */
+    public int indexOf(Object anItem)
+    {
+        // Iterate over rows for item and return lowest row index
+        int index = -1;
+        for (Row<T> row = _rowsForItems.get(anItem); row != null; row = row._nextForItem) {
+            int rowIndex = getRowIndex(row);
+            if (index < 0 || rowIndex < index)
+                index = rowIndex;
+        }
+        return index;
+    }
+
+    /**
+     * Returns whether given item is in rows.
+     */
+    public boolean contains(Object anItem)  { return _rowsForItems.containsKey(anItem); }
+
+    /**
+     * Returns the depth of row at given index.
+     */
+    public int getDepth(int anIndex)  { return getRow(anIndex)._depth; }
+
+    /**
+     * Returns the number of successive rows after given row index that are its descendants.
+     */
+    public int getDescendantCount(int anIndex)
+    {
+        Row<T> row = getRow(anIndex);
+        int depth = row._depth;
+        int count = 0;
+        for (Row<T> next = getNextRow(row); next != null && next._depth > depth; next = getNextRow(next))
+            count++;
+        return count;
+    }
+
+    /**
+     * Returns the row index of the parent of row at given index (the nearest previous row with lesser depth).
+     */
+    public int getParentIndex(int anIndex)
+    {
+        Row<T> row = getRow(anIndex);
+        int depth = row._depth;
+        int index = anIndex - 1;
+        for (Row<T> prev = getPrevRow(row); prev != null; prev = getPrevRow(prev), index--)
+            if (prev._depth < depth)
+                return index;
+        return -1;
+    }
+
+    /**
+     * Replaces all rows with given rows.
+     */
+    public void setRows(Builder<T> theRows)
+    {
+        _rowsForItems.clear();
+        _root = createTree(theRows);
+        modCount++;
+    }
+
+    /**
+     * Adds given rows at given row index.
+     */
+    public void addRows(int anIndex, Builder<T> theRows)
+    {
+        if (anIndex < 0 || anIndex > size())
+            throw new IndexOutOfBoundsException("TreeViewRows: Index " + anIndex + " out of bounds for size " + size());
+        Row<T> newTree = createTree(theRows);
+        split(_root, anIndex);
+        Row<T> left = _splitLeft, right = _splitRight;
+        _root = merge(merge(left, newTree), right);
+        if (_root != null)
+            _root._parent = null;
+        modCount++;
+    }
+
+    /**
+     * Removes given number of rows at given row index and returns the removed items.
+     */
+    public List<T> removeRows(int anIndex, int aCount)
+    {
+        if (anIndex < 0 || anIndex + aCount > size())
+            throw new IndexOutOfBoundsException("TreeViewRows: Range " + anIndex + "+" + aCount + " out of bounds for size " + size());
+
+        // Split out range
+        split(_root, anIndex);
+        Row<T> left = _splitLeft;
+        split(_splitRight, aCount);
+        Row<T> removed = _splitLeft, right = _splitRight;
+
+        // Rejoin remaining rows
+        _root = merge(left, right);
+        if (_root != null)
+            _root._parent = null;
+        modCount++;
+
+        // Get removed items and remove from item map
+        List<T> removedItems = new ArrayList<>(aCount);
+        if (removed != null) {
+            removed._parent = null;
+            for (Row<T> row = getFirstRow(removed); row != null; row = getNextRow(row)) {
+                removedItems.add(row._item);
+                removeItemRow(row);
+            }
+        }
+
+        // Return
+        return removedItems;
+    }
+
+    /**
+     * Returns the row node at given index.
+     */
+    private Row<T> getRow(int anIndex)
+    {
+        if (anIndex < 0 || anIndex >= size())
+            throw new IndexOutOfBoundsException("TreeViewRows: Index " + anIndex + " out of bounds for size " + size());
+
+        // Descend from root using left subtree counts
+        Row<T> row = _root;
+        int index = anIndex;
+        while (true) {
+            int leftCount = getCount(row._left);
+            if (index < leftCount)
+                row = row._left;
+            else if (index == leftCount)
+                return row;
+            else {
+                index -= leftCount + 1;
+                row = row._right;
+            }
+        }
+    }
+
+    /**
+     * Returns the row index of given row node.
+     */
+    private static int getRowIndex(Row<?> aRow)
+    {
+        int index = getCount(aRow._left);
+        for (Row<?> row = aRow; row._parent != null; row = row._parent)
+            if (row == row._parent._right)
+                index += getCount(row._parent._left) + 1;
+        return index;
+    }
+
+    /**
+     * Adds given row to item map (chained after first row if item is already mapped).
+     */
+    private void addItemRow(Row<T> aRow)
+    {
+        Row<T> firstRow = _rowsForItems.putIfAbsent(aRow._item, aRow);
+        if (firstRow != null) {
+            aRow._nextForItem = firstRow._nextForItem;
+            firstRow._nextForItem = aRow;
+        }
+    }
+
+    /**
+     * Removes given row from item map (leaving other rows for equal item mapped).
+     */
+    private void removeItemRow(Row<T> aRow)
+    {
+        // If row is first row for item, replace with next row (or remove)
+        Row<T> firstRow = _rowsForItems.get(aRow._item);
+        if (firstRow == aRow) {
+            if (aRow._nextForItem != null)
+                _rowsForItems.put(aRow._item, aRow._nextForItem);
+            else _rowsForItems.remove(aRow._item);
+        }
+
+        // Otherwise, unlink row from chain
+        else {
+            for (Row<T> row = firstRow; row != null; row = row._nextForItem) {
+                if (row._nextForItem == aRow) {
+                    row._nextForItem = aRow._nextForItem;
+                    break;
+                }
+            }
+        }
+        aRow._nextForItem = null;
+    }
+
+    /**
+     * Creates a balanced subtree for given rows in O(k) (as a cartesian tree of random priorities).
+     */
+    private Row<T> createTree(Builder<T> theRows)
+    {
+        // Iterate over rows and push on right spine stack, popping lower priorities into left child
+        int rowCount = theRows.size();
+        List<Row<T>> stack = new ArrayList<>();
+        for (int i = 0; i < rowCount; i++) {
+
+            // Create row and add to map
+            T item = theRows._items.get(i);
+            Row<T> row = new Row<>(item, theRows._depths[i], _random.nextInt());
+            addItemRow(row);
+
+            // Pop rows with lower priority and make last popped the left child
+            Row<T> lastPopped = null;
+            while (!stack.isEmpty() && stack.get(stack.size() - 1)._priority < row._priority)
+                lastPopped = stack.remove(stack.size() - 1);
+            if (lastPopped != null) {
+                row._left = lastPopped;
+                lastPopped._parent = row;
+            }
+
+            // Make row right child of stack top
+            if (!stack.isEmpty()) {
+                Row<T> top = stack.get(stack.size() - 1);
+                top._right = row;
+                row._parent = top;
+            }
+            stack.add(row);
+        }
+
+        // If no rows, just return
+        if (stack.isEmpty())
+            return null;
+
+        // Update counts and return root
+        Row<T> root = stack.get(0);
+        root._parent = null;
+        updateCounts(root);
+        return root;
+    }
+
+    /**
+     * Splits given tree at given index, into _splitLeft (rows before index) and _splitRight.
+     */
+    private void split(Row<T> aRow, int anIndex)
+    {
+        // Handle empty
+        if (aRow == null) {
+            _splitLeft = _splitRight = null;
+            return;
+        }
+
+        // If index in left subtree, split left and make right half our new left
+        int leftCount = getCount(aRow._left);
+        if (anIndex <= leftCount) {
+            split(aRow._left, anIndex);
+            setLeft(aRow, _splitRight);
+            _splitRight = aRow;
+        }
+
+        // Otherwise, split right and make left half our new right
+        else {
+            split(aRow._right, anIndex - leftCount - 1);
+            setRight(aRow, _splitLeft);
+            _splitLeft = aRow;
+        }
+
+        // Clear parents of split roots
+        if (_splitLeft != null)
+            _splitLeft._parent = null;
+        if (_splitRight != null)
+            _splitRight._parent = null;
+    }
+
+    /**
+     * Merges two trees (where all rows in first precede all rows in second).
+     */
+    private Row<T> merge(Row<T> aRow1, Row<T> aRow2)
+    {
+        if (aRow1 == null) return aRow2;
+        if (aRow2 == null) return aRow1;
+        if (aRow1._priority > aRow2._priority) {
+            setRight(aRow1, merge(aRow1._right, aRow2));
+            return aRow1;
+        }
+        setLeft(aRow2, merge(aRow1, aRow2._left));
+        return aRow2;
+    }
+
+    /**
+     * Sets the left child of given row and updates count.
+     */
+    private static <T> void setLeft(Row<T> aRow, Row<T> aChild)
+    {
+        aRow._left = aChild;
+        if (aChild != null)
+            aChild._parent = aRow;
+        aRow._count = 1 + getCount(aRow._left) + getCount(aRow._right);
+    }
+
+    /**
+     * Sets the right child of given row and updates count.
+     */
+    private static <T> void setRight(Row<T> aRow, Row<T> aChild)
+    {
+        aRow._right = aChild;
+        if (aChild != null)
+            aChild._parent = aRow;
+        aRow._count = 1 + getCount(aRow._left) + getCount(aRow._right);
+    }
+
+    /**
+     * Updates the counts of given subtree.
+     */
+    private static int updateCounts(Row<?> aRow)
+    {
+        if (aRow == null)
+            return 0;
+        return aRow._count = 1 + updateCounts(aRow._left) + updateCounts(aRow._right);
+    }
+
+    /**
+     * Returns the row count of given subtree.
+     */
+    private static int getCount(Row<?> aRow)  { return aRow != null ? aRow._count : 0; }
+
+    /**
+     * Returns the first row of given subtree.
+     */
+    private static <T> Row<T> getFirstRow(Row<T> aRow)
+    {
+        Row<T> row = aRow;
+        while (row._left != null)
+            row = row._left;
+        return row;
+    }
+
+    /**
+     * Returns the row after given row.
+     */
+    private static <T> Row<T> getNextRow(Row<T> aRow)
+    {
+        if (aRow._right != null)
+            return getFirstRow(aRow._right);
+        Row<T> row = aRow;
+        while (row._parent != null && row == row._parent._right)
+            row = row._parent;
+        return row._parent;
+    }
+
+    /**
+     * Returns the row before given row.
+     */
+    private static <T> Row<T> getPrevRow(Row<T> aRow)
+    {
+        if (aRow._left != null) {
+            Row<T> row = aRow._left;
+            while (row._right != null)
+                row = row._right;
+            return row;
+        }
+        Row<T> row = aRow;
+        while (row._parent != null && row == row._parent._left)
+            row = row._parent;
+        return row._parent;
+    }
+
+    /**
+     * A node in rows tree.
+     */
+    private static class Row<T> {
+
+        // The item
+        private T  _item;
+
+        // The depth of row in tree
+        private int  _depth;
+
+        // The random heap priority
+        private int  _priority;
+
+        // The number of rows in this subtree
+        private int  _count = 1;
+
+        // The left, right and parent nodes
+        private Row<T>  _left, _right, _parent;
+
+        // The next row with equal item (items can repeat)
+        private Row<T>  _nextForItem;
+
+        /**
+         * Constructor.
+         */
+        Row(T anItem, int aDepth, int aPriority)
+        {
+            _item = anItem;
+            _depth = aDepth;
+            _priority = aPriority;
+        }
+    }
+
+    /**
+     * A class to collect rows (items and depths) in order.
+     */
+    static class Builder<T> {
+
+        // The items
+        private List<T>  _items = new ArrayList<>();
+
+        // The depths
+        private int[]  _depths = new int[16];
+
+        /**
+         * Adds an item with given depth.
+         */
+        public void add(T anItem, int aDepth)
+        {
+            int index = _items.size();
+            if (index == _depths.length)
+                _depths = Arrays.copyOf(_depths, index * 2);
+            _depths[index] = aDepth;
+            _items.add(anItem);
+        }
+
+        /**
+         * Returns the number of rows.
+         */
+        public int size()  { return _items.size(); }
+
+        /**
+         * Returns the items.
+         */
+        public List<T> getItems()  { return _items; }
+    }
+}
@@ -83,6 +83,9 @@ public class View extends PropObject implements XMLArchiver.Archivable {
     // The ViewEffect to manage effect rendering for this view and current effect
     protected ViewEffect  _effect;
 
+    // The ViewLayerCache to record and replay painting of this view subtree (if CacheAsLayer set)
+    protected ViewLayerCache  _layerCache;
+
     // The opacity
     private double  _opacity;
 
@@ -189,6 +192,7 @@ public class View extends PropObject implements XMLArchiver.Archivable {
     public static final String Visible_Prop = "Visible";
     public static final String Pickable_Prop = "Pickable";
     public static final String Paintable_Prop = "Paintable";
+    public static final String CacheAsLayer_Prop = "CacheAsLayer";
     public static final String Vertical_Prop = "Vertical";
     public static final String Focused_Prop = "Focused";
     public static final String Focusable_Prop = "Focusable";
@@ -1387,6 +1391,23 @@ public class View extends PropObject implements XMLArchiver.Archivable {
         repaint();
     }
 
+    /**
+     * Returns whether view painting (including children) is rendered once and reused until view or descendants repaint.
+     */
+    public boolean isCacheAsLayer()  { return _layerCache != null; }
+
+    /**
+     * Sets whether view painting (including children) is rendered once and reused until view or descendants repaint.
+     * This can greatly speed up painting for large, mostly static subtrees.
+     */
+    public void setCacheAsLayer(boolean aValue)
+    {
+        if (aValue == isCacheAsLayer()) return;
+        _layerCache = aValue ? new ViewLayerCache(this) : null;
+        firePropChange(CacheAsLayer_Prop, !aValue, aValue);
+        repaint();
+    }
+
     /**
      * Returns whether view should be included when a parent does layout.
      */
@@ -2075,6 +2096,7 @@ public class View extends PropObject implements XMLArchiver.Archivable {
         }
 
         // If focused, render focused
+        boolean paintedLayer = false;
         if (isFocused() && isFocusPainted()) {
             ViewEffect focusViewEffect = ViewEffect.getFocusViewEffect(this);
             focusViewEffect.paintAll(aPntr);
@@ -2084,6 +2106,12 @@ public class View extends PropObject implements XMLArchiver.Archivable {
         else if (_effect != null)
             _effect.paintAll(aPntr);
 
+        // If view has layer cache, paint cached render of view and children (re-rendered if any changed)
+        else if (_layerCache != null) {
+            _layerCache.paintAll(aPntr);
+            paintedLayer = true;
+        }
+
         // Otherwise, do normal draw
         else {
             paintBack(aPntr);
@@ -2095,7 +2123,7 @@ public class View extends PropObject implements XMLArchiver.Archivable {
             aPntr.setOpacity(opacityOld);
 
         // Paint children and above children
-        if (_effect == null) {
+        if (_effect == null && !paintedLayer) {
             paintChildren(aPntr);
             paintAbove(aPntr);
         }
@@ -2261,6 +2289,9 @@ public class View extends PropObject implements XMLArchiver.Archivable {
      */
     public void repaint(double aX, double aY, double aW, double aH)
     {
+        // Invalidate any layer caches of this view or ancestors
+        invalidateLayerCaches();
+
         // If RepaintRect already set, just union with given bounds and return
         if (_repaintRect != null) {
             _repaintRect.union(aX, aY, aW, aH);
@@ -2283,6 +2314,16 @@ public class View extends PropObject implements XMLArchiver.Archivable {
             _parent.setNeedsRepaintDeep(true);
     }
 
+    /**
+     * Invalidates the layer cache of this view and any ancestors (see setCacheAsLayer).
+     */
+    protected void invalidateLayerCaches()
+    {
+        for (View view = this; view != null; view = view._parent)
+            if (view._layerCache != null)
+                view._layerCache.invalidate();
+    }
+
     /**
      * Called to repaint in parent for cases where transform might change.
      */
@@ -2974,6 +3015,7 @@ public class View extends PropObject implements XMLArchiver.Archivable {
             case Visible_Prop: return isVisible();
             case Pickable_Prop: return isPickable();
             case Paintable_Prop: return isPaintable();
+            case CacheAsLayer_Prop: return isCacheAsLayer();
 
             // Focusable, FocusWhenPressed, Focused
             case Focusable_Prop: return isFocusable();
@@ -3067,6 +3109,7 @@ public class View extends PropObject implements XMLArchiver.Archivable {
             case Visible_Prop: setVisible(Convert.boolValue(aValue)); break;
             case Pickable_Prop: setPickable(Convert.boolValue(aValue)); break;
             case Paintable_Prop: setPaintable(Convert.boolValue(aValue)); break;
+            case CacheAsLayer_Prop: setCacheAsLayer(Convert.boolValue(aValue)); break;
 
             // Focusable, FocusWhenPressed, Focused
             case Focusable_Prop: setFocusable(Convert.boolValue(aValue)); break;
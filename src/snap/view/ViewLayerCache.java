@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2010, ReportMill Software. All rights reserved.
+ */
+package snap.view;
+import snap.geom.Rect;
+import snap.geom.Transform;
+import snap.gfx.*;
+
+/**
+ * A class to render the painting of a view subtree once and reuse it on successive paints (for mostly static views).
+ * The subtree is rendered to an image at the painter's device scale and blitted. If painter is rotated or the image
+ * would be too large, painting is recorded to a PainterDVR instead. Cache is invalidated when the view or any
+ * descendant repaints or needs layout (see View.invalidateLayerCaches()).
+ */
+class ViewLayerCache {
+
+    // The View
+    private View  _view;
+
+    // The cached image of view painting (and its bounds in view coords and dpi scale)
+    private Image  _image;
+    private Rect  _imageBounds;
+    private double  _imageScale;
+
+    // A PainterDVR to hold cached render when image isn't appropriate
+    private PainterDVR  _pdvr;
+
+    // Whether cache has been invalidated
+    private boolean  _invalid = true;
+
+    // The max number of pixels for a cached image
+    private static final double MAX_IMAGE_PIXELS = 4096 * 4096;
+
+    /**
+     * Creates a ViewLayerCache for given view.
+     */
+    public ViewLayerCache(View aView)
+    {
+        _view = aView;
+    }
+
+    /**
+     * Main paint method.
+     */
+    protected void paintAll(Painter aPntr)
+    {
+        // If printing, just paint view directly
+        if (aPntr.isPrinting()) {
+            paintAllView(aPntr);
+            return;
+        }
+
+        // If cache invalid, clear it
+        if (_invalid) {
+            _image = null;
+            _pdvr = null;
+            _invalid = false;
+        }
+
+        // Get painter device scale (if rotated, use PainterDVR)
+        Transform xfm = aPntr.getTransform();
+        if (!xfm.isRotated()) {
+            double[] matrix = xfm.getMatrix();
+            double scale = Math.max(Math.abs(matrix[0]), Math.abs(matrix[3]));
+
+            // If image not set or device scale changed, update image
+            if (_image == null || scale != _imageScale)
+                updateImage(scale);
+
+            // If image available, draw and return
+            if (_image != null) {
+                Rect imgBnds = _imageBounds;
+                aPntr.drawImage(_image, imgBnds.x, imgBnds.y, imgBnds.width, imgBnds.height);
+                return;
+            }
+        }
+
+        // Make sure PainterDVR is recorded and execute to given painter
+        if (_pdvr == null)
+            updatePainterDVR();
+        _pdvr.exec(aPntr);
+    }
+
+    /**
+     * Marks the cache as invalid so next paint will render view again.
+     */
+    public void invalidate()  { _invalid = true; }
+
+    /**
+     * Updates the image that holds the view painting for given device scale (image is left null if too large).
+     */
+    void updateImage(double aScale)
+    {
+        // Get image bounds from view visual bounds, snapped to whole points
+        Rect visualBounds = _view.getRepaintRectExpanded(_view.getBoundsLocal());
+        double imageX = Math.floor(visualBounds.x);
+        double imageY = Math.floor(visualBounds.y);
+        int imageW = (int) Math.ceil(visualBounds.getMaxX() - imageX);
+        int imageH = (int) Math.ceil(visualBounds.getMaxY() - imageY);
+
+        // If image empty or too large, clear image and return
+        _image = null;
+        _imageScale = aScale;
+        if (imageW <= 0 || imageH <= 0 || imageW * aScale * imageH * aScale > MAX_IMAGE_PIXELS)
+            return;
+
+        // Create image, paint view and set
+        Image img = Image.getImageForSizeAndDpiScale(imageW, imageH, true, aScale);
+        Painter pntr = img.getPainter();
+        pntr.translate(-imageX, -imageY);
+        paintAllView(pntr);
+        pntr.flush();
+        _image = img;
+        _imageBounds = new Rect(imageX, imageY, imageW, imageH);
+    }
+
+    /**
+     * Updates the PainterDVR that records the view painting.
+     */
+    void updatePainterDVR()
+    {
+        // Create new PainterDVR and clip to view visual bounds (children are culled against clip)
+        PainterDVR pdvr = new PainterDVR();
+        Rect visualBounds = _view.getRepaintRectExpanded(_view.getBoundsLocal());
+        pdvr.save();
+        pdvr.clip(visualBounds);
+
+        // Do normal painting to new PainterDVR
+        paintAllView(pdvr);
+        pdvr.restore();
+        _pdvr = pdvr;
+    }
+
+    /**
+     * Paints the view to given painter with standard paintAll.
+     */
+    protected void paintAllView(Painter aPntr)
+    {
+        // Normal view paint
+        _view.paintBack(aPntr);
+        _view.paintFront(aPntr);
+
+        // Children and above children paint
+        _view.paintChildren(aPntr);
+        _view.paintAbove(aPntr);
+    }
+}
@@ -51,6 +51,12 @@ public class ViewUpdater {
     private static int _frameCount;
     protected static long[]  _frames = null; //new long[20];
 
+    // The maximum number of separate repaint rects for an update
+    private static final int MAX_REPAINT_RECTS = 8;
+
+    // The ratio of union area to combined area under which two repaint rects are painted as one
+    private static final double REPAINT_MERGE_FACTOR = 1.25;
+
     /**
      * Creates a ViewUpdater.
      */
@@ -164,16 +170,16 @@ public class ViewUpdater {
         // Layout all views that need it
         _rview.layoutDeep();
 
-        // Get composite repaint rect from all repaint views
-        Rect rect = getRepaintRect();
-        if (rect == null)
+        // Get disjoint repaint rects from all repaint views
+        Rect[] rects = getRepaintRects();
+        if (rects == null)
             return;
 
         // Do repaint (in exception handler so we can reset things on failure)
         try {
             _painting = true;
             if (_win != null && _win._helper != null)
-                _win._helper.requestPaint(rect);
+                _win._helper.requestPaint(rects);
         }
 
         // Clear RepaintViews, reset runnable, update PaintCount and set Painting false
@@ -185,7 +191,7 @@ public class ViewUpdater {
 
             // If ClearFlash, register for proper repaint to clear highlight
             if (_clearFlash)
-                ViewUtils.runDelayed(() -> _rview.repaint(rect), 10);
+                ViewUtils.runDelayed(() -> { for (Rect rect : rects) _rview.repaint(rect); }, 10);
         }
     }
 
@@ -270,13 +276,30 @@ public class ViewUpdater {
      * Returns the current repaint rect combined rects of RepaintViews.RepaintRects.
      */
     public Rect getRepaintRect()
+    {
+        // Get repaint rects (just return if none)
+        Rect[] repaintRects = getRepaintRects();
+        if (repaintRects == null)
+            return null;
+
+        // Return union of rects
+        Rect totalRect = repaintRects[0].clone();
+        for (int i = 1; i < repaintRects.length; i++)
+            totalRect.union(repaintRects[i]);
+        return totalRect;
+    }
+
+    /**
+     * Returns the current repaint rects for RepaintViews.RepaintRects, merging overlapping or nearby rects.
+     */
+    public Rect[] getRepaintRects()
     {
         // Get array of RepaintViews (just return if none)
         int count = _repaintViews.size(); if (count == 0)  return null;
         View[] views = _repaintViews.toArray(new View[count]);
 
-        // Iterate over RepaintViews to calculate composite repaint rect from all views
-        Rect totalRect = null;
+        // Iterate over RepaintViews to add repaint rect from each view
+        List<Rect> repaintRects = new ArrayList<>();
         for (View view : views) {
 
             // If view no longer in hierarchy or has no Repaint rect, just continue
@@ -304,33 +327,88 @@ public class ViewUpdater {
             if (view != _rview)
                 viewPaintRectClipped = view.localToParent(viewPaintRectClipped, _rview).getBounds();
 
-            // Combine
-            if (totalRect == null)
-                totalRect = viewPaintRectClipped;
-            else totalRect.union(viewPaintRectClipped);
+            // Add to rects
+            addRepaintRect(repaintRects, viewPaintRectClipped);
         }
 
-        // Round rect and constrain to root bounds
-        if (totalRect == null)
+        // If no rects, just return
+        if (repaintRects.isEmpty())
             return null;
-        totalRect.snap();
-        if (totalRect.x < 0)
-            totalRect.x = 0;
-        if (totalRect.y < 0)
-            totalRect.y = 0;
-        if (totalRect.width > _rview.getWidth())
-            totalRect.width = _rview.getWidth();
-        if (totalRect.height > _rview.getHeight())
-            totalRect.height = _rview.getHeight();
-
-        // Give listener a chance to modify rect
-        if (_lsnr != null)
-            totalRect = _lsnr.updaterWillPaint(_rview, totalRect);
 
-        // Return rect
-        return totalRect;
+        // Round rects and constrain to root bounds
+        Rect[] rects = repaintRects.toArray(new Rect[0]);
+        for (int i = 0; i < rects.length; i++) {
+            Rect rect = rects[i];
+            rect.snap();
+            if (rect.x < 0)
+                rect.x = 0;
+            if (rect.y < 0)
+                rect.y = 0;
+            if (rect.width > _rview.getWidth())
+                rect.width = _rview.getWidth();
+            if (rect.height > _rview.getHeight())
+                rect.height = _rview.getHeight();
+
+            // Give listener a chance to modify rect
+            if (_lsnr != null)
+                rects[i] = _lsnr.updaterWillPaint(_rview, rect);
+        }
+
+        // Return rects
+        return rects;
     }
 
+    /**
+     * Adds a rect to given list of disjoint repaint rects, merging when union is cheaper than painting separately.
+     */
+    private static void addRepaintRect(List<Rect> theRects, Rect aRect)
+    {
+        // Merge given rect with any rect that overlaps or is cheaper to paint as union (repeat since union grows)
+        Rect rect = aRect;
+        for (int i = 0; i < theRects.size(); i++) {
+            Rect rect2 = theRects.get(i);
+            if (isMergeRects(rect, rect2)) {
+                rect = rect.getUnionRect(rect2);
+                theRects.remove(i);
+                i = -1;
+            }
+        }
+
+        // If too many rects, merge with rect whose union adds the least area
+        if (theRects.size() >= MAX_REPAINT_RECTS) {
+            int bestIndex = 0;
+            double bestArea = Double.MAX_VALUE;
+            for (int i = 0; i < theRects.size(); i++) {
+                Rect rect2 = theRects.get(i);
+                double unionArea = getArea(rect.getUnionRect(rect2)) - getArea(rect2);
+                if (unionArea < bestArea) {
+                    bestArea = unionArea;
+                    bestIndex = i;
+                }
+            }
+            rect = rect.getUnionRect(theRects.remove(bestIndex));
+        }
+
+        // Add rect
+        theRects.add(rect);
+    }
+
+    /**
+     * Returns whether two repaint rects should be merged: if they overlap or the union isn't much bigger than both.
+     */
+    private static boolean isMergeRects(Rect aRect1, Rect aRect2)
+    {
+        if (aRect1.intersectsRect(aRect2))
+            return true;
+        double unionArea = getArea(aRect1.getUnionRect(aRect2));
+        return unionArea <= (getArea(aRect1) + getArea(aRect2)) * REPAINT_MERGE_FACTOR;
+    }
+
+    /**
+     * Returns rect area.
+     */
+    private static double getArea(Rect aRect)  { return aRect.width * aRect.height; }
+
     /**
      * Adds given ViewAnim to set of anims that are running.
      */
@@ -856,6 +856,13 @@ public class WindowView extends ParentView {
         /** Registers a view for repaint. */
         public abstract void requestPaint(Rect aRect);
 
+        /** Registers views for repaint in given rects (default paints each rect separately). */
+        public void requestPaint(Rect[] theRects)
+        {
+            for (Rect rect : theRects)
+                requestPaint(rect);
+        }
+
         /** Window method: initializes native window. */
         public abstract void initWindow();
 
@@ -2,6 +2,7 @@
  * Copyright (c) 2010, ReportMill Software. All rights reserved.
  */
 package snap.web;
+import snap.props.PropChange;
 import snap.util.FilePathUtils;
 import snap.util.ListUtils;
 import java.io.File;
@@ -34,10 +35,39 @@ public class DirSite extends WebSite {
         WebURL siteURL = getURL();
         WebFile dir = siteURL.createFile(true);
 
+        // Listen for dir site file changes (to forward external changes)
+        if (dir != null)
+            dir.getSite().addFileChangeListener(this::handleDirSiteFileChange);
+
         // Set and return
         return _dir = dir;
     }
 
+    /**
+     * Called when dir site file changes to reset and verify matching loaded file (if changed externally).
+     */
+    private void handleDirSiteFileChange(PropChange aPC)
+    {
+        // Only handle LastModTime and Exists changes
+        String propName = aPC.getPropName();
+        if (propName != WebFile.LastModTime_Prop && propName != WebFile.Exists_Prop)
+            return;
+
+        // Get changed file path relative to dir (just return if not in dir)
+        WebFile dirFile = (WebFile) aPC.getSource();
+        String dirFilePath = dirFile.getPath();
+        String dirPath = _dir.getPath();
+        String pathPrefix = dirPath.equals("/") ? "" : dirPath;
+        if (!dirFilePath.equals(pathPrefix) && !dirFilePath.startsWith(pathPrefix + '/'))
+            return;
+        String filePath = dirFilePath.length() > pathPrefix.length() ? dirFilePath.substring(pathPrefix.length()) : "/";
+
+        // If loaded file (without local changes), reset and verify
+        WebFile file = getCachedFile(filePath);
+        if (file != null && !file.isModified())
+            file.resetAndVerify();
+    }
+
     /**
      * Handles a get or head request.
      */
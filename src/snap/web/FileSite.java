@@ -4,8 +4,20 @@
 package snap.web;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import snap.util.*;
 
 /**
@@ -16,6 +28,21 @@ public class FileSite extends WebSite {
     // The drive letter path prefix for Windows
     private String _windowsDriveLetterPath;
 
+    // Whether to watch loaded directories for external changes
+    private boolean  _watchFiles = SnapEnv.isDesktop;
+
+    // The watcher for loaded directories
+    private FileSiteWatcher  _watcher;
+
+    // Whether site is handling external changes (so dirs reset for changes stay watched)
+    private boolean  _handlingExternalChanges;
+
+    // A map of paths written by site to written file mod time (-1 if deleted) and time of write
+    private Map<String,long[]>  _selfWrites = new ConcurrentHashMap<>();
+
+    // The time after which site writes are no longer matched to external change events (millis)
+    private static final int SELF_WRITE_TIMEOUT = 5000;
+
     /**
      * Constructor.
      */
@@ -76,13 +103,220 @@ public class FileSite extends WebSite {
             catch(IOException e) { aResp.setException(e); }
         }
 
-        // If directory, configure directory info and return
+        // If directory, configure directory info and watch directory for changes
         else {
             List<FileHeader> fileHeaders = getFileHeadersForJavaFile(javaFile);
             aResp.setFileHeaders(fileHeaders);
+            FileSiteWatcher watcher = getWatcher();
+            if (watcher != null)
+                watcher.watchDir(javaFile, filePath);
+        }
+    }
+
+    /**
+     * Returns whether site watches loaded directories for external changes (defaults to true on desktop).
+     */
+    public boolean isWatchFiles()  { return _watchFiles; }
+
+    /**
+     * Sets whether site watches loaded directories for external changes.
+     */
+    public synchronized void setWatchFiles(boolean aValue)
+    {
+        if (aValue == _watchFiles) return;
+        _watchFiles = aValue;
+
+        // If turning off, close watcher
+        if (!aValue && _watcher != null) {
+            _watcher.close();
+            _watcher = null;
+        }
+
+        // If turning on, watch already loaded dirs
+        if (aValue) {
+            FileSiteWatcher watcher = getWatcher();
+            if (watcher != null) {
+                for (WebFile file : getCachedFiles()) {
+                    if (file.isDir() && file.isFilesLoaded())
+                        watcher.watchDir(getJavaFileForLocalPath(file.getPath()), file.getPath());
+                }
+            }
         }
     }
 
+    /**
+     * Returns the watcher for loaded directories (null if not watching).
+     */
+    private synchronized FileSiteWatcher getWatcher()
+    {
+        // If already set or not watching, just return
+        if (_watcher != null || !_watchFiles) return _watcher;
+
+        // Create watcher (if not supported, turn off watching)
+        try { return _watcher = new FileSiteWatcher(this); }
+        catch (Exception e) {
+            System.err.println("FileSite.getWatcher: Can't watch files: " + e);
+            _watchFiles = false;
+            return null;
+        }
+    }
+
+    /**
+     * Called by watcher with batch of external changes to update only the affected loaded files (and parent dirs).
+     */
+    void handleExternalChanges(Collection<FileSiteWatcher.Change> theChanges)
+    {
+        _handlingExternalChanges = true;
+        try { handleExternalChangesImpl(theChanges); }
+        finally { _handlingExternalChanges = false; }
+    }
+
+    /**
+     * Called by watcher with batch of external changes to update only the affected loaded files (and parent dirs).
+     */
+    private void handleExternalChangesImpl(Collection<FileSiteWatcher.Change> theChanges)
+    {
+        // Get dirs whose file lists changed (so each is reset once)
+        Set<String> changedDirPaths = new LinkedHashSet<>();
+
+        // Remove expired site writes
+        long time = System.currentTimeMillis();
+        _selfWrites.values().removeIf(write -> time - write[1] > SELF_WRITE_TIMEOUT);
+
+        // Iterate over changes
+        for (FileSiteWatcher.Change change : theChanges) {
+
+            // If change is from site write (and file is still as written), skip
+            if (!change._overflow && isSelfWrite(change._path))
+                continue;
+
+            // If loaded file was changed, reset and verify (fires LastModTime or Exists prop change)
+            // Skip files with local unsaved changes (they can check isModifiedExternally when saving)
+            WebFile file = getCachedFile(change._path);
+            if (file != null && !file.isModified())
+                file.resetAndVerify();
+
+            // If file added or removed, mark parent dir
+            if (change._addedOrRemoved)
+                changedDirPaths.add(FilePathUtils.getParentPath(change._path));
+
+            // If events were lost for dir, mark dir and reset its loaded children
+            if (change._overflow) {
+                changedDirPaths.add(change._path);
+                for (WebFile childFile : getCachedFiles()) {
+                    if (change._path.equals(FilePathUtils.getParentPath(childFile.getPath())) && !childFile.isModified())
+                        childFile.resetAndVerify();
+                }
+            }
+        }
+
+        // Reset and verify changed dirs (clears files list and fires LastModTime prop change)
+        for (String dirPath : changedDirPaths) {
+            WebFile dir = getCachedFile(dirPath);
+            if (dir != null)
+                dir.resetAndVerify();
+        }
+    }
+
+    /**
+     * Records that site wrote (or deleted) file at given path, so watcher events for it can be ignored.
+     */
+    private void addSelfWrite(String aPath, File aJavaFile)
+    {
+        if (_watcher == null || aPath == null || aJavaFile == null) return;
+        long modTime = aJavaFile.exists() ? aJavaFile.lastModified() : -1;
+        _selfWrites.put(aPath, new long[] { modTime, System.currentTimeMillis() });
+    }
+
+    /**
+     * Returns whether file at given path was written by site and hasn't changed since.
+     */
+    private boolean isSelfWrite(String aPath)
+    {
+        // Get write for path (just return if none)
+        long[] write = _selfWrites.get(aPath);
+        if (write == null)
+            return false;
+
+        // If file no longer as written, remove write and return false
+        File javaFile = getJavaFileForLocalPath(aPath);
+        long modTime = javaFile.exists() ? javaFile.lastModified() : -1;
+        if (modTime != write[0]) {
+            _selfWrites.remove(aPath);
+            return false;
+        }
+
+        // Return true
+        return true;
+    }
+
+    /**
+     * Override to stop watching dir when its files are reset (unless reset for external change). It is watched again
+     * when files are reloaded.
+     */
+    @Override
+    protected void fileDidReset(WebFile aFile)
+    {
+        FileSiteWatcher watcher = _watcher;
+        if (watcher != null && aFile.isDir() && !_handlingExternalChanges)
+            watcher.unwatchDir(aFile.getPath());
+    }
+
+    /**
+     * Override to stream from file channel.
+     */
+    @Override
+    protected InputStream getInputStreamForFile(WebFile aFile) throws IOException
+    {
+        FileChannel fileChannel = getFileChannelForFile(aFile);
+        return Channels.newInputStream(fileChannel);
+    }
+
+    /**
+     * Override to return file channel.
+     */
+    @Override
+    protected ReadableByteChannel getChannelForFile(WebFile aFile) throws IOException
+    {
+        return getFileChannelForFile(aFile);
+    }
+
+    /**
+     * Override to read range from file channel with positional reads.
+     */
+    @Override
+    protected byte[] getBytesForFileRange(WebFile aFile, long anOffset, int aLength) throws IOException
+    {
+        try (FileChannel fileChannel = getFileChannelForFile(aFile)) {
+
+            // Get range length trimmed to file size
+            long fileSize = fileChannel.size();
+            long offset = Math.min(anOffset, fileSize);
+            int length = (int) Math.min(aLength, fileSize - offset);
+
+            // Read range into buffer (stop early if file was truncated)
+            ByteBuffer byteBuffer = ByteBuffer.allocate(length);
+            while (byteBuffer.hasRemaining()) {
+                int count = fileChannel.read(byteBuffer, offset + byteBuffer.position());
+                if (count < 0)
+                    break;
+            }
+
+            // Return bytes
+            byte[] bytes = byteBuffer.array();
+            return byteBuffer.position() < length ? Arrays.copyOf(bytes, byteBuffer.position()) : bytes;
+        }
+    }
+
+    /**
+     * Returns a read FileChannel for given file.
+     */
+    protected FileChannel getFileChannelForFile(WebFile aFile) throws IOException
+    {
+        File javaFile = getJavaFileForLocalPath(aFile.getPath());
+        return FileChannel.open(javaFile.toPath(), StandardOpenOption.READ);
+    }
+
     /**
      * Returns the file header for given path and java file.
      */
@@ -148,6 +382,11 @@ public class FileSite extends WebSite {
             }
         }
 
+        // Record write of file (and parent dir if file was created) so watcher events for them are ignored
+        addSelfWrite(filePath, javaFile);
+        if (!fileExists)
+            addSelfWrite(FilePathUtils.getParentPath(filePath), javaFile.getParentFile());
+
         // Get last modified time from java file and set in response
         long lastModTime = javaFile.lastModified();
 
@@ -167,6 +406,10 @@ public class FileSite extends WebSite {
 
         // Do delete
         FileUtils.deleteDeep(javaFile);
+
+        // Record delete of file and parent dir change so watcher events for them are ignored
+        addSelfWrite(filePath, javaFile);
+        addSelfWrite(FilePathUtils.getParentPath(filePath), javaFile.getParentFile());
     }
 
     /**
@@ -182,6 +425,7 @@ public class FileSite extends WebSite {
         File javaFile = aFile.getJavaFile();
         if (!javaFile.setLastModified(aTime))
             System.err.println("FileSite.setModTimeForFile: Error setting mod time for file: " + javaFile.getPath());
+        addSelfWrite(aFile.getPath(), javaFile);
 
         // Do normal version
         super.saveLastModTimeForFile(aFile, aTime);
@@ -0,0 +1,213 @@
+/*
+ * Copyright (c) 2010, ReportMill Software. All rights reserved.
+ */
+package snap.web;
+import snap.util.FilePathUtils;
+import snap.view.ViewUtils;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * FileSiteWatcher - package class to watch the loaded directories of a FileSite with a WatchService and send
+ * coalesced batches of changed paths to site on UI thread (so idle trees cost nothing and changes are seen promptly).
+ * Watch keys are cancelled when site unwatches a directory and for directories whose files have been collected.
+ */
+class FileSiteWatcher {
+
+    // The site
+    private FileSite  _site;
+
+    // The watch service
+    private WatchService  _watchService;
+
+    // A map of watch keys to directory site paths
+    private Map<WatchKey,String>  _dirPaths = new ConcurrentHashMap<>();
+
+    // A map of watched directory site paths to watch keys
+    private Map<String,WatchKey>  _watchKeys = new ConcurrentHashMap<>();
+
+    // The watched dir count at which to next cancel watch keys for collected dirs
+    private int  _purgeCount = PURGE_COUNT_MIN;
+
+    // The watch thread
+    private Thread  _thread;
+
+    // The time to wait for more events before sending batch (millis)
+    private static final int BATCH_DELAY = 50;
+
+    // The max time to collect events for a batch before sending (millis), so constant changes still get sent
+    private static final int MAX_BATCH_TIME = 500;
+
+    // The min watched dir count at which to cancel watch keys for collected dirs
+    private static final int PURGE_COUNT_MIN = 64;
+
+    /**
+     * Constructor.
+     */
+    public FileSiteWatcher(FileSite aSite) throws IOException
+    {
+        _site = aSite;
+        _watchService = FileSystems.getDefault().newWatchService();
+
+        // Start watch thread
+        _thread = new Thread(this::watchLoop, "FileSite Watcher");
+        _thread.setDaemon(true);
+        _thread.start();
+    }
+
+    /**
+     * Watches given directory (if not already watched).
+     */
+    public synchronized void watchDir(File aJavaDir, String aDirPath)
+    {
+        // If already watched, just return
+        if (_watchKeys.containsKey(aDirPath)) return;
+
+        // Register dir
+        try {
+            Path dirPath = aJavaDir.toPath();
+            WatchKey watchKey = dirPath.register(_watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+            _dirPaths.put(watchKey, aDirPath);
+            _watchKeys.put(aDirPath, watchKey);
+        }
+        catch (Exception e) {
+            System.err.println("FileSiteWatcher.watchDir: Can't watch dir " + aJavaDir.getPath() + ": " + e);
+        }
+
+        // If watched dir count has grown enough, cancel watch keys for collected dirs
+        if (_watchKeys.size() >= _purgeCount) {
+            unwatchCollectedDirs();
+            _purgeCount = Math.max(_watchKeys.size() * 2, PURGE_COUNT_MIN);
+        }
+    }
+
+    /**
+     * Stops watching given directory (if watched).
+     */
+    public synchronized void unwatchDir(String aDirPath)
+    {
+        WatchKey watchKey = _watchKeys.remove(aDirPath);
+        if (watchKey != null) {
+            watchKey.cancel();
+            _dirPaths.remove(watchKey);
+        }
+    }
+
+    /**
+     * Stops watching directories that are no longer cached by site (collected).
+     */
+    private void unwatchCollectedDirs()
+    {
+        for (String dirPath : new ArrayList<>(_watchKeys.keySet())) {
+            if (_site.getCachedFile(dirPath) == null)
+                unwatchDir(dirPath);
+        }
+    }
+
+    /**
+     * Stops watching.
+     */
+    public void close()
+    {
+        try { _watchService.close(); }
+        catch (IOException ignore) { }
+    }
+
+    /**
+     * Waits for watch keys and sends batches of changes to site.
+     */
+    private void watchLoop()
+    {
+        while (true) {
+
+            // Wait for first key
+            WatchKey watchKey;
+            try { watchKey = _watchService.take(); }
+            catch (InterruptedException | ClosedWatchServiceException e) { return; }
+
+            // Collect events for key and any keys that arrive within batch delay (up to max batch time)
+            Map<String,Change> changes = new LinkedHashMap<>();
+            long batchEndTime = System.currentTimeMillis() + MAX_BATCH_TIME;
+            try {
+                while (watchKey != null) {
+                    addChangesForWatchKey(watchKey, changes);
+                    if (System.currentTimeMillis() >= batchEndTime)
+                        break;
+                    watchKey = _watchService.poll(BATCH_DELAY, TimeUnit.MILLISECONDS);
+                }
+            }
+            catch (InterruptedException | ClosedWatchServiceException e) { return; }
+
+            // Send changes to site on UI thread
+            Collection<Change> changeList = changes.values();
+            ViewUtils.runLater(() -> {
+                try { _site.handleExternalChanges(changeList); }
+                catch (Throwable e) { e.printStackTrace(); }
+            });
+        }
+    }
+
+    /**
+     * Adds the changes for given watch key to changes map (coalescing by path).
+     */
+    private void addChangesForWatchKey(WatchKey aWatchKey, Map<String,Change> theChanges)
+    {
+        // Get dir path for key (just return if not found)
+        String dirPath = _dirPaths.get(aWatchKey);
+        List<WatchEvent<?>> events = aWatchKey.pollEvents();
+        if (dirPath == null) {
+            aWatchKey.reset();
+            return;
+        }
+
+        // Iterate over events and add/update change for path
+        for (WatchEvent<?> event : events) {
+
+            // Handle overflow: Mark directory itself with overflow
+            WatchEvent.Kind<?> kind = event.kind();
+            if (kind == StandardWatchEventKinds.OVERFLOW) {
+                Change change = theChanges.computeIfAbsent(dirPath, path -> new Change(path));
+                change._overflow = true;
+                continue;
+            }
+
+            // Get change for path and update (modify just needs change entry)
+            Path childName = (Path) event.context();
+            String filePath = FilePathUtils.getChildPath(dirPath, childName.toString());
+            Change change = theChanges.computeIfAbsent(filePath, path -> new Change(path));
+            if (kind != StandardWatchEventKinds.ENTRY_MODIFY)
+                change._addedOrRemoved = true;
+        }
+
+        // Reset key - if no longer valid (dir deleted or unwatched), stop tracking
+        if (!aWatchKey.reset()) {
+            _dirPaths.remove(aWatchKey);
+            _watchKeys.remove(dirPath, aWatchKey);
+        }
+    }
+
+    /**
+     * A class to describe coalesced changes for a path.
+     */
+    static class Change {
+
+        // The site file path
+        String  _path;
+
+        // Whether file was added or removed (parent dir list changed)
+        boolean  _addedOrRemoved;
+
+        // Whether events were lost for directory at path (all children need to be checked)
+        boolean  _overflow;
+
+        /**
+         * Constructor.
+         */
+        Change(String aPath)  { _path = aPath; }
+    }
+}
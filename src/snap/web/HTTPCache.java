@@ -0,0 +1,500 @@
+/*
+ * Copyright (c) 2010, ReportMill Software. All rights reserved.
+ */
+package snap.web;
+import snap.util.FileUtils;
+import snap.util.SnapEnv;
+import java.io.*;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.text.SimpleDateFormat;
+import java.util.*;
+
+/**
+ * An on-disk cache of HTTP GET responses that revalidates entries with conditional requests (If-None-Match and
+ * If-Modified-Since) and serves cached bytes on 304 Not Modified. Entries are evicted least recently used first
+ * to keep cache under max size.
+ *
+ * Requests with credentials (Authorization or Cookie headers or URL user info) bypass the cache, as do requests with
+ * Cache-Control no-store. Responses with Cache-Control no-store or private (or that set cookies) aren't stored.
+ * Responses with Cache-Control no-cache are stored, since every cached response is revalidated before use.
+ * The cache directory is created readable only by owner. The shared cache is off unless enabled.
+ */
+public class HTTPCache {
+
+    // The cache directory
+    private File  _dir;
+
+    // The max total size of cached bodies
+    private long  _maxSize;
+
+    // The current total size of cached bodies
+    private long  _size;
+
+    // The entries, in access order (least recently used first)
+    private LinkedHashMap<String,Entry>  _entries;
+
+    // The shared cache
+    private static HTTPCache  _shared;
+
+    // Constants for defaults
+    public static final long DEFAULT_MAX_SIZE = 64 * 1024 * 1024;
+
+    // Constants for entry properties
+    private static final String URL_KEY = "URL";
+    private static final String ETAG_KEY = "ETag";
+    private static final String LAST_MODIFIED_KEY = "Last-Modified";
+    private static final String CONTENT_TYPE_KEY = "Content-Type";
+
+    /**
+     * Constructor for given directory and max size.
+     */
+    public HTTPCache(File aDir, long aMaxSize)
+    {
+        super();
+        _dir = aDir;
+        _maxSize = aMaxSize;
+    }
+
+    /**
+     * Returns the cache directory.
+     */
+    public File getDir()  { return _dir; }
+
+    /**
+     * Returns the max total size of cached bodies.
+     */
+    public long getMaxSize()  { return _maxSize; }
+
+    /**
+     * Returns the current total size of cached bodies.
+     */
+    public synchronized long getSize()
+    {
+        getEntries();
+        return _size;
+    }
+
+    /**
+     * Returns the response for given GET request, using a conditional request if cached and cached bytes if not modified.
+     */
+    public HTTPResponse getResponse(HTTPRequest aReq) throws IOException
+    {
+        // If request has credentials or forbids storing, just return response without cache
+        if (!isCacheableRequest(aReq))
+            return aReq.getResponse();
+
+        // Get cache entry for URL - if found, use copy of request with conditional headers (caller's is unchanged)
+        String urlString = aReq.getURLString();
+        Entry entry = getEntry(urlString);
+        HTTPRequest req = aReq;
+        if (entry != null) {
+            req = copyRequest(aReq);
+            if (entry._etag != null)
+                req.addHeader("If-None-Match", entry._etag);
+            if (entry._lastModified != null)
+                req.addHeader("If-Modified-Since", entry._lastModified);
+        }
+
+        // Get response
+        HTTPResponse resp = req.getResponse();
+        int code = resp.getCode();
+
+        // If not modified, return response for cached bytes (or if cached bytes missing, remove entry and retry original)
+        if (code == HTTPResponse.NOT_MODIFIED && entry != null) {
+            byte[] bytes = getEntryBytes(entry);
+            if (bytes != null)
+                return createResponseForEntry(entry, bytes);
+            removeEntry(entry);
+            return aReq.getResponse();
+        }
+
+        // If OK response, add to cache if storable and has validator (otherwise remove old entry)
+        if (code == HTTPResponse.OK && resp.getBytes() != null) {
+            String etag = resp.getHeaderValue("ETag");
+            String lastModified = resp.getHeaderValue("Last-Modified");
+            if ((etag != null || lastModified != null) && isStorableResponse(resp))
+                putEntry(urlString, resp, etag, lastModified);
+            else if (entry != null)
+                removeEntry(entry);
+        }
+
+        // Return
+        return resp;
+    }
+
+    /**
+     * Returns whether given request can use cache (no credentials and no Cache-Control no-store).
+     */
+    protected boolean isCacheableRequest(HTTPRequest aReq)
+    {
+        // If URL has user info or request has cookie, return false
+        if (aReq.getURL().getUserInfo() != null || aReq.getCookie() != null)
+            return false;
+
+        // If request has credentials or forbids storing, return false
+        List<HTTPRequest.Header> headers = aReq.getHeaders();
+        if (headers != null) {
+            for (HTTPRequest.Header header : headers) {
+                String key = header.key;
+                if (key.equalsIgnoreCase("Authorization") || key.equalsIgnoreCase("Cookie"))
+                    return false;
+                if (key.equalsIgnoreCase("Cache-Control") && hasDirective(header.value, "no-store"))
+                    return false;
+            }
+        }
+
+        // Return
+        return true;
+    }
+
+    /**
+     * Returns whether given response can be stored (no Cache-Control no-store or private and no cookies).
+     */
+    protected boolean isStorableResponse(HTTPResponse aResp)
+    {
+        String cacheControl = aResp.getHeaderValue("Cache-Control");
+        if (hasDirective(cacheControl, "no-store") || hasDirective(cacheControl, "private"))
+            return false;
+        return aResp.getCookies().isEmpty();
+    }
+
+    /**
+     * Returns the entry for given URL string.
+     */
+    protected synchronized Entry getEntry(String aURL)
+    {
+        Map<String,Entry> entries = getEntries();
+        Entry entry = entries.get(getEntryName(aURL));
+        return entry != null && entry._url.equals(aURL) ? entry : null;
+    }
+
+    /**
+     * Returns the cached bytes for given entry (and marks entry as recently used).
+     */
+    protected byte[] getEntryBytes(Entry anEntry)
+    {
+        File bodyFile = getBodyFile(anEntry._name);
+        try {
+            byte[] bytes = FileUtils.getBytesOrThrow(bodyFile);
+            getMetaFile(anEntry._name).setLastModified(System.currentTimeMillis());
+            return bytes;
+        }
+        catch (IOException e) { return null; }
+    }
+
+    /**
+     * Adds an entry for given URL and response.
+     */
+    protected void putEntry(String aURL, HTTPResponse aResp, String anETag, String aLastModified)
+    {
+        // Create entry
+        Entry entry = new Entry(getEntryName(aURL));
+        entry._url = aURL;
+        entry._etag = anETag;
+        entry._lastModified = aLastModified;
+        entry._contentType = aResp.getContentType();
+        byte[] bytes = aResp.getBytes();
+        entry._size = bytes.length;
+
+        // If bigger than whole cache, just return
+        if (entry._size > _maxSize)
+            return;
+
+        // Write body and meta files (write to temp and move so readers never see partial files)
+        try {
+            createDir(_dir);
+            writeFileAtomic(getBodyFile(entry._name), bytes);
+            Properties props = new Properties();
+            props.setProperty(URL_KEY, aURL);
+            if (anETag != null)
+                props.setProperty(ETAG_KEY, anETag);
+            if (aLastModified != null)
+                props.setProperty(LAST_MODIFIED_KEY, aLastModified);
+            if (entry._contentType != null)
+                props.setProperty(CONTENT_TYPE_KEY, entry._contentType);
+            ByteArrayOutputStream metaBytes = new ByteArrayOutputStream();
+            props.store(metaBytes, null);
+            writeFileAtomic(getMetaFile(entry._name), metaBytes.toByteArray());
+        }
+        catch (IOException e) {
+            System.err.println("HTTPCache.putEntry: Error writing cache entry for " + aURL + ": " + e);
+            return;
+        }
+
+        // Add entry and evict least recently used entries over max size
+        synchronized (this) {
+            Map<String,Entry> entries = getEntries();
+            Entry oldEntry = entries.put(entry._name, entry);
+            if (oldEntry != null)
+                _size -= oldEntry._size;
+            _size += entry._size;
+            evictEntries();
+        }
+    }
+
+    /**
+     * Removes given entry.
+     */
+    protected synchronized void removeEntry(Entry anEntry)
+    {
+        Map<String,Entry> entries = getEntries();
+        if (entries.remove(anEntry._name) != null)
+            _size -= anEntry._size;
+        getBodyFile(anEntry._name).delete();
+        getMetaFile(anEntry._name).delete();
+    }
+
+    /**
+     * Removes least recently used entries until cache size is under max size.
+     */
+    private void evictEntries()
+    {
+        Iterator<Entry> entryIter = _entries.values().iterator();
+        while (_size > _maxSize && entryIter.hasNext()) {
+            Entry entry = entryIter.next();
+            entryIter.remove();
+            _size -= entry._size;
+            getBodyFile(entry._name).delete();
+            getMetaFile(entry._name).delete();
+        }
+    }
+
+    /**
+     * Returns the entries map, loading from cache directory (in last use order) on first call.
+     */
+    private Map<String,Entry> getEntries()
+    {
+        // If already set, just return
+        if (_entries != null) return _entries;
+
+        // Create map
+        _entries = new LinkedHashMap<>(64, .75f, true);
+        File[] metaFiles = _dir.listFiles((dir, name) -> name.endsWith(".meta"));
+        if (metaFiles == null)
+            return _entries;
+
+        // Sort meta files by last use (meta file modified time is touched on use)
+        Arrays.sort(metaFiles, Comparator.comparingLong(File::lastModified));
+
+        // Iterate over meta files and add entries
+        for (File metaFile : metaFiles) {
+            String name = metaFile.getName().substring(0, metaFile.getName().length() - ".meta".length());
+            File bodyFile = getBodyFile(name);
+            Properties props = new Properties();
+            try (InputStream inputStream = new FileInputStream(metaFile)) { props.load(inputStream); }
+            catch (IOException e) { props.clear(); }
+
+            // If entry invalid, delete and continue
+            String url = props.getProperty(URL_KEY);
+            if (url == null || !bodyFile.exists()) {
+                metaFile.delete();
+                bodyFile.delete();
+                continue;
+            }
+
+            // Create entry and add
+            Entry entry = new Entry(name);
+            entry._url = url;
+            entry._etag = props.getProperty(ETAG_KEY);
+            entry._lastModified = props.getProperty(LAST_MODIFIED_KEY);
+            entry._contentType = props.getProperty(CONTENT_TYPE_KEY);
+            entry._size = bodyFile.length();
+            _entries.put(name, entry);
+            _size += entry._size;
+        }
+
+        // Trim to max size and return
+        evictEntries();
+        return _entries;
+    }
+
+    /**
+     * Returns the body file for given entry name.
+     */
+    private File getBodyFile(String aName)  { return new File(_dir, aName + ".body"); }
+
+    /**
+     * Returns the meta file for given entry name.
+     */
+    private File getMetaFile(String aName)  { return new File(_dir, aName + ".meta"); }
+
+    /**
+     * Returns a copy of given request (method, cookie, headers and bytes).
+     */
+    private static HTTPRequest copyRequest(HTTPRequest aReq)
+    {
+        HTTPRequest req = new HTTPRequest(aReq.getURL());
+        if (aReq.getBytes() != null)
+            req.setBytes(aReq.getBytes());
+        req.setMethod(aReq.getMethod());
+        req.setCookie(aReq.getCookie());
+        List<HTTPRequest.Header> headers = aReq.getHeaders();
+        if (headers != null) {
+            for (HTTPRequest.Header header : headers)
+                req.addHeader(header.key, header.value);
+        }
+        return req;
+    }
+
+    /**
+     * Returns a response for given entry and bytes.
+     */
+    private static HTTPResponse createResponseForEntry(Entry anEntry, byte[] theBytes)
+    {
+        HTTPResponse resp = new HTTPResponse();
+        resp._code = HTTPResponse.OK;
+        resp._message = "OK (cached)";
+        resp._contentType = anEntry._contentType;
+        resp._contentLength = theBytes.length;
+        resp._lastModified = parseHttpDate(anEntry._lastModified);
+        resp._bytes = theBytes;
+        return resp;
+    }
+
+    /**
+     * Writes given bytes to given file via temp file and move.
+     */
+    private static void writeFileAtomic(File aFile, byte[] theBytes) throws IOException
+    {
+        File tempFile = new File(aFile.getPath() + ".tmp" + Thread.currentThread().getId());
+        FileUtils.writeBytes(tempFile, theBytes);
+        Files.move(tempFile.toPath(), aFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Creates given cache directory (if missing) with permissions for owner only.
+     */
+    private static void createDir(File aDir) throws IOException
+    {
+        // If already exists, just return
+        if (aDir.isDirectory()) return;
+
+        // Create directory with owner only permissions (with POSIX permissions if supported)
+        boolean isPosix = FileSystems.getDefault().supportedFileAttributeViews().contains("posix");
+        if (isPosix)
+            Files.createDirectories(aDir.toPath(), PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------")));
+        else {
+            Files.createDirectories(aDir.toPath());
+            aDir.setReadable(false, false);
+            aDir.setWritable(false, false);
+            aDir.setExecutable(false, false);
+            aDir.setReadable(true, true);
+            aDir.setWritable(true, true);
+            aDir.setExecutable(true, true);
+        }
+    }
+
+    /**
+     * Returns whether given Cache-Control header value has given directive.
+     */
+    private static boolean hasDirective(String aCacheControl, String aDirective)
+    {
+        if (aCacheControl == null)
+            return false;
+        for (String directive : aCacheControl.split(",")) {
+            String name = directive.trim();
+            int equalsIndex = name.indexOf('=');
+            if (equalsIndex >= 0)
+                name = name.substring(0, equalsIndex).trim();
+            if (name.equalsIgnoreCase(aDirective))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns the cache file name for URL (hex SHA-1 of URL).
+     */
+    private static String getEntryName(String aURL)
+    {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            byte[] hash = digest.digest(aURL.getBytes("UTF-8"));
+            StringBuilder sb = new StringBuilder(hash.length * 2);
+            for (byte b : hash)
+                sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            return sb.toString();
+        }
+        catch (Exception e) { throw new RuntimeException(e); }
+    }
+
+    /**
+     * Parses an HTTP date string (returns 0 if null or invalid).
+     */
+    private static long parseHttpDate(String aString)
+    {
+        if (aString == null)
+            return 0;
+        try {
+            SimpleDateFormat dateFormat = new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss zzz", Locale.US);
+            return dateFormat.parse(aString).getTime();
+        }
+        catch (Exception e) { return 0; }
+    }
+
+    /**
+     * Returns the shared cache (null unless enabled or set).
+     */
+    public static synchronized HTTPCache getShared()  { return _shared; }
+
+    /**
+     * Sets the shared cache (can be null to disable caching).
+     */
+    public static synchronized void setShared(HTTPCache aCache)
+    {
+        _shared = aCache;
+    }
+
+    /**
+     * Returns whether shared cache is enabled.
+     */
+    public static synchronized boolean isSharedEnabled()  { return _shared != null; }
+
+    /**
+     * Sets whether shared cache is enabled (in per-user default directory, on desktop only).
+     */
+    public static synchronized void setSharedEnabled(boolean aValue)
+    {
+        if (aValue == isSharedEnabled()) return;
+        _shared = aValue && SnapEnv.isDesktop ? new HTTPCache(getDefaultDir(), DEFAULT_MAX_SIZE) : null;
+    }
+
+    /**
+     * Returns the default cache directory: ~/SnapCode/HTTPCache (in user home, rather than shared temp dir).
+     */
+    public static File getDefaultDir()
+    {
+        File snapCodeDir = FileUtils.getUserHomeDir("SnapCode", false);
+        return new File(snapCodeDir, "HTTPCache");
+    }
+
+    /**
+     * A cache entry.
+     */
+    protected static class Entry {
+
+        // The entry name (used for files)
+        private String  _name;
+
+        // The URL string
+        private String  _url;
+
+        // The ETag and Last-Modified validators
+        private String  _etag, _lastModified;
+
+        // The content type
+        private String  _contentType;
+
+        // The body size
+        private long  _size;
+
+        /**
+         * Constructor.
+         */
+        Entry(String aName)  { _name = aName; }
+    }
+}
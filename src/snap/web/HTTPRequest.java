@@ -8,6 +8,10 @@ import snap.util.SnapUtils;
 import java.io.*;
 import java.net.*;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * A class to represent an HTTP request and generate a response.
@@ -28,6 +32,12 @@ public class HTTPRequest {
     
     // The bytes to post
     private byte[]  _bytes;
+
+    // The shared loader for async requests
+    private static ExecutorService  _loader;
+
+    // The max number of concurrent async requests
+    public static final int MAX_CONCURRENT_REQUESTS = 6;
     
     /**
      * Creates a new URL from Java URL.
@@ -132,6 +142,84 @@ public class HTTPRequest {
         // Get start time
         resp._time = System.currentTimeMillis();
 
+        // Get connection
+        HttpURLConnection connection = openConnection();
+        String method = getMethod();
+
+        // Get the response code
+        resp._code = connection.getResponseCode();
+        resp._message = connection.getResponseMessage();
+
+        // Get headers and cookies
+        for (int i = 1; true; i++) {
+            String headerKey = connection.getHeaderFieldKey(i);
+            if (headerKey == null)
+                break;
+            String headerValue = connection.getHeaderField(i);
+            resp.addHeader(headerKey, headerValue);
+            if (headerKey.equals("Set-Cookie"))
+                resp._cookies.add(headerValue);
+        }
+
+        // Set response time
+        resp._time = System.currentTimeMillis() - resp._time;
+
+        // If response code not success (or partial content for range request), drain error stream and return
+        if (resp._code != HTTPResponse.OK && resp._code != HTTPResponse.PARTIAL_CONTENT) {
+            drainErrorStream(connection);
+            return resp;
+        }
+
+        // Get ContentType, Length, LastModified
+        resp._contentType = connection.getContentType();
+        resp._contentLength = SnapEnv.isTeaVM ? 0 : connection.getContentLength();
+        resp._lastModified = SnapEnv.isTeaVM || SnapEnv.isWebVM ? 0 : connection.getLastModified();
+
+        // Get response bytes
+        // (reading to end and closing lets connection be reused for keep-alive)
+        if (!method.equals("HEAD")) {
+            try (InputStream inputStream = connection.getInputStream()) {
+                resp._bytes = SnapUtils.getInputStreamBytes(inputStream);
+            }
+        }
+
+        // Return response
+        return resp;
+    }
+
+    /**
+     * Executes this request on shared loader (bounded to MAX_CONCURRENT_REQUESTS) and returns future for response.
+     */
+    public CompletableFuture<HTTPResponse> getResponseAsync()
+    {
+        return CompletableFuture.supplyAsync(() -> {
+            try { return getResponse(); }
+            catch (IOException e) { throw new CompletionException(e); }
+        }, getLoader());
+    }
+
+    /**
+     * Executes this request and returns an input stream to read response body as it arrives (without buffering it).
+     */
+    public InputStream getInputStream() throws IOException
+    {
+        // Get connection and check response code
+        HttpURLConnection connection = openConnection();
+        int code = connection.getResponseCode();
+        if (code != HTTPResponse.OK && code != HTTPResponse.PARTIAL_CONTENT) {
+            connection.disconnect();
+            throw new IOException("HTTPRequest.getInputStream: " + code + ' ' + connection.getResponseMessage() + " (" + getURLString() + ')');
+        }
+
+        // Return stream
+        return connection.getInputStream();
+    }
+
+    /**
+     * Opens a connection for URL and configures it for request (method, headers, cookie and bytes).
+     */
+    protected HttpURLConnection openConnection() throws IOException
+    {
         // Get connection
         URL url = getURL();
         HttpURLConnection connection = (HttpURLConnection) url.openConnection();
@@ -166,41 +254,34 @@ public class HTTPRequest {
             outStream.flush();
         }
 
-        // Get the response code
-        resp._code = connection.getResponseCode();
-        resp._message = connection.getResponseMessage();
-
-        // Get headers and cookies
-        for (int i = 1; true; i++) {
-            String headerKey = connection.getHeaderFieldKey(i);
-            if (headerKey == null)
-                break;
-            String headerValue = connection.getHeaderField(i);
-            resp.addHeader(headerKey, headerValue);
-            if (headerKey.equals("Set-Cookie"))
-                resp._cookies.add(headerValue);
-        }
-
-        // Set response time
-        resp._time = System.currentTimeMillis() - resp._time;
-
-        // If response code not success, just return
-        if (resp._code != HTTPResponse.OK)
-            return resp;
-
-        // Get ContentType, Length, LastModified
-        resp._contentType = connection.getContentType();
-        resp._contentLength = SnapEnv.isTeaVM ? 0 : connection.getContentLength();
-        resp._lastModified = SnapEnv.isTeaVM || SnapEnv.isWebVM ? 0 : connection.getLastModified();
+        // Return
+        return connection;
+    }
 
-        // Get response bytes
-        if (!method.equals("HEAD")) {
-            InputStream inputStream = connection.getInputStream();
-            resp._bytes = SnapUtils.getInputStreamBytes(inputStream);
+    /**
+     * Reads and closes connection error stream (if any) so connection can be reused.
+     */
+    private static void drainErrorStream(HttpURLConnection aConnection)
+    {
+        if (SnapEnv.isTeaVM) return;
+        try (InputStream errorStream = aConnection.getErrorStream()) {
+            if (errorStream != null)
+                SnapUtils.getInputStreamBytes(errorStream);
         }
+        catch (IOException ignore) { }
+    }
 
-        // Return response
-        return resp;
+    /**
+     * Returns the shared loader for async requests.
+     */
+    public static synchronized ExecutorService getLoader()
+    {
+        if (_loader != null) return _loader;
+        return _loader = Executors.newFixedThreadPool(MAX_CONCURRENT_REQUESTS, run -> {
+            Thread thread = new Thread(run, "HTTPRequest Loader");
+            thread.setDaemon(true);
+            return thread;
+        });
     }
 
     /**
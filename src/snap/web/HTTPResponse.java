@@ -41,10 +41,13 @@ public class HTTPResponse {
     
     // Response codes
     public static final int OK = 200;
+    public static final int PARTIAL_CONTENT = 206;
+    public static final int NOT_MODIFIED = 304;
     public static final int BAD_REQUEST = 400;
     public static final int UNAUTHORIZED = 401;
     public static final int FORBIDDEN = 403;
     public static final int NOT_FOUND = 404;
+    public static final int RANGE_NOT_SATISFIABLE = 416;
 
     /**
      * Constructor.
@@ -79,6 +82,17 @@ public class HTTPResponse {
         _headers.add(header);
     }
 
+    /**
+     * Returns the value of first header for given key (case-insensitive).
+     */
+    public String getHeaderValue(String aKey)
+    {
+        for (Header header : getHeaders())
+            if (header.key.equalsIgnoreCase(aKey))
+                return header.value;
+        return null;
+    }
+
     /**
      * Returns the headers as a string.
      */
@@ -181,10 +195,13 @@ public class HTTPResponse {
     {
         switch (aCode) {
             case OK: return "OK";
+            case PARTIAL_CONTENT: return "PartialContent";
+            case NOT_MODIFIED: return "NotModified";
             case BAD_REQUEST: return "BadRequest";
             case UNAUTHORIZED: return "Unauthorized";
             case FORBIDDEN: return "Forbidden";
             case NOT_FOUND: return "NotFound";
+            case RANGE_NOT_SATISFIABLE: return "RangeNotSatisfiable";
             default: return "Unknown code" + aCode;
         }
     }
@@ -4,6 +4,7 @@
 package snap.web;
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import snap.util.*;
 
 /**
@@ -11,6 +12,12 @@ import snap.util.*;
  */
 public class HTTPSite extends WebSite {
 
+    // The cache for GET requests
+    private HTTPCache  _cache;
+
+    // Whether cache has been set
+    private boolean  _cacheSet;
+
     /**
      * Constructor.
      */
@@ -31,9 +38,10 @@ public class HTTPSite extends WebSite {
         if (isHead)
             httpRequest.setMethod("HEAD");
 
-        // Get HTTPResponse response (if IOException, set code/exception and return)
+        // Get HTTPResponse response, via cache for GET (if IOException, set code/exception and return)
+        HTTPCache httpCache = isHead ? null : getCache();
         HTTPResponse httpResp;
-        try { httpResp = httpRequest.getResponse(); }
+        try { httpResp = httpCache != null ? httpCache.getResponse(httpRequest) : httpRequest.getResponse(); }
         catch(Throwable e) {
             aResp.setException(e);
             return;
@@ -65,6 +73,36 @@ public class HTTPSite extends WebSite {
         }
     }
 
+    /**
+     * Override to get response on shared HTTP loader (bounded concurrency with reused connections).
+     */
+    @Override
+    public CompletableFuture<WebResponse> getResponseAsync(WebRequest aReq)
+    {
+        if (SnapEnv.isTeaVM)
+            return super.getResponseAsync(aReq);
+        return CompletableFuture.supplyAsync(() -> getResponse(aReq), HTTPRequest.getLoader());
+    }
+
+    /**
+     * Returns the cache used for GET requests (null for none). Defaults to shared cache, which is off unless enabled.
+     */
+    public HTTPCache getCache()
+    {
+        if (!_cacheSet)
+            _cache = HTTPCache.getShared();
+        return _cache;
+    }
+
+    /**
+     * Sets the cache used for GET requests (null for none).
+     */
+    public void setCache(HTTPCache aCache)
+    {
+        _cache = aCache;
+        _cacheSet = true;
+    }
+
     /**
      * Returns whether given URL and Response indicates directory.
      */
@@ -134,6 +172,54 @@ public class HTTPSite extends WebSite {
         aResp.setBytes(httpResp.getBytes());
     }
 
+    /**
+     * Override to stream response body.
+     */
+    @Override
+    protected InputStream getInputStreamForFile(WebFile aFile) throws IOException
+    {
+        WebURL url = aFile.getURL();
+        HTTPRequest httpRequest = new HTTPRequest(url.getJavaURL());
+        return httpRequest.getInputStream();
+    }
+
+    /**
+     * Override to get range with HTTP Range request.
+     */
+    @Override
+    protected byte[] getBytesForFileRange(WebFile aFile, long anOffset, int aLength) throws IOException
+    {
+        // Create request with range header
+        WebURL url = aFile.getURL();
+        HTTPRequest httpRequest = new HTTPRequest(url.getJavaURL());
+        httpRequest.addHeader("Range", "bytes=" + anOffset + '-' + (anOffset + aLength - 1));
+
+        // Get response
+        HTTPResponse httpResp = httpRequest.getResponse();
+        int code = httpResp.getCode();
+        byte[] bytes = httpResp.getBytes();
+        if (bytes == null)
+            bytes = new byte[0];
+
+        // If partial content, return bytes (trimmed in case server sent more)
+        if (code == HTTPResponse.PARTIAL_CONTENT)
+            return bytes.length > aLength ? Arrays.copyOf(bytes, aLength) : bytes;
+
+        // If server ignored range and sent whole file, return range of it
+        if (code == HTTPResponse.OK) {
+            int start = (int) Math.min(anOffset, bytes.length);
+            int end = (int) Math.min(start + (long) aLength, bytes.length);
+            return Arrays.copyOfRange(bytes, start, end);
+        }
+
+        // If range not satisfiable (offset past end), return empty
+        if (code == HTTPResponse.RANGE_NOT_SATISFIABLE)
+            return new byte[0];
+
+        // Complain
+        throw new IOException("HTTPSite.getBytesForFileRange: " + code + ' ' + httpResp.getMessage() + " (" + aFile.getUrlAddress() + ')');
+    }
+
     /**
      * Override to return standard file for cache file.
      */
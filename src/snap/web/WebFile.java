@@ -9,7 +9,10 @@ import snap.util.FileUtils;
 import snap.util.StringUtils;
 import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -400,6 +403,11 @@ public class WebFile extends PropObject implements Comparable<WebFile> {
         return _files = files;
     }
 
+    /**
+     * Returns whether directory files list is loaded.
+     */
+    public boolean isFilesLoaded()  { return _files != null; }
+
     /**
      * Returns the directory files list.
      */
@@ -627,12 +635,61 @@ public class WebFile extends PropObject implements Comparable<WebFile> {
     }
 
     /**
-     * Returns an input stream for file.
+     * Returns an input stream for file. If bytes aren't loaded, this streams from site without loading them.
      */
     public InputStream getInputStream()
     {
-        byte[] bytes = getBytes();
-        return new ByteArrayInputStream(bytes);
+        // If bytes loaded (or set), return stream for bytes
+        byte[] bytes = _bytes;
+        if (bytes != null)
+            return new ByteArrayInputStream(bytes);
+
+        // Return stream from site
+        try { return _site.getInputStreamForFile(this); }
+        catch (IOException e) { throw new RuntimeException("WebFile.getInputStream: Error reading " + getUrlAddress(), e); }
+    }
+
+    /**
+     * Returns a channel to read file. If bytes aren't loaded, this reads from site without loading them.
+     */
+    public ReadableByteChannel getChannel()
+    {
+        // If bytes loaded (or set), return channel for bytes
+        byte[] bytes = _bytes;
+        if (bytes != null)
+            return Channels.newChannel(new ByteArrayInputStream(bytes));
+
+        // Return channel from site
+        try { return _site.getChannelForFile(this); }
+        catch (IOException e) { throw new RuntimeException("WebFile.getChannel: Error reading " + getUrlAddress(), e); }
+    }
+
+    /**
+     * Returns the file bytes for given range. If bytes aren't loaded, this reads just the range.
+     *
+     * Offset and length must be non-negative (throws IllegalArgumentException otherwise). Range is trimmed to file end,
+     * so returned array is shorter than length if range extends past end (and empty if offset is at or past end).
+     * Arguments are validated here, so site implementations can assume a valid range with positive length.
+     */
+    public byte[] getBytesForRange(long anOffset, int aLength)
+    {
+        // Validate range and handle empty range
+        if (anOffset < 0 || aLength < 0)
+            throw new IllegalArgumentException("WebFile.getBytesForRange: Invalid range (offset " + anOffset + ", length " + aLength + ")");
+        if (aLength == 0)
+            return new byte[0];
+
+        // If bytes loaded (or set), return copy of range
+        byte[] bytes = _bytes;
+        if (bytes != null) {
+            int start = (int) Math.min(anOffset, bytes.length);
+            int end = (int) Math.min(start + (long) aLength, bytes.length);
+            return Arrays.copyOfRange(bytes, start, end);
+        }
+
+        // Return range from site
+        try { return _site.getBytesForFileRange(this, anOffset, aLength); }
+        catch (IOException e) { throw new RuntimeException("WebFile.getBytesForRange: Error reading " + getUrlAddress(), e); }
     }
 
     /**
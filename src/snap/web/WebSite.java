@@ -8,8 +8,18 @@ import snap.props.PropChangeSupport;
 import snap.util.FilePathUtils;
 import snap.util.FileUtils;
 import snap.util.SnapEnv;
+import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * This is an abstract class to provide data management (create, get, put, delete) and file management.
@@ -25,8 +35,14 @@ public abstract class WebSite {
     // The password for authentication purposes
     private String  _password;
 
-    // The map of files previously vended by this data source
-    private Map<String,WebFile>  _files = new HashMap<>();
+    // The map of files previously vended by this data source (soft values, so unreferenced files can be collected)
+    private Map<String,FileRef>  _files = new ConcurrentHashMap<>();
+
+    // The queue of collected file references (to purge from files map)
+    private ReferenceQueue<WebFile>  _fileRefQueue = new ReferenceQueue<>();
+
+    // The set of modified files (held strongly so unsaved changes are never collected)
+    private Set<WebFile>  _modifiedFiles = ConcurrentHashMap.newKeySet();
 
     // A WebSite that can be used for writing persistent support files
     private WebSite  _sandbox;
@@ -137,15 +153,15 @@ public abstract class WebSite {
     /**
      * Returns the unique file instance with the given path (or null if it doesn't exist).
      */
-    public synchronized WebFile getFileForPath(String aPath) throws ResponseException
+    public WebFile getFileForPath(String aPath) throws ResponseException
     {
         // Get file from cache (just return if found and previously verified and exists)
         String filePath = FilePathUtils.getNormalizedPath(aPath);
-        WebFile file = _files.get(filePath);
+        WebFile file = getCachedFile(filePath);
         if (file != null && file.isVerified() && file.getExists())
             return file;
 
-        // Get file
+        // Get file (no lock is held here, so concurrent lookups and network requests can proceed in parallel)
         file = getFileForPathImpl(filePath);
         if (file != null)
             file.setExists(true);
@@ -219,11 +235,11 @@ public abstract class WebSite {
     /**
      * Creates a file for given path, regardless of whether it is known to actually exist in site.
      */
-    public synchronized WebFile createFileForPath(String aPath, boolean isDir)
+    public WebFile createFileForPath(String aPath, boolean isDir)
     {
         // Get file from cache - just return if found
         String filePath = FilePathUtils.getNormalizedPath(aPath);
-        WebFile file = _files.get(filePath);
+        WebFile file = getCachedFile(filePath);
         if (file != null) {
             if (!file.isVerified() || !file.getExists())
                 file._dir = isDir;
@@ -231,19 +247,64 @@ public abstract class WebSite {
         }
 
         // Create and configure new file
-        file = new WebFile();
-        file._path = filePath;
-        file._dir = isDir;
-        file._site = this;
-
-        // Add to cache and start listening to file changes
-        _files.put(filePath, file);
-        file.addPropChangeListener(_fileLsnr);
+        WebFile newFile = new WebFile();
+        newFile._path = filePath;
+        newFile._dir = isDir;
+        newFile._site = this;
+
+        // Add to cache, unless another thread added live file first (map locks just this path's bin during compute)
+        WebFile[] fileHolder = new WebFile[1];
+        _files.compute(filePath, (path, fileRef) -> {
+            WebFile cachedFile = fileRef != null ? fileRef.get() : null;
+            if (cachedFile != null) {
+                fileHolder[0] = cachedFile;
+                return fileRef;
+            }
+            fileHolder[0] = newFile;
+            return new FileRef(newFile, _fileRefQueue);
+        });
+
+        // If file is new, start listening to file changes
+        file = fileHolder[0];
+        if (file == newFile)
+            file.addPropChangeListener(_fileLsnr);
+        else if (!file.isVerified() || !file.getExists())
+            file._dir = isDir;
 
         // Return
         return file;
     }
 
+    /**
+     * Returns the cached file for given normalized path, if previously vended and still referenced.
+     */
+    protected WebFile getCachedFile(String filePath)
+    {
+        // Purge collected file references
+        for (Object ref = _fileRefQueue.poll(); ref != null; ref = _fileRefQueue.poll()) {
+            FileRef fileRef = (FileRef) ref;
+            _files.remove(fileRef._path, fileRef);
+        }
+
+        // Return file for path
+        FileRef fileRef = _files.get(filePath);
+        return fileRef != null ? fileRef.get() : null;
+    }
+
+    /**
+     * Returns the files currently cached by site.
+     */
+    protected List<WebFile> getCachedFiles()
+    {
+        List<WebFile> files = new ArrayList<>(_files.size());
+        for (FileRef fileRef : _files.values()) {
+            WebFile file = fileRef.get();
+            if (file != null)
+                files.add(file);
+        }
+        return files;
+    }
+
     /**
      * Save file.
      */
@@ -369,6 +430,19 @@ public abstract class WebSite {
         return resp;
     }
 
+    /**
+     * Returns a future for response for a request, run on another thread.
+     */
+    public CompletableFuture<WebResponse> getResponseAsync(WebRequest aReq)
+    {
+        CompletableFuture<WebResponse> future = new CompletableFuture<>();
+        new Thread(() -> {
+            try { future.complete(getResponse(aReq)); }
+            catch (Throwable e) { future.completeExceptionally(e); }
+        }).start();
+        return future;
+    }
+
     /**
      * Handles a get or head request.
      */
@@ -407,12 +481,74 @@ public abstract class WebSite {
         aFile.setLastModTime(aTime);
     }
 
+    /**
+     * Returns an input stream for given file. Subclasses should override to stream without loading file bytes.
+     */
+    protected InputStream getInputStreamForFile(WebFile aFile) throws IOException
+    {
+        byte[] bytes = aFile.getBytes();
+        if (bytes == null)
+            throw new FileNotFoundException("WebSite.getInputStreamForFile: File not found: " + aFile.getUrlAddress());
+        return new ByteArrayInputStream(bytes);
+    }
+
+    /**
+     * Returns a channel for given file.
+     */
+    protected ReadableByteChannel getChannelForFile(WebFile aFile) throws IOException
+    {
+        InputStream inputStream = getInputStreamForFile(aFile);
+        return Channels.newChannel(inputStream);
+    }
+
+    /**
+     * Returns the bytes for given file range (trimmed to file end). Subclasses should override to read just the range.
+     * Called by WebFile.getBytesForRange() with validated range (non-negative offset and positive length).
+     */
+    protected byte[] getBytesForFileRange(WebFile aFile, long anOffset, int aLength) throws IOException
+    {
+        try (InputStream inputStream = getInputStreamForFile(aFile)) {
+
+            // Skip to offset (if end reached first, return empty)
+            for (long skipCount = 0; skipCount < anOffset; ) {
+                long count = inputStream.skip(anOffset - skipCount);
+                if (count <= 0) {
+                    if (inputStream.read() < 0)
+                        return new byte[0];
+                    count = 1;
+                }
+                skipCount += count;
+            }
+
+            // Read range
+            return readBytes(inputStream, aLength);
+        }
+    }
+
+    /**
+     * Reads up to given number of bytes from input stream (fewer if end is reached).
+     */
+    protected static byte[] readBytes(InputStream anInputStream, int aLength) throws IOException
+    {
+        byte[] bytes = new byte[Math.max(aLength, 0)];
+        int readCount = 0;
+        while (readCount < bytes.length) {
+            int count = anInputStream.read(bytes, readCount, bytes.length - readCount);
+            if (count < 0)
+                break;
+            readCount += count;
+        }
+
+        // Return bytes (trimmed if end reached)
+        return readCount < bytes.length ? Arrays.copyOf(bytes, readCount) : bytes;
+    }
+
     /**
      * Resets all loaded site files.
      */
-    public synchronized void resetFiles()
+    public void resetFiles()
     {
-        for (WebFile file : _files.values())
+        for (WebFile file : getCachedFiles())
             file.reset();
     }
 
@@ -581,6 +717,15 @@ public abstract class WebSite {
      */
     protected void fileDidPropChange(PropChange aPC)
     {
+        // If Modified, hold modified files strongly
+        if (aPC.getPropName() == WebFile.Modified_Prop) {
+            WebFile file = (WebFile) aPC.getSource();
+            if (file.isModified())
+                _modifiedFiles.add(file);
+            else _modifiedFiles.remove(file);
+        }
+
+        // Forward to site file listeners
         _filePCS.firePropChange(aPC);
     }
 
@@ -593,4 +738,22 @@ public abstract class WebSite {
         String className = getClass().getSimpleName();
         return className + ": " + getUrlAddress();
     }
+
+    /**
+     * A soft reference to a site file that remembers path (to remove from files map when collected).
+     */
+    private static class FileRef extends SoftReference<WebFile> {
+
+        // The file path
+        private String  _path;
+
+        /**
+         * Constructor.
+         */
+        FileRef(WebFile aFile, ReferenceQueue<WebFile> aQueue)
+        {
+            super(aFile, aQueue);
+            _path = aFile._path;
+        }
+    }
 }
\ No newline at end of file
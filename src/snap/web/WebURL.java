@@ -6,11 +6,14 @@ import snap.util.FilePathUtils;
 import snap.util.SnapEnv;
 import snap.util.SnapUtils;
 import snap.util.URLUtils;
+import snap.view.ViewUtils;
 import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.function.Consumer;
 
 /**
@@ -421,16 +424,32 @@ public class WebURL {
     }
 
     /**
-     * Returns bytes for this URL.
+     * Gets response for a Get request in background and calls given callback with it on UI thread.
      */
     public void getResponseAndCall(Consumer<WebResponse> aCallback)
     {
-        //CompletableFuture<WebResponse> getResponseAsync = CompletableFuture.supplyAsync(() -> getResponse());
-        //getResponseAsync.thenAccept(aCallback);
+        // Get response async and call callback on UI thread (if request fails, call with exception response)
+        WebRequest req = new WebRequest(this);
+        CompletableFuture<WebResponse> responseFuture = getSite().getResponseAsync(req);
+        responseFuture.whenComplete((resp, exception) -> {
+            WebResponse response = resp;
+            if (exception != null) {
+                response = new WebResponse(req);
+                response.setException(exception instanceof CompletionException ? exception.getCause() : exception);
+            }
+            WebResponse finalResponse = response;
+            ViewUtils.runLater(() -> aCallback.accept(finalResponse));
+        });
+    }
 
-        // Create Thread and runnable to fetch response and call callback
-        Runnable run = () -> aCallback.accept(getResponse());
-        new Thread(run).start();
+    /**
+     * Returns a future for Response for a Get request.
+     */
+    public CompletableFuture<WebResponse> getResponseAsync()
+    {
+        WebSite site = getSite();
+        WebRequest req = new WebRequest(this);
+        return site.getResponseAsync(req);
     }
 
     /**
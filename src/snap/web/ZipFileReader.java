@@ -0,0 +1,652 @@
+/*
+ * Copyright (c) 2010, ReportMill Software. All rights reserved.
+ */
+package snap.web;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipException;
+
+/**
+ * ZipFileReader - package class to read zip/jar files from a sorted index of the central directory.
+ *
+ * Entries are indexed by a single int array of central directory header offsets, sorted by entry name bytes, so
+ * opening a large archive allocates no per-entry objects. Lookups are binary searches and directories are resolved on
+ * demand from the sorted names (including directories with no explicit entry). Entry data is read with positional
+ * channel reads into heap buffers (nothing is mapped), so closing the reader releases the file.
+ */
+class ZipFileReader {
+
+    // The file channel
+    private FileChannel  _channel;
+
+    // The central directory
+    private ByteBuffer  _cen;
+
+    // A big endian view of central directory (to compare names 8 bytes at a time)
+    private ByteBuffer  _cenBigEndian;
+
+    // The central directory header offsets, in entry name order
+    private int[]  _cenOffsets;
+
+    // The offset of zip data in file (non-zero if data is prepended, like self-extracting archives)
+    private long  _baseOffset;
+
+    // Constants for record signatures
+    private static final int LOC_SIG = 0x04034b50;
+    private static final int CEN_SIG = 0x02014b50;
+    private static final int END_SIG = 0x06054b50;
+    private static final int ZIP64_END_SIG = 0x06064b50;
+    private static final int ZIP64_LOCATOR_SIG = 0x07064b50;
+
+    // Constants for record sizes
+    private static final int LOC_SIZE = 30;
+    private static final int CEN_SIZE = 46;
+    private static final int END_SIZE = 22;
+    private static final int ZIP64_END_SIZE = 56;
+    private static final int ZIP64_LOCATOR_SIZE = 20;
+
+    // Constants for compression methods
+    public static final int STORED = 0;
+    public static final int DEFLATED = 8;
+
+    /**
+     * Constructor.
+     */
+    public ZipFileReader(File aFile) throws IOException
+    {
+        _channel = FileChannel.open(aFile.toPath(), StandardOpenOption.READ);
+        try { readCentralDirectory(); }
+        catch (IOException | RuntimeException e) {
+            _channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the number of entries.
+     */
+    public int getEntryCount()  { return _cenOffsets.length; }
+
+    /**
+     * Returns the index of entry with given name (no leading slash, dirs end with slash), or -1 if not found.
+     */
+    public int getEntryIndex(String aName)
+    {
+        byte[] nameBytes = aName.getBytes(StandardCharsets.UTF_8);
+        int index = getLowerBound(nameBytes);
+        if (index < _cenOffsets.length && compareName(_cenOffsets[index], nameBytes) == 0)
+            return index;
+        return -1;
+    }
+
+    /**
+     * Returns whether given name (no leading slash or trailing slash) is a directory (explicit or implied by entries).
+     */
+    public boolean isDir(String aName)
+    {
+        if (aName.isEmpty())
+            return true;
+        byte[] prefixBytes = (aName + '/').getBytes(StandardCharsets.UTF_8);
+        int index = getLowerBound(prefixBytes);
+        return index < _cenOffsets.length && startsWith(_cenOffsets[index], prefixBytes);
+    }
+
+    /**
+     * Returns the names of the children of given directory name (empty for root, otherwise ending with slash).
+     * Child directory names end with slash. Each child directory subtree is skipped with a binary search.
+     */
+    public List<String> getChildNames(String aDirName)
+    {
+        // Get first entry with prefix
+        byte[] prefixBytes = aDirName.getBytes(StandardCharsets.UTF_8);
+        int prefixLength = prefixBytes.length;
+        int entryCount = _cenOffsets.length;
+        List<String> childNames = new ArrayList<>();
+
+        // Iterate over entries with prefix
+        for (int i = getLowerBound(prefixBytes); i < entryCount && startsWith(_cenOffsets[i], prefixBytes); ) {
+
+            // Get name location (skip dir entry itself)
+            int cenOffset = _cenOffsets[i];
+            int nameOffset = cenOffset + CEN_SIZE;
+            int nameLength = getU16(cenOffset + 28);
+            if (nameLength == prefixLength) {
+                i++;
+                continue;
+            }
+
+            // Get end of child segment
+            int segmentEnd = prefixLength;
+            while (segmentEnd < nameLength && _cen.get(nameOffset + segmentEnd) != '/')
+                segmentEnd++;
+
+            // If no slash, add file child
+            if (segmentEnd == nameLength) {
+                childNames.add(getString(nameOffset + prefixLength, nameLength - prefixLength));
+                i++;
+                continue;
+            }
+
+            // Add dir child and skip its subtree (names starting with segment + '/' end before segment + '0')
+            byte[] childBytes = new byte[segmentEnd + 1];
+            for (int j = 0; j < segmentEnd; j++)
+                childBytes[j] = _cen.get(nameOffset + j);
+            childBytes[segmentEnd] = '/';
+            if (segmentEnd > prefixLength)
+                childNames.add(getString(nameOffset + prefixLength, segmentEnd - prefixLength + 1));
+            childBytes[segmentEnd] = '/' + 1;
+            i = Math.max(getLowerBound(childBytes), i + 1);
+        }
+
+        // Return
+        return childNames;
+    }
+
+    /**
+     * Returns the entry name at given index.
+     */
+    public String getName(int anIndex)
+    {
+        int cenOffset = _cenOffsets[anIndex];
+        return getString(cenOffset + CEN_SIZE, getU16(cenOffset + 28));
+    }
+
+    /**
+     * Returns whether entry at given index is a directory entry.
+     */
+    public boolean isDirEntry(int anIndex)
+    {
+        int cenOffset = _cenOffsets[anIndex];
+        int nameLength = getU16(cenOffset + 28);
+        return nameLength > 0 && _cen.get(cenOffset + CEN_SIZE + nameLength - 1) == '/';
+    }
+
+    /**
+     * Returns the compression method of entry at given index.
+     */
+    public int getMethod(int anIndex)  { return getU16(_cenOffsets[anIndex] + 10); }
+
+    /**
+     * Returns the uncompressed size of entry at given index.
+     */
+    public long getSize(int anIndex)  { return getZip64Values(anIndex)[0]; }
+
+    /**
+     * Returns the last modified time of entry at given index (from DOS time, 0 if invalid).
+     */
+    public long getLastModTime(int anIndex)
+    {
+        // Get DOS time and date
+        int cenOffset = _cenOffsets[anIndex];
+        int dosTime = getU16(cenOffset + 12);
+        int dosDate = getU16(cenOffset + 14);
+
+        // Convert to local date time and return millis
+        try {
+            LocalDateTime dateTime = LocalDateTime.of(((dosDate >> 9) & 0x7F) + 1980, (dosDate >> 5) & 0xF, dosDate & 0x1F,
+                (dosTime >> 11) & 0x1F, (dosTime >> 5) & 0x3F, (dosTime & 0x1F) * 2);
+            return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        }
+        catch (DateTimeException e) { return 0; }
+    }
+
+    /**
+     * Returns a buffer with contents of entry at given index.
+     */
+    public ByteBuffer getEntryBuffer(int anIndex) throws IOException
+    {
+        // Get sizes, data offset and method
+        long[] values = getZip64Values(anIndex);
+        long size = values[0], compressedSize = values[1];
+        long dataOffset = getDataOffset(values[2]);
+        int method = getMethod(anIndex);
+        if (size > Integer.MAX_VALUE || compressedSize > Integer.MAX_VALUE)
+            throw new ZipException("ZipFileReader: Entry too large: " + getName(anIndex));
+
+        // Handle STORED: Read data
+        if (method == STORED)
+            return readBuffer(dataOffset, (int) size);
+
+        // Handle DEFLATED: Read compressed data and inflate into buffer
+        if (method == DEFLATED) {
+            ByteBuffer compressedBuffer = readBuffer(dataOffset, (int) compressedSize);
+            return ByteBuffer.wrap(inflate(compressedBuffer, (int) size));
+        }
+
+        // Complain
+        throw new ZipException("ZipFileReader: Unsupported compression method " + method + " for " + getName(anIndex));
+    }
+
+    /**
+     * Returns the bytes for entry at given index.
+     */
+    public byte[] getEntryBytes(int anIndex) throws IOException
+    {
+        ByteBuffer byteBuffer = getEntryBuffer(anIndex);
+        if (byteBuffer.hasArray() && byteBuffer.arrayOffset() == 0 && byteBuffer.remaining() == byteBuffer.array().length)
+            return byteBuffer.array();
+        byte[] bytes = new byte[byteBuffer.remaining()];
+        byteBuffer.get(bytes);
+        return bytes;
+    }
+
+    /**
+     * Returns the bytes for given range of entry at given index (truncated at end of entry).
+     * STORED entries read just the range from file.
+     */
+    public byte[] getEntryBytesForRange(int anIndex, long anOffset, int aLength) throws IOException
+    {
+        // Validate range
+        if (anOffset < 0 || aLength < 0)
+            throw new IllegalArgumentException("ZipFileReader.getEntryBytesForRange: Invalid range: " + anOffset + ", " + aLength);
+
+        // If STORED, read range from file
+        if (getMethod(anIndex) == STORED) {
+            long[] values = getZip64Values(anIndex);
+            long size = values[0];
+            int length = (int) Math.max(Math.min(aLength, size - anOffset), 0);
+            if (length == 0)
+                return new byte[0];
+            long dataOffset = getDataOffset(values[2]);
+            return readBuffer(dataOffset + anOffset, length).array();
+        }
+
+        // Otherwise, get entry bytes and copy range
+        byte[] bytes = getEntryBytes(anIndex);
+        int offset = (int) Math.min(anOffset, bytes.length);
+        int length = Math.min(aLength, bytes.length - offset);
+        return Arrays.copyOfRange(bytes, offset, offset + length);
+    }
+
+    /**
+     * Returns an input stream for entry at given index (reads data from file as needed, inflating if needed).
+     */
+    public InputStream getEntryInputStream(int anIndex) throws IOException
+    {
+        // Get sizes, data offset and method
+        long[] values = getZip64Values(anIndex);
+        long size = values[0], compressedSize = values[1];
+        long dataOffset = getDataOffset(values[2]);
+        int method = getMethod(anIndex);
+
+        // Handle STORED
+        if (method == STORED)
+            return new ChannelInputStream(dataOffset, size, false);
+
+        // Handle DEFLATED (with extra dummy byte, which raw inflate can need at end of input)
+        if (method == DEFLATED) {
+            Inflater inflater = new Inflater(true);
+            return new InflaterInputStream(new ChannelInputStream(dataOffset, compressedSize, true), inflater, 8192) {
+                public void close() throws IOException  { super.close(); inflater.end(); }
+            };
+        }
+
+        // Complain
+        throw new ZipException("ZipFileReader: Unsupported compression method " + method + " for " + getName(anIndex));
+    }
+
+    /**
+     * Closes file.
+     */
+    public void close() throws IOException
+    {
+        _channel.close();
+    }
+
+    /**
+     * Finds end record, reads central directory and builds sorted offsets index.
+     */
+    private void readCentralDirectory() throws IOException
+    {
+        // Read file tail (end record plus max comment)
+        long fileSize = _channel.size();
+        int tailSize = (int) Math.min(fileSize, 0xFFFF + END_SIZE);
+        long tailOffset = fileSize - tailSize;
+        ByteBuffer tail = readBuffer(tailOffset, tailSize);
+
+        // Find end record
+        int endOffset = tailSize - END_SIZE;
+        while (endOffset >= 0 && tail.getInt(endOffset) != END_SIG)
+            endOffset--;
+        if (endOffset < 0)
+            throw new ZipException("ZipFileReader: End of central directory not found");
+
+        // Get entry count, central directory size and offset
+        long entryCount = tail.getShort(endOffset + 10) & 0xFFFF;
+        long cenSize = tail.getInt(endOffset + 12) & 0xFFFFFFFFL;
+        long cenOffset = tail.getInt(endOffset + 16) & 0xFFFFFFFFL;
+
+        // If Zip64 locator found, get values from Zip64 end record
+        int locatorOffset = endOffset - ZIP64_LOCATOR_SIZE;
+        if (locatorOffset >= 0 && tail.getInt(locatorOffset) == ZIP64_LOCATOR_SIG) {
+            ByteBuffer zip64End = readBuffer(tail.getLong(locatorOffset + 8), ZIP64_END_SIZE);
+            if (zip64End.getInt(0) != ZIP64_END_SIG)
+                throw new ZipException("ZipFileReader: Invalid Zip64 end of central directory");
+            entryCount = zip64End.getLong(32);
+            cenSize = zip64End.getLong(40);
+            cenOffset = zip64End.getLong(48);
+        }
+
+        // Otherwise, get base offset from actual central directory location (in case data is prepended)
+        else _baseOffset = Math.max(tailOffset + endOffset - cenSize - cenOffset, 0);
+
+        // Read central directory
+        if (cenSize > Integer.MAX_VALUE || entryCount > Integer.MAX_VALUE)
+            throw new ZipException("ZipFileReader: Central directory too large");
+        _cen = readBuffer(_baseOffset + cenOffset, (int) cenSize);
+        _cenBigEndian = _cen.duplicate().order(ByteOrder.BIG_ENDIAN);
+
+        // Get central directory header offsets
+        int[] cenOffsets = new int[(int) entryCount];
+        int offset = 0;
+        for (int i = 0; i < cenOffsets.length; i++) {
+            if (offset + CEN_SIZE > cenSize || _cen.getInt(offset) != CEN_SIG)
+                throw new ZipException("ZipFileReader: Invalid central directory header");
+            cenOffsets[i] = offset;
+            offset += CEN_SIZE + getU16(offset + 28) + getU16(offset + 30) + getU16(offset + 32);
+        }
+
+        // Sort by name and set
+        sortByName(cenOffsets, new int[cenOffsets.length], 0, cenOffsets.length);
+        _cenOffsets = cenOffsets;
+    }
+
+    /**
+     * Returns the uncompressed size, compressed size and local header offset of entry (with Zip64 extra values).
+     */
+    private long[] getZip64Values(int anIndex)
+    {
+        // Get 32 bit values
+        int cenOffset = _cenOffsets[anIndex];
+        long[] values = { _cen.getInt(cenOffset + 24) & 0xFFFFFFFFL, _cen.getInt(cenOffset + 20) & 0xFFFFFFFFL,
+            _cen.getInt(cenOffset + 42) & 0xFFFFFFFFL };
+        if (values[0] != 0xFFFFFFFFL && values[1] != 0xFFFFFFFFL && values[2] != 0xFFFFFFFFL)
+            return values;
+
+        // Find Zip64 extra field and replace saturated values (in order) with 64 bit values
+        int extraOffset = cenOffset + CEN_SIZE + getU16(cenOffset + 28);
+        int extraEnd = extraOffset + getU16(cenOffset + 30);
+        while (extraOffset + 4 <= extraEnd) {
+            int headerId = getU16(extraOffset);
+            int dataSize = getU16(extraOffset + 2);
+            if (headerId == 0x0001) {
+                int valueOffset = extraOffset + 4;
+                for (int i = 0; i < values.length; i++) {
+                    if (values[i] == 0xFFFFFFFFL && valueOffset + 8 <= extraOffset + 4 + dataSize) {
+                        values[i] = _cen.getLong(valueOffset);
+                        valueOffset += 8;
+                    }
+                }
+                break;
+            }
+            extraOffset += 4 + dataSize;
+        }
+
+        // Return
+        return values;
+    }
+
+    /**
+     * Returns the file offset of entry data for given local header offset.
+     */
+    private long getDataOffset(long aLocalHeaderOffset) throws IOException
+    {
+        long localOffset = _baseOffset + aLocalHeaderOffset;
+        ByteBuffer localHeader = readBuffer(localOffset, LOC_SIZE);
+        if (localHeader.getInt(0) != LOC_SIG)
+            throw new ZipException("ZipFileReader: Invalid local header");
+        int nameLength = localHeader.getShort(26) & 0xFFFF;
+        int extraLength = localHeader.getShort(28) & 0xFFFF;
+        return localOffset + LOC_SIZE + nameLength + extraLength;
+    }
+
+    /**
+     * Returns the index of first entry with name greater than or equal to given name bytes.
+     */
+    private int getLowerBound(byte[] theBytes)
+    {
+        int low = 0, high = _cenOffsets.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compareName(_cenOffsets[mid], theBytes) < 0)
+                low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+
+    /**
+     * Compares name of entry at given central directory offset to given bytes (unsigned).
+     */
+    private int compareName(int aCenOffset, byte[] theBytes)
+    {
+        int nameOffset = aCenOffset + CEN_SIZE;
+        int nameLength = getU16(aCenOffset + 28);
+        int length = Math.min(nameLength, theBytes.length);
+        for (int i = 0; i < length; i++) {
+            int diff = (_cen.get(nameOffset + i) & 0xFF) - (theBytes[i] & 0xFF);
+            if (diff != 0)
+                return diff;
+        }
+        return nameLength - theBytes.length;
+    }
+
+    /**
+     * Compares names of entries at given central directory offsets (unsigned).
+     */
+    private int compareNames(int aCenOffset1, int aCenOffset2)
+    {
+        int nameOffset1 = aCenOffset1 + CEN_SIZE, nameLength1 = getU16(aCenOffset1 + 28);
+        int nameOffset2 = aCenOffset2 + CEN_SIZE, nameLength2 = getU16(aCenOffset2 + 28);
+        int length = Math.min(nameLength1, nameLength2);
+        int i = 0;
+
+        // Compare 8 bytes at a time (big endian unsigned long order is byte order)
+        for (; i + 8 <= length; i += 8) {
+            long long1 = _cenBigEndian.getLong(nameOffset1 + i);
+            long long2 = _cenBigEndian.getLong(nameOffset2 + i);
+            if (long1 != long2)
+                return Long.compareUnsigned(long1, long2);
+        }
+
+        // Compare remaining bytes
+        for (; i < length; i++) {
+            int diff = (_cen.get(nameOffset1 + i) & 0xFF) - (_cen.get(nameOffset2 + i) & 0xFF);
+            if (diff != 0)
+                return diff;
+        }
+        return nameLength1 - nameLength2;
+    }
+
+    /**
+     * Returns whether name of entry at given central directory offset starts with given bytes.
+     */
+    private boolean startsWith(int aCenOffset, byte[] theBytes)
+    {
+        if (getU16(aCenOffset + 28) < theBytes.length)
+            return false;
+        int nameOffset = aCenOffset + CEN_SIZE;
+        for (int i = 0; i < theBytes.length; i++)
+            if (_cen.get(nameOffset + i) != theBytes[i])
+                return false;
+        return true;
+    }
+
+    /**
+     * Merge sorts given range of central directory offsets by entry name.
+     */
+    private void sortByName(int[] theOffsets, int[] theTemp, int aStart, int anEnd)
+    {
+        // If small range, do insertion sort
+        if (anEnd - aStart <= 16) {
+            for (int i = aStart + 1; i < anEnd; i++) {
+                int offset = theOffsets[i];
+                int j = i - 1;
+                while (j >= aStart && compareNames(theOffsets[j], offset) > 0) {
+                    theOffsets[j + 1] = theOffsets[j];
+                    j--;
+                }
+                theOffsets[j + 1] = offset;
+            }
+            return;
+        }
+
+        // Sort halves
+        int mid = (aStart + anEnd) >>> 1;
+        sortByName(theOffsets, theTemp, aStart, mid);
+        sortByName(theOffsets, theTemp, mid, anEnd);
+
+        // If already ordered, just return
+        if (compareNames(theOffsets[mid - 1], theOffsets[mid]) <= 0)
+            return;
+
+        // Merge halves
+        System.arraycopy(theOffsets, aStart, theTemp, aStart, anEnd - aStart);
+        for (int i = aStart, left = aStart, right = mid; i < anEnd; i++) {
+            if (right >= anEnd || left < mid && compareNames(theTemp[left], theTemp[right]) <= 0)
+                theOffsets[i] = theTemp[left++];
+            else theOffsets[i] = theTemp[right++];
+        }
+    }
+
+    /**
+     * Returns unsigned short from central directory at given offset.
+     */
+    private int getU16(int anOffset)  { return _cen.getShort(anOffset) & 0xFFFF; }
+
+    /**
+     * Returns UTF-8 string from central directory at given offset and length.
+     */
+    private String getString(int anOffset, int aLength)
+    {
+        byte[] bytes = new byte[aLength];
+        for (int i = 0; i < aLength; i++)
+            bytes[i] = _cen.get(anOffset + i);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads a little endian buffer of given length at given file offset.
+     */
+    private ByteBuffer readBuffer(long anOffset, int aLength) throws IOException
+    {
+        ByteBuffer byteBuffer = ByteBuffer.allocate(aLength).order(ByteOrder.LITTLE_ENDIAN);
+        while (byteBuffer.hasRemaining()) {
+            if (_channel.read(byteBuffer, anOffset + byteBuffer.position()) < 0)
+                throw new ZipException("ZipFileReader: Unexpected end of file");
+        }
+        byteBuffer.rewind();
+        return byteBuffer;
+    }
+
+    /**
+     * Inflates given raw deflate data into byte array of given size.
+     */
+    private static byte[] inflate(ByteBuffer theData, int aSize) throws IOException
+    {
+        byte[] bytes = new byte[aSize];
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(theData);
+            int count = 0;
+            boolean dummyAdded = false;
+            while (count < aSize && !inflater.finished()) {
+                int inflateCount = inflater.inflate(bytes, count, aSize - count);
+                count += inflateCount;
+                if (inflateCount == 0 && inflater.needsInput()) {
+                    if (dummyAdded)
+                        throw new ZipException("ZipFileReader: Unexpected end of compressed data");
+                    inflater.setInput(new byte[1]);
+                    dummyAdded = true;
+                }
+                else if (inflateCount == 0 && inflater.needsDictionary())
+                    throw new ZipException("ZipFileReader: Inflate needs dictionary");
+            }
+            if (count < aSize)
+                throw new ZipException("ZipFileReader: Compressed data shorter than entry size");
+            return bytes;
+        }
+        catch (DataFormatException e) { throw new ZipException("ZipFileReader: " + e.getMessage()); }
+        finally { inflater.end(); }
+    }
+
+    /**
+     * An input stream for a range of file (with option to add dummy byte at end for raw inflate).
+     */
+    private class ChannelInputStream extends InputStream {
+
+        // The current file position
+        private long  _position;
+
+        // The end file position
+        private long  _end;
+
+        // Whether to add dummy byte at end
+        private boolean  _addDummyByte;
+
+        /**
+         * Constructor.
+         */
+        ChannelInputStream(long anOffset, long aLength, boolean addDummyByte)
+        {
+            _position = anOffset;
+            _end = anOffset + aLength;
+            _addDummyByte = addDummyByte;
+        }
+
+        /**
+         * Reads a byte.
+         */
+        public int read() throws IOException
+        {
+            byte[] bytes = new byte[1];
+            return read(bytes, 0, 1) > 0 ? bytes[0] & 0xFF : -1;
+        }
+
+        /**
+         * Reads bytes into array.
+         */
+        public int read(byte[] theBytes, int anOffset, int aLength) throws IOException
+        {
+            if (aLength == 0)
+                return 0;
+
+            // If at end, return dummy byte once (if requested)
+            if (_position >= _end) {
+                if (!_addDummyByte)
+                    return -1;
+                _addDummyByte = false;
+                theBytes[anOffset] = 0;
+                return 1;
+            }
+
+            // Read bytes at position
+            int length = (int) Math.min(aLength, _end - _position);
+            int count = _channel.read(ByteBuffer.wrap(theBytes, anOffset, length), _position);
+            if (count < 0)
+                throw new ZipException("ZipFileReader: Unexpected end of file");
+            _position += count;
+            return count;
+        }
+
+        /**
+         * Returns available bytes.
+         */
+        public int available()  { return (int) Math.min(_end - _position, Integer.MAX_VALUE); }
+    }
+}
@@ -7,10 +7,14 @@ import java.util.*;
 import java.util.jar.JarFile;
 import java.util.zip.*;
 import snap.util.FilePathUtils;
+import snap.util.SnapEnv;
 import snap.util.SnapUtils;
 
 /**
  * A WebSite subclass for Zip and Jar files.
+ *
+ * On desktop, files are read with a ZipFileReader (sorted index of central directory), so opening
+ * a large archive is fast and directories are resolved on demand. Otherwise, falls back to java.util.zip.
  */
 public class ZipFileSite extends WebSite {
 
@@ -22,7 +26,13 @@ public class ZipFileSite extends WebSite {
     
     // A map of directory paths to List of child paths
     private Map<String,List<String>> _dirs;
-    
+
+    // The zip file reader
+    private ZipFileReader  _zipReader;
+
+    // Whether zip file reader has been loaded
+    private boolean  _zipReaderLoaded;
+
     /**
      * Constructor.
      */
@@ -83,6 +93,33 @@ public class ZipFileSite extends WebSite {
         catch(IOException e) { throw new RuntimeException("ZipFileSite.getJavaZipFile: Error opening " + localZipFileJavaFile.getPath(), e); }
     }
 
+    /**
+     * Returns the zip file reader (null if not supported or zip file can't be read by it).
+     */
+    private synchronized ZipFileReader getZipReader()
+    {
+        // If already loaded, just return
+        if (_zipReaderLoaded) return _zipReader;
+        _zipReaderLoaded = true;
+
+        // If not desktop, just return (memory-mapping not supported)
+        if (!SnapEnv.isDesktop)
+            return null;
+
+        // Get java file
+        WebFile localZipFile = getLocalZipFile();
+        File localZipFileJavaFile = localZipFile != null ? localZipFile.getJavaFile() : null;
+        if (localZipFileJavaFile == null)
+            return null;
+
+        // Create reader (if fails, fall back to java.util.zip)
+        try { return _zipReader = new ZipFileReader(localZipFileJavaFile); }
+        catch (IOException e) {
+            System.err.println("ZipFileSite.getZipReader: Using java.util.zip for " + localZipFileJavaFile.getPath() + ": " + e);
+            return null;
+        }
+    }
+
     /**
      * Returns a map of ZipFile paths to ZipEntry(s).
      */
@@ -176,11 +213,22 @@ public class ZipFileSite extends WebSite {
         if (isHead)
             return;
 
+        // If zip reader available, get/set file bytes or dir FileHeaders from it
+        ZipFileReader zipReader = getZipReader();
+        if (zipReader != null) {
+            if (fileHeader.isFile()) {
+                try { aResp.setBytes(zipReader.getEntryBytes(zipReader.getEntryIndex(filePath.substring(1)))); }
+                catch (IOException e) { aResp.setException(e); }
+            }
+            else aResp.setFileHeaders(getFileHeadersForDirPath(zipReader, filePath));
+            return;
+        }
+
         // If file, get/set file bytes
         if (fileHeader.isFile()) {
             try {
                 ZipEntry zipEntry = getEntries().get(filePath);
-                InputStream inputStream = _javaZipFile.getInputStream(zipEntry);
+                InputStream inputStream = getJavaZipFile().getInputStream(zipEntry);
                 byte[] bytes = SnapUtils.getInputStreamBytes(inputStream);
                 aResp.setBytes(bytes);
             }
@@ -209,11 +257,120 @@ public class ZipFileSite extends WebSite {
         }
     }
 
+    /**
+     * Override to stream (inflate) zip entry.
+     */
+    @Override
+    protected InputStream getInputStreamForFile(WebFile aFile) throws IOException
+    {
+        // If zip reader available, return stream from it
+        ZipFileReader zipReader = getZipReader();
+        if (zipReader != null)
+            return zipReader.getEntryInputStream(getReaderFileIndex(zipReader, aFile));
+
+        // Return stream from java zip file
+        ZipEntry zipEntry = getEntries().get(aFile.getPath());
+        if (zipEntry == null || zipEntry.isDirectory())
+            throw new FileNotFoundException("ZipFileSite.getInputStreamForFile: Entry not found: " + aFile.getPath());
+        return getJavaZipFile().getInputStream(zipEntry);
+    }
+
+    /**
+     * Override to read STORED entries range directly from file.
+     */
+    @Override
+    protected byte[] getBytesForFileRange(WebFile aFile, long anOffset, int aLength) throws IOException
+    {
+        // If zip reader available and entry is STORED, return range from it
+        ZipFileReader zipReader = getZipReader();
+        if (zipReader != null) {
+            int entryIndex = getReaderFileIndex(zipReader, aFile);
+            if (zipReader.getMethod(entryIndex) == ZipFileReader.STORED)
+                return zipReader.getEntryBytesForRange(entryIndex, anOffset, aLength);
+        }
+
+        // Do normal version
+        return super.getBytesForFileRange(aFile, anOffset, aLength);
+    }
+
+    /**
+     * Override to also close zip files (so they aren't held open, which locks them on Windows).
+     */
+    @Override
+    public void resetFiles()
+    {
+        super.resetFiles();
+        closeZipFiles();
+    }
+
+    /**
+     * Closes zip reader and java zip file (they are reopened on demand).
+     */
+    private synchronized void closeZipFiles()
+    {
+        // Close zip reader
+        if (_zipReader != null) {
+            try { _zipReader.close(); }
+            catch (IOException e) { System.err.println("ZipFileSite.closeZipFiles: " + e); }
+        }
+        _zipReader = null;
+        _zipReaderLoaded = false;
+
+        // Close java zip file and clear entries
+        if (_javaZipFile != null) {
+            try { _javaZipFile.close(); }
+            catch (IOException e) { System.err.println("ZipFileSite.closeZipFiles: " + e); }
+        }
+        _javaZipFile = null;
+        _entries = null;
+        _dirs = null;
+    }
+
+    /**
+     * Returns the zip reader entry index for given file (throws FileNotFoundException if not found or directory).
+     */
+    private static int getReaderFileIndex(ZipFileReader zipReader, WebFile aFile) throws FileNotFoundException
+    {
+        int entryIndex = zipReader.getEntryIndex(aFile.getPath().substring(1));
+        if (entryIndex < 0 || zipReader.isDirEntry(entryIndex))
+            throw new FileNotFoundException("ZipFileSite: Entry not found: " + aFile.getPath());
+        return entryIndex;
+    }
+
+    /**
+     * Returns the FileHeaders for children of given directory path from zip reader.
+     */
+    private List<FileHeader> getFileHeadersForDirPath(ZipFileReader zipReader, String aDirPath)
+    {
+        // Get child names of dir
+        String dirName = aDirPath.length() > 1 ? aDirPath.substring(1) + '/' : "";
+        List<String> childNames = zipReader.getChildNames(dirName);
+        List<FileHeader> fileHeaders = new ArrayList<>(childNames.size());
+
+        // Iterate over child names and add file headers
+        for (String childName : childNames) {
+            if (childName.endsWith("/"))
+                childName = childName.substring(0, childName.length() - 1);
+            String childPath = FilePathUtils.getChildPath(aDirPath, childName);
+            FileHeader fileHeader = getFileHeaderForFilePath(childPath);
+            if (fileHeader != null)
+                fileHeaders.add(fileHeader);
+        }
+
+        // Return
+        return fileHeaders;
+    }
+
     /**
      * Returns a data source file for given path (if file exists).
      */
     private FileHeader getFileHeaderForFilePath(String aPath)
     {
+        // If zip reader available, get from it
+        ZipFileReader zipReader = getZipReader();
+        if (zipReader != null)
+            return getFileHeaderForFilePath(zipReader, aPath);
+
         // Get ZipEntry for path - if not found and not directory, just return
         ZipEntry zipEntry = getEntries().get(aPath);
         if (zipEntry == null && _dirs.get(aPath) == null)
@@ -235,4 +392,32 @@ public class ZipFileSite extends WebSite {
         // Return
         return fileHeader;
     }
-}
\ No newline at end of file
+
+    /**
+     * Returns a file header for given path from zip reader (if file exists).
+     */
+    private static FileHeader getFileHeaderForFilePath(ZipFileReader zipReader, String aPath)
+    {
+        // Get entry index for file or explicit dir entry - if not found and not implied dir, just return
+        String name = aPath.substring(1);
+        int entryIndex = name.isEmpty() ? -1 : zipReader.getEntryIndex(name);
+        boolean isDir = entryIndex < 0 || zipReader.isDirEntry(entryIndex);
+        if (entryIndex < 0) {
+            if (!zipReader.isDir(name))
+                return null;
+            entryIndex = name.isEmpty() ? -1 : zipReader.getEntryIndex(name + '/');
+        }
+
+        // Create FileHeader and return
+        FileHeader fileHeader = new FileHeader(aPath, isDir);
+        fileHeader.setLastModTime(1000);
+        if (entryIndex >= 0) {
+            long lastModTime = zipReader.getLastModTime(entryIndex);
+            fileHeader.setLastModTime(lastModTime != 0 ? lastModTime : 1000);
+            fileHeader.setSize(zipReader.getSize(entryIndex));
+        }
+
+        // Return
+        return fileHeader;
+    }
+}